@@ -0,0 +1,148 @@
+package team6458.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import team6458.auto.AutoRoutes;
+import team6458.cmd.AutoDeliverCommand.AllianceSide;
+import team6458.control.DriveStraightController;
+import team6458.control.PidRotateController;
+import team6458.control.ProfiledDriveController;
+import team6458.control.ProfiledRotateController;
+import team6458.control.PurePursuitController;
+import team6458.control.RotateController;
+import team6458.sensor.PoseEstimator;
+import team6458.sim.SimHardware;
+import team6458.util.PlateAssignment.PlateSide;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the work the autonomous commands do every loop in {@code execute()} and {@code isFinished()},
+ * against simulated hardware: reading the sensors, running the controller into the drive, checking whether it has
+ * finished, and one physics step. A controller that finishes is restarted, as the next command in a route would be.
+ * With the gc profiler this also shows whether a loop allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandLoopBenchmark {
+
+    private static final double PERIOD = 0.02;
+
+    private SimHardware hardware;
+    private DriveStraightController driveStraight;
+    private RotateController rotate;
+    private PidRotateController pidRotate;
+    private ProfiledRotateController profiledRotate;
+    private ProfiledDriveController profiledDrive;
+    private PurePursuitController pursuit;
+    private final PoseEstimator pose = new PoseEstimator();
+
+    @Setup
+    public void setup() {
+        hardware = new SimHardware();
+        driveStraight = new DriveStraightController(3.0, DriveStraightController.createThrottleGradient(
+                AutoRoutes.DEFAULT_THROTTLE, 3.0), DriveStraightController.GYRO_CORRECTION);
+        driveStraight.start(hardware.gyro.getAngle(), hardware.getAverageDistance());
+        rotate = new RotateController(90.0, RotateController.DEFAULT_GRADIENT, RotateController.ANGLE_TOLERANCE);
+        rotate.start(hardware.gyro.getAngle());
+        pidRotate = new PidRotateController(90.0);
+        pidRotate.start(hardware.gyro.getAngle());
+        profiledRotate = new ProfiledRotateController(90.0, ProfiledRotateController.DEFAULT_CONSTRAINTS);
+        profiledRotate.start(hardware.clock.getTimestamp(), hardware.gyro.getAngle());
+        profiledDrive = new ProfiledDriveController(3.0, ProfiledDriveController.DEFAULT_CONSTRAINTS,
+                DriveStraightController.GYRO_CORRECTION);
+        profiledDrive.start(hardware.clock.getTimestamp(), hardware.gyro.getAngle(), hardware.getAverageDistance());
+        pursuit = new PurePursuitController(AutoRoutes.getDeliveryPath(AllianceSide.LEFT, PlateSide.RIGHT,
+                AutoRoutes.DEFAULT_PATH_CONSTRAINTS));
+        pose.reset(0.0, 0.0, 0.0);
+        pursuit.start(0.0, 0.0, 0.0);
+    }
+
+    @Benchmark
+    public boolean driveStraightLoop() {
+        final double heading = hardware.gyro.getAngle();
+        final double distance = hardware.getAverageDistance();
+        driveStraight.update(heading, distance, hardware.drive);
+        hardware.step(PERIOD);
+        if (driveStraight.isFinished(distance)) {
+            driveStraight.start(heading, distance);
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean rotateLoop() {
+        final double heading = hardware.gyro.getAngle();
+        rotate.update(heading, hardware.drive);
+        hardware.step(PERIOD);
+        if (rotate.isFinished(heading)) {
+            rotate.start(heading);
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean pidRotateLoop() {
+        final double now = hardware.clock.getTimestamp();
+        final double heading = hardware.gyro.getAngle();
+        final double rate = hardware.gyro.getRate();
+        pidRotate.update(now, heading, rate, hardware.drive);
+        hardware.step(PERIOD);
+        if (pidRotate.isFinished(now, heading, rate)) {
+            pidRotate.start(heading);
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean profiledRotateLoop() {
+        final double now = hardware.clock.getTimestamp();
+        final double heading = hardware.gyro.getAngle();
+        profiledRotate.update(now, heading, hardware.gyro.getRate(), hardware.drive);
+        hardware.step(PERIOD);
+        if (profiledRotate.isFinished(now, heading)) {
+            profiledRotate.start(now, heading);
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean profiledDriveLoop() {
+        final double now = hardware.clock.getTimestamp();
+        final double heading = hardware.gyro.getAngle();
+        final double distance = hardware.getAverageDistance();
+        profiledDrive.update(now, heading, distance, hardware.drive);
+        hardware.step(PERIOD);
+        if (profiledDrive.isFinished(now, distance)) {
+            profiledDrive.start(now, heading, distance);
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean followPathLoop() {
+        pose.update(hardware.leftEncoder.getDistance(), hardware.rightEncoder.getDistance(),
+                hardware.leftEncoder.getRate(), hardware.rightEncoder.getRate(), 0, hardware.gyro.getAngle(),
+                hardware.gyro.getRate(), true);
+        pursuit.update(pose.getX(), pose.getY(), pose.getHeading(), hardware.drive);
+        hardware.step(PERIOD);
+        if (pursuit.isFinished()) {
+            // The path is in field coordinates, so the pose starts over from its beginning
+            pose.reset(0.0, 0.0, 0.0);
+            pursuit.start(0.0, 0.0, 0.0);
+            return true;
+        }
+        return false;
+    }
+}
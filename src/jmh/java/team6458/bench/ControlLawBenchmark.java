@@ -0,0 +1,65 @@
+package team6458.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import team6458.control.DriveStraightController;
+import team6458.control.RotateController;
+import team6458.util.ValueGradient;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the control laws evaluated by the drive and rotate commands in {@code execute()} and
+ * {@code isFinished()}, and by the heading control loop. See {@link SimulatedLoopBenchmark} for whole loops.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ControlLawBenchmark {
+
+    private static final int INPUTS = 1024;
+    private static final double ORIGINAL = 0.0;
+    private static final double TARGET = 45.0;
+
+    private final ValueGradient gradient = RotateController.DEFAULT_GRADIENT;
+    private final double[] headings = new double[INPUTS];
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(6458);
+        for (int i = 0; i < INPUTS; i++) {
+            // Includes overshoot past the target
+            headings[i] = random.nextDouble() * 60.0 - 5.0;
+        }
+    }
+
+    private double nextHeading() {
+        index = (index + 1) & (INPUTS - 1);
+        return headings[index];
+    }
+
+    @Benchmark
+    public double rotateThrottle() {
+        return RotateController.getThrottle(gradient, nextHeading(), ORIGINAL, TARGET,
+                RotateController.ANGLE_TOLERANCE);
+    }
+
+    @Benchmark
+    public boolean rotateComplete() {
+        return RotateController.isRotationComplete(nextHeading(), ORIGINAL, TARGET,
+                RotateController.ANGLE_TOLERANCE);
+    }
+
+    @Benchmark
+    public double headingCorrection() {
+        return DriveStraightController.getHeadingCorrection(nextHeading() - TARGET,
+                DriveStraightController.GYRO_CORRECTION);
+    }
+}
@@ -0,0 +1,60 @@
+package team6458.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import team6458.control.ProfiledDriveController;
+import team6458.control.ProfiledRotateController;
+import team6458.control.profile.MotionProfile;
+import team6458.control.profile.MotionProfiles;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for sampling a {@link MotionProfile} in the loop, against the {@link ValueGradientBenchmark} it
+ * replaces, and for generating a profile, which happens once per segment when a route is built.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MotionProfileBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    private final MotionProfile driveProfile = MotionProfiles.get(2.4, ProfiledDriveController.DEFAULT_CONSTRAINTS);
+
+    private final double[] times = new double[INPUTS];
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(6458);
+        for (int i = 0; i < INPUTS; i++) {
+            times[i] = random.nextDouble() * (driveProfile.getDuration() + 0.5);
+        }
+    }
+
+    @Benchmark
+    public double sampleDriveProfile() {
+        index = (index + 1) & (INPUTS - 1);
+        final double t = times[index];
+        return driveProfile.getPosition(t) + driveProfile.getVelocity(t) + driveProfile.getAcceleration(t);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MotionProfile generateDriveProfile() {
+        return MotionProfiles.generate(2.4, ProfiledDriveController.DEFAULT_CONSTRAINTS);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MotionProfile generateRotateProfile() {
+        return MotionProfiles.generate(90.0, ProfiledRotateController.DEFAULT_CONSTRAINTS);
+    }
+}
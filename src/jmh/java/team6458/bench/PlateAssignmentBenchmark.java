@@ -0,0 +1,40 @@
+package team6458.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import team6458.util.PlateAssignment;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link PlateAssignment#fromString(String)}. Every valid state is parsed in turn, as well as lower
+ * case input and a message that is too short.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlateAssignmentBenchmark {
+
+    private final String[] validMessages = {"LLL", "RRR", "LRL", "RLR"};
+    private int index = 0;
+
+    @Benchmark
+    public PlateAssignment fromStringValid() {
+        index = (index + 1) & 3;
+        return PlateAssignment.fromString(validMessages[index]);
+    }
+
+    @Benchmark
+    public PlateAssignment fromStringLowerCase() {
+        return PlateAssignment.fromString("rlr");
+    }
+
+    @Benchmark
+    public PlateAssignment fromStringTooShort() {
+        return PlateAssignment.fromString("L");
+    }
+}
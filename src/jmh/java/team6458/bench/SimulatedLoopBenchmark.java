@@ -0,0 +1,67 @@
+package team6458.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import team6458.control.DriveStraightController;
+import team6458.control.RotateController;
+import team6458.sim.SimHardware;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for a whole control loop of the drive and rotate controllers against simulated hardware: reading the
+ * sensors, running the control law, mixing the drive output, and one physics step. With the gc profiler this also
+ * shows whether a loop allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SimulatedLoopBenchmark {
+
+    private static final double PERIOD = 0.02;
+
+    private SimHardware hardware;
+    private DriveStraightController drive;
+    private RotateController rotate;
+
+    @Setup
+    public void setup() {
+        hardware = new SimHardware();
+        // Long enough that neither finishes during a run, the controllers are restarted if they do
+        drive = new DriveStraightController(-1.0e6, DriveStraightController.createThrottleGradient(0.6, 1.0e6),
+                DriveStraightController.GYRO_CORRECTION);
+        drive.start(hardware.gyro.getAngle(), hardware.getAverageDistance());
+        rotate = new RotateController(1.0e6, RotateController.DEFAULT_GRADIENT, RotateController.ANGLE_TOLERANCE);
+        rotate.start(hardware.gyro.getAngle());
+    }
+
+    @Benchmark
+    public boolean driveStraightLoop() {
+        final double heading = hardware.gyro.getAngle();
+        final double distance = hardware.getAverageDistance();
+        drive.update(heading, distance, hardware.drive);
+        hardware.step(PERIOD);
+        if (drive.isFinished(distance)) {
+            drive.start(heading, distance);
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean rotateLoop() {
+        final double heading = hardware.gyro.getAngle();
+        rotate.update(heading, hardware.drive);
+        hardware.step(PERIOD);
+        if (rotate.isFinished(heading)) {
+            rotate.start(heading);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,59 @@
+package team6458.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import team6458.control.DriverInputs;
+import team6458.subsystem.SensorFrame;
+import team6458.telemetry.TelemetryRecorder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for writing one full {@link TelemetryRecorder} record, as done once per loop on the robot. The budget
+ * is well under 50 us per loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TelemetryRecorderBenchmark {
+
+    private final SensorFrame frame = new SensorFrame();
+    private final DriverInputs inputs = new DriverInputs();
+    private Path file;
+    private TelemetryRecorder recorder;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("telemetry", ".bin");
+        recorder = new TelemetryRecorder(file, TelemetryRecorder.DEFAULT_CAPACITY);
+        recorder.nameCommand(2, "DriveStraightCommand");
+        inputs.setController(0.1, 0.2, 0.0, 0.0, 1.0, true, false);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        recorder.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".prev"));
+    }
+
+    @Benchmark
+    public long recordLoop() {
+        recorder.begin(frame);
+        recorder.setMotors(0.5, -0.5, 0.0);
+        recorder.setInputs(inputs);
+        recorder.setState(TelemetryRecorder.Mode.AUTONOMOUS, 1, false);
+        recorder.markActive(2);
+        recorder.commit();
+        return recorder.getCount();
+    }
+}
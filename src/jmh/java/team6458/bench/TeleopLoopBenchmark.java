@@ -0,0 +1,126 @@
+package team6458.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import team6458.control.DriverInputSampler;
+import team6458.control.DriverProfile;
+import team6458.control.LimitedDriveOutput;
+import team6458.control.RampOutput;
+import team6458.control.TeleopDriveController;
+import team6458.sim.SimDriverController;
+import team6458.sim.SimHardware;
+import team6458.util.Ports;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the work {@link team6458.OperatorControl#periodicUpdate()} does every loop in teleop, against
+ * simulated hardware: sampling the controller into the {@link team6458.control.DriverInputs} with a
+ * {@link DriverInputSampler}, running the {@link TeleopDriveController} into a drive limited by the brownout
+ * governor, setting the intake and ramp motors through a {@link RampOutput}, and one physics step. The sticks follow
+ * {@link SimDriverController#setPattern(double)}, with the preferences toggled and the driver losing control now and
+ * then. The dashboard topics and settings need the NetworkTables natives, so the settings are passed as the plain
+ * values {@code BooleanSetting.get()} would give and nothing is published. With the gc profiler this also shows
+ * whether the loop allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TeleopLoopBenchmark {
+
+    private static final double PERIOD = 0.02;
+
+    /**
+     * The name of the {@link DriverProfile}.
+     */
+    @Param({"Classic", "Standard", "Precise"})
+    public String profile;
+    /**
+     * The drive and ramp output limit, where below 1.0 the limited drive mixes the outputs itself.
+     */
+    @Param({"1.0", "0.6"})
+    public double outputLimit;
+
+    private final SimDriverController driver = new SimDriverController();
+    private final DriverInputSampler sampler = new DriverInputSampler(driver);
+    private final TeleopDriveController controller = new TeleopDriveController();
+    private SimHardware hardware;
+    private LimitedDriveOutput drive;
+    private RampOutput ramp;
+    private DriverProfile driverProfile = DriverProfile.CLASSIC;
+    private boolean lastInControl = false;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        hardware = new SimHardware();
+        drive = new LimitedDriveOutput(hardware.drive);
+        drive.setLimit(outputLimit);
+        ramp = new RampOutput(hardware.getMotor(Ports.PWM.LEFT_INTAKE), hardware.getMotor(Ports.PWM.RIGHT_INTAKE),
+                hardware.getMotor(Ports.PWM.LEFT_RAMP), hardware.getMotor(Ports.PWM.RIGHT_RAMP));
+        ramp.setOutputLimit(outputLimit);
+        for (DriverProfile candidate : DriverProfile.ALL) {
+            if (candidate.getName().equals(profile)) {
+                driverProfile = candidate;
+            }
+        }
+    }
+
+    @Benchmark
+    public double sampleInputs() {
+        hardware.clock.advance(PERIOD);
+        return sample(hardware.clock.getTimestamp());
+    }
+
+    @Benchmark
+    public double rampOutput() {
+        index++;
+        // The governor's limit changes now and then while the ramp is running
+        ramp.setOutputLimit((index & 32) == 0 ? 1.0 : outputLimit);
+        ramp.setSpeed(Math.sin(index * 0.05));
+        return ramp.getSpeed();
+    }
+
+    @Benchmark
+    public double teleopLoop() {
+        final double now = hardware.clock.getTimestamp();
+        sample(now);
+
+        final boolean inControl = isInControl(now);
+        if (!inControl) {
+            if (lastInControl) {
+                drive.stopMotor();
+                ramp.stopMotors();
+                controller.reset();
+            }
+            lastInControl = false;
+            hardware.step(PERIOD);
+            return 0.0;
+        }
+
+        final double intake = controller.update(sampler.getInputs(), hardware.gyro.getAngle(), drive);
+        ramp.setSpeed(intake);
+        lastInControl = true;
+        hardware.step(PERIOD);
+        return intake;
+    }
+
+    private double sample(double now) {
+        driver.setPattern(now);
+        sampler.sample(now, isInControl(now), driverProfile, Math.sin(now * 0.13) > 0.3, Math.sin(now * 0.17) > -0.3);
+        return sampler.getInputs().getDriveY();
+    }
+
+    /**
+     * @return False for two seconds in every twenty, as if the robot were disabled
+     */
+    private static boolean isInControl(double now) {
+        return now % 20.0 >= 2.0;
+    }
+}
@@ -0,0 +1,55 @@
+package team6458.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import team6458.util.Utils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link Utils}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UtilsBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    private final double[] values = new double[INPUTS];
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(6458);
+        for (int i = 0; i < INPUTS; i++) {
+            values[i] = random.nextDouble() * 4.0 - 2.0;
+        }
+    }
+
+    private double next() {
+        index = (index + 1) & (INPUTS - 1);
+        return values[index];
+    }
+
+    @Benchmark
+    public double clamp() {
+        return Utils.clamp(next(), -1.0, 1.0);
+    }
+
+    @Benchmark
+    public double lerp() {
+        return Utils.lerp(0.325, 0.45, next());
+    }
+
+    @Benchmark
+    public boolean isEqual() {
+        return Utils.isEqual(next(), 0.0, 0.5);
+    }
+}
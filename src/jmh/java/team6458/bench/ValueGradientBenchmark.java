@@ -0,0 +1,55 @@
+package team6458.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import team6458.control.DriveStraightController;
+import team6458.control.RotateController;
+import team6458.util.ValueGradient;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link ValueGradient#interpolate(double)} with the gradients used by the drive and rotate commands.
+ * Inputs cover the regions below, inside and above the gradient's range.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValueGradientBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    private final ValueGradient rotateGradient = RotateController.DEFAULT_GRADIENT;
+    private final ValueGradient driveGradient = DriveStraightController.createThrottleGradient(0.6, 2.4);
+
+    private final double[] remainingAngles = new double[INPUTS];
+    private final double[] remainingDistances = new double[INPUTS];
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(6458);
+        for (int i = 0; i < INPUTS; i++) {
+            remainingAngles[i] = random.nextDouble() * 45.0;
+            remainingDistances[i] = random.nextDouble() * 2.4;
+        }
+    }
+
+    @Benchmark
+    public double rotateGradient() {
+        index = (index + 1) & (INPUTS - 1);
+        return rotateGradient.interpolate(remainingAngles[index]);
+    }
+
+    @Benchmark
+    public double driveGradient() {
+        index = (index + 1) & (INPUTS - 1);
+        return driveGradient.interpolate(remainingDistances[index]);
+    }
+}
@@ -1,11 +1,19 @@
 package team6458;
 
-import edu.wpi.first.wpilibj.GenericHID.Hand;
-import edu.wpi.first.wpilibj.XboxController;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-import team6458.cmd.DriveStraightCommand;
-import team6458.util.Utils;
-
+import team6458.control.DriverInputSampler;
+import team6458.control.DriverInputs;
+import team6458.control.DriverProfile;
+import team6458.control.TeleopDriveController;
+import team6458.hal.XboxDriverController;
+import team6458.telemetry.DashboardPublisher.BooleanSetting;
+import team6458.telemetry.DashboardPublisher.ChoiceSetting;
+import team6458.telemetry.DashboardPublisher.NumberTopic;
+import team6458.telemetry.DashboardPublisher.Tier;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static team6458.util.DashboardKeys.CHOOSER_DRIVER_PROFILE;
 import static team6458.util.DashboardKeys.INTAKE_THROTTLE;
 import static team6458.util.DashboardKeys.SQUARE_INPUTS;
 import static team6458.util.DashboardKeys.TANK_CONTROLS;
@@ -14,48 +22,77 @@ import static team6458.util.DashboardKeys.TANK_CONTROLS;
  * This is the human interface controller. While not traditionally a proper subsystem,
  * it acts similarly, holding controllers and other data related to the human controlling the robot.
  * <p>
- * <ul>
- * <li>LS - Drive</li>
- * <li>Hold A/B - Run</li>
- * <li>Hold X/Y - Lock heading</li>
- * <li>RT - Intake/launch cube (towards back)</li>
- * <li>LT - Reverse cube (towards front)</li>
- * </ul>
+ * The controller is an {@link XboxDriverController}, which lists the bindings. The drive law itself is in
+ * {@link TeleopDriveController}. The inputs are sampled into a {@link DriverInputs} by a {@link DriverInputSampler}
+ * every loop, even when the driver is not in control, so that they can be recorded. With velocity control enabled, the
+ * sticks set wheel speeds instead of motor outputs (see {@link team6458.subsystem.Drivetrain#getOutput()}).
+ * <p>
+ * The drive sticks are shaped by the {@link DriverProfile} selected on the dashboard before they are put in the
+ * inputs, so the recorded inputs are what the drive law saw. The raw sticks and the profile are kept for recording
+ * too, so a replay can run the shaping again.
  */
 public final class OperatorControl {
 
+    private static final Logger LOGGER = Logger.getLogger(OperatorControl.class.getName());
+
+    private final SemiRobot robot;
+    private final DriverInputSampler sampler = new DriverInputSampler(new XboxDriverController(0));
+    private final TeleopDriveController controller = new TeleopDriveController();
+
+    // Dashboard
+    private final NumberTopic intakeThrottleTopic;
+    private final BooleanSetting tankControls;
+    private final BooleanSetting squareInputs;
+    private final ChoiceSetting<DriverProfile> driverProfile;
+
+    // State tracking
+    private boolean lastOpControl;
+
+    public OperatorControl(SemiRobot robot) {
+        this.robot = robot;
+        lastOpControl = robot.isOperatorControl();
+
+        intakeThrottleTopic = robot.getDashboard().number(INTAKE_THROTTLE, Tier.ON_CHANGE);
+        tankControls = robot.getDashboard().setting(TANK_CONTROLS, false);
+        squareInputs = robot.getDashboard().setting(SQUARE_INPUTS, true);
+        // Classic until a driver opts in to shaping
+        driverProfile = robot.getDashboard().choice(CHOOSER_DRIVER_PROFILE, DriverProfile.CLASSIC,
+                DriverProfile.ALL);
+    }
+
     /**
-     * The coefficient used for the heading lock function. For now, uses the same value for the drive straight command.
-     *
-     * @see DriveStraightCommand#GYRO_CORRECTION
+     * @return The non-null driver inputs sampled in the last {@link #periodicUpdate()}
      */
-    private static final double GYRO_KP = DriveStraightCommand.GYRO_CORRECTION;
+    public DriverInputs getInputs() {
+        return sampler.getInputs();
+    }
+
     /**
-     * The maximum absolute throttle value when the run button is not held.
+     * @return The drive (left) stick X axis before shaping in the last loop, positive is clockwise
      */
-    private static final double MAX_NOT_RUNNING_THROTTLE = 0.75;
+    public double getRawCurve() {
+        return sampler.getRawCurve();
+    }
+
     /**
-     * The maximum absolute curve value when the run button is not held.
+     * @return The drive (left) stick Y axis before shaping in the last loop, positive is forward
      */
-    private static final double MAX_NOT_RUNNING_CURVE = 0.85;
-
-    private final SemiRobot robot;
-    private final XboxController xboxController = new XboxController(0);
+    public double getRawThrottle() {
+        return sampler.getRawThrottle();
+    }
 
-    // State tracking
-    private boolean lastOpControl;
     /**
-     * Used for heading lock/drive straight.
+     * @return The right stick Y axis before shaping in the last loop, positive is forward
      */
-    private double targetLockedHeading = 0.0;
+    public double getRawRightThrottle() {
+        return sampler.getRawRightThrottle();
+    }
+
     /**
-     * True if the heading is locked, false otherwise.
+     * @return The non-null profile the sticks were shaped with in the last {@link #periodicUpdate()}
      */
-    private boolean isHeadingLocked = false;
-
-    public OperatorControl(SemiRobot robot) {
-        this.robot = robot;
-        lastOpControl = robot.isOperatorControl();
+    public DriverProfile getProfile() {
+        return sampler.getProfile();
     }
 
     /**
@@ -65,63 +102,35 @@ public final class OperatorControl {
      * unintentionally.
      */
     public void periodicUpdate() {
-        if (!robot.isOperatorControl() || robot.isDisabled()) {
+        final boolean isOpControl = robot.isOperatorControl() && !robot.isDisabled();
+        final DriverProfile profile = driverProfile.get();
+        if (profile != sampler.getProfile()) {
+            LOGGER.log(Level.INFO, "Driver profile changed from " + sampler.getProfile() + " to " + profile);
+        }
+        sampler.sample(robot.getSensorFrame().getTimestamp(), isOpControl, profile, tankControls.get(),
+                squareInputs.get());
+
+        if (!isOpControl) {
             if (lastOpControl) {
                 // No human is allowed to control the robot at this time, stop motors and cancel anything necessary
 
                 robot.getDrivetrain().drive.stopMotor();
                 robot.getRamp().stopMotors();
-                isHeadingLocked = false;
+                controller.reset();
             }
 
-            SmartDashboard.putNumber(INTAKE_THROTTLE, 0.0);
+            intakeThrottleTopic.set(0.0);
 
             lastOpControl = false;
             return;
         }
 
-        final double stickX = xboxController.getX(Hand.kLeft); // positive is clockwise
-        final double stickY = -xboxController.getY(Hand.kLeft); // positive is forward
-        final double angle = robot.getSensors().gyro.getAngle();
-        final boolean isHeadingLockHeld = xboxController.getXButton() || xboxController.getYButton();
-        final boolean isRunHeld = xboxController.getBButton() || xboxController.getAButton();
-
-        // Check heading lock (X/Y)
-        if (isHeadingLockHeld && !isHeadingLocked) {
-            isHeadingLocked = true;
-            targetLockedHeading = angle;
-        } else if (!isHeadingLockHeld && isHeadingLocked) {
-            isHeadingLocked = false;
-        }
-
-        // Initial magnitude and curve using the controller
-        double magnitude = (isRunHeld ? stickY : (stickY * MAX_NOT_RUNNING_THROTTLE));
-        double curve = (isRunHeld ? stickX : (stickX * MAX_NOT_RUNNING_CURVE));
-        double intakeThrottle = Utils
-                .clamp((-xboxController.getTriggerAxis(Hand.kLeft) + xboxController.getTriggerAxis(Hand.kRight)), -1.0,
-                        1.0);
-
-        // Correct for angle drift
-        if (isHeadingLocked) {
-            curve = -GYRO_KP * (angle - targetLockedHeading);
-        }
-
-        final boolean squaredInputs = SmartDashboard.getBoolean(SQUARE_INPUTS, true);
-
-        // Drive the robot
-        if (!SmartDashboard.getBoolean(TANK_CONTROLS, false)) {
-            // Arcade drive
-            robot.getDrivetrain().drive.arcadeDrive(magnitude, curve, squaredInputs);
-        } else {
-            final double rightStick = -xboxController.getY(Hand.kRight);
-            robot.getDrivetrain().drive
-                    .tankDrive(magnitude, (isRunHeld ? rightStick : (rightStick * MAX_NOT_RUNNING_THROTTLE)),
-                            squaredInputs);
-        }
+        final double intakeThrottle = controller.update(sampler.getInputs(), robot.getSensorFrame().getGyroAngle(),
+                robot.getDrivetrain().getOutput());
 
         // Drive intake/launcher motors
         robot.getRamp().setSpeed(intakeThrottle);
-        SmartDashboard.putNumber(INTAKE_THROTTLE, intakeThrottle);
+        intakeThrottleTopic.set(intakeThrottle);
 
         lastOpControl = true;
     }
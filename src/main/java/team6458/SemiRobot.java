@@ -1,39 +1,85 @@
 package team6458;
 
+import edu.wpi.first.wpilibj.CameraServer;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.command.Command;
-import edu.wpi.first.wpilibj.command.CommandGroup;
 import edu.wpi.first.wpilibj.command.InstantCommand;
 import edu.wpi.first.wpilibj.command.Scheduler;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import team6458.auto.AutoRoutes;
+import team6458.auto.RouteScriptLoader;
+import team6458.cmd.AllocationCheckCommand;
+import team6458.cmd.AutoCommandTable;
+import team6458.cmd.AutoCommandTable.Program;
 import team6458.cmd.AutoDeliverCommand;
 import team6458.cmd.AutoDeliverCommand.AllianceSide;
 import team6458.cmd.DriveStraightCommand;
 import team6458.cmd.GyroCalibrationCommand;
+import team6458.cmd.ProfiledDriveCommand;
+import team6458.cmd.PidRotateCommand;
+import team6458.cmd.ProfiledRotateCommand;
 import team6458.cmd.RotateCommand;
+import team6458.cmd.RouteScriptCommand;
+import team6458.cmd.TracedCommandGroup;
+import team6458.control.BrownoutGovernor;
+import team6458.control.DriverProfile;
+import team6458.control.HeadingControlLoop;
+import team6458.control.ProfiledDriveController;
+import team6458.control.ProfiledRotateController;
+import team6458.hal.RoboRioHardware;
+import team6458.hal.RobotHardware;
+import team6458.sensor.PoseEstimator;
 import team6458.util.ValueGradient;
 import team6458.subsystem.Drivetrain;
 import team6458.subsystem.Ramp;
+import team6458.subsystem.SensorFrame;
 import team6458.subsystem.Sensors;
-import team6458.util.DashboardKeys;
+import team6458.telemetry.CommandTracer;
+import team6458.telemetry.DashboardPublisher;
+import team6458.telemetry.DashboardPublisher.BooleanSetting;
+import team6458.telemetry.DashboardPublisher.BooleanTopic;
+import team6458.telemetry.DashboardPublisher.NumberTopic;
+import team6458.telemetry.DashboardPublisher.StringTopic;
+import team6458.telemetry.DashboardPublisher.Tier;
+import team6458.telemetry.LoopProfiler;
+import team6458.telemetry.TelemetryRecorder;
+import team6458.util.CameraSetup;
 import team6458.util.PlateAssignment;
 import team6458.util.exception.GetBeforeInitException;
+import team6458.vision.CubeDetector;
+import team6458.vision.CubeTarget;
+import team6458.vision.CvSinkFrameSource;
+import team6458.vision.VisionPipeline;
 
+import java.nio.file.Paths;
 import java.util.Arrays;
-import java.util.function.Supplier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static team6458.sensor.EncoderPresets.CIMCODER;
+import static team6458.util.DashboardKeys.BROWNOUT_GOVERNOR;
 import static team6458.util.DashboardKeys.CHOOSER_AUTONOMOUS;
+import static team6458.util.DashboardKeys.CMD_ALLOCATION_CHECK;
 import static team6458.util.DashboardKeys.CMD_GYRO_CALIBRATE;
 import static team6458.util.DashboardKeys.CMD_RESET_ENCODERS;
+import static team6458.util.DashboardKeys.FMS_GAME_DATA;
+import static team6458.util.DashboardKeys.FOLLOW_PATHS;
 import static team6458.util.DashboardKeys.GYROSCOPE;
+import static team6458.util.DashboardKeys.GYROSCOPE_READY;
+import static team6458.util.DashboardKeys.HIGH_RATE_HEADING_CONTROL;
 import static team6458.util.DashboardKeys.LEFT_ENCODER;
+import static team6458.util.DashboardKeys.POSE;
+import static team6458.util.DashboardKeys.RANGEFINDER;
 import static team6458.util.DashboardKeys.RIGHT_ENCODER;
-import static team6458.util.DashboardKeys.SQUARE_INPUTS;
-import static team6458.util.DashboardKeys.TANK_CONTROLS;
+import static team6458.util.DashboardKeys.ROUTE_ERRORS;
+import static team6458.util.DashboardKeys.RUN_VISION;
+import static team6458.util.DashboardKeys.USE_MOTION_PROFILES;
+import static team6458.util.DashboardKeys.VISION;
 
 /**
  * The main robot class.
@@ -41,17 +87,100 @@ import static team6458.util.DashboardKeys.TANK_CONTROLS;
 public final class SemiRobot extends TimedRobot {
 
     private static final Logger LOGGER = Logger.getLogger(SemiRobot.class.getName());
+    /**
+     * Where the telemetry log is recorded. The previous boot's log is kept with a {@code .prev} suffix.
+     */
+    private static final String TELEMETRY_PATH = "/home/lvuser/telemetry/telemetry.bin";
+    /**
+     * Where the command trace is exported when the robot is disabled, in the Chrome trace-event format.
+     */
+    private static final String TRACE_PATH = "/home/lvuser/telemetry/trace.json";
+    /**
+     * Where autonomous route scripts are loaded from, and reloaded from when they change.
+     */
+    private static final String ROUTES_PATH = "/home/lvuser/routes";
+    /**
+     * The time in seconds between checks for changed route scripts while disabled.
+     */
+    private static final double ROUTE_POLL_INTERVAL = 1.0;
+    /**
+     * The battery voltage the brownout governor keeps the robot above.
+     */
+    private static final double BROWNOUT_FLOOR = BrownoutGovernor.DEFAULT_FLOOR;
+    // Loop profiling
+    private final LoopProfiler loopProfiler = new LoopProfiler(TimedRobot.DEFAULT_PERIOD);
+    private final int sensorsSlot = loopProfiler.register("Sensors");
+    private final int opControlSlot = loopProfiler.register("OperatorControl");
+    private final int schedulerSlot = loopProfiler.register("Scheduler");
+    private final int dashboardSlot = loopProfiler.register("SmartDashboard");
+    private final int telemetrySlot = loopProfiler.register("Telemetry");
+    // Binary telemetry log
+    private final TelemetryRecorder telemetry = new TelemetryRecorder(Paths.get(TELEMETRY_PATH),
+            TelemetryRecorder.DEFAULT_CAPACITY);
+    // Dashboard telemetry, created in robotInit
+    private final DashboardPublisher dashboard = new DashboardPublisher();
+    private StringTopic fmsGameDataTopic;
+    private NumberTopic gyroAngleTopic;
+    private BooleanTopic gyroReadyTopic;
+    private NumberTopic leftDistanceTopic;
+    private NumberTopic leftSpeedTopic;
+    private NumberTopic rightDistanceTopic;
+    private NumberTopic rightSpeedTopic;
+    private NumberTopic poseXTopic;
+    private NumberTopic poseYTopic;
+    private NumberTopic poseHeadingTopic;
+    private NumberTopic rangeDistanceTopic;
+    private BooleanTopic visionFoundTopic;
+    private NumberTopic visionBearingTopic;
+    private NumberTopic visionDistanceTopic;
+    private NumberTopic visionAgeTopic;
+    private NumberTopic governorDriveLimitTopic;
+    private NumberTopic governorRampLimitTopic;
+    private BooleanSetting useMotionProfiles;
+    private BooleanSetting followPaths;
+    private BooleanSetting governPower;
     // SendableChoosers
     private final SendableChooser<Command> debugCommands = new SendableChooser<>();
-    private final SendableChooser<Supplier<Command>> autoChooser = new SendableChooser<>();
+    private final SendableChooser<Program> autoChooser = new SendableChooser<>();
+    // Pre-built autonomous commands, and whether they were built with motion profiles or paths
+    private final AutoCommandTable autoTable = new AutoCommandTable();
+    private boolean autoTableProfiled = false;
+    private boolean autoTablePaths = false;
+    // The alliance side of each switch delivery program, and the route autonomous last started, for replays
+    private final Map<Program, AllianceSide> deliveryPrograms = new HashMap<>();
+    private AllianceSide autoRouteSide = null;
+    private AutoRoutes.Style autoRouteStyle = AutoRoutes.Style.PID;
+    // Autonomous route scripts, and the program of each
+    private final RouteScriptLoader routeLoader = new RouteScriptLoader(Paths.get(ROUTES_PATH));
+    private final Map<String, Program> routePrograms = new HashMap<>();
+    private StringTopic routeErrorsTopic;
+    private double lastRoutePoll = 0.0;
     // Plate assignment
     private PlateAssignment plateAssignment = PlateAssignment.ALL_INVALID;
+    private String lastFMSData = "";
     // Operator control
     private OperatorControl opControl;
     // Subsystems
+    private final RobotHardware hardware = new RoboRioHardware();
+    // Command timeline, exported when disabled
+    private final CommandTracer tracer = new CommandTracer(hardware.getClock(), CommandTracer.DEFAULT_CAPACITY);
+    // Power cube detection on its own threads, only started if the camera is and it is enabled on the dashboard
+    private final VisionPipeline vision = new VisionPipeline(hardware.getClock(),
+            VisionPipeline.DEFAULT_MAX_FRAME_AGE);
+    private BooleanSetting runVision;
+    private boolean visionCamera = false;
+    private boolean visionStarted = false;
     private Drivetrain drivetrain;
     private Sensors sensors;
     private Ramp ramp;
+    // Sensor values for the current loop
+    private final SensorFrame sensorFrame = new SensorFrame();
+    // Pose from dead reckoning, updated from the sensor frame every loop
+    private final PoseEstimator poseEstimator = new PoseEstimator();
+    // Control loops
+    private HeadingControlLoop headingLoop;
+    // Scales the drivetrain and ramp outputs down before the battery browns out
+    private final BrownoutGovernor governor = new BrownoutGovernor(BROWNOUT_FLOOR);
 
     @Override
     public void robotInit() {
@@ -64,71 +193,67 @@ public final class SemiRobot extends TimedRobot {
 
         // Start up the subsystems
         {
-            drivetrain = new Drivetrain(this);
-            ramp = new Ramp(this);
-            // Sensors should be last: a gyroscope will be calibrated for around 5 seconds blocking the thread
-            sensors = new Sensors(this);
+            drivetrain = new Drivetrain(this, hardware);
+            ramp = new Ramp(this, hardware);
+            // The gyroscope calibrates in the background for around 5 seconds, see Sensors#gyro
+            sensors = new Sensors(this, hardware);
         }
 
+        // The camera is also the driver's view, so it is always set up. The main loop only reads the newest result
+        visionCamera = CameraSetup.setupVisionCamera();
+        runVision = dashboard.setting(RUN_VISION, false);
+        startVisionIfEnabled();
+
+        headingLoop = new HeadingControlLoop(drivetrain.drive, sensors.gyro,
+                dashboard.setting(HIGH_RATE_HEADING_CONTROL, false));
+        useMotionProfiles = dashboard.setting(USE_MOTION_PROFILES, false);
+        followPaths = dashboard.setting(FOLLOW_PATHS, false);
+        governPower = dashboard.setting(BROWNOUT_GOVERNOR, true);
+
         // Write one-time values to the SmartDashboard/Shuffleboard so they can be displayed as widgets
         // Use the DashboardKeys class for string IDs
         // All other continuously updated values are updated in robotPeriodic
         {
+            createDashboardTopics();
+
             // One-time init so that they appear first
             updateSmartDashboardPeriodic();
 
-            SmartDashboard.putBoolean(TANK_CONTROLS, SmartDashboard.getBoolean(TANK_CONTROLS, false));
-            SmartDashboard.putBoolean(SQUARE_INPUTS, SmartDashboard.getBoolean(SQUARE_INPUTS, true));
-
             // Autonomous command selection
             {
-                final ValueGradient gradient = RotateCommand.DEFAULT_GRADIENT;
-                final double throttle = 0.6;
-                final double lastStretchThrottle = 0.8;
-
-                autoChooser.addDefault("SWITCH DELIVERY - Centre position",
-                        () -> new AutoDeliverCommand(this, AllianceSide.CENTRE,
-                                getPlateAssignment().getNearest(), true,
-                                throttle, lastStretchThrottle, gradient));
-                autoChooser.addObject("SWITCH DELIVERY - Left position",
-                        () -> new AutoDeliverCommand(this, AllianceSide.LEFT,
-                                getPlateAssignment().getNearest(), true,
-                                throttle, lastStretchThrottle, gradient));
-                autoChooser.addObject("SWITCH DELIVERY - Right position",
-                        () -> new AutoDeliverCommand(this, AllianceSide.RIGHT,
-                                getPlateAssignment().getNearest(), true,
-                                throttle, lastStretchThrottle, gradient));
+                final double throttle = AutoRoutes.DEFAULT_THROTTLE;
+
+                // Every program is built for every plate assignment ahead of time, see buildAutoTable
+                addDefaultAuto("SWITCH DELIVERY - Centre position", createDeliveryProgram(AllianceSide.CENTRE));
+                addAuto("SWITCH DELIVERY - Left position", createDeliveryProgram(AllianceSide.LEFT));
+                addAuto("SWITCH DELIVERY - Right position", createDeliveryProgram(AllianceSide.RIGHT));
 
                 // Simply pretend you're on the other side to "avoid" the switch
-                autoChooser.addObject("AVOID SWITCH - Left position",
-                        () -> new CommandGroup() {
+                addAuto("AVOID SWITCH - Left position",
+                        plates -> new TracedCommandGroup(this, "AVOID SWITCH - Left position") {
                             {
-                                addSequential(new AutoDeliverCommand(SemiRobot.this, AllianceSide.RIGHT,
-                                        PlateAssignment.PlateSide.RIGHT, false,
-                                        throttle, throttle, gradient));
-                                addSequential(new RotateCommand(SemiRobot.this, 165.0));
+                                addSequential(createDeliverCommand(AllianceSide.RIGHT,
+                                        PlateAssignment.PlateSide.RIGHT, false, throttle));
+                                addSequential(createRotateCommand(165.0));
                             }
                         });
-                autoChooser.addObject("AVOID SWITCH - Right position",
-                        () -> new CommandGroup() {
+                addAuto("AVOID SWITCH - Right position",
+                        plates -> new TracedCommandGroup(this, "AVOID SWITCH - Right position") {
                             {
-                                addSequential(new AutoDeliverCommand(SemiRobot.this, AllianceSide.LEFT,
-                                        PlateAssignment.PlateSide.LEFT, false,
-                                        throttle, throttle, gradient));
-                                addSequential(new RotateCommand(SemiRobot.this, 165.0));
+                                addSequential(createDeliverCommand(AllianceSide.LEFT,
+                                        PlateAssignment.PlateSide.LEFT, false, throttle));
+                                addSequential(createRotateCommand(165.0));
                             }
                         });
 
-                autoChooser.addObject("DO NOT MOVE - NO AUTONOMOUS", InstantCommand::new);
+                addAuto("DO NOT MOVE - NO AUTONOMOUS", plates -> new InstantCommand());
+                // Routes from files, which are built with the rest and rebuilt when they change
+                pollRouteScripts();
 
                 SmartDashboard.putData(CHOOSER_AUTONOMOUS, autoChooser);
+                buildAutoTable();
             }
 
-            // Self-updating sendables, like the gyroscope and encoders
-            SmartDashboard.putData(GYROSCOPE, getSensors().gyro);
-            SmartDashboard.putData(LEFT_ENCODER, getDrivetrain().leftEncoder);
-            SmartDashboard.putData(RIGHT_ENCODER, getDrivetrain().rightEncoder);
-
             // Commands
             SmartDashboard.putData(CMD_GYRO_CALIBRATE, new GyroCalibrationCommand(this));
             SmartDashboard.putData(CMD_RESET_ENCODERS, new InstantCommand() {
@@ -147,6 +272,15 @@ public final class SemiRobot extends TimedRobot {
             // TESTS -----------------------------------------------------------------------
             debugCommands.addDefault("None", new InstantCommand());
 
+            // Checks that the periodic paths do not allocate
+            final Command allocationCheck = new AllocationCheckCommand(this)
+                    .addPath("updatePlateAssignmentFromFMS", this::updatePlateAssignmentFromFMS)
+                    .addPath("updateSmartDashboardPeriodic", this::updateSmartDashboardPeriodic)
+                    .addPath("poseEstimator", () -> poseEstimator.update(sensorFrame))
+                    .addPath("recordTelemetry", this::recordTelemetry);
+            debugCommands.addObject("Allocation check", allocationCheck);
+            SmartDashboard.putData(CMD_ALLOCATION_CHECK, allocationCheck);
+
             // RotateCommand tests
             final int[] angles = {20, 45, 50, 90, 180, 360};
             Arrays.stream(angles).forEach(d -> {
@@ -164,6 +298,14 @@ public final class SemiRobot extends TimedRobot {
             debugCommands.addObject("Turn +360 deg at 0.2 speed",
                     new RotateCommand(this, 360, new ValueGradient(0.2, 0.2, 20.0, 10.0)));
 
+            // Motion profile tests
+            debugCommands.addObject("Profiled turn +90 deg (RIGHT)", new ProfiledRotateCommand(this, 90.0));
+            debugCommands.addObject("Profiled turn -90 deg (LEFT)", new ProfiledRotateCommand(this, -90.0));
+            debugCommands.addObject("PID turn +45 deg (RIGHT)", new PidRotateCommand(this, 45.0));
+            debugCommands.addObject("PID turn -45 deg (LEFT)", new PidRotateCommand(this, -45.0));
+            debugCommands.addObject("Profiled drive +2.0 m", new ProfiledDriveCommand(this, 2.0));
+            debugCommands.addObject("Profiled drive -2.0 m", new ProfiledDriveCommand(this, -2.0));
+
             SmartDashboard.putData("DEBUG (Enabling Test Mode will run sel. command)", debugCommands);
         }
 
@@ -175,23 +317,37 @@ public final class SemiRobot extends TimedRobot {
     public void disabledInit() {
         // Disables any trailing cmds
         Scheduler.getInstance().removeAll();
+        if (tracer.hasNewEvents()) {
+            tracer.export(Paths.get(TRACE_PATH));
+        }
+        getHeadingLoop().release();
+        getDrivetrain().firstOutputTimer.disarm();
     }
 
     @Override
     public void autonomousInit() {
+        final long start = System.nanoTime();
+        getDrivetrain().firstOutputTimer.arm("autonomous start");
+        // Autonomous routes are relative to the starting position
+        poseEstimator.reset(0.0, 0.0, 0.0);
+
         updatePlateAssignmentFromFMS();
 
         // Enables commands to be run
         Scheduler.getInstance().removeAll();
 
-        // Choose autonomous program
-        final Supplier<Command> supplier = autoChooser.getSelected();
-        if (supplier == null) {
+        // Choose autonomous program, which was already built while disabled
+        final Program program = autoChooser.getSelected();
+        // Recorded so that the route can be replayed, see ReplayEngine in the desktop tools
+        autoRouteSide = program == null ? null : deliveryPrograms.get(program);
+        autoRouteStyle = getRouteStyle(autoTablePaths, autoTableProfiled);
+        if (program == null) {
             LOGGER.log(Level.WARNING, "Null auto command");
         } else {
-            final Command cmd = supplier.get();
-            LOGGER.log(Level.INFO, "Running auto command: " + cmd.getName());
+            final Command cmd = autoTable.get(program, getPlateAssignment());
             cmd.start();
+            LOGGER.log(Level.INFO, String.format("Running auto command: %s (started in %.2f ms)", cmd.getName(),
+                    (System.nanoTime() - start) / 1.0e6));
         }
     }
 
@@ -202,6 +358,9 @@ public final class SemiRobot extends TimedRobot {
     @Override
     public void testInit() {
         final Command cmd = debugCommands.getSelected();
+        if (!sensorFrame.isGyroReady()) {
+            LOGGER.log(Level.WARNING, "The gyroscope is still calibrating, heading will be held until it is done");
+        }
         Scheduler.getInstance().enable();
         Scheduler.getInstance().removeAll();
         if (cmd != null) {
@@ -213,18 +372,99 @@ public final class SemiRobot extends TimedRobot {
 
     @Override
     public void robotPeriodic() {
+        long phaseStart = loopProfiler.beginLoop();
+
+        // Sample all sensors once, everything else in this loop reads the frame
+        getSensors().sample(sensorFrame);
+        getDrivetrain().sample(sensorFrame);
+        getRamp().sample(sensorFrame);
+        poseEstimator.update(sensorFrame);
+        governPower();
+        phaseStart = loopProfiler.lap(sensorsSlot, phaseStart);
+
         getOperatorControl().periodicUpdate();
+        phaseStart = loopProfiler.lap(opControlSlot, phaseStart);
 
         // Run the scheduler. This does nothing if it is disabled.
         Scheduler.getInstance().run();
+        phaseStart = loopProfiler.lap(schedulerSlot, phaseStart);
 
         // Update SmartDashboard
         updateSmartDashboardPeriodic();
+        phaseStart = loopProfiler.lap(dashboardSlot, phaseStart);
+
+        // Record after the scheduler, so the record has the commands that ran this loop
+        recordTelemetry();
+        loopProfiler.lap(telemetrySlot, phaseStart);
+
+        loopProfiler.endLoop();
+    }
+
+    /**
+     * Starts the vision threads once they are enabled on the dashboard, if the camera was set up. This is only called
+     * from {@link #robotInit()} and while disabled, so the threads never start in the middle of a match. The dashboard
+     * is usually not connected yet in {@link #robotInit()}.
+     */
+    private void startVisionIfEnabled() {
+        if (visionStarted || !visionCamera || !runVision.get()) {
+            return;
+        }
+        visionStarted = true;
+        LOGGER.log(Level.INFO, "Starting the vision pipeline");
+        vision.start(new CvSinkFrameSource(CameraServer.getInstance().getVideo(), hardware.getClock()),
+                new CubeDetector());
+    }
+
+    /**
+     * Runs the brownout governor on this loop's frame and applies its limits before anything drives, logging every
+     * intervention. Disabling it on the dashboard, or disabling the robot, ends any intervention.
+     */
+    private void governPower() {
+        if (governPower.get() && !isDisabled()) {
+            if (governor.update(sensorFrame.getTimestamp(), sensorFrame.getBatteryVoltage(),
+                    sensorFrame.getTotalCurrent())) {
+                logIntervention();
+            }
+        } else if (governor.isLimiting()) {
+            governor.reset();
+            logIntervention();
+        }
+        getDrivetrain().setOutputLimit(governor.getDriveLimit());
+        getRamp().setOutputLimit(governor.getRampLimit());
+    }
+
+    private void logIntervention() {
+        if (governor.isLimiting()) {
+            LOGGER.log(Level.WARNING, String.format("Brownout governor intervention %d: battery at %.2f V, " +
+                            "%.1f A, predicted %.2f V (floor %.2f V), drive limit %.2f, ramp limit %.2f",
+                    governor.getInterventions(), sensorFrame.getBatteryVoltage(), sensorFrame.getTotalCurrent(),
+                    governor.getPredictedVoltage(), governor.getFloor(), governor.getDriveLimit(),
+                    governor.getRampLimit()));
+        } else {
+            LOGGER.log(Level.INFO, String.format("Brownout governor intervention %d ended after %.2f s: lowest " +
+                            "battery %.2f V, lowest level %.2f, resistance %.3f ohm", governor.getInterventions(),
+                    sensorFrame.getTimestamp() - governor.getInterventionStart(), governor.getLowestVoltage(),
+                    governor.getLowestLevel(), governor.getResistance()));
+        }
     }
 
     @Override
     public void disabledPeriodic() {
         updatePlateAssignmentFromFMS();
+        startVisionIfEnabled();
+
+        // Rebuild the autonomous commands if they would change
+        if (useMotionProfiles.get() != autoTableProfiled || followPaths.get() != autoTablePaths) {
+            buildAutoTable();
+        }
+
+        final double now = hardware.getClock().getTimestamp();
+        if (now - lastRoutePoll >= ROUTE_POLL_INTERVAL) {
+            lastRoutePoll = now;
+            for (String name : pollRouteScripts()) {
+                autoTable.build(routePrograms.get(name));
+            }
+        }
     }
 
     @Override
@@ -262,22 +502,230 @@ public final class SemiRobot extends TimedRobot {
         return ramp;
     }
 
+    public HeadingControlLoop getHeadingLoop() {
+        if (headingLoop == null) {
+            throw new GetBeforeInitException("heading control loop");
+        }
+        return headingLoop;
+    }
+
     // Private methods
 
+    private void addDefaultAuto(String name, Program program) {
+        autoChooser.addDefault(name, autoTable.add(name, program));
+    }
+
+    private void addAuto(String name, Program program) {
+        autoChooser.addObject(name, autoTable.add(name, program));
+    }
+
+    /**
+     * Reloads the route scripts that changed, and adds a program for each new one. The errors of the scripts that
+     * do not load are published. This reads files and allocates, so only call this while disabled.
+     *
+     * @return The names of the scripts that changed, whose programs should be rebuilt
+     */
+    private List<String> pollRouteScripts() {
+        final List<String> changed = routeLoader.poll();
+        for (String name : changed) {
+            if (!routePrograms.containsKey(name)) {
+                final Program program = plates -> new RouteScriptCommand(this, routeLoader.get(name), plates);
+                routePrograms.put(name, program);
+                addAuto("ROUTE FILE - " + name, program);
+            }
+        }
+        final List<String> errors = routeLoader.getErrors();
+        routeErrorsTopic.set(errors.isEmpty() ? "OK" : String.join("\n", errors));
+        return changed;
+    }
+
+    /**
+     * Builds every autonomous command ahead of time. Only call this while disabled.
+     */
+    private void buildAutoTable() {
+        autoTableProfiled = useMotionProfiles.get();
+        autoTablePaths = followPaths.get();
+        LOGGER.log(Level.INFO, "Building autonomous commands (motion profiles: " + autoTableProfiled +
+                ", paths: " + autoTablePaths + ")");
+        autoTable.build();
+    }
+
+    /**
+     * Creates a switch delivery program, which delivers to the nearest plate.
+     *
+     * @param allianceSide The side of the alliance wall
+     * @return A new program
+     */
+    private Program createDeliveryProgram(AllianceSide allianceSide) {
+        final Program program = plates -> createDeliverCommand(allianceSide, plates.getNearest(), true,
+                AutoRoutes.DEFAULT_LAST_STRETCH_THROTTLE);
+        deliveryPrograms.put(program, allianceSide);
+        return program;
+    }
+
+    /**
+     * @param paths    True if paths are followed
+     * @param profiled True if motion profiles are used
+     * @return The non-null style of the delivery routes
+     */
+    private static AutoRoutes.Style getRouteStyle(boolean paths, boolean profiled) {
+        if (paths) {
+            return AutoRoutes.Style.PATH;
+        }
+        return profiled ? AutoRoutes.Style.PROFILED : AutoRoutes.Style.PID;
+    }
+
+    /**
+     * Creates a delivery route: a single path if enabled on the dashboard, otherwise motion profiled if enabled.
+     *
+     * @param allianceSide        The side of the alliance wall
+     * @param plateSide           The plate side
+     * @param shouldDeliver       True to actually deliver the cube IF POSSIBLE, false to not attempt
+     * @param lastStretchThrottle The throttle for the last stretch, if not following a path or profiled
+     * @return A new command
+     */
+    private Command createDeliverCommand(AllianceSide allianceSide, PlateAssignment.PlateSide plateSide,
+                                         boolean shouldDeliver, double lastStretchThrottle) {
+        switch (getRouteStyle(followPaths.get(), useMotionProfiles.get())) {
+            case PATH:
+                return new AutoDeliverCommand(this, allianceSide, plateSide, shouldDeliver,
+                        AutoRoutes.DEFAULT_PATH_CONSTRAINTS);
+            case PROFILED:
+                return new AutoDeliverCommand(this, allianceSide, plateSide, shouldDeliver,
+                        ProfiledDriveController.DEFAULT_CONSTRAINTS, ProfiledRotateController.DEFAULT_CONSTRAINTS);
+            default:
+                return new AutoDeliverCommand(this, allianceSide, plateSide, shouldDeliver,
+                        AutoRoutes.DEFAULT_THROTTLE, lastStretchThrottle);
+        }
+    }
+
+    /**
+     * @param headingChange The amount to change the heading by, positive is clockwise
+     * @return A new rotate command, motion profiled if enabled on the dashboard
+     */
+    private Command createRotateCommand(double headingChange) {
+        return useMotionProfiles.get() ? new ProfiledRotateCommand(this, headingChange) :
+                new RotateCommand(this, headingChange);
+    }
+
     /**
-     * Update certain values on the SmartDashboard.
+     * Creates the telemetry topics for values published every loop.
+     * <p>
+     * The gyroscope and encoders are published from the sensor frame instead of as {@code Sendable}s, which would
+     * read the hardware again on every loop. They keep the same sub-keys and types so the widgets still work.
+     */
+    private void createDashboardTopics() {
+        fmsGameDataTopic = dashboard.string(FMS_GAME_DATA, Tier.ON_CHANGE);
+        routeErrorsTopic = dashboard.string(ROUTE_ERRORS, Tier.ON_CHANGE);
+
+        SmartDashboard.putString(GYROSCOPE + "/.type", "Gyro");
+        gyroAngleTopic = dashboard.number(GYROSCOPE + "/Value", Tier.TEN_HZ);
+        gyroReadyTopic = dashboard.bool(GYROSCOPE_READY, Tier.ON_CHANGE);
+
+        SmartDashboard.putString(LEFT_ENCODER + "/.type", "Encoder");
+        SmartDashboard.putNumber(LEFT_ENCODER + "/Distance per Tick", CIMCODER.distanceMPerPulse);
+        leftDistanceTopic = dashboard.number(LEFT_ENCODER + "/Distance", Tier.TEN_HZ);
+        leftSpeedTopic = dashboard.number(LEFT_ENCODER + "/Speed", Tier.TEN_HZ);
+
+        SmartDashboard.putString(RIGHT_ENCODER + "/.type", "Encoder");
+        SmartDashboard.putNumber(RIGHT_ENCODER + "/Distance per Tick", CIMCODER.distanceMPerPulse);
+        rightDistanceTopic = dashboard.number(RIGHT_ENCODER + "/Distance", Tier.TEN_HZ);
+        rightSpeedTopic = dashboard.number(RIGHT_ENCODER + "/Speed", Tier.TEN_HZ);
+
+        poseXTopic = dashboard.number(POSE + "/X", Tier.TEN_HZ);
+        poseYTopic = dashboard.number(POSE + "/Y", Tier.TEN_HZ);
+        poseHeadingTopic = dashboard.number(POSE + "/Heading", Tier.TEN_HZ);
+        rangeDistanceTopic = dashboard.number(RANGEFINDER + "/Distance", Tier.TEN_HZ);
+
+        visionFoundTopic = dashboard.bool(VISION + "/Cube Found", Tier.ON_CHANGE);
+        visionBearingTopic = dashboard.number(VISION + "/Bearing", Tier.TEN_HZ);
+        visionDistanceTopic = dashboard.number(VISION + "/Distance", Tier.TEN_HZ);
+        visionAgeTopic = dashboard.number(VISION + "/Age", Tier.TEN_HZ);
+
+        governorDriveLimitTopic = dashboard.number(BROWNOUT_GOVERNOR + "/Drive Limit", Tier.TEN_HZ);
+        governorRampLimitTopic = dashboard.number(BROWNOUT_GOVERNOR + "/Ramp Limit", Tier.TEN_HZ);
+    }
+
+    /**
+     * Update certain values on the SmartDashboard. Only values that changed are sent, at their topic's rate.
      */
     private void updateSmartDashboardPeriodic() {
+        fmsGameDataTopic.set(getPlateAssignment().toString());
+
+        gyroAngleTopic.set(sensorFrame.getGyroAngle());
+        gyroReadyTopic.set(sensorFrame.isGyroReady());
+        leftDistanceTopic.set(sensorFrame.getLeftDistance());
+        leftSpeedTopic.set(sensorFrame.getLeftRate());
+        rightDistanceTopic.set(sensorFrame.getRightDistance());
+        rightSpeedTopic.set(sensorFrame.getRightRate());
+        poseXTopic.set(poseEstimator.getX());
+        poseYTopic.set(poseEstimator.getY());
+        poseHeadingTopic.set(poseEstimator.getHeading());
+        rangeDistanceTopic.set(sensorFrame.getRangeDistance());
+
+        // Never waits on the vision threads
+        final CubeTarget cube = vision.getLatest();
+        visionFoundTopic.set(cube.isFound());
+        visionBearingTopic.set(cube.getBearing());
+        visionDistanceTopic.set(cube.getDistance());
+        visionAgeTopic.set(cube.getFrameNumber() == 0L ? 0.0 :
+                hardware.getClock().getTimestamp() - cube.getCaptureTime());
+
+        governorDriveLimitTopic.set(governor.getDriveLimit());
+        governorRampLimitTopic.set(governor.getRampLimit());
+
+        dashboard.flush();
+    }
+
+    /**
+     * Writes this loop's record to the telemetry log.
+     */
+    private void recordTelemetry() {
+        telemetry.begin(sensorFrame);
+        // The right ramp motor is not inverted, so its output is the intake throttle
+        telemetry.setMotors(getDrivetrain().leftMotor.get(), getDrivetrain().rightMotor.get(),
+                getRamp().rampRight.get());
+
+        final OperatorControl operator = getOperatorControl();
+        telemetry.setInputs(operator.getInputs());
+        telemetry.setRawSticks(operator.getRawCurve(), operator.getRawThrottle(), operator.getRawRightThrottle(),
+                DriverProfile.ALL.indexOf(operator.getProfile()));
+        telemetry.setAutonomous(lastFMSData, autoRouteSide == null ? -1 : autoRouteSide.ordinal(),
+                autoRouteStyle.ordinal());
+        telemetry.setLimits(getDrivetrain().getOutputLimit(), getRamp().getOutputLimit());
+
+        final TelemetryRecorder.Mode mode;
+        if (isDisabled()) {
+            mode = TelemetryRecorder.Mode.DISABLED;
+        } else if (isAutonomous()) {
+            mode = TelemetryRecorder.Mode.AUTONOMOUS;
+        } else if (isTest()) {
+            mode = TelemetryRecorder.Mode.TEST;
+        } else {
+            mode = TelemetryRecorder.Mode.TELEOP;
+        }
+        telemetry.setState(mode, PlateAssignment.VALID_STATES.indexOf(plateAssignment),
+                getDrivetrain().isVelocityControlled());
+        telemetry.commit();
     }
 
     /**
      * Internal method that updates the plate assignment from the Field Management System.
      */
     private void updatePlateAssignmentFromFMS() {
-        final boolean isFMSAttached = DriverStation.getInstance().isFMSAttached();
         final String fmsData = DriverStation.getInstance().getGameSpecificMessage();
-        final PlateAssignment oldAssignment = plateAssignment;
-        if (fmsData == null || fmsData.equals("")) {
+        /*
+        The driver station returns the same cached string until a new message arrives, so the common case is a cheap
+        reference check. Comparing against the last raw message (and not the parsed assignment) also means that
+        non-compliant data is only parsed and logged once, instead of every loop.
+         */
+        if (fmsData == lastFMSData || (fmsData != null && fmsData.equals(lastFMSData))) {
+            return;
+        }
+        lastFMSData = fmsData;
+
+        final boolean isFMSAttached = DriverStation.getInstance().isFMSAttached();
+        if (fmsData == null || fmsData.isEmpty()) {
             /*
             Note: a reference equality check is valid here because ALL_INVALID is the only possible "unknown"
             constant that is settable in these conditional branches
@@ -289,17 +737,13 @@ public final class SemiRobot extends TimedRobot {
                 plateAssignment = PlateAssignment.ALL_INVALID;
             }
         } else {
-            if (!plateAssignment.toString().equals(fmsData)) {
+            final PlateAssignment newAssignment = PlateAssignment.fromString(fmsData);
+            if (newAssignment != plateAssignment) {
                 LOGGER.log(Level.INFO,
-                        String.format("Plate assignment set to %s, was %s", fmsData, plateAssignment.toString()));
-                plateAssignment = PlateAssignment.fromString(fmsData);
+                        String.format("Plate assignment set to %s, was %s", newAssignment, plateAssignment));
+                plateAssignment = newAssignment;
             }
         }
-
-        if (plateAssignment != oldAssignment) {
-            // Update SmartDashboard data
-            SmartDashboard.putString(DashboardKeys.FMS_GAME_DATA, getPlateAssignment().toString());
-        }
     }
 
     // Getters and setters
@@ -311,6 +755,48 @@ public final class SemiRobot extends TimedRobot {
         return opControl;
     }
 
+    /**
+     * @return The non-null sensor frame for the current loop
+     */
+    public SensorFrame getSensorFrame() {
+        return sensorFrame;
+    }
+
+    /**
+     * @return The non-null pose estimator, updated at the start of every loop
+     */
+    public PoseEstimator getPoseEstimator() {
+        return poseEstimator;
+    }
+
+    /**
+     * @return The non-null dashboard publisher
+     */
+    public DashboardPublisher getDashboard() {
+        return dashboard;
+    }
+
+    /**
+     * @return The non-null telemetry recorder
+     */
+    public TelemetryRecorder getTelemetry() {
+        return telemetry;
+    }
+
+    /**
+     * @return The non-null loop profiler
+     */
+    public LoopProfiler getLoopProfiler() {
+        return loopProfiler;
+    }
+
+    /**
+     * @return The non-null command tracer
+     */
+    public CommandTracer getTracer() {
+        return tracer;
+    }
+
     /**
      * @return The non-null plate assignment
      */
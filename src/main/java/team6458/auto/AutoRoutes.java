@@ -0,0 +1,340 @@
+package team6458.auto;
+
+import team6458.cmd.AutoDeliverCommand.AllianceSide;
+import team6458.control.ProfiledDriveController;
+import team6458.control.ProfiledRotateController;
+import team6458.control.path.Path;
+import team6458.control.path.Paths;
+import team6458.control.path.Waypoint;
+import team6458.control.profile.MotionConstraints;
+import team6458.util.PlateAssignment.PlateSide;
+import team6458.util.ValueGradient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The autonomous routes, as lists of {@link RouteStep}s.
+ */
+public final class AutoRoutes {
+
+    /**
+     * How a delivery route drives, as chosen on the dashboard.
+     */
+    public enum Style {
+        /**
+         * Drive-rotate-drive with PID rotations, see {@link #deliver(AllianceSide, PlateSide, boolean, double,
+         * double)}.
+         */
+        PID,
+        /**
+         * Drive-rotate-drive following motion profiles, see {@link #deliverProfiled(AllianceSide, PlateSide, boolean,
+         * MotionConstraints, MotionConstraints)}.
+         */
+        PROFILED,
+        /**
+         * A single path, see {@link #deliverPath(AllianceSide, PlateSide, boolean, MotionConstraints)}.
+         */
+        PATH
+    }
+
+    /**
+     * The default throttle to drive at.
+     */
+    public static final double DEFAULT_THROTTLE = 0.6;
+    /**
+     * The default throttle to drive the last stretch into the switch at.
+     */
+    public static final double DEFAULT_LAST_STRETCH_THROTTLE = 0.8;
+    /**
+     * The speed at which to run the intakes at.
+     */
+    public static final double INTAKE_SPEED = 1.0;
+    /**
+     * The time in seconds to run the intake for if the delivery is not confirmed by a sensor.
+     */
+    public static final double INTAKE_TIME = 4.0;
+    /**
+     * The distance in metres before the switch at which the intake starts, while the robot is still driving in.
+     */
+    public static final double INTAKE_OVERLAP = 0.3;
+    /**
+     * The timeout in seconds of the last stretch into the switch.
+     */
+    public static final double LAST_STRETCH_TIMEOUT = 2.5;
+    /**
+     * The default constraints for following a delivery path in metres: 2.5 m/s and 2.5 m/s/s.
+     */
+    public static final MotionConstraints DEFAULT_PATH_CONSTRAINTS = MotionConstraints.trapezoidal(2.5, 2.5);
+
+    /**
+     * The delivery paths from the left station, backing into the switch. Each one ends where the drive-rotate-drive
+     * route does, and the far path crosses in front of the switch before backing straight into the plate.
+     */
+    private static final Waypoint[] LEFT_TO_LEFT = {
+            Waypoint.of(0.0, 0.0, 0.0), Waypoint.of(-2.6, 0.99, 0.0), Waypoint.of(-3.99, 0.99, 0.0)
+    };
+    private static final Waypoint[] LEFT_TO_RIGHT = {
+            Waypoint.of(0.0, 0.0, 0.0), Waypoint.of(-1.5, 1.7, 60.0), Waypoint.of(-2.7, 3.43, 0.0),
+            Waypoint.of(-3.99, 3.43, 0.0)
+    };
+    private static final Waypoint[] CENTRE_TO_LEFT = {
+            Waypoint.of(0.0, 0.0, 0.0), Waypoint.of(-2.4, -1.7, 0.0), Waypoint.of(-3.4, -1.7, 0.0)
+    };
+    private static final Waypoint[] CENTRE_TO_RIGHT = {
+            Waypoint.of(0.0, 0.0, 0.0), Waypoint.of(-2.44, 0.74, 0.0), Waypoint.of(-3.44, 0.74, 0.0)
+    };
+
+    /**
+     * No instantiation.
+     */
+    private AutoRoutes() {
+    }
+
+    /**
+     * @param allianceSide The side of the alliance wall
+     * @param plateSide    The plate side
+     * @return True if a cube can be delivered from this side. The far cases cannot
+     */
+    public static boolean canDeliver(AllianceSide allianceSide, PlateSide plateSide) {
+        return !((allianceSide == AllianceSide.LEFT && plateSide == PlateSide.RIGHT) ||
+                (allianceSide == AllianceSide.RIGHT && plateSide == PlateSide.LEFT));
+    }
+
+    /**
+     * The delivery route of a style with the default throttles and constraints, which is what the robot's switch
+     * delivery programs run. All parameters should not be null.
+     *
+     * @param allianceSide  The side of the alliance wall
+     * @param plateSide     The plate side
+     * @param shouldDeliver True to actually deliver the cube IF POSSIBLE, false to not attempt
+     * @param style         The style of the route
+     * @return An unmodifiable list of steps
+     */
+    public static List<RouteStep> deliver(AllianceSide allianceSide, PlateSide plateSide, boolean shouldDeliver,
+                                          Style style) {
+        switch (style) {
+            case PATH:
+                return deliverPath(allianceSide, plateSide, shouldDeliver, DEFAULT_PATH_CONSTRAINTS);
+            case PROFILED:
+                return deliverProfiled(allianceSide, plateSide, shouldDeliver,
+                        ProfiledDriveController.DEFAULT_CONSTRAINTS, ProfiledRotateController.DEFAULT_CONSTRAINTS);
+            default:
+                return deliver(allianceSide, plateSide, shouldDeliver, DEFAULT_THROTTLE, DEFAULT_LAST_STRETCH_THROTTLE);
+        }
+    }
+
+    /**
+     * The route from an alliance station to a switch plate, delivering a cube at the end (optionally).
+     * <p>This does not handle far cases, i.e.: LEFT station to RIGHT switch or RIGHT station to LEFT switch.
+     * All parameters should not be null.
+     *
+     * @param allianceSide        The side of the alliance wall
+     * @param plateSide           The plate side
+     * @param shouldDeliver       True to actually deliver the cube IF POSSIBLE, false to not attempt
+     * @param throttle            The throttle to drive at
+     * @param lastStretchThrottle The throttle to drive the last stretch into the switch at
+     * @param rotateGradient      The speed gradient to use while rotating
+     * @return An unmodifiable list of steps
+     */
+    public static List<RouteStep> deliver(AllianceSide allianceSide, PlateSide plateSide, boolean shouldDeliver,
+                                          double throttle, double lastStretchThrottle,
+                                          ValueGradient rotateGradient) {
+        return deliver(allianceSide, plateSide, shouldDeliver, new Segments() {
+            @Override
+            public RouteStep drive(double distance) {
+                return RouteStep.drive(distance, throttle);
+            }
+
+            @Override
+            public RouteStep lastStretch(double distance) {
+                return RouteStep.drive(distance, lastStretchThrottle, LAST_STRETCH_TIMEOUT);
+            }
+
+            @Override
+            public RouteStep rotate(double headingChange) {
+                return RouteStep.rotate(headingChange, rotateGradient);
+            }
+        });
+    }
+
+    /**
+     * The same route as {@link #deliver(AllianceSide, PlateSide, boolean, double, double, ValueGradient)}, but every
+     * rotation is a PID rotation that settles on the target, which is faster and more accurate.
+     *
+     * @param allianceSide        The side of the alliance wall
+     * @param plateSide           The plate side
+     * @param shouldDeliver       True to actually deliver the cube IF POSSIBLE, false to not attempt
+     * @param throttle            The throttle to drive at
+     * @param lastStretchThrottle The throttle to drive the last stretch into the switch at
+     * @return An unmodifiable list of steps
+     * @see team6458.control.PidRotateController
+     */
+    public static List<RouteStep> deliver(AllianceSide allianceSide, PlateSide plateSide, boolean shouldDeliver,
+                                          double throttle, double lastStretchThrottle) {
+        return deliver(allianceSide, plateSide, shouldDeliver, new Segments() {
+            @Override
+            public RouteStep drive(double distance) {
+                return RouteStep.drive(distance, throttle);
+            }
+
+            @Override
+            public RouteStep lastStretch(double distance) {
+                return RouteStep.drive(distance, lastStretchThrottle, LAST_STRETCH_TIMEOUT);
+            }
+
+            @Override
+            public RouteStep rotate(double headingChange) {
+                return RouteStep.pidRotate(headingChange);
+            }
+        });
+    }
+
+    /**
+     * The same route as {@link #deliver(AllianceSide, PlateSide, boolean, double, double, ValueGradient)}, but every
+     * drive and rotation follows a motion profile.
+     *
+     * @param allianceSide      The side of the alliance wall
+     * @param plateSide         The plate side
+     * @param shouldDeliver     True to actually deliver the cube IF POSSIBLE, false to not attempt
+     * @param driveConstraints  The motion constraints for driving, in metres
+     * @param rotateConstraints The motion constraints for rotating, in degrees
+     * @return An unmodifiable list of steps
+     */
+    public static List<RouteStep> deliverProfiled(AllianceSide allianceSide, PlateSide plateSide,
+                                                  boolean shouldDeliver, MotionConstraints driveConstraints,
+                                                  MotionConstraints rotateConstraints) {
+        return deliver(allianceSide, plateSide, shouldDeliver, new Segments() {
+            @Override
+            public RouteStep drive(double distance) {
+                return RouteStep.profiledDrive(distance, driveConstraints, RouteStep.NO_TIMEOUT);
+            }
+
+            @Override
+            public RouteStep lastStretch(double distance) {
+                return RouteStep.profiledDrive(distance, driveConstraints, LAST_STRETCH_TIMEOUT);
+            }
+
+            @Override
+            public RouteStep rotate(double headingChange) {
+                return RouteStep.profiledRotate(headingChange, rotateConstraints);
+            }
+        });
+    }
+
+    /**
+     * The route from an alliance station to a switch plate as a single smooth path, delivering a cube at the end
+     * (optionally). Unlike the drive-rotate-drive routes, the robot does not stop at the corners, and the far cases
+     * are handled. If the plate side is not known, the robot drives to the near plate (the right plate from the
+     * centre) and does not deliver.
+     *
+     * @param allianceSide  The side of the alliance wall
+     * @param plateSide     The plate side
+     * @param shouldDeliver True to actually deliver the cube, false to not attempt
+     * @param constraints   The motion constraints in metres
+     * @return An unmodifiable list of steps
+     */
+    public static List<RouteStep> deliverPath(AllianceSide allianceSide, PlateSide plateSide, boolean shouldDeliver,
+                                              MotionConstraints constraints) {
+        final List<RouteStep> steps = new ArrayList<>();
+        steps.add(RouteStep.path(getDeliveryPath(allianceSide, plateSide, constraints)));
+        if (shouldDeliver && plateSide != PlateSide.INVALID) {
+            steps.add(RouteStep.deliver(INTAKE_SPEED, INTAKE_TIME).startingWithin(INTAKE_OVERLAP));
+        }
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * Generates the path from an alliance station to a switch plate. This allocates.
+     *
+     * @param allianceSide The side of the alliance wall
+     * @param plateSide    The plate side. If not known, the near plate (the right plate from the centre)
+     * @param constraints  The motion constraints in metres
+     * @return A new reversed path
+     */
+    public static Path getDeliveryPath(AllianceSide allianceSide, PlateSide plateSide,
+                                       MotionConstraints constraints) {
+        final Waypoint[] waypoints;
+        switch (allianceSide) {
+            case LEFT:
+                waypoints = plateSide == PlateSide.RIGHT ? LEFT_TO_RIGHT : LEFT_TO_LEFT;
+                break;
+            case RIGHT:
+                // The mirror image of the left station
+                waypoints = mirror(plateSide == PlateSide.LEFT ? LEFT_TO_RIGHT : LEFT_TO_LEFT);
+                break;
+            default:
+                waypoints = plateSide == PlateSide.LEFT ? CENTRE_TO_LEFT : CENTRE_TO_RIGHT;
+                break;
+        }
+        return Paths.generate(constraints, true, waypoints);
+    }
+
+    private static Waypoint[] mirror(Waypoint[] waypoints) {
+        final Waypoint[] mirrored = new Waypoint[waypoints.length];
+        for (int i = 0; i < waypoints.length; i++) {
+            mirrored[i] = waypoints[i].mirror();
+        }
+        return mirrored;
+    }
+
+    private static List<RouteStep> deliver(AllianceSide allianceSide, PlateSide plateSide, boolean shouldDeliver,
+                                           Segments segments) {
+        final List<RouteStep> steps = new ArrayList<>();
+
+        if (allianceSide == AllianceSide.CENTRE) {
+            if (plateSide == PlateSide.LEFT) {
+                steps.add(segments.drive(-0.2));
+                steps.add(segments.rotate(-45));
+                steps.add(segments.drive(-2.4));
+                steps.add(segments.rotate(45));
+                steps.add(segments.lastStretch(-1.5));
+            } else {
+                steps.add(segments.drive(-0.3));
+                steps.add(segments.rotate(45));
+                steps.add(segments.drive(-1.05));
+                steps.add(segments.rotate(-45));
+                steps.add(segments.lastStretch(-2.4));
+            }
+        } else {
+            final int sideSign = allianceSide == AllianceSide.LEFT ? -1 : 1; // -1 if left plate, 1 for right
+            steps.add(segments.drive(-0.3));
+            steps.add(segments.rotate(-sideSign * 45));
+            steps.add(segments.drive(-1.4));
+            steps.add(segments.rotate(sideSign * 45));
+            steps.add(segments.lastStretch(-2.7));
+        }
+
+        if (shouldDeliver && canDeliver(allianceSide, plateSide)) {
+            steps.add(RouteStep.deliver(INTAKE_SPEED, INTAKE_TIME).startingWithin(INTAKE_OVERLAP));
+        }
+
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * Creates the segments of a route, so the same geometry can be driven in different ways.
+     */
+    private interface Segments {
+
+        /**
+         * @param distance The distance in metres
+         * @return A drive step
+         */
+        RouteStep drive(double distance);
+
+        /**
+         * @param distance The distance in metres
+         * @return A drive step for the last stretch into the switch
+         */
+        RouteStep lastStretch(double distance);
+
+        /**
+         * @param headingChange The heading change in degrees
+         * @return A rotate step
+         */
+        RouteStep rotate(double headingChange);
+    }
+
+}
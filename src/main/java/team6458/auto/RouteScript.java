@@ -0,0 +1,235 @@
+package team6458.auto;
+
+import team6458.util.PlateAssignment.PlateSide;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An autonomous route loaded from a JSON file, so it can be changed without redeploying. It is a list of
+ * {@link Node}s run in order; a node is a single {@link RouteStep}, a wait, or nodes run in parallel. Any node can
+ * be limited to a side of the nearest switch plate, and given a timeout.
+ * <p>
+ * Scripts are parsed and validated by {@link RouteScriptParser}, and turned into commands by
+ * {@link team6458.cmd.RouteScriptCommand}. Instances are immutable.
+ */
+public final class RouteScript {
+
+    /**
+     * Which side of the nearest switch plate a node runs for.
+     */
+    public enum PlateCondition {
+        /**
+         * Always runs.
+         */
+        ANY,
+        /**
+         * Runs if the nearest switch plate is on the left.
+         */
+        LEFT,
+        /**
+         * Runs if the nearest switch plate is on the right.
+         */
+        RIGHT,
+        /**
+         * Runs if the plate assignment is not known.
+         */
+        UNKNOWN;
+
+        /**
+         * @param side The non-null side of the nearest switch plate
+         * @return True if a node with this condition runs
+         */
+        public boolean matches(PlateSide side) {
+            switch (this) {
+                case LEFT:
+                    return side == PlateSide.LEFT;
+                case RIGHT:
+                    return side == PlateSide.RIGHT;
+                case UNKNOWN:
+                    return side == PlateSide.INVALID;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * A node of a script.
+     */
+    public static final class Node {
+
+        /**
+         * The kind of node.
+         */
+        public enum Kind {
+            /**
+             * Runs the {@link #step}.
+             */
+            STEP,
+            /**
+             * Waits for the {@link #time}.
+             */
+            WAIT,
+            /**
+             * Runs the {@link #children} at the same time, and ends when they have all ended.
+             */
+            PARALLEL
+        }
+
+        /**
+         * The step of nodes that are not {@link Kind#STEP}s.
+         */
+        private static final RouteStep UNUSED_STEP = RouteStep.ramp(0.0, 0.0);
+
+        /**
+         * The kind of node.
+         */
+        public final Kind kind;
+        /**
+         * The step of a {@link Kind#STEP} node. Not used by other nodes.
+         */
+        public final RouteStep step;
+        /**
+         * The time in seconds of a {@link Kind#WAIT} node. Not used by other nodes.
+         */
+        public final double time;
+        /**
+         * The unmodifiable children of a {@link Kind#PARALLEL} node. Empty for other nodes.
+         */
+        public final List<Node> children;
+        /**
+         * When the node runs.
+         */
+        public final PlateCondition plate;
+        /**
+         * The time in seconds after which the node is given up, or {@link RouteStep#NO_TIMEOUT}.
+         */
+        public final double timeout;
+
+        private Node(Kind kind, RouteStep step, double time, List<Node> children, PlateCondition plate,
+                     double timeout) {
+            this.kind = kind;
+            this.step = step;
+            this.time = time;
+            this.children = children;
+            this.plate = plate;
+            this.timeout = timeout;
+        }
+
+        /**
+         * @param step    The non-null step
+         * @param plate   The non-null plate condition
+         * @param timeout The positive timeout in seconds, or {@link RouteStep#NO_TIMEOUT}
+         * @return A step node
+         */
+        public static Node step(RouteStep step, PlateCondition plate, double timeout) {
+            return new Node(Kind.STEP, step, 0.0, Collections.emptyList(), plate, timeout);
+        }
+
+        /**
+         * @param time  The positive time in seconds
+         * @param plate The non-null plate condition
+         * @return A wait node
+         */
+        public static Node wait(double time, PlateCondition plate) {
+            return new Node(Kind.WAIT, UNUSED_STEP, time, Collections.emptyList(), plate, RouteStep.NO_TIMEOUT);
+        }
+
+        /**
+         * @param children The non-null children, which are copied
+         * @param plate    The non-null plate condition
+         * @param timeout  The positive timeout in seconds, or {@link RouteStep#NO_TIMEOUT}
+         * @return A parallel node
+         */
+        public static Node parallel(List<Node> children, PlateCondition plate, double timeout) {
+            return new Node(Kind.PARALLEL, UNUSED_STEP, 0.0, Collections.unmodifiableList(new ArrayList<>(children)),
+                    plate, timeout);
+        }
+
+        /**
+         * @return True if this node has a timeout
+         */
+        public boolean hasTimeout() {
+            return timeout > RouteStep.NO_TIMEOUT;
+        }
+
+        /**
+         * @return True if this node, or any of its children, drives the drivetrain
+         */
+        public boolean usesDrivetrain() {
+            switch (kind) {
+                case STEP:
+                    return step.usesDrivetrain();
+                case PARALLEL:
+                    for (Node child : children) {
+                        if (child.usesDrivetrain()) {
+                            return true;
+                        }
+                    }
+                    return false;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * @return True if this node, or any of its children, runs the ramp
+         */
+        public boolean usesRamp() {
+            switch (kind) {
+                case STEP:
+                    return step.usesRamp();
+                case PARALLEL:
+                    for (Node child : children) {
+                        if (child.usesRamp()) {
+                            return true;
+                        }
+                    }
+                    return false;
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        public String toString() {
+            final String suffix = (plate == PlateCondition.ANY ? "" : " if " + plate) +
+                    (hasTimeout() ? " timeout " + timeout + " s" : "");
+            switch (kind) {
+                case STEP:
+                    return step + suffix;
+                case WAIT:
+                    return "WAIT(" + time + " s)" + suffix;
+                default:
+                    return "PARALLEL" + children + suffix;
+            }
+        }
+    }
+
+    /**
+     * The name of the script, from its file name.
+     */
+    public final String name;
+    /**
+     * The unmodifiable nodes, run in order.
+     */
+    public final List<Node> nodes;
+
+    /**
+     * Constructor.
+     *
+     * @param name  The non-null name
+     * @param nodes The non-null nodes, which are copied
+     */
+    public RouteScript(String name, List<Node> nodes) {
+        this.name = name;
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+    }
+
+    @Override
+    public String toString() {
+        return name + nodes;
+    }
+}
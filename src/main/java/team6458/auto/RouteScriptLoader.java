@@ -0,0 +1,175 @@
+package team6458.auto;
+
+import team6458.util.exception.RouteScriptException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads {@link RouteScript}s from the {@code .json} files in a directory, and reloads them when they change, so a
+ * route can be edited on the roboRIO between matches without redeploying.
+ * <p>
+ * Each {@link #poll()} checks the files' modification times and only parses the ones that changed. A script that
+ * fails to parse keeps its last valid version (if any), and its errors are kept for {@link #getErrors()} until it is
+ * fixed. A script whose file was deleted is dropped.
+ * <p>
+ * Polling reads the file system and allocates, so it should only be done while disabled. This class is <b>not</b>
+ * thread-safe.
+ */
+public final class RouteScriptLoader {
+
+    private static final Logger LOGGER = Logger.getLogger(RouteScriptLoader.class.getName());
+
+    /**
+     * The extension of route script files.
+     */
+    public static final String EXTENSION = ".json";
+
+    private final Path directory;
+    private final Map<String, FileTime> modified = new HashMap<>();
+    private final Map<String, RouteScript> scripts = new TreeMap<>();
+    private final Map<String, List<String>> errors = new TreeMap<>();
+    private boolean directoryMissing = false;
+
+    /**
+     * Constructor. Nothing is loaded until the first {@link #poll()}.
+     *
+     * @param directory The non-null directory of the script files
+     */
+    public RouteScriptLoader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the scripts whose files were added or modified since the last poll, and drops the ones whose files were
+     * deleted.
+     *
+     * @return The names of the scripts that have a new valid version or were dropped
+     */
+    public List<String> poll() {
+        final List<String> changed = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            if (!directoryMissing) {
+                LOGGER.log(Level.INFO, "No route script directory at " + directory);
+                directoryMissing = true;
+            }
+            dropAllExcept(Collections.emptySet(), changed);
+            return changed;
+        }
+        directoryMissing = false;
+
+        final Set<String> present = new HashSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                final String fileName = file.getFileName().toString();
+                final String name = fileName.substring(0, fileName.length() - EXTENSION.length());
+                present.add(name);
+                final FileTime time = Files.getLastModifiedTime(file);
+                if (!time.equals(modified.get(name))) {
+                    modified.put(name, time);
+                    if (load(name, file)) {
+                        changed.add(name);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not list the route scripts in " + directory, e);
+            return changed;
+        }
+
+        dropAllExcept(present, changed);
+        return changed;
+    }
+
+    /**
+     * @param name The name of the script, its file name without the extension
+     * @return True if there is a valid version of the script
+     */
+    public boolean contains(String name) {
+        return scripts.containsKey(name);
+    }
+
+    /**
+     * @param name The name of the script, its file name without the extension
+     * @return The last valid version of the script
+     * @throws IllegalStateException if there is no valid version, with the errors
+     */
+    public RouteScript get(String name) {
+        final RouteScript script = scripts.get(name);
+        if (script == null) {
+            throw new IllegalStateException("No valid route script " + name + ": " +
+                    errors.getOrDefault(name, Collections.singletonList("the file does not exist")));
+        }
+        return script;
+    }
+
+    /**
+     * @return The names of the scripts with a valid version, in order
+     */
+    public List<String> getNames() {
+        return new ArrayList<>(scripts.keySet());
+    }
+
+    /**
+     * @return Every error in the scripts that currently fail to load, each prefixed with the script's name
+     */
+    public List<String> getErrors() {
+        final List<String> all = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : errors.entrySet()) {
+            for (String error : entry.getValue()) {
+                all.add(entry.getKey() + ": " + error);
+            }
+        }
+        return all;
+    }
+
+    /**
+     * @return True if there is a new valid version of the script
+     */
+    private boolean load(String name, Path file) {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            final RouteScript script = RouteScriptParser.parse(name, reader);
+            scripts.put(name, script);
+            errors.remove(name);
+            LOGGER.log(Level.INFO, "Loaded route script " + script);
+            return true;
+        } catch (RouteScriptException e) {
+            errors.put(name, e.getErrors());
+        } catch (IOException e) {
+            errors.put(name, Collections.singletonList("could not be read: " + e));
+        }
+        LOGGER.log(Level.SEVERE, "Route script " + name + " is not valid" +
+                (scripts.containsKey(name) ? ", keeping the previous version: " : ": ") + errors.get(name));
+        return false;
+    }
+
+    private void dropAllExcept(Set<String> present, List<String> changed) {
+        final List<String> names = new ArrayList<>(modified.keySet());
+        for (String name : names) {
+            if (present.contains(name)) {
+                continue;
+            }
+            modified.remove(name);
+            errors.remove(name);
+            if (scripts.remove(name) != null) {
+                LOGGER.log(Level.WARNING, "Route script " + name + " was deleted");
+                changed.add(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package team6458.auto;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import com.eclipsesource.json.ParseException;
+import team6458.auto.RouteScript.Node;
+import team6458.auto.RouteScript.PlateCondition;
+import team6458.util.exception.RouteScriptException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses and validates {@link RouteScript}s from JSON. A script looks like this:
+ * <pre>
+ * {
+ *   "steps": [
+ *     {"type": "drive", "distance": -0.3},
+ *     {"type": "rotate", "degrees": -45, "plate": "LEFT"},
+ *     {"type": "rotate", "degrees": 45, "plate": "RIGHT"},
+ *     {"type": "drive", "distance": -2.4, "throttle": 0.8, "timeout": 2.5},
+ *     {"type": "deliver", "within": 0.3, "plate": "LEFT"},
+ *     {"type": "wait", "time": 0.5},
+ *     {"type": "parallel", "steps": [{"type": "drive", "distance": 1.0}, {"type": "ramp", "time": 1.0}]}
+ *   ]
+ * }
+ * </pre>
+ * The step types are:
+ * <ul>
+ * <li>{@code drive}: drive straight for the {@code distance} in metres (negative is backwards), at the optional
+ * maximum {@code throttle} (default {@link AutoRoutes#DEFAULT_THROTTLE})</li>
+ * <li>{@code rotate}: rotate in place by the {@code degrees}, positive is clockwise, with PID</li>
+ * <li>{@code ramp}: run the ramp for the {@code time} in seconds, at the optional {@code speed} (default
+ * {@link AutoRoutes#INTAKE_SPEED})</li>
+ * <li>{@code deliver}: run the ramp until a sensor confirms the cube has left, or for at most the optional
+ * {@code time} in seconds (default {@link AutoRoutes#INTAKE_TIME}), at the optional {@code speed}</li>
+ * <li>{@code wait}: do nothing for the {@code time} in seconds</li>
+ * <li>{@code parallel}: run the {@code steps} at the same time, which must not use the same subsystem</li>
+ * </ul>
+ * Any step can have a {@code plate} condition ({@code LEFT}, {@code RIGHT} or {@code UNKNOWN} for the nearest switch
+ * plate, or {@code ANY}), and any but a wait can have a {@code timeout} in seconds. Drive, rotate, ramp and deliver
+ * steps can instead start {@code within} a distance in metres of the previous drive's target (see
+ * {@link RouteStep#startingWithin}).
+ * <p>
+ * Unknown keys and out of range values are errors, so a typo is found in the pits instead of at the start of a match.
+ * Every error in the script is reported at once.
+ */
+public final class RouteScriptParser {
+
+    /**
+     * The longest distance in metres a drive step may have, about the length of the field.
+     */
+    public static final double MAX_DISTANCE = 16.5;
+    /**
+     * The largest heading change in degrees a rotate step may have.
+     */
+    public static final double MAX_ROTATION = 360.0;
+
+    private static final List<String> SCRIPT_KEYS = Arrays.asList("steps", "description");
+    private static final List<String> DRIVE_KEYS = Arrays.asList("type", "plate", "timeout", "within", "distance",
+            "throttle");
+    private static final List<String> ROTATE_KEYS = Arrays.asList("type", "plate", "timeout", "within", "degrees");
+    private static final List<String> RAMP_KEYS = Arrays.asList("type", "plate", "timeout", "within", "time",
+            "speed");
+    private static final List<String> DELIVER_KEYS = RAMP_KEYS;
+    private static final List<String> WAIT_KEYS = Arrays.asList("type", "plate", "time");
+    private static final List<String> PARALLEL_KEYS = Arrays.asList("type", "plate", "timeout", "steps");
+
+    private final List<String> errors = new ArrayList<>();
+
+    private RouteScriptParser() {
+    }
+
+    /**
+     * Parses a script.
+     *
+     * @param name   The non-null name of the script, usually its file name
+     * @param reader The non-null reader of the JSON, which is not closed
+     * @return The script
+     * @throws IOException          if reading fails
+     * @throws RouteScriptException if the script is not valid
+     */
+    public static RouteScript parse(String name, Reader reader) throws IOException, RouteScriptException {
+        final JsonValue json;
+        try {
+            json = Json.parse(reader);
+        } catch (ParseException e) {
+            throw new RouteScriptException(name, Collections.singletonList(
+                    "not valid JSON at line " + e.getLine() + ", column " + e.getColumn()));
+        }
+
+        final RouteScriptParser parser = new RouteScriptParser();
+        final List<Node> nodes = parser.parseScript(json);
+        if (!parser.errors.isEmpty()) {
+            throw new RouteScriptException(name, parser.errors);
+        }
+        return new RouteScript(name, nodes);
+    }
+
+    /**
+     * Parses a script from a string.
+     *
+     * @param name The non-null name of the script
+     * @param json The non-null JSON
+     * @return The script
+     * @throws RouteScriptException if the script is not valid
+     */
+    public static RouteScript parse(String name, String json) throws RouteScriptException {
+        try {
+            return parse(name, new StringReader(json));
+        } catch (IOException e) {
+            // A string reader does not throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<Node> parseScript(JsonValue json) {
+        if (!json.isObject()) {
+            error("", "must be an object with a \"steps\" array");
+            return new ArrayList<>();
+        }
+        final JsonObject object = json.asObject();
+        checkKeys("", object, SCRIPT_KEYS);
+        final List<Node> nodes = parseSteps("steps", object.get("steps"));
+        if (nodes.isEmpty() && errors.isEmpty()) {
+            error("steps", "must not be empty");
+        }
+        return nodes;
+    }
+
+    private List<Node> parseSteps(String path, JsonValue json) {
+        final List<Node> nodes = new ArrayList<>();
+        if (json == null || !json.isArray()) {
+            error(path, "must be an array of steps");
+            return nodes;
+        }
+        final JsonArray array = json.asArray();
+        for (int i = 0; i < array.size(); i++) {
+            final String stepPath = path + "[" + i + "]";
+            final JsonValue value = array.get(i);
+            if (!value.isObject()) {
+                error(stepPath, "must be an object");
+                continue;
+            }
+            nodes.add(parseStep(stepPath, value.asObject()));
+        }
+        return nodes;
+    }
+
+    /**
+     * @return The node. If the step type is not known, this is a placeholder and an error is added
+     */
+    private Node parseStep(String path, JsonObject object) {
+        final PlateCondition plate = getPlate(path, object);
+        final String type = getString(path, object, "type", "");
+        switch (type) {
+            case "drive": {
+                checkKeys(path, object, DRIVE_KEYS);
+                final double distance = getNumber(path, object, "distance", Double.NaN, -MAX_DISTANCE,
+                        MAX_DISTANCE);
+                if (distance == 0.0) {
+                    error(path + ".distance", "must not be zero");
+                }
+                final double throttle = getNumber(path, object, "throttle", AutoRoutes.DEFAULT_THROTTLE, 0.0, 1.0);
+                if (throttle == 0.0 && object.get("throttle") != null) {
+                    error(path + ".throttle", "must be positive");
+                }
+                return Node.step(getOverlap(path, object, RouteStep.drive(distance, throttle)), plate,
+                        getTimeout(path, object));
+            }
+            case "rotate": {
+                checkKeys(path, object, ROTATE_KEYS);
+                final double degrees = getNumber(path, object, "degrees", Double.NaN, -MAX_ROTATION, MAX_ROTATION);
+                return Node.step(getOverlap(path, object, RouteStep.pidRotate(degrees)), plate,
+                        getTimeout(path, object));
+            }
+            case "ramp": {
+                checkKeys(path, object, RAMP_KEYS);
+                final double time = getPositive(path, object, "time", Double.NaN);
+                final double speed = getNumber(path, object, "speed", AutoRoutes.INTAKE_SPEED, -1.0, 1.0);
+                return Node.step(getOverlap(path, object, RouteStep.ramp(speed, time)), plate,
+                        getTimeout(path, object));
+            }
+            case "deliver": {
+                checkKeys(path, object, DELIVER_KEYS);
+                final double time = getPositive(path, object, "time", AutoRoutes.INTAKE_TIME);
+                final double speed = getNumber(path, object, "speed", AutoRoutes.INTAKE_SPEED, -1.0, 1.0);
+                return Node.step(getOverlap(path, object, RouteStep.deliver(speed, time)), plate,
+                        getTimeout(path, object));
+            }
+            case "wait": {
+                checkKeys(path, object, WAIT_KEYS);
+                return Node.wait(getPositive(path, object, "time", Double.NaN), plate);
+            }
+            case "parallel": {
+                checkKeys(path, object, PARALLEL_KEYS);
+                final List<Node> children = parseSteps(path + ".steps", object.get("steps"));
+                checkParallel(path, children);
+                return Node.parallel(children, plate, getTimeout(path, object));
+            }
+            default:
+                error(path + ".type", "must be one of drive, rotate, ramp, deliver, wait or parallel, got \"" + type +
+                        "\"");
+                return Node.wait(1.0, plate);
+        }
+    }
+
+    /**
+     * Checks that the children of a parallel step can run at the same time.
+     */
+    private void checkParallel(String path, List<Node> children) {
+        if (children.size() < 2) {
+            error(path + ".steps", "must have at least two steps to run in parallel");
+        }
+        int drivetrain = 0;
+        int ramp = 0;
+        for (Node child : children) {
+            drivetrain += child.usesDrivetrain() ? 1 : 0;
+            ramp += child.usesRamp() ? 1 : 0;
+            if (child.kind == Node.Kind.STEP && child.step.isOverlapped()) {
+                error(path + ".steps", "must not use \"within\", since they all start together");
+            }
+        }
+        if (drivetrain > 1) {
+            error(path + ".steps", "must not have more than one step using the drivetrain");
+        }
+        if (ramp > 1) {
+            error(path + ".steps", "must not have more than one step using the ramp");
+        }
+    }
+
+    private PlateCondition getPlate(String path, JsonObject object) {
+        final String plate = getString(path, object, "plate", PlateCondition.ANY.name());
+        try {
+            return PlateCondition.valueOf(plate.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            error(path + ".plate", "must be one of LEFT, RIGHT, UNKNOWN or ANY, got \"" + plate + "\"");
+            return PlateCondition.ANY;
+        }
+    }
+
+    private double getTimeout(String path, JsonObject object) {
+        return getPositive(path, object, "timeout", RouteStep.NO_TIMEOUT);
+    }
+
+    private RouteStep getOverlap(String path, JsonObject object, RouteStep step) {
+        if (object.get("within") == null) {
+            return step;
+        }
+        if (object.get("timeout") != null) {
+            error(path + ".timeout", "must not be set on a step that starts \"within\" the previous one");
+        }
+        return step.startingWithin(getNumber(path, object, "within", 0.0, 0.0, MAX_DISTANCE));
+    }
+
+    private String getString(String path, JsonObject object, String key, String defaultValue) {
+        final JsonValue value = object.get(key);
+        if (value == null) {
+            if (defaultValue.isEmpty()) {
+                error(path + "." + key, "is missing");
+            }
+            return defaultValue;
+        }
+        if (!value.isString()) {
+            error(path + "." + key, "must be a string");
+            return defaultValue;
+        }
+        return value.asString();
+    }
+
+    private double getPositive(String path, JsonObject object, String key, double defaultValue) {
+        final double value = getNumber(path, object, key, defaultValue, 0.0, Double.MAX_VALUE);
+        if (value == 0.0 && object.get(key) != null) {
+            error(path + "." + key, "must be positive");
+        }
+        return value;
+    }
+
+    /**
+     * @param defaultValue The value if the key is missing, or NaN if it is required
+     * @return The number, the default value if it is missing, or NaN if it is not valid
+     */
+    private double getNumber(String path, JsonObject object, String key, double defaultValue, double min,
+                             double max) {
+        final JsonValue value = object.get(key);
+        if (value == null) {
+            if (Double.isNaN(defaultValue)) {
+                error(path + "." + key, "is missing");
+                return Double.NaN;
+            }
+            return defaultValue;
+        }
+        if (!value.isNumber()) {
+            error(path + "." + key, "must be a number");
+            return Double.NaN;
+        }
+        final double number = value.asDouble();
+        if (number < min || number > max) {
+            error(path + "." + key, max == Double.MAX_VALUE ? "must be positive, got " + value :
+                    String.format(Locale.ROOT, "must be between %.1f and %.1f, got %s", min, max, value));
+            return Double.NaN;
+        }
+        return number;
+    }
+
+    private void checkKeys(String path, JsonObject object, List<String> allowed) {
+        for (String key : object.names()) {
+            if (!allowed.contains(key)) {
+                error(path.isEmpty() ? key : path + "." + key, "is not a known key, expected one of " + allowed);
+            }
+        }
+    }
+
+    private void error(String path, String message) {
+        errors.add(path.isEmpty() ? message : path + " " + message);
+    }
+}
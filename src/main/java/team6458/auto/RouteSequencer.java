@@ -0,0 +1,658 @@
+package team6458.auto;
+
+import team6458.control.DriveStraightController;
+import team6458.control.PidRotateController;
+import team6458.control.ProfiledDriveController;
+import team6458.control.ProfiledRotateController;
+import team6458.control.PurePursuitController;
+import team6458.control.RotateController;
+import team6458.control.VelocityDriveOutput;
+import team6458.hal.DriveOutput;
+import team6458.sensor.PoseEstimator;
+import team6458.telemetry.CommandTracer.EndReason;
+import team6458.util.Utils;
+
+import java.util.List;
+
+/**
+ * Runs a list of {@link RouteStep}s, one loop at a time. This is the one place a step is turned into a controller and
+ * the one place overlaps, conflicts and timeouts are decided, so the robot ({@link team6458.cmd.RouteCommand}) and the
+ * simulator run a route the same way. It does not use WPILib: the readings and outputs come from a {@link Context},
+ * and the caller calls {@link #update()} once per loop, after the sensors are sampled.
+ * <p>
+ * Steps run in order, and the next step starts in the same loop as the one before it ends, like in a
+ * {@code CommandGroup}. A step that {@link RouteStep#isOverlapped() overlaps} the one before it starts alongside it
+ * once that step is within the overlap distance of its target, if only one of the two uses the drivetrain and no
+ * other running step uses the same subsystem. An overlapping step keeps running alongside the rest of the route, and a
+ * later step that uses the same subsystem waits for it to end, so nothing is cancelled by a conflict. If the step
+ * before it ends first, an overlapping step starts then, like any other step.
+ * <p>
+ * A step ends when its controller finishes, or on the shorter of the step's {@link RouteStep#timeout} and the
+ * controller's own timeout (the same as the single commands'). A ramp step ends after its time, which is not a
+ * timeout.
+ * <p>
+ * The controllers are created in the constructor, so nothing is allocated while the route runs. This class is
+ * <b>not</b> thread-safe, and should only be used from the loop that samples the sensors.
+ */
+public final class RouteSequencer {
+
+    /**
+     * The readings and outputs a route runs on, the robot's or the simulator's. The readings are those of the
+     * current loop.
+     */
+    public interface Context {
+
+        /**
+         * @return The time in seconds at which the readings were taken
+         */
+        double getTimestamp();
+
+        /**
+         * @return The heading in degrees, positive is clockwise
+         */
+        double getHeading();
+
+        /**
+         * @return The rotation rate in degrees per second
+         */
+        double getHeadingRate();
+
+        /**
+         * @return The average distance of the two sides in metres
+         */
+        double getAverageDistance();
+
+        /**
+         * @return The pose estimate, already updated for this loop
+         */
+        PoseEstimator getPoseEstimator();
+
+        /**
+         * @return The open-loop drive
+         */
+        DriveOutput getDrive();
+
+        /**
+         * @return The velocity-controlled drive, whose measurements are already set for this loop
+         */
+        VelocityDriveOutput getVelocityDrive();
+
+        /**
+         * @return True if the drive, rotate and path steps should use {@link #getVelocityDrive()}
+         */
+        boolean isVelocityControlled();
+
+        /**
+         * @param speed The speed of the ramp motors between -1.0 and 1.0
+         */
+        void setRampSpeed(double speed);
+
+        /**
+         * Stops the ramp motors.
+         */
+        void stopRamp();
+
+        /**
+         * Starts confirming that the cube has left the ramp, when a delivery step starts.
+         */
+        void startDelivery();
+
+        /**
+         * Called every loop of a delivery step.
+         *
+         * @return True once the cube has left the ramp since {@link #startDelivery()}
+         */
+        boolean isDelivered();
+    }
+
+    /**
+     * Notified when steps start and end, from {@link #update()} and {@link #stop()}.
+     */
+    public interface Listener {
+
+        /**
+         * A listener that does nothing.
+         */
+        Listener NONE = new Listener() {
+            @Override
+            public void stepStarted(int index, RouteStep step) {
+            }
+
+            @Override
+            public void stepEnded(int index, RouteStep step, EndReason reason) {
+            }
+        };
+
+        /**
+         * @param index The index of the step in the route
+         * @param step  The step
+         */
+        void stepStarted(int index, RouteStep step);
+
+        /**
+         * @param index  The index of the step in the route
+         * @param step   The step
+         * @param reason Why the step ended, {@link EndReason#INTERRUPTED} if the route was stopped
+         */
+        void stepEnded(int index, RouteStep step, EndReason reason);
+    }
+
+    private enum State {
+        PENDING, RUNNING, ENDED
+    }
+
+    private final Context context;
+    private final Listener listener;
+    private final double driveKP;
+    private final double rotateTolerance;
+    private final Step[] steps;
+    private final State[] states;
+    private int current;
+
+    /**
+     * Constructor with {@link DriveStraightController#GYRO_CORRECTION} and {@link RotateController#ANGLE_TOLERANCE}.
+     *
+     * @param route    The non-null steps to run in order
+     * @param context  The non-null readings and outputs
+     * @param listener The non-null listener
+     */
+    public RouteSequencer(List<RouteStep> route, Context context, Listener listener) {
+        this(route, context, listener, DriveStraightController.GYRO_CORRECTION, RotateController.ANGLE_TOLERANCE);
+    }
+
+    /**
+     * Constructor. This creates the controllers, so it allocates.
+     *
+     * @param route           The non-null steps to run in order
+     * @param context         The non-null readings and outputs
+     * @param listener        The non-null listener
+     * @param driveKP         The proportional constant for heading correction while driving
+     * @param rotateTolerance The angle tolerance in degrees for rotations
+     */
+    public RouteSequencer(List<RouteStep> route, Context context, Listener listener, double driveKP,
+                          double rotateTolerance) {
+        this.context = context;
+        this.listener = listener;
+        this.driveKP = driveKP;
+        this.rotateTolerance = rotateTolerance;
+        this.steps = new Step[route.size()];
+        this.states = new State[route.size()];
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = createStep(route.get(i));
+            states[i] = State.ENDED;
+        }
+        this.current = steps.length;
+    }
+
+    /**
+     * Starts the route from its first step, which starts in the next {@link #update()}.
+     */
+    public void start() {
+        for (int i = 0; i < states.length; i++) {
+            states[i] = State.PENDING;
+        }
+        current = 0;
+    }
+
+    /**
+     * Runs one loop of the route: starts the steps that can start, and runs every step that is running.
+     *
+     * @return True if the route is finished
+     */
+    public boolean update() {
+        // Overlapping steps run first, so a step waiting for one can start in the loop it ends
+        for (int i = 0; i < steps.length; i++) {
+            if (i != current && states[i] == State.RUNNING) {
+                run(i);
+            }
+        }
+
+        while (current < steps.length) {
+            if (states[current] == State.PENDING) {
+                if (conflictsWithRunning(current)) {
+                    break;
+                }
+                begin(current);
+            }
+
+            final int next = current + 1;
+            if (next < steps.length && states[next] == State.PENDING && steps[next].route.isOverlapped() &&
+                    !conflictsWithRunning(next) &&
+                    steps[current].getRemainingDistance() <= steps[next].route.overlapDistance) {
+                begin(next);
+                run(next);
+            }
+
+            if (!run(current)) {
+                break;
+            }
+            // Skip the step that already started alongside it
+            do {
+                current++;
+            } while (current < steps.length && states[current] != State.PENDING);
+        }
+        return isFinished();
+    }
+
+    /**
+     * @return True if every step has ended, or the route was stopped
+     */
+    public boolean isFinished() {
+        if (current < steps.length) {
+            return false;
+        }
+        for (State state : states) {
+            if (state == State.RUNNING) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ends the running steps as interrupted and stops their outputs. Does nothing if the route is finished.
+     */
+    public void stop() {
+        for (int i = 0; i < steps.length; i++) {
+            if (states[i] == State.RUNNING) {
+                end(i, EndReason.INTERRUPTED);
+            }
+            states[i] = State.ENDED;
+        }
+        current = steps.length;
+    }
+
+    /**
+     * @return The number of steps in the route
+     */
+    public int size() {
+        return steps.length;
+    }
+
+    private void begin(int index) {
+        states[index] = State.RUNNING;
+        steps[index].begin();
+        listener.stepStarted(index, steps[index].route);
+    }
+
+    /**
+     * Runs one loop of a step, and ends it if it finished or timed out.
+     *
+     * @return True if the step ended
+     */
+    private boolean run(int index) {
+        final Step step = steps[index];
+        if (step.execute()) {
+            end(index, EndReason.FINISHED);
+            return true;
+        }
+        if (step.isTimedOut()) {
+            end(index, EndReason.TIMED_OUT);
+            return true;
+        }
+        return false;
+    }
+
+    private void end(int index, EndReason reason) {
+        steps[index].end();
+        states[index] = State.ENDED;
+        listener.stepEnded(index, steps[index].route, reason);
+    }
+
+    /**
+     * @return True if another running step uses the same subsystem as the step
+     */
+    private boolean conflictsWithRunning(int index) {
+        final boolean drives = steps[index].route.usesDrivetrain();
+        for (int i = 0; i < steps.length; i++) {
+            if (i != index && states[i] == State.RUNNING && steps[i].route.usesDrivetrain() == drives) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The drive selected by the context, to be kept for the whole step
+     */
+    private DriveOutput getOutput() {
+        return context.isVelocityControlled() ? context.getVelocityDrive() : context.getDrive();
+    }
+
+    private Step createStep(RouteStep route) {
+        switch (route.type) {
+            case DRIVE:
+                return new DriveStep(route);
+            case ROTATE:
+                return new RotateStep(route);
+            case PROFILED_DRIVE:
+                return new ProfiledDriveStep(route);
+            case PROFILED_ROTATE:
+                return new ProfiledRotateStep(route);
+            case PID_ROTATE:
+                return new PidRotateStep(route);
+            case PATH:
+                return new PathStep(route);
+            case RAMP:
+                return new RampStep(route);
+            case DELIVER:
+                return new DeliverStep(route);
+            default:
+                throw new IllegalArgumentException("Unknown route step type " + route.type);
+        }
+    }
+
+    /**
+     * @return The shorter of two timeouts, ignoring {@link RouteStep#NO_TIMEOUT}
+     */
+    private static double shorter(double a, double b) {
+        if (a <= RouteStep.NO_TIMEOUT) {
+            return b;
+        }
+        if (b <= RouteStep.NO_TIMEOUT) {
+            return a;
+        }
+        return Math.min(a, b);
+    }
+
+    /**
+     * A step and its controller.
+     */
+    private abstract class Step {
+
+        protected final RouteStep route;
+        private final double timeout;
+        private double startTime;
+
+        /**
+         * @param route   The step
+         * @param timeout The controller's own timeout, or {@link RouteStep#NO_TIMEOUT}
+         */
+        private Step(RouteStep route, double timeout) {
+            this.route = route;
+            this.timeout = shorter(route.timeout, timeout);
+        }
+
+        private void begin() {
+            startTime = context.getTimestamp();
+            start();
+        }
+
+        private boolean isTimedOut() {
+            return timeout > RouteStep.NO_TIMEOUT && getElapsed() >= timeout;
+        }
+
+        protected final double getElapsed() {
+            return context.getTimestamp() - startTime;
+        }
+
+        /**
+         * Starts the controller from the current readings.
+         */
+        protected abstract void start();
+
+        /**
+         * Runs one loop of the controller.
+         *
+         * @return True if the step is finished
+         */
+        protected abstract boolean execute();
+
+        /**
+         * Stops the outputs of the step.
+         */
+        protected abstract void end();
+
+        /**
+         * @return The distance left to the step's target in metres, for overlapping the next step. Infinite if the
+         * step has no target
+         */
+        protected double getRemainingDistance() {
+            return Double.POSITIVE_INFINITY;
+        }
+    }
+
+    private final class DriveStep extends Step {
+
+        private final DriveStraightController controller;
+        private DriveOutput output;
+
+        private DriveStep(RouteStep route) {
+            super(route, RouteStep.NO_TIMEOUT);
+            controller = new DriveStraightController(route.value, route.gradient, driveKP);
+        }
+
+        @Override
+        protected void start() {
+            controller.start(context.getHeading(), context.getAverageDistance());
+            output = getOutput();
+        }
+
+        @Override
+        protected boolean execute() {
+            controller.update(context.getHeading(), context.getAverageDistance(), output);
+            return controller.isFinished(context.getAverageDistance());
+        }
+
+        @Override
+        protected void end() {
+            output.stopMotor();
+        }
+
+        @Override
+        protected double getRemainingDistance() {
+            return controller.getRemainingDistance(context.getAverageDistance());
+        }
+    }
+
+    private final class RotateStep extends Step {
+
+        private final RotateController controller;
+        private DriveOutput output;
+
+        private RotateStep(RouteStep route) {
+            super(route, RotateController.DEFAULT_TIMEOUT);
+            controller = new RotateController(route.value, route.gradient, rotateTolerance);
+        }
+
+        @Override
+        protected void start() {
+            controller.start(context.getHeading());
+            output = getOutput();
+        }
+
+        @Override
+        protected boolean execute() {
+            controller.update(context.getHeading(), output);
+            return controller.isFinished(context.getHeading());
+        }
+
+        @Override
+        protected void end() {
+            output.stopMotor();
+        }
+    }
+
+    private final class ProfiledDriveStep extends Step {
+
+        private final ProfiledDriveController controller;
+
+        private ProfiledDriveStep(RouteStep route) {
+            this(route, new ProfiledDriveController(route.value, route.constraints, driveKP));
+        }
+
+        private ProfiledDriveStep(RouteStep route, ProfiledDriveController controller) {
+            super(route, controller.profile.getDuration() + ProfiledDriveController.SETTLE_TIME);
+            this.controller = controller;
+        }
+
+        @Override
+        protected void start() {
+            controller.start(context.getTimestamp(), context.getHeading(), context.getAverageDistance());
+        }
+
+        @Override
+        protected boolean execute() {
+            controller.update(context.getTimestamp(), context.getHeading(), context.getAverageDistance(),
+                    context.getDrive());
+            return controller.isFinished(context.getTimestamp(), context.getAverageDistance());
+        }
+
+        @Override
+        protected void end() {
+            context.getDrive().stopMotor();
+        }
+
+        @Override
+        protected double getRemainingDistance() {
+            return controller.getRemainingDistance(context.getAverageDistance());
+        }
+    }
+
+    private final class ProfiledRotateStep extends Step {
+
+        private final ProfiledRotateController controller;
+
+        private ProfiledRotateStep(RouteStep route) {
+            this(route, new ProfiledRotateController(route.value, route.constraints));
+        }
+
+        private ProfiledRotateStep(RouteStep route, ProfiledRotateController controller) {
+            super(route, Math.max(RotateController.DEFAULT_TIMEOUT,
+                    controller.profile.getDuration() + ProfiledRotateController.SETTLE_TIME));
+            this.controller = controller;
+        }
+
+        @Override
+        protected void start() {
+            controller.start(context.getTimestamp(), context.getHeading());
+        }
+
+        @Override
+        protected boolean execute() {
+            controller.update(context.getTimestamp(), context.getHeading(), context.getHeadingRate(),
+                    context.getDrive());
+            return controller.isFinished(context.getTimestamp(), context.getHeading());
+        }
+
+        @Override
+        protected void end() {
+            context.getDrive().stopMotor();
+        }
+    }
+
+    private final class PidRotateStep extends Step {
+
+        private final PidRotateController controller;
+        private DriveOutput output;
+
+        private PidRotateStep(RouteStep route) {
+            super(route, RotateController.DEFAULT_TIMEOUT);
+            controller = new PidRotateController(route.value);
+        }
+
+        @Override
+        protected void start() {
+            output = getOutput();
+            controller.start(context.getHeading(), output instanceof VelocityDriveOutput);
+        }
+
+        @Override
+        protected boolean execute() {
+            controller.update(context.getTimestamp(), context.getHeading(), context.getHeadingRate(), output);
+            return controller.isFinished(context.getTimestamp(), context.getHeading(), context.getHeadingRate());
+        }
+
+        @Override
+        protected void end() {
+            output.stopMotor();
+        }
+    }
+
+    private final class PathStep extends Step {
+
+        private final PurePursuitController controller;
+        private boolean velocityControl;
+
+        private PathStep(RouteStep route) {
+            super(route, route.path.getDuration() + RouteStep.PATH_TIMEOUT_MARGIN);
+            controller = new PurePursuitController(route.path);
+        }
+
+        @Override
+        protected void start() {
+            final PoseEstimator pose = context.getPoseEstimator();
+            controller.start(pose.getX(), pose.getY(), pose.getHeading());
+            velocityControl = context.isVelocityControlled();
+        }
+
+        @Override
+        protected boolean execute() {
+            final PoseEstimator pose = context.getPoseEstimator();
+            if (velocityControl) {
+                controller.update(pose.getX(), pose.getY(), pose.getHeading(), context.getVelocityDrive());
+            } else {
+                controller.update(pose.getX(), pose.getY(), pose.getHeading(), context.getDrive());
+            }
+            return controller.isFinished();
+        }
+
+        @Override
+        protected void end() {
+            if (velocityControl) {
+                context.getVelocityDrive().stopMotor();
+            } else {
+                context.getDrive().stopMotor();
+            }
+        }
+
+        @Override
+        protected double getRemainingDistance() {
+            return controller.getRemaining();
+        }
+    }
+
+    private class RampStep extends Step {
+
+        protected final double speed;
+
+        private RampStep(RouteStep route) {
+            super(route, RouteStep.NO_TIMEOUT);
+            speed = Utils.clamp(route.value, -1.0, 1.0);
+        }
+
+        @Override
+        protected void start() {
+        }
+
+        @Override
+        protected boolean execute() {
+            context.setRampSpeed(speed);
+            // Running for the whole time is what a ramp step is for, so it finishes rather than timing out
+            return getElapsed() >= route.timeout;
+        }
+
+        @Override
+        protected void end() {
+            context.stopRamp();
+        }
+    }
+
+    private final class DeliverStep extends RampStep {
+
+        private DeliverStep(RouteStep route) {
+            super(route);
+        }
+
+        @Override
+        protected void start() {
+            context.startDelivery();
+        }
+
+        @Override
+        protected boolean execute() {
+            context.setRampSpeed(speed);
+            return context.isDelivered();
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package team6458.auto;
+
+import team6458.control.DriveStraightController;
+import team6458.control.ProfiledRotateController;
+import team6458.control.RotateController;
+import team6458.control.path.Path;
+import team6458.control.path.Paths;
+import team6458.control.path.Waypoint;
+import team6458.control.profile.MotionConstraints;
+import team6458.control.profile.MotionProfiles;
+import team6458.util.ValueGradient;
+
+import java.util.Locale;
+
+/**
+ * A single step of an autonomous route. Routes are plain data, run by a {@link RouteSequencer} on the robot (see
+ * {@link team6458.cmd.RouteCommand}) and headless by the simulator.
+ * <p>
+ * Instances are immutable, and are created with the static factory methods.
+ */
+public final class RouteStep {
+
+    /**
+     * The kind of step.
+     */
+    public enum Type {
+        /**
+         * Drive straight, {@link #value} is the distance in metres.
+         */
+        DRIVE,
+        /**
+         * Rotate in place, {@link #value} is the heading change in degrees, positive is clockwise.
+         */
+        ROTATE,
+        /**
+         * Drive straight following a motion profile, {@link #value} is the distance in metres.
+         */
+        PROFILED_DRIVE,
+        /**
+         * Rotate in place following a motion profile, {@link #value} is the heading change in degrees.
+         */
+        PROFILED_ROTATE,
+        /**
+         * Rotate in place with PID until settled, {@link #value} is the heading change in degrees.
+         */
+        PID_ROTATE,
+        /**
+         * Follow a {@link #path} with pure pursuit, {@link #value} is the path's length in metres, negative if
+         * reversed.
+         */
+        PATH,
+        /**
+         * Run the ramp motors until the timeout, {@link #value} is the motor speed.
+         */
+        RAMP,
+        /**
+         * Run the ramp motors until a sensor confirms the cube has left, or the timeout, {@link #value} is the motor
+         * speed.
+         *
+         * @see team6458.sensor.CubeDeliveryDetector
+         */
+        DELIVER
+    }
+
+    /**
+     * The timeout value of a step that has none.
+     */
+    public static final double NO_TIMEOUT = 0.0;
+    /**
+     * The time in seconds a path step may take beyond the path's duration.
+     */
+    public static final double PATH_TIMEOUT_MARGIN = 1.5;
+    /**
+     * The overlap distance of a step that starts when the step before it ends.
+     */
+    public static final double NO_OVERLAP = -1.0;
+
+    /**
+     * The gradient of steps that do not use one.
+     */
+    private static final ValueGradient UNUSED_GRADIENT = new ValueGradient(0.0, 0.0, 1.0, 0.0);
+    /**
+     * The constraints of steps that are not profiled.
+     */
+    private static final MotionConstraints UNUSED_CONSTRAINTS = MotionConstraints.trapezoidal(1.0, 1.0);
+    /**
+     * The path of steps that do not follow one.
+     */
+    private static final Path UNUSED_PATH = Paths.generate(UNUSED_CONSTRAINTS, false, Waypoint.of(0.0, 0.0, 0.0),
+            Waypoint.of(1.0, 0.0, 0.0));
+
+    /**
+     * The type of step.
+     */
+    public final Type type;
+    /**
+     * The distance, heading change or motor speed, depending on the {@link #type}.
+     */
+    public final double value;
+    /**
+     * The throttle gradient of a drive step, or the speed gradient of a rotate step. Not used by other steps.
+     */
+    public final ValueGradient gradient;
+    /**
+     * The motion constraints of a profiled step. Not used by other steps.
+     */
+    public final MotionConstraints constraints;
+    /**
+     * The path of a path step. Not used by other steps.
+     */
+    public final Path path;
+    /**
+     * The time in seconds after which the step is given up, or {@link #NO_TIMEOUT}.
+     */
+    public final double timeout;
+    /**
+     * The distance in metres from the target of the step before at which this step starts alongside it, or
+     * {@link #NO_OVERLAP}. Only used if the two steps use different subsystems.
+     */
+    public final double overlapDistance;
+
+    private RouteStep(Type type, double value, ValueGradient gradient, MotionConstraints constraints,
+                      double timeout) {
+        this(type, value, gradient, constraints, UNUSED_PATH, timeout, NO_OVERLAP);
+    }
+
+    private RouteStep(Type type, double value, ValueGradient gradient, MotionConstraints constraints, Path path,
+                      double timeout, double overlapDistance) {
+        this.type = type;
+        this.value = value;
+        this.gradient = gradient;
+        this.constraints = constraints;
+        this.path = path;
+        this.timeout = timeout;
+        this.overlapDistance = overlapDistance;
+    }
+
+    /**
+     * @param distance    The distance in metres, may be negative
+     * @param maxThrottle The maximum throttle between 0.0 and 1.0
+     * @return A drive step with the default throttle gradient and no timeout
+     * @see DriveStraightController#createThrottleGradient(double, double)
+     */
+    public static RouteStep drive(double distance, double maxThrottle) {
+        return drive(distance, maxThrottle, NO_TIMEOUT);
+    }
+
+    /**
+     * @param distance    The distance in metres, may be negative
+     * @param maxThrottle The maximum throttle between 0.0 and 1.0
+     * @param timeout     The positive timeout in seconds, or {@link #NO_TIMEOUT}
+     * @return A drive step with the default throttle gradient
+     * @see DriveStraightController#createThrottleGradient(double, double)
+     */
+    public static RouteStep drive(double distance, double maxThrottle, double timeout) {
+        return drive(distance, DriveStraightController.createThrottleGradient(Math.abs(maxThrottle),
+                Math.abs(distance)), timeout);
+    }
+
+    /**
+     * @param distance The distance in metres, may be negative
+     * @param throttle The non-null throttle gradient, with no negative values
+     * @param timeout  The positive timeout in seconds, or {@link #NO_TIMEOUT}
+     * @return A drive step
+     */
+    public static RouteStep drive(double distance, ValueGradient throttle, double timeout) {
+        return new RouteStep(Type.DRIVE, distance, throttle, UNUSED_CONSTRAINTS, timeout);
+    }
+
+    /**
+     * @param headingChange The heading change in degrees, positive is clockwise
+     * @param gradient      The non-null speed gradient
+     * @return A rotate step with {@link RotateController#DEFAULT_TIMEOUT}
+     */
+    public static RouteStep rotate(double headingChange, ValueGradient gradient) {
+        return new RouteStep(Type.ROTATE, headingChange, gradient, UNUSED_CONSTRAINTS,
+                RotateController.DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param distance    The distance in metres, may be negative
+     * @param constraints The non-null constraints in metres
+     * @param timeout     The positive timeout in seconds, or {@link #NO_TIMEOUT}
+     * @return A profiled drive step
+     */
+    public static RouteStep profiledDrive(double distance, MotionConstraints constraints, double timeout) {
+        return new RouteStep(Type.PROFILED_DRIVE, distance, UNUSED_GRADIENT, constraints, timeout);
+    }
+
+    /**
+     * @param headingChange The heading change in degrees, positive is clockwise
+     * @param constraints   The non-null constraints in degrees
+     * @return A profiled rotate step with a timeout of the profile's duration plus
+     * {@link ProfiledRotateController#SETTLE_TIME}, but no less than {@link RotateController#DEFAULT_TIMEOUT}
+     */
+    public static RouteStep profiledRotate(double headingChange, MotionConstraints constraints) {
+        final double duration = MotionProfiles.get(headingChange, constraints).getDuration();
+        return new RouteStep(Type.PROFILED_ROTATE, headingChange, UNUSED_GRADIENT, constraints,
+                Math.max(RotateController.DEFAULT_TIMEOUT, duration + ProfiledRotateController.SETTLE_TIME));
+    }
+
+    /**
+     * @param headingChange The heading change in degrees, positive is clockwise
+     * @return A PID rotate step with {@link RotateController#DEFAULT_TIMEOUT}
+     * @see team6458.control.PidRotateController
+     */
+    public static RouteStep pidRotate(double headingChange) {
+        return new RouteStep(Type.PID_ROTATE, headingChange, UNUSED_GRADIENT, UNUSED_CONSTRAINTS,
+                RotateController.DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param path The non-null path
+     * @return A path step with a timeout of the path's duration plus {@link #PATH_TIMEOUT_MARGIN}
+     */
+    public static RouteStep path(Path path) {
+        return new RouteStep(Type.PATH, path.reversed ? -path.getLength() : path.getLength(), UNUSED_GRADIENT,
+                path.constraints, path, path.getDuration() + PATH_TIMEOUT_MARGIN, NO_OVERLAP);
+    }
+
+    /**
+     * @param speed The motor speed between -1.0 and 1.0
+     * @param time  The positive time in seconds to run the motors for
+     * @return A ramp step
+     */
+    public static RouteStep ramp(double speed, double time) {
+        return new RouteStep(Type.RAMP, speed, UNUSED_GRADIENT, UNUSED_CONSTRAINTS, time);
+    }
+
+    /**
+     * @param speed   The motor speed between -1.0 and 1.0
+     * @param timeout The positive time in seconds to run the motors for if the delivery is not confirmed
+     * @return A delivery step
+     */
+    public static RouteStep deliver(double speed, double timeout) {
+        return new RouteStep(Type.DELIVER, speed, UNUSED_GRADIENT, UNUSED_CONSTRAINTS, timeout);
+    }
+
+    /**
+     * @param distance The non-negative distance in metres
+     * @return A copy of this step that starts once the step before it is within the distance of its target, if
+     * they use different subsystems
+     * @see RouteSequencer
+     */
+    public RouteStep startingWithin(double distance) {
+        if (distance < 0.0) {
+            throw new IllegalArgumentException("Overlap distance must not be negative, got " + distance);
+        }
+        return new RouteStep(type, value, gradient, constraints, path, timeout, distance);
+    }
+
+    /**
+     * @param timeout The positive timeout in seconds
+     * @return A copy of this step that times out after the timeout, or its own timeout if that is shorter
+     */
+    public RouteStep withTimeout(double timeout) {
+        if (timeout <= NO_TIMEOUT) {
+            throw new IllegalArgumentException("Timeout must be positive, got " + timeout);
+        }
+        final double shorter = hasTimeout() ? Math.min(this.timeout, timeout) : timeout;
+        return new RouteStep(type, value, gradient, constraints, path, shorter, overlapDistance);
+    }
+
+    /**
+     * @return True if this step has a timeout
+     */
+    public boolean hasTimeout() {
+        return timeout > NO_TIMEOUT;
+    }
+
+    /**
+     * @return True if this step may start before the step before it has ended
+     */
+    public boolean isOverlapped() {
+        return overlapDistance >= 0.0;
+    }
+
+    /**
+     * @return True if this step runs the ramp, so it cannot overlap another step that does
+     */
+    public boolean usesRamp() {
+        return type == Type.RAMP || type == Type.DELIVER;
+    }
+
+    /**
+     * @return True if this step drives the drivetrain, so it cannot overlap another step that does
+     */
+    public boolean usesDrivetrain() {
+        return !usesRamp();
+    }
+
+    @Override
+    public String toString() {
+        final String overlap = isOverlapped() ? ", within " + overlapDistance + " m" : "";
+        if (type == Type.PATH) {
+            return String.format(Locale.ROOT, "%s(%.2f m, timeout %.2f s%s)", type, value, timeout, overlap);
+        }
+        return type + "(" + value + (hasTimeout() ? ", timeout " + timeout + " s" : "") + overlap + ")";
+    }
+}
@@ -0,0 +1,159 @@
+package team6458.cmd;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import team6458.SemiRobot;
+import team6458.auto.AutoRoutes;
+import team6458.cmd.AutoDeliverCommand.AllianceSide;
+import team6458.control.PurePursuitController;
+import team6458.sensor.PoseEstimator;
+import team6458.telemetry.AllocationCheck;
+import team6458.telemetry.AllocationCheck.Result;
+import team6458.util.DashboardKeys;
+import team6458.util.PlateAssignment.PlateSide;
+import team6458.util.ValueGradient;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A smoke test that runs each periodic code path thousands of times on the robot and checks that none of them
+ * allocate, using {@link AllocationCheck}. The result is logged and written to {@link DashboardKeys#ALLOCATION_CHECK}.
+ * <p>
+ * Every path is run with zero outputs: the drive and rotate commands use a zero throttle gradient, a zero-length
+ * profile or a zero heading change, the path follower only calculates wheel speeds, and the ramp is set to zero, so
+ * this is safe to run in test mode. It also runs while disabled. That means the commands finish on their first loop
+ * and the driver is not in control, so this only covers the sensor reads and the first loop of each path on the real
+ * devices. The steady state of every command and of the teleop loop is checked headless on the simulator, with
+ * {@code ./gradlew simulate -Pargs=allocation-check}.
+ * <p>
+ * This blocks the main loop for a few hundred milliseconds, so it should only be run from the pits.
+ */
+public final class AllocationCheckCommand extends RobotCommand {
+
+    private static final Logger LOGGER = Logger.getLogger(AllocationCheckCommand.class.getName());
+
+    /**
+     * A gradient that always gives zero throttle.
+     */
+    private static final ValueGradient ZERO_GRADIENT = new ValueGradient(0.0, 0.0, 1.0, 0.0);
+
+    private final Map<String, Runnable> extraPaths = new LinkedHashMap<>();
+
+    public AllocationCheckCommand(SemiRobot robot) {
+        super(robot);
+        setRunWhenDisabled(true);
+    }
+
+    /**
+     * Adds a path that is not reachable from this package, such as private periodic methods of the robot.
+     *
+     * @param name The non-null name of the path
+     * @param body The non-null body, which should not allocate and should not move anything
+     * @return This command, for chaining
+     */
+    public AllocationCheckCommand addPath(String name, Runnable body) {
+        extraPaths.put(name, body);
+        return this;
+    }
+
+    @Override
+    protected void executeCommand() {
+        super.executeCommand();
+
+        if (!AllocationCheck.isSupported()) {
+            LOGGER.log(Level.WARNING, "Allocation counting is not supported on this JVM, skipping check");
+            SmartDashboard.putString(DashboardKeys.ALLOCATION_CHECK, "UNSUPPORTED");
+            return;
+        }
+
+        final List<Result> results = new ArrayList<>();
+
+        results.add(AllocationCheck.measure("Sensor sampling", () -> {
+            robot.getSensors().sample(robot.getSensorFrame());
+            robot.getDrivetrain().sample(robot.getSensorFrame());
+        }));
+        results.add(AllocationCheck.measure("OperatorControl.periodicUpdate",
+                robot.getOperatorControl()::periodicUpdate));
+        results.add(AllocationCheck.measure("Ramp", () -> {
+            robot.getRamp().setSpeed(0.0);
+            robot.getRamp().stopMotors();
+        }));
+
+        final DriveStraightCommand drive = new DriveStraightCommand(robot, 0.0, ZERO_GRADIENT);
+        drive.initialize();
+        results.add(AllocationCheck.measure("DriveStraightCommand", () -> {
+            drive.execute();
+            drive.isFinished();
+        }));
+        drive.end();
+
+        final RotateCommand rotate = new RotateCommand(robot, 0.0, ZERO_GRADIENT);
+        rotate.initialize();
+        results.add(AllocationCheck.measure("RotateCommand", () -> {
+            rotate.execute();
+            rotate.isFinished();
+        }));
+        rotate.end();
+
+        final ProfiledDriveCommand profiledDrive = new ProfiledDriveCommand(robot, 0.0);
+        profiledDrive.initialize();
+        results.add(AllocationCheck.measure("ProfiledDriveCommand", () -> {
+            profiledDrive.execute();
+            profiledDrive.isFinished();
+        }));
+        profiledDrive.end();
+
+        final ProfiledRotateCommand profiledRotate = new ProfiledRotateCommand(robot, 0.0);
+        profiledRotate.initialize();
+        results.add(AllocationCheck.measure("ProfiledRotateCommand", () -> {
+            profiledRotate.execute();
+            profiledRotate.isFinished();
+        }));
+        profiledRotate.end();
+
+        final PidRotateCommand pidRotate = new PidRotateCommand(robot, 0.0);
+        pidRotate.initialize();
+        results.add(AllocationCheck.measure("PidRotateCommand", () -> {
+            pidRotate.execute();
+            pidRotate.isFinished();
+        }));
+        pidRotate.end();
+
+        final PoseEstimator pose = robot.getPoseEstimator();
+        final PurePursuitController pursuit = new PurePursuitController(AutoRoutes.getDeliveryPath(
+                AllianceSide.LEFT, PlateSide.RIGHT, AutoRoutes.DEFAULT_PATH_CONSTRAINTS));
+        pursuit.start(pose.getX(), pose.getY(), pose.getHeading());
+        results.add(AllocationCheck.measure("PurePursuitController", () -> {
+            pursuit.calculate(pose.getX(), pose.getY(), pose.getHeading());
+            pursuit.isFinished();
+        }));
+
+        for (Map.Entry<String, Runnable> path : extraPaths.entrySet()) {
+            results.add(AllocationCheck.measure(path.getKey(), path.getValue()));
+        }
+
+        final StringBuilder failures = new StringBuilder();
+        for (Result result : results) {
+            if (!result.passed) {
+                failures.append(failures.length() == 0 ? "" : ", ").append(result.name);
+            }
+        }
+
+        if (failures.length() == 0) {
+            LOGGER.log(Level.INFO, "Allocation check passed for " + results.size() + " paths");
+            SmartDashboard.putString(DashboardKeys.ALLOCATION_CHECK, "PASS");
+        } else {
+            LOGGER.log(Level.SEVERE, "Allocation check FAILED for: " + failures);
+            SmartDashboard.putString(DashboardKeys.ALLOCATION_CHECK, "FAIL: " + failures);
+        }
+    }
+
+    @Override
+    protected boolean isCommandFinished() {
+        return true;
+    }
+}
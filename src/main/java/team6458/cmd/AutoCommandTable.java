@@ -0,0 +1,185 @@
+package team6458.cmd;
+
+import edu.wpi.first.wpilibj.command.Command;
+import edu.wpi.first.wpilibj.command.InstantCommand;
+import team6458.util.PlateAssignment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A lookup table of pre-built autonomous commands, one for every {@link Program} and plate assignment in
+ * {@link PlateAssignment#VALID_STATES} (plus {@link PlateAssignment#ALL_INVALID}, for when the FMS data is late).
+ * <p>
+ * Building a route allocates its commands and controllers and generates its gradients or profiles, which should not
+ * happen in the autonomous period. The table is built while disabled with {@link #build()}, so starting
+ * autonomous is only a {@link #get(Program, PlateAssignment)} and {@code start()}.
+ * <p>
+ * Every command is validated as it is built: a program that throws or gives null is logged and replaced by a
+ * command that does nothing, so a bad route is found in the pits instead of at the start of a match.
+ * <p>
+ * This should only be used from the main robot thread.
+ */
+public final class AutoCommandTable {
+
+    private static final Logger LOGGER = Logger.getLogger(AutoCommandTable.class.getName());
+
+    /**
+     * The slot for {@link PlateAssignment#ALL_INVALID}, after the {@link PlateAssignment#VALID_STATES} slots.
+     */
+    private static final int INVALID_SLOT = PlateAssignment.VALID_STATES.size();
+
+    /**
+     * Creates the autonomous command for a plate assignment.
+     */
+    @FunctionalInterface
+    public interface Program {
+
+        /**
+         * @param plates The non-null plate assignment, which may be {@link PlateAssignment#ALL_INVALID}
+         * @return A new non-null command
+         */
+        Command create(PlateAssignment plates);
+    }
+
+    private final List<Program> programs = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final Map<Program, Command[]> commands = new HashMap<>();
+
+    /**
+     * Adds a program to the table. It is not built until the next {@link #build()} or {@link #build(Program)}.
+     *
+     * @param name    The non-null name, for logging
+     * @param program The non-null program
+     * @return The program, to add to a chooser
+     */
+    public Program add(String name, Program program) {
+        programs.add(program);
+        names.add(name);
+        return program;
+    }
+
+    /**
+     * Builds (or rebuilds) the command for every program and plate assignment. This allocates, and should only be
+     * called while disabled.
+     */
+    public void build() {
+        final long start = System.nanoTime();
+        int failures = 0;
+
+        commands.clear();
+        for (int i = 0; i < programs.size(); i++) {
+            failures += buildProgram(i);
+        }
+
+        LOGGER.log(failures == 0 ? Level.INFO : Level.SEVERE,
+                String.format("Built %d autonomous commands for %d programs in %.1f ms, %d failed",
+                        programs.size() * (INVALID_SLOT + 1), programs.size(), (System.nanoTime() - start) / 1.0e6,
+                        failures));
+    }
+
+    /**
+     * Builds (or rebuilds) the command for every plate assignment of one program, for example after its route was
+     * reloaded. This allocates, and should only be called while disabled.
+     *
+     * @param program The non-null program, which must have been added
+     * @throws IllegalArgumentException if the program was not added
+     */
+    public void build(Program program) {
+        final int index = programs.indexOf(program);
+        if (index < 0) {
+            throw new IllegalArgumentException("The program was not added to the table");
+        }
+        final long start = System.nanoTime();
+        final int failures = buildProgram(index);
+        LOGGER.log(failures == 0 ? Level.INFO : Level.SEVERE,
+                String.format("Built %d autonomous commands for %s in %.1f ms, %d failed", INVALID_SLOT + 1,
+                        names.get(index), (System.nanoTime() - start) / 1.0e6, failures));
+    }
+
+    /**
+     * @return The number of commands that failed to build
+     */
+    private int buildProgram(int index) {
+        int failures = 0;
+        final Command[] slots = new Command[INVALID_SLOT + 1];
+        for (int slot = 0; slot < slots.length; slot++) {
+            final PlateAssignment plates = slot == INVALID_SLOT ? PlateAssignment.ALL_INVALID :
+                    PlateAssignment.VALID_STATES.get(slot);
+            slots[slot] = create(names.get(index), programs.get(index), plates);
+            if (slots[slot] instanceof FailedCommand) {
+                failures++;
+            }
+        }
+        commands.put(programs.get(index), slots);
+        return failures;
+    }
+
+    /**
+     * @return True if {@link #build()} was called since the last program was added
+     */
+    public boolean isBuilt() {
+        return commands.size() == programs.size();
+    }
+
+    /**
+     * Gets the pre-built command for a program and plate assignment. If either is not in the table (the table was
+     * not built, or the FMS sent non-compliant data), the command is built now and a warning is logged.
+     *
+     * @param program The non-null program
+     * @param plates  The non-null plate assignment
+     * @return The non-null command
+     */
+    public Command get(Program program, PlateAssignment plates) {
+        final Command[] slots = commands.get(program);
+        final int slot = getSlot(plates);
+        if (slots == null || slot < 0) {
+            LOGGER.log(Level.WARNING, "Autonomous command for " + plates + " was not pre-built, building it now");
+            return create("unlisted program", program, plates);
+        }
+        return slots[slot];
+    }
+
+    /**
+     * @return The slot of the plate assignment, or -1 if it is not one of the canonical instances
+     */
+    private static int getSlot(PlateAssignment plates) {
+        if (plates == PlateAssignment.ALL_INVALID) {
+            return INVALID_SLOT;
+        }
+        // Reference comparisons, since PlateAssignment.fromString returns these same instances
+        for (int i = 0; i < INVALID_SLOT; i++) {
+            if (PlateAssignment.VALID_STATES.get(i) == plates) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Command create(String name, Program program, PlateAssignment plates) {
+        try {
+            final Command command = program.create(plates);
+            if (command == null) {
+                throw new IllegalStateException("Program gave a null command");
+            }
+            return command;
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Failed to build autonomous program " + name + " for " + plates, e);
+            return new FailedCommand(name + " (" + plates + ")");
+        }
+    }
+
+    /**
+     * Stands in for a program that failed to build. It does nothing.
+     */
+    private static final class FailedCommand extends InstantCommand {
+
+        private FailedCommand(String name) {
+            super("FAILED TO BUILD - " + name);
+        }
+    }
+}
@@ -1,29 +1,40 @@
 package team6458.cmd;
 
-import edu.wpi.first.wpilibj.command.CommandGroup;
 import team6458.SemiRobot;
+import team6458.auto.AutoRoutes;
+import team6458.auto.RouteStep;
+import team6458.control.profile.MotionConstraints;
 import team6458.util.ValueGradient;
 import team6458.util.PlateAssignment.PlateSide;
 
+import java.util.List;
 
 /**
  * Autonomously drive from an alliance station to a switch plate, and deliver (optionally).
- * <p>This does not handle far cases, i.e.: LEFT station to RIGHT switch or RIGHT station to LEFT switch.
+ * <p>The drive-rotate-drive routes do not handle far cases, i.e.: LEFT station to RIGHT switch or RIGHT station to
+ * LEFT switch. The path route in {@link AutoRoutes#deliverPath(AllianceSide, PlateSide, boolean, MotionConstraints)}
+ * does, and does not stop at the corners.
+ * <p>The route itself is defined in {@link AutoRoutes#deliver(AllianceSide, PlateSide, boolean, double, double,
+ * ValueGradient)}, {@link AutoRoutes#deliver(AllianceSide, PlateSide, boolean, double, double)} for the version
+ * with PID rotations, or {@link AutoRoutes#deliverProfiled(AllianceSide, PlateSide, boolean, MotionConstraints,
+ * MotionConstraints)} for the motion profiled version.
+ * <p>The steps are run by a {@link RouteCommand}, the same way the simulator runs them. Steps that overlap the one
+ * before them (such as starting the intake while still driving into the switch) run alongside it.
  */
-public class AutoDeliverCommand extends CommandGroup {
+public class AutoDeliverCommand extends RouteCommand {
 
     public enum AllianceSide {
         LEFT, CENTRE, RIGHT
     }
 
     /**
-     * The speed at which to run the intakes at.
+     * @see AutoRoutes#INTAKE_SPEED
      */
-    public static final double INTAKE_SPEED = 1.0;
+    public static final double INTAKE_SPEED = AutoRoutes.INTAKE_SPEED;
     /**
-     * The time in seconds to run the intake for.
+     * @see AutoRoutes#INTAKE_TIME
      */
-    public static final double INTAKE_TIME = 4.0;
+    public static final double INTAKE_TIME = AutoRoutes.INTAKE_TIME;
 
     /**
      * Constructor. All parameters should not be null.
@@ -39,51 +50,64 @@ public class AutoDeliverCommand extends CommandGroup {
                               final PlateSide plateSide, final boolean shouldDeliver,
                               final double throttle, final double lastStretchThrottle,
                               final ValueGradient rotateGradient) {
-        super(allianceSide.toString() + ", deliver: " + shouldDeliver);
+        this(robot, allianceSide.toString() + ", deliver: " + shouldDeliver,
+                AutoRoutes.deliver(allianceSide, plateSide, shouldDeliver, throttle, lastStretchThrottle,
+                        rotateGradient));
+    }
 
-        final boolean canDeliver = shouldDeliver &&
-                !((allianceSide == AllianceSide.LEFT && plateSide == PlateSide.RIGHT) ||
-                        (allianceSide == AllianceSide.RIGHT && plateSide == PlateSide.LEFT));
+    /**
+     * Constructor for the route with PID rotations, which settle on each heading. All parameters should not be null.
+     *
+     * @param robot               The robot instance
+     * @param allianceSide        The side of the alliance wall
+     * @param plateSide           The plate side
+     * @param shouldDeliver       True to actually deliver the cube IF POSSIBLE, false to not attempt
+     * @param throttle            The throttle to drive at
+     * @param lastStretchThrottle The throttle to drive the last stretch into the switch at
+     */
+    public AutoDeliverCommand(final SemiRobot robot, final AllianceSide allianceSide,
+                              final PlateSide plateSide, final boolean shouldDeliver,
+                              final double throttle, final double lastStretchThrottle) {
+        this(robot, allianceSide.toString() + ", deliver: " + shouldDeliver + ", PID rotate",
+                AutoRoutes.deliver(allianceSide, plateSide, shouldDeliver, throttle, lastStretchThrottle));
+    }
 
-        final double lastStretchTimeout = 2.5;
+    /**
+     * Constructor for the route that follows a single smooth path, which also handles the far cases. All parameters
+     * should not be null.
+     *
+     * @param robot         The robot instance
+     * @param allianceSide  The side of the alliance wall
+     * @param plateSide     The plate side
+     * @param shouldDeliver True to actually deliver the cube if the plate side is known, false to not attempt
+     * @param constraints   The motion constraints for the path, in metres
+     */
+    public AutoDeliverCommand(final SemiRobot robot, final AllianceSide allianceSide,
+                              final PlateSide plateSide, final boolean shouldDeliver,
+                              final MotionConstraints constraints) {
+        this(robot, allianceSide.toString() + ", deliver: " + shouldDeliver + ", path",
+                AutoRoutes.deliverPath(allianceSide, plateSide, shouldDeliver, constraints));
+    }
 
-        if (allianceSide == AllianceSide.CENTRE) {
-            if (plateSide == PlateSide.LEFT) {
-                addSequential(new DriveStraightCommand(robot, -0.2, throttle));
-                addSequential(new RotateCommand(robot, -45, rotateGradient));
-                addSequential(new DriveStraightCommand(robot, -2.4, throttle));
-                addSequential(new RotateCommand(robot, 45, rotateGradient));
-                addSequential(new DriveStraightCommand(robot, -1.5, lastStretchThrottle) {
-                    {
-                        setTimeout(lastStretchTimeout);
-                    }
-                });
-            } else {
-                addSequential(new DriveStraightCommand(robot, -0.3, throttle));
-                addSequential(new RotateCommand(robot, 45, rotateGradient));
-                addSequential(new DriveStraightCommand(robot, -1.05, throttle));
-                addSequential(new RotateCommand(robot, -45, rotateGradient));
-                addSequential(new DriveStraightCommand(robot, -2.4, lastStretchThrottle) {
-                    {
-                        setTimeout(lastStretchTimeout);
-                    }
-                });
-            }
-        } else {
-            final int sideSign = allianceSide == AllianceSide.LEFT ? -1 : 1; // -1 if left plate, 1 for right
-            addSequential(new DriveStraightCommand(robot, -0.3, throttle));
-            addSequential(new RotateCommand(robot, -sideSign * 45, rotateGradient));
-            addSequential(new DriveStraightCommand(robot, -1.4, throttle));
-            addSequential(new RotateCommand(robot, sideSign * 45, rotateGradient));
-            addSequential(new DriveStraightCommand(robot, -2.7, lastStretchThrottle) {
-                {
-                    setTimeout(lastStretchTimeout);
-                }
-            });
-        }
+    /**
+     * Constructor for the motion profiled route. All parameters should not be null.
+     *
+     * @param robot             The robot instance
+     * @param allianceSide      The side of the alliance wall
+     * @param plateSide         The plate side
+     * @param shouldDeliver     True to actually deliver the cube IF POSSIBLE, false to not attempt
+     * @param driveConstraints  The motion constraints for driving, in metres
+     * @param rotateConstraints The motion constraints for rotating, in degrees
+     */
+    public AutoDeliverCommand(final SemiRobot robot, final AllianceSide allianceSide,
+                              final PlateSide plateSide, final boolean shouldDeliver,
+                              final MotionConstraints driveConstraints, final MotionConstraints rotateConstraints) {
+        this(robot, allianceSide.toString() + ", deliver: " + shouldDeliver + ", profiled",
+                AutoRoutes.deliverProfiled(allianceSide, plateSide, shouldDeliver, driveConstraints,
+                        rotateConstraints));
+    }
 
-        if (canDeliver) {
-            addSequential(new RampMotorCommand(robot, INTAKE_SPEED, INTAKE_TIME));
-        }
+    private AutoDeliverCommand(SemiRobot robot, String name, List<RouteStep> steps) {
+        super(robot, name, steps);
     }
 }
@@ -0,0 +1,46 @@
+package team6458.cmd;
+
+import team6458.SemiRobot;
+import team6458.sensor.CalibratingGyro;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Waits until the gyroscope is calibrated. Put this before commands that need a heading, so their timeouts and
+ * profiles do not start counting while the heading is still held.
+ * <p>
+ * If the gyroscope could not be created, this finishes immediately so the rest of the sequence still runs (without
+ * heading correction). Commands that need a heading also wait by themselves, see {@link HeadingCommand} and
+ * {@link RouteCommand}.
+ */
+public final class AwaitGyroCommand extends RobotCommand {
+
+    private static final Logger LOGGER = Logger.getLogger(AwaitGyroCommand.class.getName());
+
+    public AwaitGyroCommand(SemiRobot robot) {
+        super(robot);
+    }
+
+    @Override
+    protected void initialize() {
+        super.initialize();
+        if (!robot.getSensorFrame().isGyroReady()) {
+            LOGGER.log(Level.WARNING, "Waiting for the gyroscope to finish calibrating");
+        }
+    }
+
+    @Override
+    protected boolean isCommandFinished() {
+        return isHeadingAvailable(robot);
+    }
+
+    /**
+     * @param robot The robot instance
+     * @return True if the gyroscope is calibrated, or failed so there is nothing to wait for
+     */
+    static boolean isHeadingAvailable(SemiRobot robot) {
+        return robot.getSensorFrame().isGyroReady() ||
+                robot.getSensors().gyro.getState() == CalibratingGyro.State.FAILED;
+    }
+}
@@ -0,0 +1,65 @@
+package team6458.cmd;
+
+import team6458.SemiRobot;
+import team6458.sensor.CubeDeliveryDetector;
+import team6458.sensor.CubeDeliveryDetector.Method;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the {@link team6458.subsystem.Ramp} motors until a sensor confirms the cube has left, see
+ * {@link CubeDeliveryDetector}. The timeout is kept as a fallback, in case the sensor never sees the cube.
+ * <p>
+ * Ending early lets the next step start as soon as the cube is out. Whether the cube was delivered or the timeout
+ * was used is logged, traced (as finished or timed out) and available from {@link #isDelivered()}.
+ */
+public class DeliverCubeCommand extends RampMotorCommand {
+
+    private static final Logger LOGGER = Logger.getLogger(DeliverCubeCommand.class.getName());
+
+    private final CubeDeliveryDetector detector;
+
+    /**
+     * Constructor.
+     *
+     * @param robot   The robot instance
+     * @param speed   The speed to run the motors at, between -1.0 and 1.0
+     * @param timeout The positive time to run the motors for if the delivery is not confirmed
+     * @param method  The non-null sensor to confirm the delivery with
+     */
+    public DeliverCubeCommand(SemiRobot robot, double speed, double timeout, Method method) {
+        super(robot, speed, timeout);
+        this.detector = new CubeDeliveryDetector(method);
+    }
+
+    @Override
+    protected void initialize() {
+        super.initialize();
+        detector.start(robot.getSensorFrame().getTimestamp());
+    }
+
+    @Override
+    protected void end() {
+        if (detector.isDelivered()) {
+            LOGGER.log(Level.INFO, String.format("Cube delivered after %.2f s (%s)", detector.getDeliveryTime(),
+                    detector.getMethod()));
+        } else {
+            LOGGER.log(Level.WARNING, String.format("Cube delivery not confirmed after %.2f s (%s %s the cube)",
+                    timeSinceInitialized(), detector.getMethod(), detector.wasSeen() ? "saw" : "never saw"));
+        }
+        super.end();
+    }
+
+    /**
+     * @return True if the sensor confirmed the cube has left since the command was last started
+     */
+    public boolean isDelivered() {
+        return detector.isDelivered();
+    }
+
+    @Override
+    protected boolean isCommandFinished() {
+        return detector.update(robot.getSensorFrame()) || super.isCommandFinished();
+    }
+}
@@ -1,21 +1,24 @@
 package team6458.cmd;
 
 import team6458.SemiRobot;
+import team6458.control.DriveStraightController;
+import team6458.hal.DriveOutput;
 import team6458.util.ValueGradient;
 
 /**
  * A command that drives straight for X metres, using the encoders on the {@link team6458.subsystem.Drivetrain}
  * to measure distance, and the gyroscope to adjust the heading if drift is an issue.
+ * <p>
+ * The control law itself is in {@link DriveStraightController}. With velocity control enabled, the throttle is a
+ * fraction of {@link team6458.control.VelocityDriveOutput#MAX_SPEED}. It waits for the gyroscope, see
+ * {@link HeadingCommand}.
  */
-public class DriveStraightCommand extends RobotCommand {
+public class DriveStraightCommand extends HeadingCommand {
 
     /**
-     * A proportional constant used for gyroscopic correction. If this value is too high, the robot
-     * may oscillate.
-     * <p>
-     * This value should be tweaked through trial and error for best results.
+     * @see DriveStraightController#GYRO_CORRECTION
      */
-    public static final double GYRO_CORRECTION = 0.0275;
+    public static final double GYRO_CORRECTION = DriveStraightController.GYRO_CORRECTION;
 
     /**
      * The distance to travel. May be negative to go backwards.
@@ -26,7 +29,9 @@ public class DriveStraightCommand extends RobotCommand {
      */
     public final ValueGradient throttle;
 
-    private double initialHeading;
+    private final DriveStraightController controller;
+    private boolean useHeadingLoop;
+    private DriveOutput output;
 
     /**
      * Constructor.
@@ -35,11 +40,8 @@ public class DriveStraightCommand extends RobotCommand {
      */
     public DriveStraightCommand(SemiRobot robot, double distance, ValueGradient throttle) {
         super(robot);
-        requires(robot.getDrivetrain());
-
-        if (throttle.maximum < 0 || throttle.minimum < 0)
-            throw new IllegalArgumentException("Throttle gradient provided has negative values");
 
+        this.controller = new DriveStraightController(distance, throttle, GYRO_CORRECTION);
         this.throttle = throttle;
         this.distance = distance;
     }
@@ -50,48 +52,58 @@ public class DriveStraightCommand extends RobotCommand {
      * @param throttle Maximum throttle between 0.0 and 1.0 (positive only)
      */
     public DriveStraightCommand(SemiRobot robot, double distance, double throttle) {
-        super(robot);
-        requires(robot.getDrivetrain());
-
-        this.throttle = createThrottleGradient(Math.abs(throttle), Math.abs(distance));
-        this.distance = distance;
+        this(robot, distance, createThrottleGradient(Math.abs(throttle), Math.abs(distance)));
     }
 
+    /**
+     * @see DriveStraightController#createThrottleGradient(double, double)
+     */
     public static ValueGradient createThrottleGradient(double maxThrottle, double distance) {
-        return new ValueGradient(maxThrottle, Math.min(maxThrottle, 0.35), Math.min(1.0, Math.abs(distance)), 0.0);
+        return DriveStraightController.createThrottleGradient(maxThrottle, distance);
     }
 
-    protected double getRemainingDistance() {
-        return Math.abs(distance - robot.getDrivetrain().getAverageDistance());
+    /**
+     * @return The signed throttle for the remaining distance
+     */
+    protected double getCurrentThrottle() {
+        return controller.getThrottle(robot.getSensorFrame().getAverageDistance());
     }
 
     @Override
-    protected void initialize() {
-        super.initialize();
-        initialHeading = robot.getSensors().gyro.getAngle();
-        robot.getDrivetrain().resetEncoders();
+    protected void startHeadingCommand() {
+        // The encoders are not reset, since the sensor frame for this loop was already sampled
+        controller.start(robot.getSensorFrame().getGyroAngle(), robot.getSensorFrame().getAverageDistance());
+        output = robot.getDrivetrain().getOutput();
+
+        useHeadingLoop = robot.getHeadingLoop().isEnabledFor(output);
+        if (useHeadingLoop) {
+            robot.getHeadingLoop().holdHeading(controller.getInitialHeading(), getCurrentThrottle(), GYRO_CORRECTION);
+        }
     }
 
     @Override
-    protected void execute() {
-        super.execute();
-
-        final double currentHeading = robot.getSensors().gyro.getAngle();
-        final double angleDiff = currentHeading - initialHeading;
-
-        robot.getDrivetrain().drive.curvatureDrive(Math.copySign(throttle.interpolate(getRemainingDistance()), distance),
-                angleDiff * -GYRO_CORRECTION, false);
+    protected void executeHeadingCommand() {
+        if (useHeadingLoop) {
+            // The heading loop applies the correction, only the throttle is set here
+            robot.getHeadingLoop().setThrottle(getCurrentThrottle());
+            return;
+        }
+
+        controller.update(robot.getSensorFrame().getGyroAngle(), robot.getSensorFrame().getAverageDistance(),
+                output);
     }
 
     @Override
-    protected void end() {
-        super.end();
-        robot.getDrivetrain().drive.stopMotor();
+    protected void endHeadingCommand() {
+        if (useHeadingLoop) {
+            robot.getHeadingLoop().release();
+        }
+        output.stopMotor();
     }
 
     @Override
-    protected boolean isFinished() {
-        return isTimedOut() || getRemainingDistance() <= 0.0;
+    protected boolean isHeadingCommandFinished() {
+        return isTimedOut() || controller.isFinished(robot.getSensorFrame().getAverageDistance());
     }
 
     @Override
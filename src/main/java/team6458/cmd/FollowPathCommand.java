@@ -0,0 +1,78 @@
+package team6458.cmd;
+
+import team6458.SemiRobot;
+import team6458.auto.RouteStep;
+import team6458.control.PurePursuitController;
+import team6458.control.path.Path;
+import team6458.sensor.PoseEstimator;
+import team6458.subsystem.Drivetrain;
+
+/**
+ * A command that follows a smooth {@link Path} without stopping, using the pose from the robot's
+ * {@link PoseEstimator}.
+ * <p>
+ * The control law itself is in {@link PurePursuitController}. With velocity control enabled, the wheel speeds go to
+ * {@link Drivetrain#velocityDrive}, otherwise they are open-loop feedforward throttles.
+ */
+public class FollowPathCommand extends RobotCommand {
+
+    public final Path path;
+
+    private final PurePursuitController controller;
+    private boolean velocityControl;
+
+    /**
+     * Constructor. The timeout is the path's duration plus {@link RouteStep#PATH_TIMEOUT_MARGIN}.
+     *
+     * @param robot The robot instance
+     * @param path  The non-null path, relative to the pose when the command starts
+     */
+    public FollowPathCommand(SemiRobot robot, Path path) {
+        super(robot);
+        requires(robot.getDrivetrain());
+        setTimeout(path.getDuration() + RouteStep.PATH_TIMEOUT_MARGIN);
+
+        this.path = path;
+        this.controller = new PurePursuitController(path);
+    }
+
+    @Override
+    protected void initialize() {
+        super.initialize();
+        final PoseEstimator pose = robot.getPoseEstimator();
+        controller.start(pose.getX(), pose.getY(), pose.getHeading());
+        velocityControl = robot.getDrivetrain().isVelocityControlled();
+    }
+
+    @Override
+    protected void executeCommand() {
+        super.executeCommand();
+        final PoseEstimator pose = robot.getPoseEstimator();
+        if (velocityControl) {
+            controller.update(pose.getX(), pose.getY(), pose.getHeading(), robot.getDrivetrain().velocityDrive);
+        } else {
+            controller.update(pose.getX(), pose.getY(), pose.getHeading(), robot.getDrivetrain().drive);
+        }
+    }
+
+    @Override
+    protected void end() {
+        super.end();
+        if (velocityControl) {
+            robot.getDrivetrain().velocityDrive.stopMotor();
+        } else {
+            robot.getDrivetrain().drive.stopMotor();
+        }
+    }
+
+    @Override
+    public synchronized boolean isInterruptible() {
+        return true;
+    }
+
+    @Override
+    protected boolean isCommandFinished() {
+        return isTimedOut() || controller.isFinished();
+    }
+
+}
@@ -1,34 +1,28 @@
 package team6458.cmd;
 
 import team6458.SemiRobot;
-
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import team6458.sensor.CalibratingGyro;
 
 /**
- * Calibrates the gyroscope.
+ * Recalibrates the gyroscope in the background, see {@link CalibratingGyro#calibrate()}. The command runs until
+ * calibration is done, so the dashboard button shows it as running, but the main loop is never blocked.
  */
 public final class GyroCalibrationCommand extends RobotCommand {
 
-    private static final Logger LOGGER = Logger.getLogger(GyroCalibrationCommand.class.getName());
-
     public GyroCalibrationCommand(SemiRobot robot) {
         super(robot);
-        setTimeout(6.0);
+        setTimeout(10.0);
         setRunWhenDisabled(true);
     }
 
     @Override
-    protected void execute() {
-        super.execute();
-        LOGGER.log(Level.INFO, "Calibrating gyroscope...");
+    protected void initialize() {
+        super.initialize();
         robot.getSensors().gyro.calibrate();
-        robot.getSensors().gyro.reset();
-        LOGGER.log(Level.INFO, "Gyroscope calibrated.");
     }
 
     @Override
-    protected boolean isFinished() {
-        return true;
+    protected boolean isCommandFinished() {
+        return robot.getSensors().gyro.getState() != CalibratingGyro.State.CALIBRATING || isTimedOut();
     }
 }
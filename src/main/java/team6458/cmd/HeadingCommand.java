@@ -0,0 +1,110 @@
+package team6458.cmd;
+
+import team6458.SemiRobot;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A command that needs a heading, so it waits for the gyroscope to finish calibrating before it starts, whether or
+ * not an {@link AwaitGyroCommand} is before it. Started on its own, such as from the test mode chooser, it would
+ * otherwise steer by the angle that is held while calibrating.
+ * <p>
+ * While waiting, the drivetrain is held stopped, the controller is not started, and the timeout set with
+ * {@link #setHeadingTimeout(double)} does not count. Like {@link AwaitGyroCommand}, a gyroscope that failed is not
+ * waited for. Subclasses start their controller in {@link #startHeadingCommand()} instead of {@link #initialize()},
+ * and the other hooks are only called once it has started, in the same loop if the gyroscope is already calibrated.
+ */
+public abstract class HeadingCommand extends RobotCommand {
+
+    private static final Logger LOGGER = Logger.getLogger(HeadingCommand.class.getName());
+
+    private double headingTimeout = -1.0;
+    private boolean started = false;
+
+    protected HeadingCommand(SemiRobot robot) {
+        super(robot);
+        requires(robot.getDrivetrain());
+    }
+
+    /**
+     * Sets a timeout that starts counting when the command starts, rather than when it is initialized.
+     *
+     * @param timeout The timeout in seconds
+     */
+    protected final void setHeadingTimeout(double timeout) {
+        this.headingTimeout = timeout;
+        setTimeout(timeout);
+    }
+
+    @Override
+    protected final void initialize() {
+        super.initialize();
+        started = false;
+        if (AwaitGyroCommand.isHeadingAvailable(robot)) {
+            startHeading();
+        } else {
+            LOGGER.log(Level.WARNING, getName() + " is waiting for the gyroscope to finish calibrating");
+            robot.getDrivetrain().drive.stopMotor();
+        }
+    }
+
+    @Override
+    protected final void executeCommand() {
+        super.executeCommand();
+        if (!started) {
+            if (!AwaitGyroCommand.isHeadingAvailable(robot)) {
+                robot.getDrivetrain().drive.stopMotor();
+                return;
+            }
+            if (headingTimeout >= 0.0) {
+                setTimeout(timeSinceInitialized() + headingTimeout);
+            }
+            startHeading();
+        }
+        executeHeadingCommand();
+    }
+
+    @Override
+    protected final boolean isCommandFinished() {
+        // The timeout only counts once started, a group's timeout still interrupts the wait
+        return started && isHeadingCommandFinished();
+    }
+
+    @Override
+    protected final void end() {
+        super.end();
+        if (started) {
+            endHeadingCommand();
+        } else {
+            robot.getDrivetrain().drive.stopMotor();
+        }
+    }
+
+    private void startHeading() {
+        started = true;
+        startHeadingCommand();
+    }
+
+    /**
+     * Starts the controller from the current heading. Called once, when the gyroscope is calibrated.
+     */
+    protected abstract void startHeadingCommand();
+
+    /**
+     * The body of {@link #executeCommand()} once started.
+     */
+    protected abstract void executeHeadingCommand();
+
+    /**
+     * The body of {@link #isCommandFinished()} once started.
+     *
+     * @return True if the command is finished, false otherwise
+     */
+    protected abstract boolean isHeadingCommandFinished();
+
+    /**
+     * The body of {@link #end()} if the command started. The drivetrain is stopped otherwise.
+     */
+    protected abstract void endHeadingCommand();
+}
@@ -0,0 +1,77 @@
+package team6458.cmd;
+
+import team6458.SemiRobot;
+import team6458.control.PidRotateController;
+import team6458.control.RotateController;
+import team6458.control.VelocityDriveOutput;
+import team6458.hal.DriveOutput;
+
+/**
+ * A command that rotates the robot left or right to face a new given relative heading with PID, finishing once it
+ * has settled on the target.
+ * <p>
+ * The control law itself is in {@link PidRotateController}. It always runs in the main loop, since the integral and
+ * the dwell time are measured on the sensor frame's timestamp. With velocity control enabled, the output is a fraction
+ * of {@link VelocityDriveOutput#MAX_SPEED} at the wheels, like {@link RotateCommand}, without the controller's static
+ * friction feedforward. It waits for the gyroscope, see {@link HeadingCommand}.
+ */
+public class PidRotateCommand extends HeadingCommand {
+
+    public final double headingChange;
+
+    private final PidRotateController controller;
+    private DriveOutput output;
+
+    /**
+     * Constructor with {@link RotateController#DEFAULT_TIMEOUT}.
+     *
+     * @param robot      The robot instance
+     * @param controller The non-null controller, not shared with anything else
+     */
+    public PidRotateCommand(SemiRobot robot, PidRotateController controller) {
+        super(robot);
+        setHeadingTimeout(RotateController.DEFAULT_TIMEOUT);
+
+        this.headingChange = controller.headingChange;
+        this.controller = controller;
+    }
+
+    /**
+     * Constructor with the default tolerances and dwell time.
+     *
+     * @param robot         The robot instance
+     * @param headingChange The amount to change the heading by, positive is clockwise
+     */
+    public PidRotateCommand(SemiRobot robot, double headingChange) {
+        this(robot, new PidRotateController(headingChange));
+    }
+
+    @Override
+    protected void startHeadingCommand() {
+        output = robot.getDrivetrain().getOutput();
+        controller.start(robot.getSensorFrame().getGyroAngle(), output instanceof VelocityDriveOutput);
+    }
+
+    @Override
+    protected void executeHeadingCommand() {
+        controller.update(robot.getSensorFrame().getTimestamp(), robot.getSensorFrame().getGyroAngle(),
+                robot.getSensorFrame().getGyroRate(), output);
+    }
+
+    @Override
+    protected void endHeadingCommand() {
+        output.stopMotor();
+    }
+
+    @Override
+    public synchronized boolean isInterruptible() {
+        return true;
+    }
+
+    @Override
+    protected boolean isHeadingCommandFinished() {
+        return isTimedOut() || controller.isFinished(robot.getSensorFrame().getTimestamp(),
+                robot.getSensorFrame().getGyroAngle(), robot.getSensorFrame().getGyroRate());
+    }
+
+}
@@ -0,0 +1,75 @@
+package team6458.cmd;
+
+import team6458.SemiRobot;
+import team6458.control.DriveStraightController;
+import team6458.control.ProfiledDriveController;
+import team6458.control.profile.MotionConstraints;
+
+/**
+ * A command that drives straight for X metres by following a motion profile, using the encoders on the
+ * {@link team6458.subsystem.Drivetrain} to measure distance, and the gyroscope to hold the heading.
+ * <p>
+ * The control law itself is in {@link ProfiledDriveController}. It always runs in the main loop, since it is indexed
+ * by the sensor frame's timestamp. It waits for the gyroscope, see {@link HeadingCommand}.
+ */
+public class ProfiledDriveCommand extends HeadingCommand {
+
+    /**
+     * The distance to travel. May be negative to go backwards.
+     */
+    public final double distance;
+
+    private final ProfiledDriveController controller;
+
+    /**
+     * Constructor. The timeout is the profile's duration plus {@link ProfiledDriveController#SETTLE_TIME}.
+     *
+     * @param distance    Distance in metres, may be negative
+     * @param constraints The motion constraints in metres
+     */
+    public ProfiledDriveCommand(SemiRobot robot, double distance, MotionConstraints constraints) {
+        super(robot);
+
+        this.distance = distance;
+        this.controller = new ProfiledDriveController(distance, constraints, DriveStraightController.GYRO_CORRECTION);
+        setHeadingTimeout(controller.profile.getDuration() + ProfiledDriveController.SETTLE_TIME);
+    }
+
+    /**
+     * Constructor with {@link ProfiledDriveController#DEFAULT_CONSTRAINTS}.
+     *
+     * @param distance Distance in metres, may be negative
+     */
+    public ProfiledDriveCommand(SemiRobot robot, double distance) {
+        this(robot, distance, ProfiledDriveController.DEFAULT_CONSTRAINTS);
+    }
+
+    @Override
+    protected void startHeadingCommand() {
+        controller.start(robot.getSensorFrame().getTimestamp(), robot.getSensorFrame().getGyroAngle(),
+                robot.getSensorFrame().getAverageDistance());
+    }
+
+    @Override
+    protected void executeHeadingCommand() {
+        controller.update(robot.getSensorFrame().getTimestamp(), robot.getSensorFrame().getGyroAngle(),
+                robot.getSensorFrame().getAverageDistance(), robot.getDrivetrain().drive);
+    }
+
+    @Override
+    protected void endHeadingCommand() {
+        robot.getDrivetrain().drive.stopMotor();
+    }
+
+    @Override
+    protected boolean isHeadingCommandFinished() {
+        return isTimedOut() ||
+                controller.isFinished(robot.getSensorFrame().getTimestamp(),
+                        robot.getSensorFrame().getAverageDistance());
+    }
+
+    @Override
+    public synchronized boolean isInterruptible() {
+        return true;
+    }
+}
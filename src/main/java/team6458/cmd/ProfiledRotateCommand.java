@@ -0,0 +1,75 @@
+package team6458.cmd;
+
+import team6458.SemiRobot;
+import team6458.control.ProfiledRotateController;
+import team6458.control.RotateController;
+import team6458.control.profile.MotionConstraints;
+
+/**
+ * A command that rotates the robot left or right to face a new given relative heading by following a motion
+ * profile.
+ * <p>
+ * The control law itself is in {@link ProfiledRotateController}. It always runs in the main loop, since it is
+ * indexed by the sensor frame's timestamp. It waits for the gyroscope, see {@link HeadingCommand}.
+ */
+public class ProfiledRotateCommand extends HeadingCommand {
+
+    public final double headingChange;
+
+    private final ProfiledRotateController controller;
+
+    /**
+     * Constructor. The timeout is the profile's duration plus {@link ProfiledRotateController#SETTLE_TIME}, but no
+     * less than {@link RotateController#DEFAULT_TIMEOUT}.
+     *
+     * @param robot         The robot instance
+     * @param headingChange The amount to change the heading by, positive is clockwise
+     * @param constraints   The motion constraints in degrees
+     */
+    public ProfiledRotateCommand(SemiRobot robot, double headingChange, MotionConstraints constraints) {
+        super(robot);
+
+        this.headingChange = headingChange;
+        this.controller = new ProfiledRotateController(headingChange, constraints);
+        setHeadingTimeout(Math.max(RotateController.DEFAULT_TIMEOUT,
+                controller.profile.getDuration() + ProfiledRotateController.SETTLE_TIME));
+    }
+
+    /**
+     * Constructor with {@link ProfiledRotateController#DEFAULT_CONSTRAINTS}.
+     *
+     * @param robot         The robot instance
+     * @param headingChange The amount to change the heading by, positive is clockwise
+     */
+    public ProfiledRotateCommand(SemiRobot robot, double headingChange) {
+        this(robot, headingChange, ProfiledRotateController.DEFAULT_CONSTRAINTS);
+    }
+
+    @Override
+    protected void startHeadingCommand() {
+        controller.start(robot.getSensorFrame().getTimestamp(), robot.getSensorFrame().getGyroAngle());
+    }
+
+    @Override
+    protected void executeHeadingCommand() {
+        controller.update(robot.getSensorFrame().getTimestamp(), robot.getSensorFrame().getGyroAngle(),
+                robot.getSensorFrame().getGyroRate(), robot.getDrivetrain().drive);
+    }
+
+    @Override
+    protected void endHeadingCommand() {
+        robot.getDrivetrain().drive.stopMotor();
+    }
+
+    @Override
+    public synchronized boolean isInterruptible() {
+        return true;
+    }
+
+    @Override
+    protected boolean isHeadingCommandFinished() {
+        return isTimedOut() ||
+                controller.isFinished(robot.getSensorFrame().getTimestamp(), robot.getSensorFrame().getGyroAngle());
+    }
+
+}
@@ -26,8 +26,8 @@ public class RampMotorCommand extends RobotCommand {
     }
 
     @Override
-    protected void execute() {
-        super.execute();
+    protected void executeCommand() {
+        super.executeCommand();
         robot.getRamp().setSpeed(speed);
     }
 
@@ -38,7 +38,7 @@ public class RampMotorCommand extends RobotCommand {
     }
 
     @Override
-    protected boolean isFinished() {
+    protected boolean isCommandFinished() {
         return isTimedOut();
     }
 }
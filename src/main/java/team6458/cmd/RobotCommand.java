@@ -2,15 +2,124 @@ package team6458.cmd;
 
 import edu.wpi.first.wpilibj.command.Command;
 import team6458.SemiRobot;
+import team6458.telemetry.CommandTracer;
+import team6458.telemetry.CommandTracer.EndReason;
+import team6458.telemetry.LoopProfiler;
 
 /**
  * This is an abstract class that contains a reference to the main robot instance.
+ * <p>
+ * {@link #execute()} and {@link #isFinished()} are profiled by the robot's {@link LoopProfiler}, one slot
+ * per command class. Subclasses implement {@link #executeCommand()} and {@link #isCommandFinished()} instead.
+ * <p>
+ * Every loop a command executes in, it is marked active in the robot's
+ * {@link team6458.telemetry.TelemetryRecorder}, using its profiler slot as its ID.
+ * <p>
+ * Starting and ending is traced by the robot's {@link CommandTracer}, one track per command class, with whether the
+ * command finished, was interrupted or timed out. Subclasses must call {@code super.initialize()} and
+ * {@code super.end()}. A timeout given by a group is only recognised if the command was added with
+ * {@link TracedCommandGroup#addSequential(RobotCommand, double)}.
  */
 public abstract class RobotCommand extends Command {
 
     protected final SemiRobot robot;
 
+    private final int executeSlot;
+    private final int isFinishedSlot;
+    private final String profileName;
+    private final int traceTrack;
+
+    private String traceName;
+    private double groupTimeout = -1.0;
+    private boolean interrupting = false;
+
     protected RobotCommand(SemiRobot robot) {
         this.robot = robot;
+
+        profileName = getProfileName(getClass());
+        executeSlot = robot.getLoopProfiler().register(profileName + ".execute");
+        isFinishedSlot = robot.getLoopProfiler().register(profileName + ".isFinished");
+        robot.getTelemetry().nameCommand(executeSlot, profileName);
+        traceTrack = robot.getTracer().register(profileName);
+        traceName = profileName;
+    }
+
+    @Override
+    protected void initialize() {
+        final String name = getName();
+        traceName = name.isEmpty() ? profileName : name;
+        robot.getTracer().begin(traceTrack, traceName);
+    }
+
+    @Override
+    protected void end() {
+        if (!interrupting) {
+            robot.getTracer().end(traceTrack, traceName, isTimedOut() ? EndReason.TIMED_OUT : EndReason.FINISHED);
+        }
+    }
+
+    @Override
+    protected void interrupted() {
+        final boolean groupTimedOut = groupTimeout >= 0.0 && timeSinceInitialized() >= groupTimeout;
+        robot.getTracer().end(traceTrack, traceName,
+                groupTimedOut || isTimedOut() ? EndReason.TIMED_OUT : EndReason.INTERRUPTED);
+        interrupting = true;
+        try {
+            end();
+        } finally {
+            interrupting = false;
+        }
+    }
+
+    @Override
+    protected final void execute() {
+        final LoopProfiler profiler = robot.getLoopProfiler();
+        final long start = profiler.now();
+        robot.getTelemetry().markActive(executeSlot);
+        executeCommand();
+        profiler.lap(executeSlot, start);
+    }
+
+    @Override
+    protected final boolean isFinished() {
+        final LoopProfiler profiler = robot.getLoopProfiler();
+        final long start = profiler.now();
+        final boolean finished = isCommandFinished();
+        profiler.lap(isFinishedSlot, start);
+        return finished;
+    }
+
+    /**
+     * The body of {@link #execute()}. Called repeatedly while the command is running.
+     */
+    protected void executeCommand() {
+    }
+
+    /**
+     * The body of {@link #isFinished()}.
+     *
+     * @return True if the command is finished, false otherwise
+     */
+    protected abstract boolean isCommandFinished();
+
+    /**
+     * Sets the timeout the command was given by its group, so running out of it is traced as a timeout rather than
+     * an interruption.
+     *
+     * @param timeout The timeout in seconds
+     */
+    void setGroupTimeout(double timeout) {
+        this.groupTimeout = timeout;
+    }
+
+    /**
+     * @return The name of the first non-anonymous class in the hierarchy, so anonymous subclasses share a slot
+     */
+    static String getProfileName(Class<?> type) {
+        Class<?> named = type;
+        while (named.isAnonymousClass()) {
+            named = named.getSuperclass();
+        }
+        return named.getSimpleName();
     }
 }
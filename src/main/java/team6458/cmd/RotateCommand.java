@@ -1,30 +1,34 @@
 package team6458.cmd;
 
 import team6458.SemiRobot;
-import team6458.util.Utils;
+import team6458.control.RotateController;
+import team6458.hal.DriveOutput;
 import team6458.util.ValueGradient;
 
 /**
  * A command that rotates the robot left or right to face a new given relative heading.
+ * <p>
+ * The control law itself is in {@link RotateController}. With velocity control enabled, the rotation speed is a
+ * fraction of {@link team6458.control.VelocityDriveOutput#MAX_SPEED} at the wheels. It waits for the gyroscope, see
+ * {@link HeadingCommand}.
  */
-public class RotateCommand extends RobotCommand {
+public class RotateCommand extends HeadingCommand {
 
     /**
-     * The default angle tolerance in degrees at which the target angle and real angle have to match by.
+     * @see RotateController#ANGLE_TOLERANCE
      */
-    public static final double ANGLE_TOLERANCE = 4.0;
+    public static final double ANGLE_TOLERANCE = RotateController.ANGLE_TOLERANCE;
     /**
-     * The default speed gradient to use.
-     * <p>
-     * Max of 0.45, min of 0.325, range of 20 deg starting at 10 deg.
+     * @see RotateController#DEFAULT_GRADIENT
      */
-    public static final ValueGradient DEFAULT_GRADIENT = new ValueGradient(0.45, 0.325, 20.0, 10.0);
+    public static final ValueGradient DEFAULT_GRADIENT = RotateController.DEFAULT_GRADIENT;
 
     public final double headingChange;
     public final ValueGradient speedGradient;
 
-    private double originalOrientation;
-    private double targetOrientation;
+    private final RotateController controller;
+    private boolean useHeadingLoop;
+    private DriveOutput output;
 
     /**
      * Constructor.
@@ -35,11 +39,11 @@ public class RotateCommand extends RobotCommand {
      */
     public RotateCommand(SemiRobot robot, double headingChange, ValueGradient gradient) {
         super(robot);
-        requires(robot.getDrivetrain());
-        setTimeout(2.5);
+        setHeadingTimeout(RotateController.DEFAULT_TIMEOUT);
 
         this.headingChange = headingChange;
         this.speedGradient = gradient;
+        this.controller = new RotateController(headingChange, gradient, ANGLE_TOLERANCE);
     }
 
     public RotateCommand(SemiRobot robot, double headingChange) {
@@ -47,23 +51,31 @@ public class RotateCommand extends RobotCommand {
     }
 
     @Override
-    protected void initialize() {
-        super.initialize();
-        originalOrientation = robot.getSensors().gyro.getAngle();
-        targetOrientation = originalOrientation + headingChange;
+    protected void startHeadingCommand() {
+        controller.start(robot.getSensorFrame().getGyroAngle());
+        output = robot.getDrivetrain().getOutput();
+
+        useHeadingLoop = robot.getHeadingLoop().isEnabledFor(output);
+        if (useHeadingLoop) {
+            robot.getHeadingLoop().rotate(controller);
+        }
     }
 
     @Override
-    protected void execute() {
-        super.execute();
-        robot.getDrivetrain().drive.curvatureDrive(0.0,
-                Math.copySign(getCurrentThrottle(), targetOrientation - originalOrientation), true);
+    protected void executeHeadingCommand() {
+        if (useHeadingLoop) {
+            // The heading loop drives the motors
+            return;
+        }
+        controller.update(robot.getSensorFrame().getGyroAngle(), output);
     }
 
     @Override
-    protected void end() {
-        super.end();
-        robot.getDrivetrain().drive.stopMotor();
+    protected void endHeadingCommand() {
+        if (useHeadingLoop) {
+            robot.getHeadingLoop().release();
+        }
+        output.stopMotor();
     }
 
     @Override
@@ -75,27 +87,22 @@ public class RotateCommand extends RobotCommand {
      * @return True if the current heading has overshot the target, false otherwise
      */
     public final boolean hasOvershot() {
-        double currentAngle = robot.getSensors().gyro.getAngle();
-        return (headingChange >= 0.0 ? currentAngle > targetOrientation + ANGLE_TOLERANCE : currentAngle < targetOrientation - ANGLE_TOLERANCE);
+        return controller.hasOvershot(robot.getSensorFrame().getGyroAngle());
     }
 
     /**
      * @return The current throttle to use based on the selected speed gradient
      */
     public final double getCurrentThrottle() {
-        if (hasOvershot())
-            return 0.0;
-
-        final double currentAngle = robot.getSensors().gyro.getAngle();
-        final double remainingAngle = Math.abs(currentAngle - targetOrientation);
-
-        return speedGradient.interpolate(remainingAngle);
+        return Math.abs(controller.calculate(robot.getSensorFrame().getGyroAngle()));
     }
 
     @Override
-    protected boolean isFinished() {
-        return Utils.isEqual(robot.getSensors().gyro.getAngle(),
-                targetOrientation, ANGLE_TOLERANCE) || hasOvershot() || isTimedOut();
+    protected boolean isHeadingCommandFinished() {
+        if (useHeadingLoop) {
+            return robot.getHeadingLoop().isRotationDone() || isTimedOut();
+        }
+        return controller.isFinished(robot.getSensorFrame().getGyroAngle()) || isTimedOut();
     }
 
 }
@@ -0,0 +1,208 @@
+package team6458.cmd;
+
+import team6458.SemiRobot;
+import team6458.auto.RouteSequencer;
+import team6458.auto.RouteStep;
+import team6458.control.VelocityDriveOutput;
+import team6458.hal.DriveOutput;
+import team6458.sensor.CubeDeliveryDetector;
+import team6458.sensor.PoseEstimator;
+import team6458.telemetry.CommandTracer.EndReason;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a list of {@link RouteStep}s on the robot with a {@link RouteSequencer}, which is also what the simulator runs
+ * them with, so the controllers, overlaps and timeouts are the same in both. The steps read the
+ * {@link team6458.subsystem.SensorFrame} and the {@link PoseEstimator}, drive through
+ * {@link team6458.subsystem.Drivetrain#getOutput()}, and confirm deliveries with a {@link CubeDeliveryDetector} using
+ * {@link CubeDeliveryDetector#DEFAULT_METHOD}. Rotations are controlled in the main loop, not by the
+ * {@link team6458.control.HeadingControlLoop}.
+ * <p>
+ * If any step uses the drivetrain, the route does not start until the gyroscope is calibrated (or failed), and the
+ * drivetrain is held stopped until then, like a {@link HeadingCommand}.
+ * <p>
+ * The command requires the subsystems its steps use. Every step is traced by the robot's
+ * {@link team6458.telemetry.CommandTracer}, one track per step type, including which steps ran out of their timeouts.
+ */
+public class RouteCommand extends RobotCommand {
+
+    private static final Logger LOGGER = Logger.getLogger(RouteCommand.class.getName());
+
+    private final RouteSequencer sequencer;
+    private final CubeDeliveryDetector detector = new CubeDeliveryDetector(CubeDeliveryDetector.DEFAULT_METHOD);
+    private final boolean drives;
+    private final int[] traceTracks;
+    private final String[] traceNames;
+    private boolean started = false;
+
+    /**
+     * Constructor. This creates the controllers and registers the trace tracks, so it allocates.
+     *
+     * @param robot The robot instance
+     * @param name  The non-null name, shown in the trace
+     * @param steps The non-null steps to run in order
+     */
+    public RouteCommand(SemiRobot robot, String name, List<RouteStep> steps) {
+        super(robot);
+        setName(name);
+
+        boolean drives = false;
+        boolean usesRamp = false;
+        traceTracks = new int[steps.size()];
+        traceNames = new String[steps.size()];
+        for (int i = 0; i < steps.size(); i++) {
+            final RouteStep step = steps.get(i);
+            drives |= step.usesDrivetrain();
+            usesRamp |= step.usesRamp();
+            traceTracks[i] = robot.getTracer().register(step.type.toString());
+            traceNames[i] = step.toString();
+        }
+        if (drives) {
+            requires(robot.getDrivetrain());
+        }
+        if (usesRamp) {
+            requires(robot.getRamp());
+        }
+        this.drives = drives;
+        this.sequencer = new RouteSequencer(steps, new RobotContext(), new Tracer());
+    }
+
+    @Override
+    protected void initialize() {
+        super.initialize();
+        started = false;
+        if (drives && !AwaitGyroCommand.isHeadingAvailable(robot)) {
+            LOGGER.log(Level.WARNING, getName() + " is waiting for the gyroscope to finish calibrating");
+            robot.getDrivetrain().drive.stopMotor();
+        }
+    }
+
+    @Override
+    protected void executeCommand() {
+        super.executeCommand();
+        if (!started) {
+            if (drives && !AwaitGyroCommand.isHeadingAvailable(robot)) {
+                robot.getDrivetrain().drive.stopMotor();
+                return;
+            }
+            started = true;
+            sequencer.start();
+        }
+        sequencer.update();
+    }
+
+    @Override
+    protected boolean isCommandFinished() {
+        return started && sequencer.isFinished();
+    }
+
+    @Override
+    protected void end() {
+        super.end();
+        if (started) {
+            sequencer.stop();
+        } else if (drives) {
+            robot.getDrivetrain().drive.stopMotor();
+        }
+    }
+
+    @Override
+    public synchronized boolean isInterruptible() {
+        return true;
+    }
+
+    /**
+     * The robot's sensor frame and subsystems.
+     */
+    private final class RobotContext implements RouteSequencer.Context {
+
+        @Override
+        public double getTimestamp() {
+            return robot.getSensorFrame().getTimestamp();
+        }
+
+        @Override
+        public double getHeading() {
+            return robot.getSensorFrame().getGyroAngle();
+        }
+
+        @Override
+        public double getHeadingRate() {
+            return robot.getSensorFrame().getGyroRate();
+        }
+
+        @Override
+        public double getAverageDistance() {
+            return robot.getSensorFrame().getAverageDistance();
+        }
+
+        @Override
+        public PoseEstimator getPoseEstimator() {
+            return robot.getPoseEstimator();
+        }
+
+        @Override
+        public DriveOutput getDrive() {
+            return robot.getDrivetrain().drive;
+        }
+
+        @Override
+        public VelocityDriveOutput getVelocityDrive() {
+            return robot.getDrivetrain().velocityDrive;
+        }
+
+        @Override
+        public boolean isVelocityControlled() {
+            return robot.getDrivetrain().isVelocityControlled();
+        }
+
+        @Override
+        public void setRampSpeed(double speed) {
+            robot.getRamp().setSpeed(speed);
+        }
+
+        @Override
+        public void stopRamp() {
+            robot.getRamp().stopMotors();
+        }
+
+        @Override
+        public void startDelivery() {
+            detector.start(robot.getSensorFrame().getTimestamp());
+        }
+
+        @Override
+        public boolean isDelivered() {
+            return detector.update(robot.getSensorFrame());
+        }
+    }
+
+    /**
+     * Traces the steps, and logs whether deliveries were confirmed.
+     */
+    private final class Tracer implements RouteSequencer.Listener {
+
+        @Override
+        public void stepStarted(int index, RouteStep step) {
+            robot.getTracer().begin(traceTracks[index], traceNames[index]);
+        }
+
+        @Override
+        public void stepEnded(int index, RouteStep step, EndReason reason) {
+            robot.getTracer().end(traceTracks[index], traceNames[index], reason);
+            if (step.type != RouteStep.Type.DELIVER) {
+                return;
+            }
+            if (detector.isDelivered()) {
+                LOGGER.log(Level.INFO, String.format("Cube delivered after %.2f s (%s)", detector.getDeliveryTime(),
+                        detector.getMethod()));
+            } else {
+                LOGGER.log(Level.WARNING, String.format("Cube delivery not confirmed (%s %s the cube)",
+                        detector.getMethod(), detector.wasSeen() ? "saw" : "never saw"));
+            }
+        }
+    }
+}
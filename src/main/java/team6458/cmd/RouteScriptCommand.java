@@ -0,0 +1,106 @@
+package team6458.cmd;
+
+import edu.wpi.first.wpilibj.command.Command;
+import edu.wpi.first.wpilibj.command.WaitCommand;
+import team6458.SemiRobot;
+import team6458.auto.RouteScript;
+import team6458.auto.RouteScript.Node;
+import team6458.auto.RouteStep;
+import team6458.util.PlateAssignment;
+import team6458.util.PlateAssignment.PlateSide;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs a {@link RouteScript} loaded from a file, for one plate assignment. Nodes whose plate condition does not
+ * match the nearest switch plate are left out when the command is built, so nothing is decided while it runs.
+ * <p>
+ * Consecutive step nodes are run by one {@link RouteCommand}, like {@link AutoDeliverCommand}, so steps that start
+ * {@code within} a distance of the previous step overlap it. A step node's timeout is applied to its step. Waits and
+ * parallel nodes run between them.
+ */
+public class RouteScriptCommand extends TracedCommandGroup {
+
+    /**
+     * Constructor.
+     *
+     * @param robot  The robot instance
+     * @param script The non-null script
+     * @param plates The non-null plate assignment
+     */
+    public RouteScriptCommand(SemiRobot robot, RouteScript script, PlateAssignment plates) {
+        super(robot, script.name + " (" + plates + ")");
+        final PlateSide side = plates.getNearest();
+
+        // Like AutoDeliverCommand, do not start the script while the gyroscope is still calibrating
+        addSequential(new AwaitGyroCommand(robot));
+        final List<RouteStep> steps = new ArrayList<>();
+        for (Node node : script.nodes) {
+            if (!node.plate.matches(side)) {
+                continue;
+            }
+            if (node.kind == Node.Kind.STEP) {
+                steps.add(createStep(node));
+                continue;
+            }
+            addSteps(robot, steps);
+            final Command command = createCommand(robot, node, side);
+            if (!node.hasTimeout()) {
+                addSequential(command);
+            } else if (command instanceof RobotCommand) {
+                addSequential((RobotCommand) command, node.timeout);
+            } else {
+                addSequential(command, node.timeout);
+            }
+        }
+        addSteps(robot, steps);
+    }
+
+    /**
+     * Adds the steps collected so far as one command, and clears them.
+     */
+    private void addSteps(SemiRobot robot, List<RouteStep> steps) {
+        if (!steps.isEmpty()) {
+            addSequential(new RouteCommand(robot, "Steps", new ArrayList<>(steps)));
+            steps.clear();
+        }
+    }
+
+    private static RouteStep createStep(Node node) {
+        return node.hasTimeout() ? node.step.withTimeout(node.timeout) : node.step;
+    }
+
+    private static Command createCommand(SemiRobot robot, Node node, PlateSide side) {
+        switch (node.kind) {
+            case STEP:
+                return new RouteCommand(robot, node.step.toString(), Collections.singletonList(createStep(node)));
+            case WAIT:
+                return new WaitCommand("Wait", node.time);
+            case PARALLEL:
+                return createParallel(robot, node.children, side);
+            default:
+                throw new IllegalArgumentException("Unknown route script node " + node.kind);
+        }
+    }
+
+    private static Command createParallel(SemiRobot robot, List<Node> children, PlateSide side) {
+        final TracedCommandGroup group = new TracedCommandGroup(robot, "Parallel");
+        for (Node child : children) {
+            if (!child.plate.matches(side)) {
+                continue;
+            }
+            final Command command = createCommand(robot, child, side);
+            if (!child.hasTimeout() || child.kind == Node.Kind.STEP) {
+                // A step's timeout is already applied to the step
+                group.addParallel(command);
+            } else if (command instanceof RobotCommand) {
+                group.addParallel((RobotCommand) command, child.timeout);
+            } else {
+                group.addParallel(command, child.timeout);
+            }
+        }
+        return group;
+    }
+}
@@ -0,0 +1,80 @@
+package team6458.cmd;
+
+import edu.wpi.first.wpilibj.command.Command;
+import edu.wpi.first.wpilibj.command.CommandGroup;
+import team6458.SemiRobot;
+import team6458.telemetry.CommandTracer;
+import team6458.telemetry.CommandTracer.EndReason;
+
+/**
+ * A {@link CommandGroup} whose start and end are traced by the robot's {@link CommandTracer}, like a
+ * {@link RobotCommand}, so the group shows up around its children in the timeline.
+ * <p>
+ * Children given a timeout by the group should be added with {@link #addSequential(RobotCommand, double)} or
+ * {@link #addParallel(RobotCommand, double)}, so running out of it is traced as a timeout rather than as an
+ * interruption.
+ */
+public class TracedCommandGroup extends CommandGroup {
+
+    protected final SemiRobot robot;
+
+    private final int traceTrack;
+    private boolean interrupting = false;
+
+    /**
+     * Constructor.
+     *
+     * @param robot The robot instance
+     * @param name  The non-null name of the group, shown in the trace
+     */
+    public TracedCommandGroup(SemiRobot robot, String name) {
+        super(name);
+        this.robot = robot;
+        this.traceTrack = robot.getTracer().register(RobotCommand.getProfileName(getClass()));
+    }
+
+    /**
+     * Adds a command to run after the previous one, which is cancelled if it runs for longer than the timeout.
+     *
+     * @param command The non-null command
+     * @param timeout The timeout in seconds
+     */
+    public final void addSequential(RobotCommand command, double timeout) {
+        command.setGroupTimeout(timeout);
+        addSequential((Command) command, timeout);
+    }
+
+    /**
+     * Adds a command to run alongside the next ones, which is cancelled if it runs for longer than the timeout.
+     *
+     * @param command The non-null command
+     * @param timeout The timeout in seconds
+     */
+    public final void addParallel(RobotCommand command, double timeout) {
+        command.setGroupTimeout(timeout);
+        addParallel((Command) command, timeout);
+    }
+
+    @Override
+    protected void initialize() {
+        robot.getTracer().begin(traceTrack, getName());
+    }
+
+    @Override
+    protected void end() {
+        if (!interrupting) {
+            robot.getTracer().end(traceTrack, getName(), isTimedOut() ? EndReason.TIMED_OUT : EndReason.FINISHED);
+        }
+    }
+
+    @Override
+    protected void interrupted() {
+        robot.getTracer().end(traceTrack, getName(), isTimedOut() ? EndReason.TIMED_OUT : EndReason.INTERRUPTED);
+        interrupting = true;
+        try {
+            end();
+        } finally {
+            interrupting = false;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package team6458.control;
+
+import team6458.util.Utils;
+
+/**
+ * Scales the drivetrain and ramp output limits down before the battery sags into a brownout, where the roboRIO
+ * disables every output for hundreds of milliseconds.
+ * <p>
+ * Each loop, the voltage {@link #LOOKAHEAD} seconds from now is predicted from how fast the voltage is falling. When
+ * the total current is known, it is also predicted from how fast the current is rising, through the battery's
+ * internal resistance, which is learnt from how the voltage moves with the current. The lower prediction sets a
+ * level: 1.0 (no limit) at {@link #MARGIN} volts above the floor or higher, down to 0.0 at the floor. The level
+ * drops right away and recovers at {@link #RECOVERY_RATE}, so the limits do not chatter. Each subsystem's limit goes
+ * linearly from its minimum at level 0.0 to 1.0 at level 1.0, so the ramp can keep more of its power than the
+ * drivetrain, which draws most of the current.
+ * <p>
+ * An intervention is the time between the level first dropping below 1.0 and recovering to it. Nothing is allocated.
+ * This class is <b>not</b> thread-safe, and should only be used from the main robot thread.
+ */
+public final class BrownoutGovernor {
+
+    /**
+     * The default voltage floor, with some room above the roboRIO's 6.8 V brownout.
+     */
+    public static final double DEFAULT_FLOOR = 7.5;
+    /**
+     * The default drivetrain limit when the predicted voltage is at the floor.
+     */
+    public static final double DEFAULT_MIN_DRIVE_LIMIT = 0.3;
+    /**
+     * The default ramp limit when the predicted voltage is at the floor.
+     */
+    public static final double DEFAULT_MIN_RAMP_LIMIT = 0.6;
+    /**
+     * The volts above the floor at which limiting starts.
+     */
+    public static final double MARGIN = 1.0;
+    /**
+     * How far ahead in seconds the voltage is predicted, a few loops.
+     */
+    public static final double LOOKAHEAD = 0.1;
+    /**
+     * The fastest the level recovers, per second.
+     */
+    public static final double RECOVERY_RATE = 0.5;
+    /**
+     * The starting internal resistance in ohms of the battery and wiring, for a good battery.
+     */
+    public static final double DEFAULT_RESISTANCE = 0.02;
+    /**
+     * The weight of a new sample in the voltage and current slopes.
+     */
+    private static final double SLOPE_SMOOTHING = 0.3;
+    /**
+     * The weight of a new sample in the internal resistance.
+     */
+    private static final double RESISTANCE_SMOOTHING = 0.05;
+    /**
+     * The smallest change in current in amps in one loop that is used to learn the internal resistance, so that
+     * noise is not.
+     */
+    private static final double MIN_RESISTANCE_STEP = 10.0;
+    /**
+     * The range of internal resistances in ohms that are believed.
+     */
+    private static final double MIN_RESISTANCE = 0.005;
+    private static final double MAX_RESISTANCE = 0.1;
+
+    private final double floor;
+    private final double minDriveLimit;
+    private final double minRampLimit;
+
+    private double lastTime = Double.NaN;
+    private double lastVoltage;
+    private double lastCurrent = Double.NaN;
+    private double voltageSlope = 0.0;
+    private double currentSlope = 0.0;
+    private double resistance = DEFAULT_RESISTANCE;
+    private double predictedVoltage = Double.NaN;
+    private double level = 1.0;
+
+    private int interventions = 0;
+    private double interventionStart = 0.0;
+    private double lowestLevel = 1.0;
+    private double lowestVoltage = Double.POSITIVE_INFINITY;
+
+    /**
+     * Constructor with the default limits.
+     *
+     * @param floor The voltage to keep the battery above
+     */
+    public BrownoutGovernor(double floor) {
+        this(floor, DEFAULT_MIN_DRIVE_LIMIT, DEFAULT_MIN_RAMP_LIMIT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param floor         The positive voltage to keep the battery above
+     * @param minDriveLimit The drivetrain limit at the floor, between 0.0 and 1.0
+     * @param minRampLimit  The ramp limit at the floor, between 0.0 and 1.0
+     */
+    public BrownoutGovernor(double floor, double minDriveLimit, double minRampLimit) {
+        if (!(floor > 0.0)) {
+            throw new IllegalArgumentException("Floor must be positive, got " + floor);
+        }
+        if (minDriveLimit < 0.0 || minDriveLimit > 1.0 || minRampLimit < 0.0 || minRampLimit > 1.0) {
+            throw new IllegalArgumentException("Minimum limits must be between 0 and 1, got " + minDriveLimit +
+                    " and " + minRampLimit);
+        }
+        this.floor = floor;
+        this.minDriveLimit = minDriveLimit;
+        this.minRampLimit = minRampLimit;
+    }
+
+    /**
+     * Updates from this loop's measurements.
+     *
+     * @param time    The current time in seconds
+     * @param voltage The battery voltage
+     * @param current The total current in amps, or NaN if it cannot be measured
+     * @return True if an intervention started or ended in this update
+     */
+    public boolean update(double time, double voltage, double current) {
+        final double dt = Double.isNaN(lastTime) ? 0.0 : time - lastTime;
+        final boolean hasCurrent = current > 0.0;
+        if (dt > 0.0) {
+            voltageSlope += SLOPE_SMOOTHING * ((voltage - lastVoltage) / dt - voltageSlope);
+            if (hasCurrent && !Double.isNaN(lastCurrent)) {
+                final double currentStep = current - lastCurrent;
+                currentSlope += SLOPE_SMOOTHING * (currentStep / dt - currentSlope);
+                if (Math.abs(currentStep) >= MIN_RESISTANCE_STEP) {
+                    final double sample = -(voltage - lastVoltage) / currentStep;
+                    if (sample >= MIN_RESISTANCE && sample <= MAX_RESISTANCE) {
+                        resistance += RESISTANCE_SMOOTHING * (sample - resistance);
+                    }
+                }
+            }
+        }
+        lastTime = time;
+        lastVoltage = voltage;
+        lastCurrent = hasCurrent ? current : Double.NaN;
+        if (!hasCurrent) {
+            currentSlope = 0.0;
+        }
+
+        // Only falling voltage and rising current predict a sag, recovery is left to the rate limit
+        predictedVoltage = Math.min(voltage + Math.min(voltageSlope, 0.0) * LOOKAHEAD,
+                voltage - resistance * Math.max(currentSlope, 0.0) * LOOKAHEAD);
+        final double target = Utils.clamp((predictedVoltage - floor) / MARGIN, 0.0, 1.0);
+        final boolean wasLimiting = isLimiting();
+        level = target < level ? target : Math.min(target, level + RECOVERY_RATE * dt);
+
+        if (isLimiting()) {
+            if (!wasLimiting) {
+                interventions++;
+                interventionStart = time;
+                lowestLevel = level;
+                lowestVoltage = voltage;
+            }
+            lowestLevel = Math.min(lowestLevel, level);
+            lowestVoltage = Math.min(lowestVoltage, voltage);
+        }
+        return isLimiting() != wasLimiting;
+    }
+
+    /**
+     * Stops limiting, and forgets the measurements but not the learnt resistance. Interventions are still counted.
+     */
+    public void reset() {
+        lastTime = Double.NaN;
+        lastCurrent = Double.NaN;
+        voltageSlope = 0.0;
+        currentSlope = 0.0;
+        predictedVoltage = Double.NaN;
+        level = 1.0;
+    }
+
+    /**
+     * @return True while an intervention is in progress
+     */
+    public boolean isLimiting() {
+        return level < 1.0;
+    }
+
+    /**
+     * @return The level, from 0.0 at the floor to 1.0 for no limit
+     */
+    public double getLevel() {
+        return level;
+    }
+
+    /**
+     * @return The drivetrain output limit, between the minimum and 1.0
+     */
+    public double getDriveLimit() {
+        return minDriveLimit + (1.0 - minDriveLimit) * level;
+    }
+
+    /**
+     * @return The ramp output limit, between the minimum and 1.0
+     */
+    public double getRampLimit() {
+        return minRampLimit + (1.0 - minRampLimit) * level;
+    }
+
+    /**
+     * @return The voltage to keep the battery above
+     */
+    public double getFloor() {
+        return floor;
+    }
+
+    /**
+     * @return The voltage predicted in the last update, or NaN before the first
+     */
+    public double getPredictedVoltage() {
+        return predictedVoltage;
+    }
+
+    /**
+     * @return The learnt internal resistance in ohms of the battery and wiring
+     */
+    public double getResistance() {
+        return resistance;
+    }
+
+    /**
+     * @return The number of interventions that have started
+     */
+    public int getInterventions() {
+        return interventions;
+    }
+
+    /**
+     * @return The time in seconds the last intervention started
+     */
+    public double getInterventionStart() {
+        return interventionStart;
+    }
+
+    /**
+     * @return The lowest level in the last intervention
+     */
+    public double getLowestLevel() {
+        return lowestLevel;
+    }
+
+    /**
+     * @return The lowest battery voltage in the last intervention
+     */
+    public double getLowestVoltage() {
+        return lowestVoltage;
+    }
+}
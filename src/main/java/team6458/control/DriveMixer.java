@@ -0,0 +1,186 @@
+package team6458.control;
+
+import team6458.util.Utils;
+
+/**
+ * Turns arcade, curvature and tank drive inputs into left and right motor outputs, using the same algorithms as
+ * WPILib's {@link edu.wpi.first.wpilibj.drive.DifferentialDrive}. The right output is not inverted.
+ * <p>
+ * The simulator uses this to stand in for the drive, and {@link VelocityDriveOutput} uses it to turn the same inputs
+ * into wheel speeds.
+ * <p>
+ * The results are kept in fields instead of being returned, so mixing does not allocate.
+ */
+public final class DriveMixer {
+
+    /**
+     * The input deadband, the same as the {@code DifferentialDrive} default.
+     */
+    public static final double DEADBAND = 0.02;
+    /**
+     * The forward speed below which quick turns feed the quick stop accumulator.
+     */
+    public static final double QUICK_STOP_THRESHOLD = 0.2;
+    /**
+     * The low-pass gain of the quick stop accumulator.
+     */
+    public static final double QUICK_STOP_ALPHA = 0.1;
+
+    private double maxOutput = 1.0;
+    private double quickStopAccumulator = 0.0;
+    private double left = 0.0;
+    private double right = 0.0;
+
+    /**
+     * @return The left output from the last mix, between -1.0 and 1.0
+     */
+    public double getLeft() {
+        return left;
+    }
+
+    /**
+     * @return The right output from the last mix, between -1.0 and 1.0, positive is forward
+     */
+    public double getRight() {
+        return right;
+    }
+
+    /**
+     * @param maxOutput The multiplier applied to both outputs, between 0.0 and 1.0
+     */
+    public void setMaxOutput(double maxOutput) {
+        this.maxOutput = maxOutput;
+    }
+
+    /**
+     * @see team6458.hal.DriveOutput#arcadeDrive(double, double, boolean)
+     */
+    public void arcade(double xSpeed, double zRotation, boolean squaredInputs) {
+        xSpeed = applyDeadband(Utils.clamp(xSpeed, -1.0, 1.0));
+        zRotation = applyDeadband(Utils.clamp(zRotation, -1.0, 1.0));
+
+        if (squaredInputs) {
+            xSpeed = Math.copySign(xSpeed * xSpeed, xSpeed);
+            zRotation = Math.copySign(zRotation * zRotation, zRotation);
+        }
+
+        final double maxInput = Math.copySign(Math.max(Math.abs(xSpeed), Math.abs(zRotation)), xSpeed);
+        final double leftOutput;
+        final double rightOutput;
+
+        if (xSpeed >= 0.0) {
+            if (zRotation >= 0.0) {
+                leftOutput = maxInput;
+                rightOutput = xSpeed - zRotation;
+            } else {
+                leftOutput = xSpeed + zRotation;
+                rightOutput = maxInput;
+            }
+        } else {
+            if (zRotation >= 0.0) {
+                leftOutput = xSpeed + zRotation;
+                rightOutput = maxInput;
+            } else {
+                leftOutput = maxInput;
+                rightOutput = xSpeed - zRotation;
+            }
+        }
+
+        setOutputs(leftOutput, rightOutput);
+    }
+
+    /**
+     * @see team6458.hal.DriveOutput#curvatureDrive(double, double, boolean)
+     */
+    public void curvature(double xSpeed, double zRotation, boolean isQuickTurn) {
+        xSpeed = applyDeadband(Utils.clamp(xSpeed, -1.0, 1.0));
+        zRotation = applyDeadband(Utils.clamp(zRotation, -1.0, 1.0));
+
+        final double angularPower;
+        final boolean overPower;
+
+        if (isQuickTurn) {
+            if (Math.abs(xSpeed) < QUICK_STOP_THRESHOLD) {
+                quickStopAccumulator = (1 - QUICK_STOP_ALPHA) * quickStopAccumulator +
+                        QUICK_STOP_ALPHA * zRotation * 2;
+            }
+            overPower = true;
+            angularPower = zRotation;
+        } else {
+            overPower = false;
+            angularPower = Math.abs(xSpeed) * zRotation - quickStopAccumulator;
+
+            if (quickStopAccumulator > 1) {
+                quickStopAccumulator -= 1;
+            } else if (quickStopAccumulator < -1) {
+                quickStopAccumulator += 1;
+            } else {
+                quickStopAccumulator = 0.0;
+            }
+        }
+
+        double leftOutput = xSpeed + angularPower;
+        double rightOutput = xSpeed - angularPower;
+
+        // If rotation is overpowered, reduce both outputs to within acceptable range
+        if (overPower) {
+            if (leftOutput > 1.0) {
+                rightOutput -= leftOutput - 1.0;
+                leftOutput = 1.0;
+            } else if (rightOutput > 1.0) {
+                leftOutput -= rightOutput - 1.0;
+                rightOutput = 1.0;
+            } else if (leftOutput < -1.0) {
+                rightOutput -= leftOutput + 1.0;
+                leftOutput = -1.0;
+            } else if (rightOutput < -1.0) {
+                leftOutput -= rightOutput + 1.0;
+                rightOutput = -1.0;
+            }
+        }
+
+        // Normalize the wheel speeds
+        final double maxMagnitude = Math.max(Math.abs(leftOutput), Math.abs(rightOutput));
+        if (maxMagnitude > 1.0) {
+            leftOutput /= maxMagnitude;
+            rightOutput /= maxMagnitude;
+        }
+
+        setOutputs(leftOutput, rightOutput);
+    }
+
+    /**
+     * @see team6458.hal.DriveOutput#tankDrive(double, double, boolean)
+     */
+    public void tank(double leftSpeed, double rightSpeed, boolean squaredInputs) {
+        leftSpeed = applyDeadband(Utils.clamp(leftSpeed, -1.0, 1.0));
+        rightSpeed = applyDeadband(Utils.clamp(rightSpeed, -1.0, 1.0));
+
+        if (squaredInputs) {
+            leftSpeed = Math.copySign(leftSpeed * leftSpeed, leftSpeed);
+            rightSpeed = Math.copySign(rightSpeed * rightSpeed, rightSpeed);
+        }
+
+        setOutputs(leftSpeed, rightSpeed);
+    }
+
+    /**
+     * Sets both outputs to zero.
+     */
+    public void stop() {
+        left = 0.0;
+        right = 0.0;
+    }
+
+    private void setOutputs(double leftOutput, double rightOutput) {
+        left = Utils.clamp(leftOutput, -1.0, 1.0) * maxOutput;
+        right = Utils.clamp(rightOutput, -1.0, 1.0) * maxOutput;
+    }
+
+    private static double applyDeadband(double value) {
+        if (Math.abs(value) > DEADBAND) {
+            return value > 0.0 ? (value - DEADBAND) / (1.0 - DEADBAND) : (value + DEADBAND) / (1.0 - DEADBAND);
+        }
+        return 0.0;
+    }
+}
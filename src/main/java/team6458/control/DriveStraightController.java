@@ -0,0 +1,154 @@
+package team6458.control;
+
+import team6458.hal.DriveOutput;
+import team6458.util.ValueGradient;
+
+/**
+ * The control law for driving straight for a distance: the throttle follows a {@link ValueGradient} over the
+ * remaining distance, and the heading is held with a proportional gyroscope correction.
+ * <p>
+ * This class has no dependency on the HAL, so the same law is used by
+ * {@link team6458.cmd.DriveStraightCommand} on the robot and by the simulator.
+ */
+public final class DriveStraightController {
+
+    /**
+     * A proportional constant used for gyroscopic correction. If this value is too high, the robot
+     * may oscillate.
+     * <p>
+     * This value should be tweaked through trial and error for best results.
+     */
+    public static final double GYRO_CORRECTION = 0.0275;
+    /**
+     * The default lowest throttle of the throttle gradient, used over the last metre.
+     */
+    public static final double THROTTLE_FLOOR = 0.35;
+
+    /**
+     * The distance to travel in metres. May be negative to go backwards.
+     */
+    public final double distance;
+    /**
+     * The positive throttle gradient over the remaining distance.
+     */
+    public final ValueGradient throttle;
+    /**
+     * The proportional constant for the heading correction.
+     */
+    public final double kP;
+
+    private double initialHeading;
+    private double initialDistance;
+
+    /**
+     * Constructor.
+     *
+     * @param distance The distance in metres, may be negative
+     * @param throttle The non-null throttle gradient, with no negative values
+     * @param kP       The proportional constant for the heading correction, usually {@link #GYRO_CORRECTION}
+     */
+    public DriveStraightController(double distance, ValueGradient throttle, double kP) {
+        if (throttle.maximum < 0 || throttle.minimum < 0)
+            throw new IllegalArgumentException("Throttle gradient provided has negative values");
+
+        this.distance = distance;
+        this.throttle = throttle;
+        this.kP = kP;
+    }
+
+    /**
+     * Creates the default throttle gradient for a distance, with {@link #THROTTLE_FLOOR}.
+     *
+     * @param maxThrottle The positive maximum throttle
+     * @param distance    The distance in metres
+     * @return A new gradient
+     */
+    public static ValueGradient createThrottleGradient(double maxThrottle, double distance) {
+        return createThrottleGradient(maxThrottle, distance, THROTTLE_FLOOR);
+    }
+
+    /**
+     * Creates a throttle gradient for a distance, slowing down from the maximum throttle to the floor over the last
+     * metre.
+     *
+     * @param maxThrottle The positive maximum throttle
+     * @param distance    The distance in metres
+     * @param floor       The positive lowest throttle
+     * @return A new gradient
+     */
+    public static ValueGradient createThrottleGradient(double maxThrottle, double distance, double floor) {
+        return new ValueGradient(maxThrottle, Math.min(maxThrottle, floor), Math.min(1.0, Math.abs(distance)), 0.0);
+    }
+
+    /**
+     * @param angleDiff The current heading minus the heading to hold, in degrees
+     * @param kP        The proportional constant, usually {@link #GYRO_CORRECTION}
+     * @return The curvature correction to apply
+     */
+    public static double getHeadingCorrection(double angleDiff, double kP) {
+        return angleDiff * -kP;
+    }
+
+    /**
+     * Starts a new run from the current position.
+     *
+     * @param heading         The current heading in degrees, which will be held
+     * @param averageDistance The current average encoder distance in metres
+     */
+    public void start(double heading, double averageDistance) {
+        this.initialHeading = heading;
+        this.initialDistance = averageDistance;
+    }
+
+    /**
+     * @return The heading being held in degrees
+     */
+    public double getInitialHeading() {
+        return initialHeading;
+    }
+
+    /**
+     * @param averageDistance The current average encoder distance in metres
+     * @return The distance left to travel in metres, in the direction of travel. Negative once past the target
+     */
+    public double getRemainingDistance(double averageDistance) {
+        final double remaining = distance - (averageDistance - initialDistance);
+        return distance < 0.0 ? -remaining : remaining;
+    }
+
+    /**
+     * @param averageDistance The current average encoder distance in metres
+     * @return The signed throttle for the remaining distance
+     */
+    public double getThrottle(double averageDistance) {
+        return Math.copySign(throttle.interpolate(Math.max(0.0, getRemainingDistance(averageDistance))), distance);
+    }
+
+    /**
+     * @param heading The current heading in degrees
+     * @return The curvature correction to hold the initial heading
+     */
+    public double getCorrection(double heading) {
+        return getHeadingCorrection(heading - initialHeading, kP);
+    }
+
+    /**
+     * Runs one iteration of the control law.
+     *
+     * @param heading         The current heading in degrees
+     * @param averageDistance The current average encoder distance in metres
+     * @param output          The non-null drive to output to
+     */
+    public void update(double heading, double averageDistance, DriveOutput output) {
+        output.curvatureDrive(getThrottle(averageDistance), getCorrection(heading), false);
+    }
+
+    /**
+     * @param averageDistance The current average encoder distance in metres
+     * @return True if the target distance was reached or passed
+     */
+    public boolean isFinished(double averageDistance) {
+        return getRemainingDistance(averageDistance) <= 0.0;
+    }
+
+}
@@ -0,0 +1,99 @@
+package team6458.control;
+
+import team6458.hal.DriverController;
+
+/**
+ * Samples a {@link DriverController} into {@link DriverInputs} once per loop, shaping the drive sticks with an
+ * {@link InputShaper} first. The raw sticks are kept too, so they can be recorded and shaped again in a replay.
+ * <p>
+ * The shaper is reset when the driver takes control, so the robot starts from rest instead of from wherever the
+ * sticks were while disabled. Sampling continues when the driver is not in control, so that the inputs can still be
+ * recorded. Nothing is allocated, and nothing here needs the HAL.
+ * <p>
+ * This class is <b>not</b> thread-safe, and should only be used from the main robot thread.
+ */
+public final class DriverInputSampler {
+
+    private final DriverController controller;
+    private final DriverInputs inputs = new DriverInputs();
+    private final InputShaper shaper = new InputShaper(DriverProfile.CLASSIC);
+    private boolean lastInControl = false;
+    private double rawCurve = 0.0;
+    private double rawThrottle = 0.0;
+    private double rawRightThrottle = 0.0;
+
+    /**
+     * Constructor.
+     *
+     * @param controller The non-null controller to sample
+     */
+    public DriverInputSampler(DriverController controller) {
+        this.controller = controller;
+    }
+
+    /**
+     * Samples this loop's inputs.
+     *
+     * @param timestamp    The time of this loop in seconds
+     * @param inControl    True if the driver is in control of the robot
+     * @param profile      The non-null driver profile to shape the sticks with
+     * @param tankControls True to drive with tank controls instead of arcade
+     * @param squareInputs True to square the drive inputs
+     */
+    public void sample(double timestamp, boolean inControl, DriverProfile profile, boolean tankControls,
+                       boolean squareInputs) {
+        if (profile != shaper.getProfile()) {
+            shaper.setProfile(profile);
+        }
+        if (inControl && !lastInControl) {
+            shaper.reset();
+        }
+        lastInControl = inControl;
+
+        rawCurve = controller.getCurve();
+        rawThrottle = controller.getThrottle();
+        rawRightThrottle = controller.getRightThrottle();
+        shaper.update(rawCurve, rawThrottle, rawRightThrottle, timestamp);
+
+        inputs.setController(shaper.getCurve(), shaper.getThrottle(), shaper.getRightThrottle(),
+                controller.getLeftTrigger(), controller.getRightTrigger(), controller.isRunHeld(),
+                controller.isHeadingLockHeld());
+        inputs.setPreferences(tankControls, squareInputs);
+    }
+
+    /**
+     * @return The non-null inputs sampled in the last {@link #sample(double, boolean, DriverProfile, boolean,
+     * boolean)}, with the drive sticks shaped
+     */
+    public DriverInputs getInputs() {
+        return inputs;
+    }
+
+    /**
+     * @return The non-null profile the sticks were last shaped with
+     */
+    public DriverProfile getProfile() {
+        return shaper.getProfile();
+    }
+
+    /**
+     * @return The drive (left) stick X axis before shaping in the last loop, positive is clockwise
+     */
+    public double getRawCurve() {
+        return rawCurve;
+    }
+
+    /**
+     * @return The drive (left) stick Y axis before shaping in the last loop, positive is forward
+     */
+    public double getRawThrottle() {
+        return rawThrottle;
+    }
+
+    /**
+     * @return The right stick Y axis before shaping in the last loop, positive is forward
+     */
+    public double getRawRightThrottle() {
+        return rawRightThrottle;
+    }
+}
@@ -0,0 +1,118 @@
+package team6458.control;
+
+/**
+ * A snapshot of the driver's inputs and driving preferences, taken once per loop by the
+ * {@link team6458.OperatorControl}.
+ * <p>
+ * Keeping the inputs apart from the controller lets {@link TeleopDriveController} run without a driver station, so
+ * recorded inputs can be replayed through it (see {@code team6458.sim.ReplayEngine} in the desktop tools). The same
+ * instance is refilled every loop, so values should not be cached across loops.
+ */
+public final class DriverInputs {
+
+    private double driveX;
+    private double driveY;
+    private double rightY;
+    private double leftTrigger;
+    private double rightTrigger;
+    private boolean runHeld;
+    private boolean headingLockHeld;
+    private boolean tankControls;
+    private boolean squareInputs;
+
+    /**
+     * Sets the controller state.
+     *
+     * @param driveX          The drive (left) stick X axis, positive is clockwise
+     * @param driveY          The drive (left) stick Y axis, positive is forward
+     * @param rightY          The right stick Y axis, positive is forward
+     * @param leftTrigger     The left trigger axis, between 0.0 and 1.0
+     * @param rightTrigger    The right trigger axis, between 0.0 and 1.0
+     * @param runHeld         True if a run button (A/B) is held
+     * @param headingLockHeld True if a heading lock button (X/Y) is held
+     */
+    public void setController(double driveX, double driveY, double rightY, double leftTrigger, double rightTrigger,
+                              boolean runHeld, boolean headingLockHeld) {
+        this.driveX = driveX;
+        this.driveY = driveY;
+        this.rightY = rightY;
+        this.leftTrigger = leftTrigger;
+        this.rightTrigger = rightTrigger;
+        this.runHeld = runHeld;
+        this.headingLockHeld = headingLockHeld;
+    }
+
+    /**
+     * Sets the dashboard preferences.
+     *
+     * @param tankControls True to drive with tank controls instead of arcade
+     * @param squareInputs True to square the drive inputs
+     */
+    public void setPreferences(boolean tankControls, boolean squareInputs) {
+        this.tankControls = tankControls;
+        this.squareInputs = squareInputs;
+    }
+
+    /**
+     * @return The drive (left) stick X axis, positive is clockwise
+     */
+    public double getDriveX() {
+        return driveX;
+    }
+
+    /**
+     * @return The drive (left) stick Y axis, positive is forward
+     */
+    public double getDriveY() {
+        return driveY;
+    }
+
+    /**
+     * @return The right stick Y axis, positive is forward
+     */
+    public double getRightY() {
+        return rightY;
+    }
+
+    /**
+     * @return The left trigger axis, between 0.0 and 1.0
+     */
+    public double getLeftTrigger() {
+        return leftTrigger;
+    }
+
+    /**
+     * @return The right trigger axis, between 0.0 and 1.0
+     */
+    public double getRightTrigger() {
+        return rightTrigger;
+    }
+
+    /**
+     * @return True if a run button (A/B) is held
+     */
+    public boolean isRunHeld() {
+        return runHeld;
+    }
+
+    /**
+     * @return True if a heading lock button (X/Y) is held
+     */
+    public boolean isHeadingLockHeld() {
+        return headingLockHeld;
+    }
+
+    /**
+     * @return True to drive with tank controls instead of arcade
+     */
+    public boolean isTankControls() {
+        return tankControls;
+    }
+
+    /**
+     * @return True to square the drive inputs
+     */
+    public boolean isSquareInputs() {
+        return squareInputs;
+    }
+}
@@ -0,0 +1,178 @@
+package team6458.control;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How a driver likes the sticks shaped, selected on the dashboard and applied by an {@link InputShaper}.
+ * <p>
+ * Each drive axis has its own {@link Axis}: a deadband, a {@link ResponseCurve} and slew limits. The shaping happens
+ * before the drive's own squared inputs and deadband (see {@link DriveMixer}), so profiles with a curve are usually
+ * driven with squared inputs turned off. Instances are immutable and can be shared.
+ */
+public final class DriverProfile {
+
+    /**
+     * The shaping of one axis.
+     */
+    public static final class Axis {
+
+        /**
+         * No deadband, no curve and no slew limits, the axis is passed through as it is.
+         */
+        public static final Axis RAW = new Axis(0.0, ResponseCurve.LINEAR, Double.POSITIVE_INFINITY,
+                Double.POSITIVE_INFINITY);
+
+        private final double deadband;
+        private final ResponseCurve curve;
+        private final double accelerationRate;
+        private final double decelerationRate;
+
+        /**
+         * Constructor.
+         *
+         * @param deadband         The stick deflection below which the axis is zero, between 0.0 and 1.0. The rest
+         *                         of the travel is scaled to start from zero
+         * @param curve            The non-null response curve, applied after the deadband
+         * @param accelerationRate The fastest the output may move away from zero, in units per second. Positive
+         *                         infinity for no limit
+         * @param decelerationRate The fastest the output may move towards zero, in units per second. Positive
+         *                         infinity for no limit
+         */
+        public Axis(double deadband, ResponseCurve curve, double accelerationRate, double decelerationRate) {
+            if (deadband < 0.0 || deadband >= 1.0) {
+                throw new IllegalArgumentException("Deadband must be at least 0 and less than 1, got " + deadband);
+            }
+            if (!(accelerationRate > 0.0) || !(decelerationRate > 0.0)) {
+                throw new IllegalArgumentException("Slew rates must be positive, got " + accelerationRate + " and " +
+                        decelerationRate);
+            }
+            this.deadband = deadband;
+            this.curve = curve;
+            this.accelerationRate = accelerationRate;
+            this.decelerationRate = decelerationRate;
+        }
+
+        /**
+         * Applies the deadband and curve.
+         *
+         * @param input The stick deflection, between -1.0 and 1.0
+         * @return The shaped target, before slew limiting
+         */
+        public double shape(double input) {
+            final double magnitude = Math.abs(input);
+            if (!(magnitude > deadband)) {
+                return 0.0;
+            }
+            return curve.apply(Math.copySign((magnitude - deadband) / (1.0 - deadband), input));
+        }
+
+        /**
+         * @return The deadband, between 0.0 and 1.0
+         */
+        public double getDeadband() {
+            return deadband;
+        }
+
+        /**
+         * @return The non-null response curve
+         */
+        public ResponseCurve getCurve() {
+            return curve;
+        }
+
+        /**
+         * @return The fastest the output may move away from zero, in units per second
+         */
+        public double getAccelerationRate() {
+            return accelerationRate;
+        }
+
+        /**
+         * @return The fastest the output may move towards zero, in units per second
+         */
+        public double getDecelerationRate() {
+            return decelerationRate;
+        }
+    }
+
+    /**
+     * The sticks as they were before profiles, only shaped by the drive's squared inputs.
+     */
+    public static final DriverProfile CLASSIC = new DriverProfile("Classic", Axis.RAW, Axis.RAW, Axis.RAW);
+    /**
+     * Linear sticks with a deadband for stick drift, and slew limits so a full-stick reversal takes about half a
+     * second instead of slipping the wheels and dipping the battery.
+     */
+    public static final DriverProfile STANDARD = new DriverProfile("Standard",
+            new Axis(0.06, ResponseCurve.LINEAR, 3.0, 6.0),
+            new Axis(0.06, ResponseCurve.LINEAR, 6.0, 8.0),
+            new Axis(0.06, ResponseCurve.LINEAR, 3.0, 6.0));
+    /**
+     * Softer sticks for lining up with the switch and picking up cubes: expo throttle, a turn curve that stays gentle
+     * for most of the travel, and slower slew limits.
+     */
+    public static final DriverProfile PRECISE = new DriverProfile("Precise",
+            new Axis(0.08, ResponseCurve.expo(0.6), 2.0, 5.0),
+            new Axis(0.08, ResponseCurve.custom("Fine Turn", 0.0, 0.05, 0.12, 0.22, 0.4, 0.65, 1.0), 4.0, 8.0),
+            new Axis(0.08, ResponseCurve.expo(0.6), 2.0, 5.0));
+    /**
+     * Every profile that can be selected, the default ({@link #CLASSIC}) first.
+     */
+    public static final List<DriverProfile> ALL = Collections.unmodifiableList(Arrays.asList(CLASSIC, STANDARD,
+            PRECISE));
+
+    private final String name;
+    private final Axis throttle;
+    private final Axis curve;
+    private final Axis rightThrottle;
+
+    /**
+     * Constructor.
+     *
+     * @param name          The non-null name shown on the dashboard
+     * @param throttle      The non-null shaping of the drive (left) stick Y axis
+     * @param curve         The non-null shaping of the drive (left) stick X axis
+     * @param rightThrottle The non-null shaping of the right stick Y axis, used with tank controls
+     */
+    public DriverProfile(String name, Axis throttle, Axis curve, Axis rightThrottle) {
+        this.name = name;
+        this.throttle = throttle;
+        this.curve = curve;
+        this.rightThrottle = rightThrottle;
+    }
+
+    /**
+     * @return The non-null name shown on the dashboard
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The non-null shaping of the drive (left) stick Y axis
+     */
+    public Axis getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * @return The non-null shaping of the drive (left) stick X axis
+     */
+    public Axis getCurve() {
+        return curve;
+    }
+
+    /**
+     * @return The non-null shaping of the right stick Y axis
+     */
+    public Axis getRightThrottle() {
+        return rightThrottle;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
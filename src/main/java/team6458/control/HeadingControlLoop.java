@@ -0,0 +1,194 @@
+package team6458.control;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.interfaces.Gyro;
+import team6458.hal.DriveOutput;
+import team6458.telemetry.DashboardPublisher.BooleanSetting;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link Notifier}-driven control loop that runs heading correction faster than the main robot loop.
+ * <p>
+ * While a drive or rotate setpoint is active, this loop owns gyroscope sampling and the drivetrain output:
+ * commands only update setpoints (see {@link #holdHeading(double, double, double)}, {@link #setThrottle(double)}
+ * and {@link #rotate(RotateController)}), and call {@link #release()} when they end.
+ * <p>
+ * The control laws are those of {@link DriveStraightController} and {@link RotateController}, they are just
+ * evaluated every {@link #PERIOD} seconds instead of every scheduler tick. They are open loop, so this loop only
+ * drives the open-loop drive it was given: a {@link VelocityDriveOutput} is given its measurements once per main loop
+ * and is not thread-safe, so commands using velocity control run their control law in the main loop instead (see
+ * {@link #isEnabledFor(DriveOutput)}).
+ * <p>
+ * All public methods are thread-safe.
+ */
+public final class HeadingControlLoop {
+
+    /**
+     * The loop period in seconds (200 Hz).
+     */
+    public static final double PERIOD = 0.005;
+
+    private static final Logger LOGGER = Logger.getLogger(HeadingControlLoop.class.getName());
+
+    private enum Mode {
+        IDLE, HOLD_HEADING, ROTATE
+    }
+
+    private final DriveOutput drive;
+    private final Gyro gyro;
+    private final BooleanSetting enabled;
+    private final Notifier notifier = new Notifier(this::update);
+
+    private Mode mode = Mode.IDLE;
+    private boolean running = false;
+    private double latestHeading = 0.0;
+
+    // Heading hold setpoints
+    private double targetHeading = 0.0;
+    private double throttle = 0.0;
+    private double kP = 0.0;
+
+    // Rotation setpoint
+    private RotateController rotation;
+    private boolean rotationDone = false;
+
+    /**
+     * Constructor. The loop does not run until a setpoint is given.
+     *
+     * @param drive   The non-null drive to output to
+     * @param gyro    The non-null gyroscope to sample
+     * @param enabled The non-null dashboard setting that enables this loop
+     */
+    public HeadingControlLoop(DriveOutput drive, Gyro gyro, BooleanSetting enabled) {
+        this.drive = drive;
+        this.gyro = gyro;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Commands should check this once in their {@code initialize()}, after choosing their output, to decide whether
+     * to use this loop.
+     *
+     * @param output The non-null output the command drives, see {@link team6458.subsystem.Drivetrain#getOutput()}
+     * @return True if high-rate heading control is enabled on the dashboard and this loop drives that output
+     */
+    public boolean isEnabledFor(DriveOutput output) {
+        if (!enabled.get()) {
+            return false;
+        }
+        if (output != drive) {
+            LOGGER.log(Level.INFO, "High rate heading control does not run with velocity control, " +
+                    "controlling the heading in the main loop");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Starts driving at a throttle while holding a heading with a proportional correction.
+     *
+     * @param heading  The heading to hold in degrees
+     * @param throttle The initial throttle between -1.0 and 1.0
+     * @param kP       The proportional constant, such as {@link DriveStraightController#GYRO_CORRECTION}
+     */
+    public synchronized void holdHeading(double heading, double throttle, double kP) {
+        this.targetHeading = heading;
+        this.throttle = throttle;
+        this.kP = kP;
+        this.mode = Mode.HOLD_HEADING;
+        start();
+    }
+
+    /**
+     * Updates the throttle while holding a heading. Has no effect in any other mode.
+     *
+     * @param throttle The throttle between -1.0 and 1.0
+     */
+    public synchronized void setThrottle(double throttle) {
+        this.throttle = throttle;
+    }
+
+    /**
+     * Starts rotating in place towards a heading. The loop stops the motors by itself once the rotation is done,
+     * see {@link #isRotationDone()}.
+     *
+     * @param rotation The non-null rotation, already started. It must not be used by the caller until
+     *                 {@link #release()} is called
+     */
+    public synchronized void rotate(RotateController rotation) {
+        this.rotation = rotation;
+        this.rotationDone = false;
+        this.mode = Mode.ROTATE;
+        start();
+    }
+
+    /**
+     * @return True if the last rotation given reached its target or overshot it
+     */
+    public synchronized boolean isRotationDone() {
+        return rotationDone;
+    }
+
+    /**
+     * @return The heading in degrees from the most recent loop iteration
+     */
+    public synchronized double getLatestHeading() {
+        return latestHeading;
+    }
+
+    /**
+     * Stops the loop and the drivetrain motors, handing the drivetrain back to the caller.
+     * No more output is sent by this loop after this returns.
+     */
+    public synchronized void release() {
+        if (mode != Mode.IDLE) {
+            drive.stopMotor();
+        }
+        mode = Mode.IDLE;
+        if (running) {
+            notifier.stop();
+            running = false;
+        }
+    }
+
+    private void start() {
+        if (!running) {
+            notifier.startPeriodic(PERIOD);
+            running = true;
+        }
+    }
+
+    /**
+     * A single loop iteration, called by the {@link Notifier}.
+     */
+    private synchronized void update() {
+        if (mode == Mode.IDLE) {
+            return;
+        }
+
+        final double heading = gyro.getAngle();
+        latestHeading = heading;
+
+        switch (mode) {
+            case HOLD_HEADING:
+                drive.curvatureDrive(throttle,
+                        DriveStraightController.getHeadingCorrection(heading - targetHeading, kP), false);
+                break;
+            case ROTATE:
+                if (rotationDone) {
+                    drive.stopMotor();
+                } else if (rotation.isFinished(heading)) {
+                    rotationDone = true;
+                    drive.stopMotor();
+                } else {
+                    rotation.update(heading, drive);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+}
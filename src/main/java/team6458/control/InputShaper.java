@@ -0,0 +1,127 @@
+package team6458.control;
+
+import team6458.util.Utils;
+
+/**
+ * Shapes the drive sticks with a {@link DriverProfile} before they reach the drive law.
+ * <p>
+ * Each axis goes through the profile's deadband and response curve, then a slew limiter that separately limits how
+ * fast the output may move away from and towards zero. A reversal first slows to zero at the deceleration rate, then
+ * speeds up the other way at the acceleration rate. Nothing is allocated, and shaping costs a few table lookups per
+ * loop.
+ * <p>
+ * This class is <b>not</b> thread-safe, and should only be used from the main robot thread.
+ */
+public final class InputShaper {
+
+    /**
+     * The longest time step in seconds used for slew limiting, so that a stalled loop does not let the output jump.
+     */
+    public static final double MAX_TIME_STEP = 0.1;
+
+    private DriverProfile profile;
+    private double lastTimestamp = Double.NaN;
+    private double throttle = 0.0;
+    private double curve = 0.0;
+    private double rightThrottle = 0.0;
+
+    /**
+     * Constructor.
+     *
+     * @param profile The non-null profile to start with
+     */
+    public InputShaper(DriverProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Changes the profile. The shaped outputs carry on from where they are, so changing the profile while driving
+     * does not make the robot jump.
+     *
+     * @param profile The non-null profile
+     */
+    public void setProfile(DriverProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * @return The non-null current profile
+     */
+    public DriverProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Sets every output back to zero, so the robot starts from rest the next time the driver takes control.
+     */
+    public void reset() {
+        lastTimestamp = Double.NaN;
+        throttle = 0.0;
+        curve = 0.0;
+        rightThrottle = 0.0;
+    }
+
+    /**
+     * Shapes this loop's sticks. The first update after construction or {@link #reset()} only moves axes that have
+     * no slew limit.
+     *
+     * @param rawCurve         The drive (left) stick X axis, positive is clockwise
+     * @param rawThrottle      The drive (left) stick Y axis, positive is forward
+     * @param rawRightThrottle The right stick Y axis, positive is forward
+     * @param timestamp        The time of this loop in seconds
+     */
+    public void update(double rawCurve, double rawThrottle, double rawRightThrottle, double timestamp) {
+        final double dt = Double.isNaN(lastTimestamp) ? 0.0 : Utils.clamp(timestamp - lastTimestamp, 0.0,
+                MAX_TIME_STEP);
+        lastTimestamp = timestamp;
+
+        throttle = slew(throttle, profile.getThrottle(), rawThrottle, dt);
+        curve = slew(curve, profile.getCurve(), rawCurve, dt);
+        rightThrottle = slew(rightThrottle, profile.getRightThrottle(), rawRightThrottle, dt);
+    }
+
+    /**
+     * @return The shaped drive (left) stick Y axis, positive is forward
+     */
+    public double getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * @return The shaped drive (left) stick X axis, positive is clockwise
+     */
+    public double getCurve() {
+        return curve;
+    }
+
+    /**
+     * @return The shaped right stick Y axis, positive is forward
+     */
+    public double getRightThrottle() {
+        return rightThrottle;
+    }
+
+    /**
+     * Moves an output towards its shaped target within the axis' slew limits.
+     *
+     * @param value The output from the last loop
+     * @param axis  The non-null axis shaping
+     * @param input The raw stick deflection
+     * @param dt    The time step in seconds
+     * @return The new output
+     */
+    private static double slew(double value, DriverProfile.Axis axis, double input, double dt) {
+        final double target = axis.shape(input);
+        final double delta = target - value;
+        final boolean accelerating = value == 0.0 || Math.signum(delta) == Math.signum(value);
+        final double rate = accelerating ? axis.getAccelerationRate() : axis.getDecelerationRate();
+        // Infinity times a zero time step is NaN, so no limit is kept separate
+        final double maxStep = Double.isInfinite(rate) ? rate : rate * dt;
+        final double next = value + Utils.clamp(delta, -maxStep, maxStep);
+        if (!accelerating && !Double.isInfinite(rate) && Math.signum(next) == -Math.signum(value)) {
+            // Stop at zero before reversing, the acceleration limit applies from there
+            return 0.0;
+        }
+        return next;
+    }
+}
@@ -0,0 +1,82 @@
+package team6458.control;
+
+import team6458.hal.DriveOutput;
+
+/**
+ * A {@link DriveOutput} that scales another one's motor outputs by a limit, see {@link BrownoutGovernor}.
+ * <p>
+ * Without a limit every call is passed through unchanged. With one, the inputs are mixed here with a
+ * {@link DriveMixer} and the scaled outputs are sent as a tank drive, so the underlying drive is never limited
+ * itself and stays available unscaled to {@link VelocityDriveOutput}, which applies the limit to its own targets.
+ * <p>
+ * Outputs may come from the main loop or the {@link HeadingControlLoop}, so the methods are synchronized. Nothing is
+ * allocated.
+ */
+public final class LimitedDriveOutput implements DriveOutput {
+
+    private final DriveOutput output;
+    private final DriveMixer mixer = new DriveMixer();
+    private double limit = 1.0;
+
+    /**
+     * Constructor.
+     *
+     * @param output The non-null drive to output to
+     */
+    public LimitedDriveOutput(DriveOutput output) {
+        this.output = output;
+    }
+
+    /**
+     * Takes effect from the next drive call.
+     *
+     * @param limit The multiplier applied to the motor outputs, between 0.0 and 1.0
+     */
+    public synchronized void setLimit(double limit) {
+        this.limit = limit;
+        mixer.setMaxOutput(limit);
+    }
+
+    /**
+     * @return The multiplier applied to the motor outputs, between 0.0 and 1.0
+     */
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void arcadeDrive(double xSpeed, double zRotation, boolean squaredInputs) {
+        if (limit >= 1.0) {
+            output.arcadeDrive(xSpeed, zRotation, squaredInputs);
+            return;
+        }
+        mixer.arcade(xSpeed, zRotation, squaredInputs);
+        output.tankDrive(mixer.getLeft(), mixer.getRight(), false);
+    }
+
+    @Override
+    public synchronized void curvatureDrive(double xSpeed, double zRotation, boolean isQuickTurn) {
+        if (limit >= 1.0) {
+            output.curvatureDrive(xSpeed, zRotation, isQuickTurn);
+            return;
+        }
+        mixer.curvature(xSpeed, zRotation, isQuickTurn);
+        output.tankDrive(mixer.getLeft(), mixer.getRight(), false);
+    }
+
+    @Override
+    public synchronized void tankDrive(double leftSpeed, double rightSpeed, boolean squaredInputs) {
+        if (limit >= 1.0) {
+            output.tankDrive(leftSpeed, rightSpeed, squaredInputs);
+            return;
+        }
+        mixer.tank(leftSpeed, rightSpeed, squaredInputs);
+        output.tankDrive(mixer.getLeft(), mixer.getRight(), false);
+    }
+
+    @Override
+    public synchronized void stopMotor() {
+        mixer.stop();
+        output.stopMotor();
+    }
+}
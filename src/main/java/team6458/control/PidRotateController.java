@@ -0,0 +1,234 @@
+package team6458.control;
+
+import team6458.hal.DriveOutput;
+import team6458.util.Utils;
+
+/**
+ * Rotates in place by a relative heading with PID on the heading error: the rotation output is a static friction
+ * feedforward plus proportional, integral and derivative terms. The derivative acts on the measured rotation rate
+ * instead of the error, so it brakes the robot into the target without a kick when the rotation starts.
+ * <p>
+ * The integral only accumulates within {@link #INTEGRAL_ZONE} of the target and while the output is not saturated,
+ * is clamped to {@link #MAX_INTEGRAL_OUTPUT}, and is cleared when the error changes sign, so it only closes the last
+ * few degrees that friction would otherwise leave. The rotation is finished once the angle and the rate have both
+ * stayed within their tolerances for the dwell time, so a robot that swings through the target is not stopped
+ * mid-swing.
+ * <p>
+ * With a {@link VelocityDriveOutput} the feedforward is left out and the derivative gain is lower, since the wheel
+ * speed loop already compensates friction and damps the rotation, see {@link #start(double, boolean)}.
+ * <p>
+ * Unlike {@link RotateController}, this settles on the target instead of stopping as soon as it is within a wide
+ * tolerance. This class has no dependency on the HAL, and nothing here allocates.
+ */
+public final class PidRotateController {
+
+    /**
+     * The default angle tolerance in degrees.
+     */
+    public static final double ANGLE_TOLERANCE = 1.0;
+    /**
+     * The default rotation rate tolerance in degrees per second.
+     */
+    public static final double RATE_TOLERANCE = 10.0;
+    /**
+     * The default time in seconds the angle and rate have to stay within their tolerances.
+     */
+    public static final double DWELL_TIME = 0.15;
+    /**
+     * The rotation output needed to start turning, including the drive's input deadband.
+     */
+    public static final double KS = ProfiledRotateController.KS;
+    /**
+     * The rotation output per degree of error.
+     */
+    public static final double KP = 0.025;
+    /**
+     * The rotation output per degree-second of accumulated error.
+     */
+    public static final double KI = 0.02;
+    /**
+     * The rotation output per deg/s of rotation rate.
+     */
+    public static final double KD = 0.0035;
+    /**
+     * The rotation output per deg/s of rotation rate with velocity control, where the wheel speed loop already damps
+     * the rotation and {@link #KD} makes the two loops fight each other.
+     */
+    public static final double VELOCITY_KD = 0.001;
+    /**
+     * The largest rotation output.
+     */
+    public static final double MAX_OUTPUT = 0.7;
+    /**
+     * The angle error in degrees within which the integral accumulates.
+     */
+    public static final double INTEGRAL_ZONE = 5.0;
+    /**
+     * The largest rotation output the integral may contribute.
+     */
+    public static final double MAX_INTEGRAL_OUTPUT = 0.1;
+    /**
+     * The longest gap in seconds between updates that is treated as continuous.
+     */
+    public static final double MAX_PERIOD = VelocityController.MAX_PERIOD;
+
+    /**
+     * The amount to change the heading by in degrees, positive is clockwise.
+     */
+    public final double headingChange;
+    /**
+     * The angle tolerance in degrees.
+     */
+    public final double angleTolerance;
+    /**
+     * The rotation rate tolerance in degrees per second.
+     */
+    public final double rateTolerance;
+    /**
+     * The time in seconds the angle and rate have to stay within their tolerances.
+     */
+    public final double dwellTime;
+
+    private double target;
+    private double kS;
+    private double kD;
+    private boolean hasLast;
+    private double lastTime;
+    private double lastError;
+    private double integral;
+    private boolean saturated;
+    private boolean settling;
+    private double settleStart;
+
+    /**
+     * Constructor with the default tolerances and dwell time.
+     *
+     * @param headingChange The amount to change the heading by in degrees, positive is clockwise
+     */
+    public PidRotateController(double headingChange) {
+        this(headingChange, ANGLE_TOLERANCE, RATE_TOLERANCE, DWELL_TIME);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param headingChange  The amount to change the heading by in degrees, positive is clockwise
+     * @param angleTolerance The positive angle tolerance in degrees
+     * @param rateTolerance  The positive rotation rate tolerance in degrees per second
+     * @param dwellTime      The non-negative time in seconds to stay within the tolerances
+     */
+    public PidRotateController(double headingChange, double angleTolerance, double rateTolerance,
+                               double dwellTime) {
+        if (angleTolerance <= 0.0 || rateTolerance <= 0.0 || dwellTime < 0.0) {
+            throw new IllegalArgumentException("Tolerances must be positive and the dwell time not negative");
+        }
+        this.headingChange = headingChange;
+        this.angleTolerance = angleTolerance;
+        this.rateTolerance = rateTolerance;
+        this.dwellTime = dwellTime;
+    }
+
+    /**
+     * Starts a new rotation from the current heading, for a drive that outputs to the motors directly.
+     *
+     * @param heading The current heading in degrees
+     */
+    public void start(double heading) {
+        start(heading, false);
+    }
+
+    /**
+     * Starts a new rotation from the current heading.
+     *
+     * @param heading            The current heading in degrees
+     * @param velocityControlled True if the output is a {@link VelocityDriveOutput}, whose {@link VelocityController}
+     *                           already has a static friction feedforward, so {@link #KS} is left out and
+     *                           {@link #VELOCITY_KD} is used instead of {@link #KD}
+     */
+    public void start(double heading, boolean velocityControlled) {
+        this.target = heading + headingChange;
+        this.kS = velocityControlled ? 0.0 : KS;
+        this.kD = velocityControlled ? VELOCITY_KD : KD;
+        this.hasLast = false;
+        this.integral = 0.0;
+        this.saturated = false;
+        this.settling = false;
+    }
+
+    /**
+     * @return The target heading in degrees
+     */
+    public double getTarget() {
+        return target;
+    }
+
+    /**
+     * @param time    The current time in seconds
+     * @param heading The current heading in degrees
+     * @param rate    The current rotation rate in degrees per second, positive is clockwise
+     * @return The signed rotation output, positive is clockwise
+     */
+    public double calculate(double time, double heading, double rate) {
+        final double error = target - heading;
+        final double dt = time - lastTime;
+        final boolean continuous = hasLast && dt > 0.0 && dt <= MAX_PERIOD;
+
+        if (!continuous || Math.abs(error) > INTEGRAL_ZONE || error * lastError < 0.0) {
+            // Outside the zone, or swung through the target: the integral would only push it further
+            integral = 0.0;
+        } else if (!saturated) {
+            integral = Utils.clamp(integral + error * dt, -MAX_INTEGRAL_OUTPUT / KI, MAX_INTEGRAL_OUTPUT / KI);
+        }
+        hasLast = true;
+        lastTime = time;
+        lastError = error;
+
+        final double feedforward = Math.abs(error) > angleTolerance ? Math.copySign(kS, error) : 0.0;
+        final double output = feedforward + KP * error + KI * integral - kD * rate;
+        saturated = Math.abs(output) >= MAX_OUTPUT;
+        return Utils.clamp(output, -MAX_OUTPUT, MAX_OUTPUT);
+    }
+
+    /**
+     * Runs one iteration of the control law.
+     *
+     * @param time    The current time in seconds
+     * @param heading The current heading in degrees
+     * @param rate    The current rotation rate in degrees per second, positive is clockwise
+     * @param output  The non-null drive to output to
+     */
+    public void update(double time, double heading, double rate, DriveOutput output) {
+        output.curvatureDrive(0.0, calculate(time, heading, rate), true);
+    }
+
+    /**
+     * @param heading The current heading in degrees
+     * @param rate    The current rotation rate in degrees per second
+     * @return True if the heading and rate are within their tolerances right now
+     */
+    public boolean isWithinTolerance(double heading, double rate) {
+        return Utils.isEqual(heading, target, angleTolerance) && Math.abs(rate) <= rateTolerance;
+    }
+
+    /**
+     * Checks whether the rotation is finished. Call once per loop, since this tracks how long the rotation has been
+     * within the tolerances.
+     *
+     * @param time    The current time in seconds
+     * @param heading The current heading in degrees
+     * @param rate    The current rotation rate in degrees per second
+     * @return True once the heading and rate have stayed within their tolerances for the dwell time
+     */
+    public boolean isFinished(double time, double heading, double rate) {
+        if (!isWithinTolerance(heading, rate)) {
+            settling = false;
+            return false;
+        }
+        if (!settling) {
+            settling = true;
+            settleStart = time;
+        }
+        return time - settleStart >= dwellTime;
+    }
+
+}
@@ -0,0 +1,169 @@
+package team6458.control;
+
+import team6458.control.profile.MotionConstraints;
+import team6458.control.profile.MotionProfile;
+import team6458.control.profile.MotionProfiles;
+import team6458.hal.DriveOutput;
+
+/**
+ * Drives straight for a distance by following a {@link MotionProfile}: the throttle is a feedforward from the
+ * profile's velocity and acceleration, plus a proportional correction on the position error. The heading is held
+ * like in {@link DriveStraightController}.
+ * <p>
+ * Unlike the throttle gradient, the profile limits acceleration off the line and is indexed by time, so the same
+ * segment takes the same time on every run.
+ */
+public final class ProfiledDriveController {
+
+    /**
+     * The default constraints in metres: 2.5 m/s, 3.5 m/s/s and 35 m/s/s/s.
+     */
+    public static final MotionConstraints DEFAULT_CONSTRAINTS = MotionConstraints.sCurve(2.5, 3.5, 35.0);
+    /**
+     * The throttle needed to start moving, including the drive's input deadband.
+     */
+    public static final double KS = 0.08;
+    /**
+     * The throttle per m/s of velocity. Full throttle is ~3.4 m/s under load.
+     */
+    public static final double KV = 0.27;
+    /**
+     * The throttle per m/s/s of acceleration: the drivetrain's time constant (~0.15 s) times {@link #KV}.
+     */
+    public static final double KA = 0.04;
+    /**
+     * The throttle per metre of position error.
+     */
+    public static final double KP = 1.5;
+    /**
+     * The position error in metres within which the move is finished, once the profile has ended.
+     */
+    public static final double POSITION_TOLERANCE = 0.03;
+    /**
+     * The time in seconds the follower may spend after the profile ends before giving up on the tolerance.
+     */
+    public static final double SETTLE_TIME = 0.5;
+
+    /**
+     * The distance to travel in metres. May be negative to go backwards.
+     */
+    public final double distance;
+    /**
+     * The profile being followed, for the magnitude of the distance.
+     */
+    public final MotionProfile profile;
+    /**
+     * The proportional constant for the heading correction.
+     */
+    public final double headingKP;
+
+    private double startTime;
+    private double initialHeading;
+    private double initialDistance;
+
+    /**
+     * Constructor. The profile is generated or taken from the cache here, so this may allocate.
+     *
+     * @param distance    The distance in metres, may be negative
+     * @param constraints The non-null constraints in metres
+     * @param headingKP   The proportional constant for the heading correction, usually
+     *                    {@link DriveStraightController#GYRO_CORRECTION}
+     */
+    public ProfiledDriveController(double distance, MotionConstraints constraints, double headingKP) {
+        this.distance = distance;
+        this.profile = MotionProfiles.get(distance, constraints);
+        this.headingKP = headingKP;
+    }
+
+    /**
+     * Starts following the profile from the current position.
+     *
+     * @param time            The current time in seconds
+     * @param heading         The current heading in degrees, which will be held
+     * @param averageDistance The current average encoder distance in metres
+     */
+    public void start(double time, double heading, double averageDistance) {
+        this.startTime = time;
+        this.initialHeading = heading;
+        this.initialDistance = averageDistance;
+    }
+
+    /**
+     * @param time            The current time in seconds
+     * @param averageDistance The current average encoder distance in metres
+     * @return The setpoint minus the distance travelled in metres, in the direction of travel
+     */
+    public double getPositionError(double time, double averageDistance) {
+        final double travelled = (averageDistance - initialDistance) * Math.signum(distance);
+        return profile.getPosition(time - startTime) - travelled;
+    }
+
+    /**
+     * @param averageDistance The current average encoder distance in metres
+     * @return The distance left to travel in metres, in the direction of travel. Negative once past the target
+     */
+    public double getRemainingDistance(double averageDistance) {
+        return Math.abs(distance) - (averageDistance - initialDistance) * Math.signum(distance);
+    }
+
+    /**
+     * @param time            The current time in seconds
+     * @param averageDistance The current average encoder distance in metres
+     * @return The signed throttle
+     */
+    public double getThrottle(double time, double averageDistance) {
+        final double t = time - startTime;
+        final double feedforward = KV * profile.getVelocity(t) + KA * profile.getAcceleration(t);
+        final double error = getPositionError(time, averageDistance);
+        return Math.copySign(1.0, distance) *
+                (feedforward + getStaticFeedforward(feedforward, error, KS, POSITION_TOLERANCE) + KP * error);
+    }
+
+    /**
+     * The static friction feedforward. While the profile is moving it has the sign of the velocity and acceleration
+     * feedforward, so hard deceleration actually brakes instead of landing inside the drive's dead zone. Once the
+     * profile has stopped it pushes towards any error outside of the tolerance, which the proportional term alone is
+     * too weak to close.
+     *
+     * @param feedforward The velocity and acceleration feedforward in the direction of travel
+     * @param error       The error in the direction of travel
+     * @param kS          The static friction feedforward
+     * @param tolerance   The positive tolerance
+     * @return The static feedforward in the direction of travel
+     */
+    static double getStaticFeedforward(double feedforward, double error, double kS, double tolerance) {
+        if (feedforward != 0.0) {
+            return Math.copySign(kS, feedforward);
+        }
+        return Math.abs(error) > tolerance ? Math.copySign(kS, error) : 0.0;
+    }
+
+    /**
+     * Runs one iteration of the control law.
+     *
+     * @param time            The current time in seconds
+     * @param heading         The current heading in degrees
+     * @param averageDistance The current average encoder distance in metres
+     * @param output          The non-null drive to output to
+     */
+    public void update(double time, double heading, double averageDistance, DriveOutput output) {
+        output.curvatureDrive(getThrottle(time, averageDistance),
+                DriveStraightController.getHeadingCorrection(heading - initialHeading, headingKP), false);
+    }
+
+    /**
+     * @param time            The current time in seconds
+     * @param averageDistance The current average encoder distance in metres
+     * @return True once the profile has ended and the position is within {@link #POSITION_TOLERANCE}, or
+     * {@link #SETTLE_TIME} after the profile has ended
+     */
+    public boolean isFinished(double time, double averageDistance) {
+        final double t = time - startTime;
+        if (!profile.isFinished(t)) {
+            return false;
+        }
+        return Math.abs(getPositionError(time, averageDistance)) <= POSITION_TOLERANCE ||
+                t >= profile.getDuration() + SETTLE_TIME;
+    }
+
+}
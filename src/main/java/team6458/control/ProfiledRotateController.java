@@ -0,0 +1,144 @@
+package team6458.control;
+
+import team6458.control.profile.MotionConstraints;
+import team6458.control.profile.MotionProfile;
+import team6458.control.profile.MotionProfiles;
+import team6458.hal.DriveOutput;
+
+/**
+ * Rotates in place by following a {@link MotionProfile} over the heading: the rotation rate is a feedforward from
+ * the profile's angular velocity and acceleration, plus corrections on the angle error and the rotation rate error.
+ * The rate correction is what brakes the robot into the target, since the angle error alone only builds up once
+ * the robot has already coasted past it.
+ * <p>
+ * Unlike {@link RotateController}, this decelerates into the target instead of relying on a minimum speed and
+ * overshoot detection.
+ */
+public final class ProfiledRotateController {
+
+    /**
+     * The default constraints in degrees: 270 deg/s, 540 deg/s/s and 5400 deg/s/s/s.
+     */
+    public static final MotionConstraints DEFAULT_CONSTRAINTS = MotionConstraints.sCurve(270.0, 540.0, 5400.0);
+    /**
+     * The rotation output needed to start turning, including the drive's input deadband.
+     */
+    public static final double KS = 0.08;
+    /**
+     * The rotation output per deg/s. Full output turns at ~520 deg/s.
+     */
+    public static final double KV = 0.0018;
+    /**
+     * The rotation output per deg/s/s: the drivetrain's time constant (~0.15 s) times {@link #KV}.
+     */
+    public static final double KA = 0.00027;
+    /**
+     * The rotation output per degree of error.
+     */
+    public static final double KP = 0.015;
+    /**
+     * The rotation output per deg/s of rate error.
+     */
+    public static final double KD = 0.0015;
+    /**
+     * The angle error in degrees within which the rotation is finished, once the profile has ended.
+     */
+    public static final double ANGLE_TOLERANCE = 2.0;
+    /**
+     * The time in seconds the follower may spend after the profile ends before giving up on the tolerance.
+     */
+    public static final double SETTLE_TIME = 0.5;
+
+    /**
+     * The amount to change the heading by in degrees, positive is clockwise.
+     */
+    public final double headingChange;
+    /**
+     * The profile being followed, for the magnitude of the heading change.
+     */
+    public final MotionProfile profile;
+
+    private double startTime;
+    private double original;
+
+    /**
+     * Constructor. The profile is generated or taken from the cache here, so this may allocate.
+     *
+     * @param headingChange The amount to change the heading by in degrees, positive is clockwise
+     * @param constraints   The non-null constraints in degrees
+     */
+    public ProfiledRotateController(double headingChange, MotionConstraints constraints) {
+        this.headingChange = headingChange;
+        this.profile = MotionProfiles.get(headingChange, constraints);
+    }
+
+    /**
+     * Starts a new rotation from the current heading.
+     *
+     * @param time    The current time in seconds
+     * @param heading The current heading in degrees
+     */
+    public void start(double time, double heading) {
+        this.startTime = time;
+        this.original = heading;
+    }
+
+    /**
+     * @return The target heading in degrees
+     */
+    public double getTarget() {
+        return original + headingChange;
+    }
+
+    /**
+     * @param time    The current time in seconds
+     * @param heading The current heading in degrees
+     * @return The setpoint minus the angle turned in degrees, in the direction of rotation
+     */
+    public double getAngleError(double time, double heading) {
+        return profile.getPosition(time - startTime) - (heading - original) * Math.signum(headingChange);
+    }
+
+    /**
+     * @param time    The current time in seconds
+     * @param heading The current heading in degrees
+     * @param rate    The current rotation rate in degrees per second, positive is clockwise
+     * @return The signed rotation output, positive is clockwise
+     */
+    public double calculate(double time, double heading, double rate) {
+        final double t = time - startTime;
+        final double direction = Math.copySign(1.0, headingChange);
+        final double velocity = profile.getVelocity(t);
+        final double feedforward = KV * velocity + KA * profile.getAcceleration(t);
+        final double error = getAngleError(time, heading);
+        return direction * (feedforward + ProfiledDriveController.getStaticFeedforward(feedforward, error, KS,
+                ANGLE_TOLERANCE) + KP * error + KD * (velocity - rate * direction));
+    }
+
+    /**
+     * Runs one iteration of the control law.
+     *
+     * @param time    The current time in seconds
+     * @param heading The current heading in degrees
+     * @param rate    The current rotation rate in degrees per second, positive is clockwise
+     * @param output  The non-null drive to output to
+     */
+    public void update(double time, double heading, double rate, DriveOutput output) {
+        output.curvatureDrive(0.0, calculate(time, heading, rate), true);
+    }
+
+    /**
+     * @param time    The current time in seconds
+     * @param heading The current heading in degrees
+     * @return True once the profile has ended and the heading is within {@link #ANGLE_TOLERANCE}, or
+     * {@link #SETTLE_TIME} after the profile has ended
+     */
+    public boolean isFinished(double time, double heading) {
+        final double t = time - startTime;
+        if (!profile.isFinished(t)) {
+            return false;
+        }
+        return Math.abs(getAngleError(time, heading)) <= ANGLE_TOLERANCE || t >= profile.getDuration() + SETTLE_TIME;
+    }
+
+}
@@ -0,0 +1,246 @@
+package team6458.control;
+
+import team6458.control.path.Path;
+import team6458.control.path.Paths;
+import team6458.hal.DriveOutput;
+
+/**
+ * Follows a {@link Path} with pure pursuit: every loop it finds the closest point on the path ahead of the last
+ * one, picks the point {@link #lookahead} further along, and drives the arc from the robot's pose through that
+ * point at the path's speed. Past the end of the path the lookahead point carries on along the final direction, so
+ * the robot drives straight into the last waypoint instead of circling it.
+ * <p>
+ * The pose comes from the {@link team6458.sensor.PoseEstimator}, relative to where the robot was when the path was
+ * {@link #start(double, double, double) started}, so a route can chain a path after any other step. The arc is
+ * turned into wheel speeds, which are output either as open-loop feedforward throttles or to a
+ * {@link VelocityDriveOutput}. Nothing here allocates.
+ */
+public final class PurePursuitController {
+
+    /**
+     * The default lookahead distance in metres. Shorter follows the path more tightly but oscillates more.
+     */
+    public static final double DEFAULT_LOOKAHEAD = 0.6;
+    /**
+     * The lowest speed in m/s, so the robot starts moving from rest and reaches the end of the path.
+     */
+    public static final double MIN_SPEED = 0.3;
+    /**
+     * The distance in metres before the end of the path at which it is finished.
+     */
+    public static final double POSITION_TOLERANCE = 0.05;
+    /**
+     * The open-loop throttle needed to start moving.
+     */
+    public static final double KS = ProfiledDriveController.KS;
+    /**
+     * The open-loop throttle per m/s of wheel speed.
+     */
+    public static final double KV = ProfiledDriveController.KV;
+    /**
+     * The open-loop throttle per m/s/s of wheel acceleration.
+     */
+    public static final double KA = ProfiledDriveController.KA;
+
+    /**
+     * The path being followed.
+     */
+    public final Path path;
+    /**
+     * The lookahead distance in metres.
+     */
+    public final double lookahead;
+
+    private final int lookaheadSamples;
+    private final double endDirectionX;
+    private final double endDirectionY;
+
+    private double originX;
+    private double originY;
+    private double originHeading;
+    private int closest;
+    private double crossTrackError;
+    private double remaining;
+    private double leftSpeed;
+    private double rightSpeed;
+    private double leftAcceleration;
+    private double rightAcceleration;
+
+    /**
+     * Constructor with {@link #DEFAULT_LOOKAHEAD}.
+     *
+     * @param path The non-null path
+     */
+    public PurePursuitController(Path path) {
+        this(path, DEFAULT_LOOKAHEAD);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param path      The non-null path
+     * @param lookahead The positive lookahead distance in metres
+     */
+    public PurePursuitController(Path path, double lookahead) {
+        if (lookahead <= 0.0) {
+            throw new IllegalArgumentException("Lookahead must be positive, got " + lookahead);
+        }
+        this.path = path;
+        this.lookahead = lookahead;
+        this.lookaheadSamples = (int) Math.ceil(lookahead / path.spacing);
+
+        final double endAngle = Math.toRadians(-path.getEndHeading()) + (path.reversed ? Math.PI : 0.0);
+        this.endDirectionX = Math.cos(endAngle);
+        this.endDirectionY = Math.sin(endAngle);
+    }
+
+    /**
+     * Starts following the path from the current pose, which becomes the start of the path.
+     *
+     * @param x       The X position in metres
+     * @param y       The Y position in metres
+     * @param heading The heading in degrees, positive is clockwise
+     */
+    public void start(double x, double y, double heading) {
+        this.originX = x;
+        this.originY = y;
+        this.originHeading = heading;
+        this.closest = 0;
+        this.crossTrackError = 0.0;
+        this.remaining = path.getLength();
+        this.leftSpeed = 0.0;
+        this.rightSpeed = 0.0;
+        this.leftAcceleration = 0.0;
+        this.rightAcceleration = 0.0;
+    }
+
+    /**
+     * Runs the control law, setting {@link #getLeftSpeed()} and {@link #getRightSpeed()}.
+     *
+     * @param x       The X position in metres
+     * @param y       The Y position in metres
+     * @param heading The heading in degrees, positive is clockwise
+     */
+    public void calculate(double x, double y, double heading) {
+        // The pose relative to the start of the path
+        final double originAngle = Math.toRadians(-originHeading);
+        final double cos = Math.cos(originAngle);
+        final double sin = Math.sin(originAngle);
+        final double px = cos * (x - originX) + sin * (y - originY);
+        final double py = -sin * (x - originX) + cos * (y - originY);
+        final double robotAngle = Math.toRadians(-(heading - originHeading));
+
+        // The closest sample only moves forward, and is searched for within the lookahead
+        final int last = path.size() - 1;
+        double best = distanceSquared(closest, px, py);
+        final int searchEnd = Math.min(last, closest + 2 * lookaheadSamples);
+        for (int i = closest + 1; i <= searchEnd; i++) {
+            final double d = distanceSquared(i, px, py);
+            if (d < best) {
+                best = d;
+                closest = i;
+            }
+        }
+        crossTrackError = Math.sqrt(best);
+        remaining = (path.getX(last) - px) * endDirectionX + (path.getY(last) - py) * endDirectionY;
+
+        // The lookahead point, carried on past the end along the final direction
+        final int target = Math.min(last, closest + lookaheadSamples);
+        final double beyond = Math.max(0.0, path.getDistance(closest) + lookahead - path.getDistance(target));
+        final double lookX = path.getX(target) + beyond * endDirectionX - px;
+        final double lookY = path.getY(target) + beyond * endDirectionY - py;
+
+        // The arc to the lookahead point, which is tangent to the robot whichever way it drives
+        final double forward = Math.cos(robotAngle) * lookX + Math.sin(robotAngle) * lookY;
+        final double left = -Math.sin(robotAngle) * lookX + Math.cos(robotAngle) * lookY;
+        final double chordSquared = forward * forward + left * left;
+        final double curvature = chordSquared > 0.0 ? 2.0 * left / chordSquared : 0.0;
+
+        final double direction = path.reversed ? -1.0 : 1.0;
+        final double speed = Math.max(path.getVelocity(closest), MIN_SPEED) * direction;
+        final double acceleration = path.getAcceleration(closest) * direction;
+        final double leftScale = 1.0 - curvature * Paths.TRACK_WIDTH / 2.0;
+        final double rightScale = 1.0 + curvature * Paths.TRACK_WIDTH / 2.0;
+        leftSpeed = speed * leftScale;
+        rightSpeed = speed * rightScale;
+        leftAcceleration = acceleration * leftScale;
+        rightAcceleration = acceleration * rightScale;
+    }
+
+    /**
+     * Runs one iteration of the control law with open-loop feedforward throttles.
+     *
+     * @param x       The X position in metres
+     * @param y       The Y position in metres
+     * @param heading The heading in degrees, positive is clockwise
+     * @param output  The non-null drive to output to
+     */
+    public void update(double x, double y, double heading, DriveOutput output) {
+        calculate(x, y, heading);
+        output.tankDrive(getThrottle(leftSpeed, leftAcceleration), getThrottle(rightSpeed, rightAcceleration), false);
+    }
+
+    /**
+     * Runs one iteration of the control law with velocity control.
+     *
+     * @param x       The X position in metres
+     * @param y       The Y position in metres
+     * @param heading The heading in degrees, positive is clockwise
+     * @param output  The non-null velocity controlled drive to output to, with this loop's measurements
+     */
+    public void update(double x, double y, double heading, VelocityDriveOutput output) {
+        calculate(x, y, heading);
+        output.setWheelSpeeds(leftSpeed, rightSpeed);
+    }
+
+    /**
+     * @return True once the robot is within {@link #POSITION_TOLERANCE} of the end of the path, or past it
+     */
+    public boolean isFinished() {
+        return closest >= path.size() - 1 - lookaheadSamples && remaining <= POSITION_TOLERANCE;
+    }
+
+    /**
+     * @return The left wheel speed from the last calculation in m/s, positive is forward
+     */
+    public double getLeftSpeed() {
+        return leftSpeed;
+    }
+
+    /**
+     * @return The right wheel speed from the last calculation in m/s, positive is forward
+     */
+    public double getRightSpeed() {
+        return rightSpeed;
+    }
+
+    /**
+     * @return The distance in metres from the robot to the closest point on the path, from the last calculation
+     */
+    public double getCrossTrackError() {
+        return crossTrackError;
+    }
+
+    /**
+     * @return The distance in metres left to the end of the path along its final direction, from the last
+     * calculation
+     */
+    public double getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * @param speed        The wheel speed in m/s
+     * @param acceleration The wheel acceleration in m/s/s
+     * @return The open-loop throttle for the speed and acceleration
+     */
+    private static double getThrottle(double speed, double acceleration) {
+        return speed == 0.0 ? 0.0 : Math.copySign(KS, speed) + KV * speed + KA * acceleration;
+    }
+
+    private double distanceSquared(int index, double px, double py) {
+        final double dx = path.getX(index) - px;
+        final double dy = path.getY(index) - py;
+        return dx * dx + dy * dy;
+    }
+}
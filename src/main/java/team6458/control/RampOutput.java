@@ -0,0 +1,79 @@
+package team6458.control;
+
+import edu.wpi.first.wpilibj.SpeedController;
+import team6458.util.Utils;
+
+/**
+ * Runs the intake and ramp motors together at one speed, scaled by an output limit such as the
+ * {@link BrownoutGovernor}'s. The motors are WPILib {@link SpeedController}s, which do not need the HAL, so this also
+ * runs against simulated motors. Nothing is allocated.
+ * <p>
+ * This class is <b>not</b> thread-safe, and should only be used from the main robot thread.
+ */
+public final class RampOutput {
+
+    private final SpeedController[] motors;
+    private double speed = 0.0;
+    private double outputLimit = 1.0;
+
+    /**
+     * Constructor.
+     *
+     * @param motors The non-null motors, already inverted as needed
+     */
+    public RampOutput(SpeedController... motors) {
+        this.motors = motors.clone();
+    }
+
+    /**
+     * Stop all motors.
+     */
+    public void stopMotors() {
+        speed = 0.0;
+        for (SpeedController motor : motors) {
+            motor.stopMotor();
+        }
+    }
+
+    /**
+     * Set all motors to this speed, scaled by the output limit.
+     *
+     * @param speed The throttle between -1.0 and 1.0 (will be clamped)
+     */
+    public void setSpeed(double speed) {
+        this.speed = Utils.clamp(speed, -1.0, 1.0);
+        final double output = this.speed * outputLimit;
+        for (SpeedController motor : motors) {
+            motor.set(output);
+        }
+    }
+
+    /**
+     * Limits the motor outputs. A running ramp is changed right away.
+     *
+     * @param outputLimit The multiplier applied to the speed, between 0.0 and 1.0
+     */
+    public void setOutputLimit(double outputLimit) {
+        if (outputLimit == this.outputLimit) {
+            return;
+        }
+        this.outputLimit = outputLimit;
+        if (speed != 0.0) {
+            setSpeed(speed);
+        }
+    }
+
+    /**
+     * @return The multiplier applied to the speed, between 0.0 and 1.0
+     */
+    public double getOutputLimit() {
+        return outputLimit;
+    }
+
+    /**
+     * @return The last speed set, before the output limit
+     */
+    public double getSpeed() {
+        return speed;
+    }
+}
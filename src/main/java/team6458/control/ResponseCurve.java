@@ -0,0 +1,111 @@
+package team6458.control;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * A stick response curve, precomputed into a lookup table so shaping an input costs one table lookup and an
+ * interpolation per loop.
+ * <p>
+ * The curve is defined for inputs from 0.0 to 1.0 and mirrored for negative inputs, so it always keeps the sign of
+ * the stick. Instances are immutable and can be shared.
+ */
+public final class ResponseCurve {
+
+    /**
+     * The number of entries in each table, evenly spaced from 0.0 to 1.0 inclusive.
+     */
+    public static final int TABLE_SIZE = 129;
+    /**
+     * The output equals the input.
+     */
+    public static final ResponseCurve LINEAR = new ResponseCurve("Linear", x -> x);
+    /**
+     * The output is the cube of the input, for fine control near the centre of the stick.
+     */
+    public static final ResponseCurve CUBIC = new ResponseCurve("Cubic", x -> x * x * x);
+
+    private final String name;
+    private final double[] table = new double[TABLE_SIZE];
+
+    private ResponseCurve(String name, DoubleUnaryOperator function) {
+        this.name = name;
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            table[i] = function.applyAsDouble(i / (double) (TABLE_SIZE - 1));
+        }
+    }
+
+    /**
+     * Creates the RC-style exponential curve, a blend of the linear and cubic curves.
+     *
+     * @param expo The weight of the cubic curve, between 0.0 (linear) and 1.0 (cubic)
+     * @return The non-null curve
+     */
+    public static ResponseCurve expo(double expo) {
+        if (expo < 0.0 || expo > 1.0) {
+            throw new IllegalArgumentException("Expo must be between 0 and 1, got " + expo);
+        }
+        return new ResponseCurve(String.format("Expo %.2f", expo), x -> (1.0 - expo) * x + expo * x * x * x);
+    }
+
+    /**
+     * Creates a curve through the given points, evenly spaced from an input of 0.0 to 1.0, with straight lines
+     * between them.
+     *
+     * @param name   The non-null name of the curve
+     * @param points At least two outputs, starting at 0.0, never decreasing and at most 1.0
+     * @return The non-null curve
+     */
+    public static ResponseCurve custom(String name, double... points) {
+        if (points.length < 2) {
+            throw new IllegalArgumentException("A custom curve needs at least 2 points, got " + points.length);
+        }
+        if (points[0] != 0.0 || points[points.length - 1] > 1.0) {
+            throw new IllegalArgumentException("A custom curve must start at 0 and end at most at 1");
+        }
+        for (int i = 1; i < points.length; i++) {
+            if (points[i] < points[i - 1]) {
+                throw new IllegalArgumentException("A custom curve must never decrease, point " + i + " is " +
+                        points[i] + " after " + points[i - 1]);
+            }
+        }
+        final double[] copy = points.clone();
+        return new ResponseCurve(name, x -> interpolate(copy, x));
+    }
+
+    /**
+     * Shapes an input.
+     *
+     * @param input The input, clamped to between -1.0 and 1.0
+     * @return The output, with the same sign as the input
+     */
+    public double apply(double input) {
+        final double position = Math.min(Math.abs(input), 1.0) * (TABLE_SIZE - 1);
+        if (!(position < TABLE_SIZE - 1)) {
+            // Full stick, or NaN
+            return Double.isNaN(position) ? 0.0 : Math.copySign(table[TABLE_SIZE - 1], input);
+        }
+        return Math.copySign(interpolate(table, position / (TABLE_SIZE - 1)), input);
+    }
+
+    /**
+     * @return The non-null name of the curve
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Interpolates between evenly spaced points from 0.0 to 1.0.
+     */
+    private static double interpolate(double[] points, double x) {
+        final double position = x * (points.length - 1);
+        final int index = Math.min((int) position, points.length - 2);
+        final double fraction = position - index;
+        return points[index] + fraction * (points[index + 1] - points[index]);
+    }
+}
@@ -0,0 +1,156 @@
+package team6458.control;
+
+import team6458.hal.DriveOutput;
+import team6458.util.Utils;
+import team6458.util.ValueGradient;
+
+/**
+ * The control law for rotating in place by a relative heading: the rotation speed follows a {@link ValueGradient}
+ * over the remaining angle, and stops once the heading is within a tolerance of the target or has overshot it.
+ * <p>
+ * This class has no dependency on the HAL, so the same law is used by {@link team6458.cmd.RotateCommand},
+ * the {@link HeadingControlLoop} and the simulator.
+ */
+public final class RotateController {
+
+    /**
+     * The default angle tolerance in degrees at which the target angle and real angle have to match by.
+     */
+    public static final double ANGLE_TOLERANCE = 4.0;
+    /**
+     * The default speed gradient to use.
+     * <p>
+     * Max of 0.45, min of 0.325, range of 20 deg starting at 10 deg.
+     */
+    public static final ValueGradient DEFAULT_GRADIENT = new ValueGradient(0.45, 0.325, 20.0, 10.0);
+    /**
+     * The default time in seconds a rotation may take before it is given up.
+     */
+    public static final double DEFAULT_TIMEOUT = 2.5;
+
+    /**
+     * The amount to change the heading by in degrees, positive is clockwise.
+     */
+    public final double headingChange;
+    /**
+     * The speed gradient over the remaining angle.
+     */
+    public final ValueGradient gradient;
+    /**
+     * The angle tolerance in degrees.
+     */
+    public final double tolerance;
+
+    private double original;
+    private double target;
+
+    /**
+     * Constructor.
+     *
+     * @param headingChange The amount to change the heading by in degrees, positive is clockwise
+     * @param gradient      The non-null speed gradient
+     * @param tolerance     The angle tolerance in degrees, usually {@link #ANGLE_TOLERANCE}
+     */
+    public RotateController(double headingChange, ValueGradient gradient, double tolerance) {
+        this.headingChange = headingChange;
+        this.gradient = gradient;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Starts a new rotation from the current heading.
+     *
+     * @param heading The current heading in degrees
+     */
+    public void start(double heading) {
+        this.original = heading;
+        this.target = heading + headingChange;
+    }
+
+    /**
+     * @return The heading in degrees when the rotation started
+     */
+    public double getOriginal() {
+        return original;
+    }
+
+    /**
+     * @return The target heading in degrees
+     */
+    public double getTarget() {
+        return target;
+    }
+
+    /**
+     * @param heading The current heading in degrees
+     * @return The signed rotation rate, positive is clockwise, or zero once overshot
+     */
+    public double calculate(double heading) {
+        return Math.copySign(getThrottle(gradient, heading, original, target, tolerance), target - original);
+    }
+
+    /**
+     * Runs one iteration of the control law.
+     *
+     * @param heading The current heading in degrees
+     * @param output  The non-null drive to output to
+     */
+    public void update(double heading, DriveOutput output) {
+        output.curvatureDrive(0.0, calculate(heading), true);
+    }
+
+    /**
+     * @param heading The current heading in degrees
+     * @return True if the heading has overshot the target by more than the tolerance
+     */
+    public boolean hasOvershot(double heading) {
+        return hasOvershot(heading, original, target, tolerance);
+    }
+
+    /**
+     * @param heading The current heading in degrees
+     * @return True if the heading is within the tolerance of the target, or has overshot it
+     */
+    public boolean isFinished(double heading) {
+        return isRotationComplete(heading, original, target, tolerance);
+    }
+
+    /**
+     * @param currentAngle The current heading
+     * @param original     The heading when the rotation started
+     * @param target       The target heading
+     * @param tolerance    The angle tolerance
+     * @return True if the current heading has overshot the target by more than the tolerance
+     */
+    public static boolean hasOvershot(double currentAngle, double original, double target, double tolerance) {
+        return (target - original >= 0.0 ? currentAngle > target + tolerance : currentAngle < target - tolerance);
+    }
+
+    /**
+     * @param gradient     The speed gradient over the remaining angle
+     * @param currentAngle The current heading
+     * @param original     The heading when the rotation started
+     * @param target       The target heading
+     * @param tolerance    The angle tolerance
+     * @return The positive throttle to rotate at, or zero if the target was overshot
+     */
+    public static double getThrottle(ValueGradient gradient, double currentAngle, double original, double target,
+                                     double tolerance) {
+        if (hasOvershot(currentAngle, original, target, tolerance))
+            return 0.0;
+
+        return gradient.interpolate(Math.abs(currentAngle - target));
+    }
+
+    /**
+     * @param currentAngle The current heading
+     * @param original     The heading when the rotation started
+     * @param target       The target heading
+     * @param tolerance    The angle tolerance
+     * @return True if the heading is within the tolerance of the target, or has overshot it
+     */
+    public static boolean isRotationComplete(double currentAngle, double original, double target, double tolerance) {
+        return Utils.isEqual(currentAngle, target, tolerance) || hasOvershot(currentAngle, original, target, tolerance);
+    }
+
+}
@@ -0,0 +1,85 @@
+package team6458.control;
+
+import team6458.hal.DriveOutput;
+import team6458.util.Utils;
+
+/**
+ * The teleoperated drive law: turns the driver's inputs into drivetrain output and an intake throttle.
+ * <p>
+ * The run buttons allow full throttle and curve, otherwise they are limited to {@link #MAX_NOT_RUNNING_THROTTLE}
+ * and {@link #MAX_NOT_RUNNING_CURVE}. While a heading lock button is held, the curve holds the heading from when
+ * it was pressed, like {@link DriveStraightController}.
+ */
+public final class TeleopDriveController {
+
+    /**
+     * The coefficient used for the heading lock function. For now, uses the same value for the drive straight
+     * command.
+     */
+    public static final double GYRO_KP = DriveStraightController.GYRO_CORRECTION;
+    /**
+     * The maximum absolute throttle value when the run button is not held.
+     */
+    public static final double MAX_NOT_RUNNING_THROTTLE = 0.75;
+    /**
+     * The maximum absolute curve value when the run button is not held.
+     */
+    public static final double MAX_NOT_RUNNING_CURVE = 0.85;
+
+    /**
+     * Used for heading lock/drive straight.
+     */
+    private double targetLockedHeading = 0.0;
+    /**
+     * True if the heading is locked, false otherwise.
+     */
+    private boolean isHeadingLocked = false;
+
+    /**
+     * Releases the heading lock. Call when the driver loses control of the robot.
+     */
+    public void reset() {
+        isHeadingLocked = false;
+    }
+
+    /**
+     * Runs one iteration of the drive law.
+     *
+     * @param inputs  The non-null inputs for this loop
+     * @param heading The current heading in degrees
+     * @param output  The non-null drive to output to
+     * @return The intake throttle between -1.0 and 1.0, positive is towards the back
+     */
+    public double update(DriverInputs inputs, double heading, DriveOutput output) {
+        final boolean isRunHeld = inputs.isRunHeld();
+
+        // Check heading lock (X/Y)
+        if (inputs.isHeadingLockHeld() && !isHeadingLocked) {
+            isHeadingLocked = true;
+            targetLockedHeading = heading;
+        } else if (!inputs.isHeadingLockHeld() && isHeadingLocked) {
+            isHeadingLocked = false;
+        }
+
+        // Initial magnitude and curve using the controller
+        final double magnitude = isRunHeld ? inputs.getDriveY() : inputs.getDriveY() * MAX_NOT_RUNNING_THROTTLE;
+        double curve = isRunHeld ? inputs.getDriveX() : inputs.getDriveX() * MAX_NOT_RUNNING_CURVE;
+
+        // Correct for angle drift
+        if (isHeadingLocked) {
+            curve = -GYRO_KP * (heading - targetLockedHeading);
+        }
+
+        // Drive the robot
+        if (!inputs.isTankControls()) {
+            // Arcade drive
+            output.arcadeDrive(magnitude, curve, inputs.isSquareInputs());
+        } else {
+            final double rightStick = inputs.getRightY();
+            output.tankDrive(magnitude, isRunHeld ? rightStick : rightStick * MAX_NOT_RUNNING_THROTTLE,
+                    inputs.isSquareInputs());
+        }
+
+        return Utils.clamp(-inputs.getLeftTrigger() + inputs.getRightTrigger(), -1.0, 1.0);
+    }
+}
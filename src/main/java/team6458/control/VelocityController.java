@@ -0,0 +1,164 @@
+package team6458.control;
+
+import team6458.util.Utils;
+
+/**
+ * The velocity control law for one side of the drivetrain: a feedforward from the target velocity and its change,
+ * plus PID on the encoder rate. Everything is worked out in volts and divided by the battery voltage, so the same
+ * target gives the same speed whether the battery is fresh or sagging.
+ * <p>
+ * The feedforward is {@code kS * sign(v) + kV * v + kA * a}, where the acceleration is how fast the target changed
+ * since the last update. The integral only accumulates while the output is not saturated, so it does not wind up
+ * while the motors are already at full output. A target of zero outputs zero and clears the integral, letting the
+ * side coast to a stop like an open-loop drive would.
+ * <p>
+ * This class has no dependency on the HAL, so the same law runs on the robot and in the simulator.
+ */
+public final class VelocityController {
+
+    /**
+     * The voltage the gains were measured at, used if the battery voltage is not known.
+     */
+    public static final double NOMINAL_VOLTAGE = 12.0;
+    /**
+     * The lowest battery voltage compensated for. Below this the output is not scaled up any further.
+     */
+    public static final double MIN_VOLTAGE = 6.0;
+    /**
+     * The default voltage needed to start moving, including the drive's input deadband.
+     */
+    public static final double KS = 0.9;
+    /**
+     * The default volts per m/s. ~3.4 m/s at 12 V under load, less static friction.
+     */
+    public static final double KV = 3.25;
+    /**
+     * The default volts per m/s/s: the drivetrain's time constant (~0.15 s) times {@link #KV}.
+     */
+    public static final double KA = 0.5;
+    /**
+     * The default volts per m/s of error.
+     */
+    public static final double KP = 2.0;
+    /**
+     * The default volts per metre of accumulated error.
+     */
+    public static final double KI = 3.0;
+    /**
+     * The default volts per m/s/s of change in error.
+     */
+    public static final double KD = 0.0;
+    /**
+     * The longest gap in seconds between updates that is treated as continuous. After a longer gap the acceleration
+     * and integral start over, since the controller was not in use.
+     */
+    public static final double MAX_PERIOD = 0.1;
+
+    public final double kS;
+    public final double kV;
+    public final double kA;
+    public final double kP;
+    public final double kI;
+    public final double kD;
+
+    private boolean hasLast = false;
+    private double lastTime;
+    private double lastTarget;
+    private double lastError;
+    private double integral;
+    private boolean saturated;
+
+    /**
+     * Constructor with the default gains.
+     */
+    public VelocityController() {
+        this(KS, KV, KA, KP, KI, KD);
+    }
+
+    /**
+     * Constructor. All gains are in volts.
+     *
+     * @param kS The non-negative voltage needed to start moving
+     * @param kV The non-negative volts per m/s
+     * @param kA The non-negative volts per m/s/s
+     * @param kP The non-negative volts per m/s of error
+     * @param kI The non-negative volts per metre of accumulated error
+     * @param kD The non-negative volts per m/s/s of change in error
+     */
+    public VelocityController(double kS, double kV, double kA, double kP, double kI, double kD) {
+        if (kS < 0.0 || kV < 0.0 || kA < 0.0 || kP < 0.0 || kI < 0.0 || kD < 0.0) {
+            throw new IllegalArgumentException("Gains must not be negative");
+        }
+        this.kS = kS;
+        this.kV = kV;
+        this.kA = kA;
+        this.kP = kP;
+        this.kI = kI;
+        this.kD = kD;
+    }
+
+    /**
+     * Clears the acceleration, integral and derivative state. Call when the side stops being velocity controlled.
+     */
+    public void reset() {
+        hasLast = false;
+        integral = 0.0;
+        saturated = false;
+    }
+
+    /**
+     * Runs one iteration of the control law.
+     *
+     * @param time           The current time in seconds
+     * @param target         The target velocity in m/s
+     * @param measured       The measured velocity in m/s
+     * @param batteryVoltage The battery voltage, or zero or less if unknown
+     * @return The output between -1.0 and 1.0
+     */
+    public double calculate(double time, double target, double measured, double batteryVoltage) {
+        return calculate(time, target, measured, batteryVoltage, 1.0);
+    }
+
+    /**
+     * Runs one iteration of the control law with a lower output limit. The integral stops accumulating at the limit,
+     * as it does at full output.
+     *
+     * @param time           The current time in seconds
+     * @param target         The target velocity in m/s
+     * @param measured       The measured velocity in m/s
+     * @param batteryVoltage The battery voltage, or zero or less if unknown
+     * @param maxOutput      The largest absolute output, between 0.0 and 1.0
+     * @return The output between -maxOutput and maxOutput
+     */
+    public double calculate(double time, double target, double measured, double batteryVoltage, double maxOutput) {
+        final double dt = time - lastTime;
+        final boolean continuous = hasLast && dt > 0.0 && dt <= MAX_PERIOD;
+        final double error = target - measured;
+
+        final double acceleration = continuous ? (target - lastTarget) / dt : 0.0;
+        final double derivative = continuous ? (error - lastError) / dt : 0.0;
+        if (!continuous) {
+            integral = 0.0;
+        } else if (!saturated) {
+            integral += error * dt;
+        }
+
+        hasLast = true;
+        lastTime = time;
+        lastTarget = target;
+        lastError = error;
+
+        if (target == 0.0) {
+            integral = 0.0;
+            saturated = false;
+            return 0.0;
+        }
+
+        final double volts = Math.copySign(kS, target) + kV * target + kA * acceleration +
+                kP * error + kI * integral + kD * derivative;
+        final double voltage = batteryVoltage > 0.0 ? Math.max(batteryVoltage, MIN_VOLTAGE) : NOMINAL_VOLTAGE;
+        final double output = volts / voltage;
+        saturated = Math.abs(output) >= maxOutput;
+        return Utils.clamp(output, -maxOutput, maxOutput);
+    }
+}
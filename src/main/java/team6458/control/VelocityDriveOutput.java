@@ -0,0 +1,118 @@
+package team6458.control;
+
+import team6458.hal.DriveOutput;
+
+/**
+ * A {@link DriveOutput} that closes the loop on wheel speed, with a {@link VelocityController} per side.
+ * <p>
+ * The drive methods take the same inputs as an open-loop drive and mix them with a {@link DriveMixer}, but each
+ * side's output is taken as a fraction of {@link #MAX_SPEED} instead of a motor output, so a throttle of 0.5 means
+ * the same speed on every carpet and battery. {@link #setWheelSpeeds(double, double)} takes the speeds in m/s
+ * directly. The resulting motor outputs go to the underlying open-loop drive, which keeps its motor safety.
+ * <p>
+ * Call {@link #setMeasurements(double, double, double, double)} once per loop before driving. Nothing here
+ * allocates. This class is <b>not</b> thread-safe, and should only be used from the main robot thread.
+ */
+public final class VelocityDriveOutput implements DriveOutput {
+
+    /**
+     * The wheel speed in m/s of an input of 1.0. This is below the ~3.4 m/s free speed under load, so full input
+     * can still be reached as the battery sags.
+     */
+    public static final double MAX_SPEED = 3.0;
+
+    private final DriveOutput output;
+    private final VelocityController left;
+    private final VelocityController right;
+    private final DriveMixer mixer = new DriveMixer();
+
+    private double time;
+    private double leftRate;
+    private double rightRate;
+    private double batteryVoltage;
+    private double maxOutput = 1.0;
+
+    /**
+     * Constructor with the default gains.
+     *
+     * @param output The non-null open-loop drive to output to
+     */
+    public VelocityDriveOutput(DriveOutput output) {
+        this(output, new VelocityController(), new VelocityController());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param output The non-null open-loop drive to output to
+     * @param left   The non-null left side controller, not shared with anything else
+     * @param right  The non-null right side controller, not shared with anything else
+     */
+    public VelocityDriveOutput(DriveOutput output, VelocityController left, VelocityController right) {
+        this.output = output;
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * Sets this loop's measurements. Call once per loop, before driving.
+     *
+     * @param time           The current time in seconds
+     * @param leftRate       The left encoder rate in m/s
+     * @param rightRate      The right encoder rate in m/s
+     * @param batteryVoltage The battery voltage, or zero if unknown
+     */
+    public void setMeasurements(double time, double leftRate, double rightRate, double batteryVoltage) {
+        this.time = time;
+        this.leftRate = leftRate;
+        this.rightRate = rightRate;
+        this.batteryVoltage = batteryVoltage;
+    }
+
+    /**
+     * Drives each side at a speed.
+     *
+     * @param leftSpeed  The left wheel speed in m/s, positive is forward
+     * @param rightSpeed The right wheel speed in m/s, positive is forward
+     */
+    public void setWheelSpeeds(double leftSpeed, double rightSpeed) {
+        output.tankDrive(left.calculate(time, leftSpeed * maxOutput, leftRate, batteryVoltage, maxOutput),
+                right.calculate(time, rightSpeed * maxOutput, rightRate, batteryVoltage, maxOutput), false);
+    }
+
+    @Override
+    public void arcadeDrive(double xSpeed, double zRotation, boolean squaredInputs) {
+        mixer.arcade(xSpeed, zRotation, squaredInputs);
+        setWheelSpeeds(mixer.getLeft() * MAX_SPEED, mixer.getRight() * MAX_SPEED);
+    }
+
+    @Override
+    public void curvatureDrive(double xSpeed, double zRotation, boolean isQuickTurn) {
+        mixer.curvature(xSpeed, zRotation, isQuickTurn);
+        setWheelSpeeds(mixer.getLeft() * MAX_SPEED, mixer.getRight() * MAX_SPEED);
+    }
+
+    @Override
+    public void tankDrive(double leftSpeed, double rightSpeed, boolean squaredInputs) {
+        mixer.tank(leftSpeed, rightSpeed, squaredInputs);
+        setWheelSpeeds(mixer.getLeft() * MAX_SPEED, mixer.getRight() * MAX_SPEED);
+    }
+
+    @Override
+    public void stopMotor() {
+        left.reset();
+        right.reset();
+        output.stopMotor();
+    }
+
+    /**
+     * Limits the outputs, see {@link BrownoutGovernor}. The wheel speed targets are scaled as well as the motor
+     * outputs, and the controllers know the limit, so they do not wind up against it. The output drive must not be
+     * limited as well, see {@link LimitedDriveOutput}.
+     *
+     * @param maxOutput The multiplier applied to the speed targets and motor outputs, between 0.0 and 1.0
+     */
+    public void setMaxOutput(double maxOutput) {
+        this.maxOutput = maxOutput;
+    }
+}
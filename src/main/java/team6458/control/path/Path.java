@@ -0,0 +1,138 @@
+package team6458.control.path;
+
+import team6458.control.profile.MotionConstraints;
+
+/**
+ * A precomputed path through a list of {@link Waypoint}s, sampled at a fixed spacing along its length. Each sample
+ * has a position, the distance along the path, the signed curvature, and the speed to travel at, which is limited
+ * by the constraints, the curvature and the distance left to stop. Samples are stored in primitive arrays, so
+ * following a path does not allocate.
+ * <p>
+ * Positions are relative to the start of the path, in the {@link Waypoint} frame. Speeds are always positive; on a
+ * {@link #reversed} path the follower drives them backwards. Instances are immutable and are created by
+ * {@link Paths}.
+ */
+public final class Path {
+
+    /**
+     * The constraints the path was generated with, in metres.
+     */
+    public final MotionConstraints constraints;
+    /**
+     * True if the robot drives the path backwards.
+     */
+    public final boolean reversed;
+    /**
+     * The distance between samples in metres.
+     */
+    public final double spacing;
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] distance;
+    private final double[] curvature;
+    private final double[] velocity;
+    private final double endHeading;
+    private final double duration;
+
+    Path(MotionConstraints constraints, boolean reversed, double spacing, double[] x, double[] y, double[] distance,
+         double[] curvature, double[] velocity, double endHeading) {
+        this.constraints = constraints;
+        this.reversed = reversed;
+        this.spacing = spacing;
+        this.x = x;
+        this.y = y;
+        this.distance = distance;
+        this.curvature = curvature;
+        this.velocity = velocity;
+        this.endHeading = endHeading;
+
+        double time = 0.0;
+        for (int i = 1; i < velocity.length; i++) {
+            final double average = (velocity[i - 1] + velocity[i]) / 2.0;
+            time += average > 0.0 ? (distance[i] - distance[i - 1]) / average : 0.0;
+        }
+        this.duration = time;
+    }
+
+    /**
+     * @return The number of samples
+     */
+    public int size() {
+        return x.length;
+    }
+
+    /**
+     * @return The length of the path in metres
+     */
+    public double getLength() {
+        return distance[distance.length - 1];
+    }
+
+    /**
+     * @return The time in seconds it takes to drive the path at the sampled speeds
+     */
+    public double getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return The heading of the robot at the end of the path in degrees, positive is clockwise
+     */
+    public double getEndHeading() {
+        return endHeading;
+    }
+
+    /**
+     * @param index The sample index
+     * @return The X position of the sample in metres
+     */
+    public double getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * @param index The sample index
+     * @return The Y position of the sample in metres, positive is to the left
+     */
+    public double getY(int index) {
+        return y[index];
+    }
+
+    /**
+     * @param index The sample index
+     * @return The distance along the path to the sample in metres
+     */
+    public double getDistance(int index) {
+        return distance[index];
+    }
+
+    /**
+     * @param index The sample index
+     * @return The curvature at the sample in 1/metres, positive turns anticlockwise in the direction of travel
+     */
+    public double getCurvature(int index) {
+        return curvature[index];
+    }
+
+    /**
+     * @param index The sample index
+     * @return The positive speed to travel at the sample in m/s
+     */
+    public double getVelocity(int index) {
+        return velocity[index];
+    }
+
+    /**
+     * @param index The sample index
+     * @return The rate of change of the speed between the sample and the next one in m/s/s, zero at the last sample
+     */
+    public double getAcceleration(int index) {
+        if (index >= velocity.length - 1) {
+            return 0.0;
+        }
+        final double span = distance[index + 1] - distance[index];
+        return span > 0.0 ?
+                (velocity[index + 1] * velocity[index + 1] - velocity[index] * velocity[index]) / (2.0 * span) : 0.0;
+    }
+}
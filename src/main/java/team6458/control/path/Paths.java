@@ -0,0 +1,171 @@
+package team6458.control.path;
+
+import team6458.control.profile.MotionConstraints;
+import team6458.sensor.PoseEstimator;
+
+/**
+ * Generates {@link Path}s through {@link Waypoint}s.
+ * <p>
+ * Consecutive waypoints are joined by cubic Hermite splines whose tangents point along each waypoint's direction of
+ * travel, with a length of the distance between the waypoints, so the path leaves and arrives at every waypoint at
+ * its heading and the curvature stays continuous within a segment. The splines are sampled finely, then resampled
+ * every {@link #SPACING} along their length.
+ * <p>
+ * The speed at each sample is the lowest of the maximum velocity, the speed at which the turn's centripetal
+ * acceleration reaches the maximum acceleration, and the speed at which the outer wheel reaches the maximum
+ * velocity. It is then limited by the maximum acceleration from rest at the start and to rest at the end. Jerk is
+ * not limited. Generating a path allocates, so paths should be generated before the loop that follows them (for
+ * example, when the route is built).
+ */
+public final class Paths {
+
+    /**
+     * The distance between samples in metres.
+     */
+    public static final double SPACING = 0.02;
+    /**
+     * The number of points each spline is sampled at before resampling.
+     */
+    public static final int SUBSAMPLES = 500;
+    /**
+     * The track width in metres used to limit the outer wheel's speed.
+     */
+    public static final double TRACK_WIDTH = PoseEstimator.DEFAULT_TRACK_WIDTH;
+
+    /**
+     * No instantiation.
+     */
+    private Paths() {
+    }
+
+    /**
+     * Generates a path.
+     *
+     * @param constraints The non-null constraints in metres. The jerk is not used
+     * @param reversed    True to drive the path backwards
+     * @param waypoints   At least two waypoints. The robot faces each waypoint's heading, and moves the opposite way
+     *                    if reversed
+     * @return A new path
+     * @throws IllegalArgumentException if there are less than two waypoints, or two consecutive waypoints are at the
+     *                                  same position
+     */
+    public static Path generate(MotionConstraints constraints, boolean reversed, Waypoint... waypoints) {
+        if (waypoints.length < 2) {
+            throw new IllegalArgumentException("A path needs at least two waypoints, got " + waypoints.length);
+        }
+
+        // The fine samples of every spline, the end of one is the start of the next
+        final int fineSize = (waypoints.length - 1) * SUBSAMPLES + 1;
+        final double[] fineX = new double[fineSize];
+        final double[] fineY = new double[fineSize];
+        final double[] fineDistance = new double[fineSize];
+        final double[] fineCurvature = new double[fineSize];
+        for (int segment = 0; segment < waypoints.length - 1; segment++) {
+            sampleSpline(waypoints[segment], waypoints[segment + 1], reversed, segment * SUBSAMPLES, fineX, fineY,
+                    fineCurvature);
+        }
+        for (int i = 1; i < fineSize; i++) {
+            fineDistance[i] = fineDistance[i - 1] + Math.hypot(fineX[i] - fineX[i - 1], fineY[i] - fineY[i - 1]);
+        }
+
+        // Resample at a fixed spacing, the last sample is the last waypoint
+        final double length = fineDistance[fineSize - 1];
+        final int size = (int) Math.ceil(length / SPACING) + 1;
+        final double[] x = new double[size];
+        final double[] y = new double[size];
+        final double[] distance = new double[size];
+        final double[] curvature = new double[size];
+        int fine = 0;
+        for (int i = 0; i < size; i++) {
+            final double target = Math.min(i * SPACING, length);
+            while (fine < fineSize - 2 && fineDistance[fine + 1] < target) {
+                fine++;
+            }
+            final double span = fineDistance[fine + 1] - fineDistance[fine];
+            final double alpha = span > 0.0 ? (target - fineDistance[fine]) / span : 0.0;
+            x[i] = fineX[fine] + (fineX[fine + 1] - fineX[fine]) * alpha;
+            y[i] = fineY[fine] + (fineY[fine + 1] - fineY[fine]) * alpha;
+            curvature[i] = fineCurvature[fine] + (fineCurvature[fine + 1] - fineCurvature[fine]) * alpha;
+            distance[i] = target;
+        }
+
+        final double[] velocity = new double[size];
+        for (int i = 0; i < size; i++) {
+            final double k = Math.abs(curvature[i]);
+            double limit = constraints.maxVelocity / (1.0 + k * TRACK_WIDTH / 2.0);
+            if (k > 0.0) {
+                limit = Math.min(limit, Math.sqrt(constraints.maxAcceleration / k));
+            }
+            velocity[i] = limit;
+        }
+        // Decelerate to rest at the end, then accelerate from rest at the start
+        velocity[size - 1] = 0.0;
+        for (int i = size - 2; i >= 0; i--) {
+            velocity[i] = Math.min(velocity[i], Math.sqrt(velocity[i + 1] * velocity[i + 1] +
+                    2.0 * constraints.maxAcceleration * (distance[i + 1] - distance[i])));
+        }
+        velocity[0] = 0.0;
+        for (int i = 1; i < size; i++) {
+            velocity[i] = Math.min(velocity[i], Math.sqrt(velocity[i - 1] * velocity[i - 1] +
+                    2.0 * constraints.maxAcceleration * (distance[i] - distance[i - 1])));
+        }
+
+        return new Path(constraints, reversed, SPACING, x, y, distance, curvature, velocity,
+                waypoints[waypoints.length - 1].heading);
+    }
+
+    /**
+     * Samples a cubic Hermite spline between two waypoints into the arrays, from the offset.
+     */
+    private static void sampleSpline(Waypoint start, Waypoint end, boolean reversed, int offset, double[] x,
+                                     double[] y, double[] curvature) {
+        final double chord = Math.hypot(end.x - start.x, end.y - start.y);
+        if (chord == 0.0) {
+            throw new IllegalArgumentException("Consecutive waypoints at the same position: " + start);
+        }
+        // The direction of travel, anticlockwise from X
+        final double startAngle = getTravelAngle(start.heading, reversed);
+        final double endAngle = getTravelAngle(end.heading, reversed);
+        final double startTangentX = chord * Math.cos(startAngle);
+        final double startTangentY = chord * Math.sin(startAngle);
+        final double endTangentX = chord * Math.cos(endAngle);
+        final double endTangentY = chord * Math.sin(endAngle);
+
+        for (int i = 0; i <= SUBSAMPLES; i++) {
+            final double t = (double) i / SUBSAMPLES;
+            final double t2 = t * t;
+            final double t3 = t2 * t;
+            // Hermite basis functions and their first and second derivatives
+            final double h00 = 2 * t3 - 3 * t2 + 1;
+            final double h10 = t3 - 2 * t2 + t;
+            final double h01 = -2 * t3 + 3 * t2;
+            final double h11 = t3 - t2;
+            final double d00 = 6 * t2 - 6 * t;
+            final double d10 = 3 * t2 - 4 * t + 1;
+            final double d01 = -6 * t2 + 6 * t;
+            final double d11 = 3 * t2 - 2 * t;
+            final double s00 = 12 * t - 6;
+            final double s10 = 6 * t - 4;
+            final double s01 = -12 * t + 6;
+            final double s11 = 6 * t - 2;
+
+            x[offset + i] = h00 * start.x + h10 * startTangentX + h01 * end.x + h11 * endTangentX;
+            y[offset + i] = h00 * start.y + h10 * startTangentY + h01 * end.y + h11 * endTangentY;
+            final double dx = d00 * start.x + d10 * startTangentX + d01 * end.x + d11 * endTangentX;
+            final double dy = d00 * start.y + d10 * startTangentY + d01 * end.y + d11 * endTangentY;
+            final double ddx = s00 * start.x + s10 * startTangentX + s01 * end.x + s11 * endTangentX;
+            final double ddy = s00 * start.y + s10 * startTangentY + s01 * end.y + s11 * endTangentY;
+            final double speed = Math.hypot(dx, dy);
+            curvature[offset + i] = speed > 0.0 ? (dx * ddy - dy * ddx) / (speed * speed * speed) : 0.0;
+        }
+    }
+
+    /**
+     * @param heading  The heading in degrees, positive is clockwise
+     * @param reversed True if the robot drives backwards
+     * @return The direction of travel in radians, anticlockwise from X
+     */
+    static double getTravelAngle(double heading, boolean reversed) {
+        return Math.toRadians(-heading) + (reversed ? Math.PI : 0.0);
+    }
+}
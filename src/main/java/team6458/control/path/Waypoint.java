@@ -0,0 +1,50 @@
+package team6458.control.path;
+
+/**
+ * A pose a {@link Path} passes through, in the same frame as the {@link team6458.sensor.PoseEstimator}: X is forward
+ * and Y is to the left of where the path starts, and the heading is in degrees with clockwise positive. The heading
+ * is the way the robot faces, so on a reversed path the robot travels the opposite way. Immutable.
+ */
+public final class Waypoint {
+
+    /**
+     * The X position in metres.
+     */
+    public final double x;
+    /**
+     * The Y position in metres, positive is to the left.
+     */
+    public final double y;
+    /**
+     * The heading in degrees, positive is clockwise.
+     */
+    public final double heading;
+
+    private Waypoint(double x, double y, double heading) {
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+    }
+
+    /**
+     * @param x       The X position in metres
+     * @param y       The Y position in metres, positive is to the left
+     * @param heading The heading in degrees, positive is clockwise
+     * @return A waypoint
+     */
+    public static Waypoint of(double x, double y, double heading) {
+        return new Waypoint(x, y, heading);
+    }
+
+    /**
+     * @return This waypoint mirrored across the X axis, for the other side of the field
+     */
+    public Waypoint mirror() {
+        return new Waypoint(x, -y, -heading);
+    }
+
+    @Override
+    public String toString() {
+        return "Waypoint{x=" + x + ", y=" + y + ", heading=" + heading + "}";
+    }
+}
@@ -0,0 +1,87 @@
+package team6458.control.profile;
+
+/**
+ * The limits a {@link MotionProfile} must stay within. Units are whatever the profile is in: metres for driving,
+ * degrees for rotating. Immutable, and usable as a cache key.
+ */
+public final class MotionConstraints {
+
+    /**
+     * The jerk of a trapezoidal profile, which changes acceleration instantly.
+     */
+    public static final double UNLIMITED_JERK = Double.POSITIVE_INFINITY;
+
+    /**
+     * The positive maximum velocity in units per second.
+     */
+    public final double maxVelocity;
+    /**
+     * The positive maximum acceleration in units per second squared.
+     */
+    public final double maxAcceleration;
+    /**
+     * The positive maximum jerk in units per second cubed, or {@link #UNLIMITED_JERK}.
+     */
+    public final double maxJerk;
+
+    private MotionConstraints(double maxVelocity, double maxAcceleration, double maxJerk) {
+        if (!(maxVelocity > 0.0) || !(maxAcceleration > 0.0) || !(maxJerk > 0.0) ||
+                Double.isInfinite(maxVelocity) || Double.isInfinite(maxAcceleration)) {
+            throw new IllegalArgumentException("Invalid parameters passed for motion constraints");
+        }
+
+        this.maxVelocity = maxVelocity;
+        this.maxAcceleration = maxAcceleration;
+        this.maxJerk = maxJerk;
+    }
+
+    /**
+     * @param maxVelocity     The positive maximum velocity
+     * @param maxAcceleration The positive maximum acceleration
+     * @return Constraints for a trapezoidal profile
+     */
+    public static MotionConstraints trapezoidal(double maxVelocity, double maxAcceleration) {
+        return new MotionConstraints(maxVelocity, maxAcceleration, UNLIMITED_JERK);
+    }
+
+    /**
+     * @param maxVelocity     The positive maximum velocity
+     * @param maxAcceleration The positive maximum acceleration
+     * @param maxJerk         The positive maximum jerk
+     * @return Constraints for an S-curve profile
+     */
+    public static MotionConstraints sCurve(double maxVelocity, double maxAcceleration, double maxJerk) {
+        return new MotionConstraints(maxVelocity, maxAcceleration, maxJerk);
+    }
+
+    /**
+     * @return True if the jerk is limited, giving an S-curve profile
+     */
+    public boolean isJerkLimited() {
+        return !Double.isInfinite(maxJerk);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final MotionConstraints that = (MotionConstraints) o;
+        return Double.compare(that.maxVelocity, maxVelocity) == 0 &&
+                Double.compare(that.maxAcceleration, maxAcceleration) == 0 &&
+                Double.compare(that.maxJerk, maxJerk) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Double.hashCode(maxVelocity);
+        result = 31 * result + Double.hashCode(maxAcceleration);
+        result = 31 * result + Double.hashCode(maxJerk);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "MotionConstraints{v=" + maxVelocity + ", a=" + maxAcceleration + ", j=" + maxJerk + "}";
+    }
+}
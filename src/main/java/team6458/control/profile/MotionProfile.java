@@ -0,0 +1,101 @@
+package team6458.control.profile;
+
+/**
+ * A precomputed, time-indexed motion profile from zero to a positive distance, starting and ending at rest.
+ * Setpoints are stored in primitive arrays at a fixed time step, so sampling a profile does not allocate.
+ * <p>
+ * Profiles are always positive; followers apply the sign of the move themselves, so one profile serves both
+ * directions. Instances are immutable and are created and cached by {@link MotionProfiles}.
+ */
+public final class MotionProfile {
+
+    /**
+     * The positive distance the profile covers.
+     */
+    public final double distance;
+    /**
+     * The constraints the profile was generated with.
+     */
+    public final MotionConstraints constraints;
+    /**
+     * The time between samples in seconds.
+     */
+    public final double dt;
+
+    private final double[] position;
+    private final double[] velocity;
+    private final double[] acceleration;
+
+    MotionProfile(double distance, MotionConstraints constraints, double dt, double[] position, double[] velocity,
+                  double[] acceleration) {
+        this.distance = distance;
+        this.constraints = constraints;
+        this.dt = dt;
+        this.position = position;
+        this.velocity = velocity;
+        this.acceleration = acceleration;
+    }
+
+    /**
+     * @return The time in seconds the profile takes
+     */
+    public double getDuration() {
+        return (position.length - 1) * dt;
+    }
+
+    /**
+     * @return The number of samples
+     */
+    public int size() {
+        return position.length;
+    }
+
+    /**
+     * @param time The time since the start of the profile in seconds
+     * @return The position setpoint, interpolated between samples and held at the ends
+     */
+    public double getPosition(double time) {
+        return interpolate(position, time);
+    }
+
+    /**
+     * @param time The time since the start of the profile in seconds
+     * @return The velocity setpoint, interpolated between samples and zero outside of the profile
+     */
+    public double getVelocity(double time) {
+        return time < 0.0 ? 0.0 : interpolate(velocity, time);
+    }
+
+    /**
+     * @param time The time since the start of the profile in seconds
+     * @return The acceleration setpoint of the sample at or before the time, zero outside of the profile
+     */
+    public double getAcceleration(double time) {
+        if (time < 0.0 || time >= getDuration()) {
+            return 0.0;
+        }
+        return acceleration[(int) (time / dt)];
+    }
+
+    /**
+     * @param time The time since the start of the profile in seconds
+     * @return True if the profile has ended
+     */
+    public boolean isFinished(double time) {
+        return time >= getDuration();
+    }
+
+    private double interpolate(double[] samples, double time) {
+        final double index = time / dt;
+        if (index <= 0.0) {
+            return samples[0];
+        }
+        final int last = samples.length - 1;
+        if (index >= last) {
+            return samples[last];
+        }
+        final int lower = (int) index;
+        final double alpha = index - lower;
+        return samples[lower] + (samples[lower + 1] - samples[lower]) * alpha;
+    }
+}
@@ -0,0 +1,178 @@
+package team6458.control.profile;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates and caches {@link MotionProfile}s.
+ * <p>
+ * A trapezoidal profile accelerates at the maximum acceleration up to the maximum velocity (or as close as the
+ * distance allows), cruises, and decelerates symmetrically. An S-curve profile is the trapezoidal profile's velocity
+ * passed through a moving average as long as the time to reach full acceleration at the maximum jerk. That turns each
+ * acceleration step into a linear ramp, bounding jerk without changing the distance or the peak velocity, at the
+ * cost of a slightly longer profile.
+ * <p>
+ * Profiles are cached by distance and constraints, since autonomous routes reuse the same few segments. Generating
+ * a profile allocates, so segments should be requested before the loop that follows them (for example, when the
+ * command is constructed). The cache is thread-safe.
+ */
+public final class MotionProfiles {
+
+    /**
+     * The time between profile samples in seconds (200 Hz).
+     */
+    public static final double DT = 0.005;
+
+    private static final Map<Key, MotionProfile> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * No instantiation.
+     */
+    private MotionProfiles() {
+    }
+
+    /**
+     * Gets a cached profile, generating it if it is not cached yet.
+     *
+     * @param distance    The distance, the sign is ignored
+     * @param constraints The non-null constraints
+     * @return The profile
+     */
+    public static MotionProfile get(double distance, MotionConstraints constraints) {
+        return CACHE.computeIfAbsent(new Key(Math.abs(distance), constraints),
+                key -> generate(key.distance, key.constraints));
+    }
+
+    /**
+     * @return The number of cached profiles
+     */
+    public static int getCacheSize() {
+        return CACHE.size();
+    }
+
+    /**
+     * Empties the cache.
+     */
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * Generates a profile without caching it.
+     *
+     * @param distance    The distance, the sign is ignored
+     * @param constraints The non-null constraints
+     * @return A new profile
+     */
+    public static MotionProfile generate(double distance, MotionConstraints constraints) {
+        distance = Math.abs(distance);
+        if (distance == 0.0) {
+            return new MotionProfile(0.0, constraints, DT, new double[1], new double[1], new double[1]);
+        }
+
+        final double[] trapezoid = sampleTrapezoidVelocity(distance, constraints.maxVelocity,
+                constraints.maxAcceleration);
+        final double[] velocity = constraints.isJerkLimited() ?
+                movingAverage(trapezoid, (int) Math.max(1, Math.round(
+                        constraints.maxAcceleration / constraints.maxJerk / DT))) :
+                trapezoid;
+
+        final int size = velocity.length;
+        final double[] position = new double[size];
+        for (int i = 1; i < size; i++) {
+            position[i] = position[i - 1] + (velocity[i - 1] + velocity[i]) / 2.0 * DT;
+        }
+
+        // Sampling loses a little distance, so scale the profile to land exactly on the target
+        final double scale = distance / position[size - 1];
+        for (int i = 0; i < size; i++) {
+            position[i] *= scale;
+            velocity[i] *= scale;
+        }
+        position[size - 1] = distance;
+
+        final double[] acceleration = new double[size];
+        for (int i = 0; i < size - 1; i++) {
+            acceleration[i] = (velocity[i + 1] - velocity[i]) / DT;
+        }
+
+        return new MotionProfile(distance, constraints, DT, position, velocity, acceleration);
+    }
+
+    /**
+     * @return The velocity of a trapezoidal profile sampled every {@link #DT}, ending at zero
+     */
+    private static double[] sampleTrapezoidVelocity(double distance, double maxVelocity, double maxAcceleration) {
+        double peakVelocity = maxVelocity;
+        double accelTime = peakVelocity / maxAcceleration;
+        double cruiseTime = (distance - peakVelocity * accelTime) / peakVelocity;
+        if (cruiseTime < 0.0) {
+            // Too short to reach the maximum velocity: a triangular profile
+            peakVelocity = Math.sqrt(distance * maxAcceleration);
+            accelTime = peakVelocity / maxAcceleration;
+            cruiseTime = 0.0;
+        }
+        final double duration = 2.0 * accelTime + cruiseTime;
+
+        final int size = (int) Math.ceil(duration / DT) + 1;
+        final double[] velocity = new double[size];
+        for (int i = 0; i < size; i++) {
+            final double t = i * DT;
+            if (t < accelTime) {
+                velocity[i] = maxAcceleration * t;
+            } else if (t < accelTime + cruiseTime) {
+                velocity[i] = peakVelocity;
+            } else {
+                velocity[i] = Math.max(0.0, peakVelocity - maxAcceleration * (t - accelTime - cruiseTime));
+            }
+        }
+        velocity[size - 1] = 0.0;
+        return velocity;
+    }
+
+    /**
+     * @return The moving average of the samples over a window, extended so the output also ends at zero
+     */
+    private static double[] movingAverage(double[] samples, int window) {
+        final double[] result = new double[samples.length + window - 1];
+        double sum = 0.0;
+        for (int i = 0; i < result.length; i++) {
+            if (i < samples.length) {
+                sum += samples[i];
+            }
+            if (i >= window) {
+                sum -= samples[i - window];
+            }
+            result[i] = sum / window;
+        }
+        return result;
+    }
+
+    /**
+     * A cache key.
+     */
+    private static final class Key {
+
+        private final double distance;
+        private final MotionConstraints constraints;
+
+        private Key(double distance, MotionConstraints constraints) {
+            this.distance = distance;
+            this.constraints = constraints;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            final Key key = (Key) o;
+            return Double.compare(key.distance, distance) == 0 && constraints.equals(key.constraints);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Double.hashCode(distance) + constraints.hashCode();
+        }
+    }
+}
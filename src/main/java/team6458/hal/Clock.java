@@ -0,0 +1,15 @@
+package team6458.hal;
+
+/**
+ * A source of time. On the robot this is the FPGA clock, in simulation it is a virtual clock that only advances
+ * when the simulation steps, so timeouts work the same way at any simulation speed.
+ */
+@FunctionalInterface
+public interface Clock {
+
+    /**
+     * @return The current time in seconds
+     */
+    double getTimestamp();
+
+}
@@ -0,0 +1,38 @@
+package team6458.hal;
+
+import edu.wpi.first.wpilibj.drive.DifferentialDrive;
+
+/**
+ * A {@link DriveOutput} backed by a WPILib {@link DifferentialDrive}, which also provides motor safety.
+ */
+public final class DifferentialDriveOutput implements DriveOutput {
+
+    /**
+     * The underlying drive.
+     */
+    public final DifferentialDrive drive;
+
+    public DifferentialDriveOutput(DifferentialDrive drive) {
+        this.drive = drive;
+    }
+
+    @Override
+    public void arcadeDrive(double xSpeed, double zRotation, boolean squaredInputs) {
+        drive.arcadeDrive(xSpeed, zRotation, squaredInputs);
+    }
+
+    @Override
+    public void curvatureDrive(double xSpeed, double zRotation, boolean isQuickTurn) {
+        drive.curvatureDrive(xSpeed, zRotation, isQuickTurn);
+    }
+
+    @Override
+    public void tankDrive(double leftSpeed, double rightSpeed, boolean squaredInputs) {
+        drive.tankDrive(leftSpeed, rightSpeed, squaredInputs);
+    }
+
+    @Override
+    public void stopMotor() {
+        drive.stopMotor();
+    }
+}
@@ -0,0 +1,28 @@
+package team6458.hal;
+
+/**
+ * An encoder that measures linear distance, such as a wheel encoder on the drivetrain.
+ */
+public interface DistanceEncoder {
+
+    /**
+     * @return The distance travelled since the last reset in metres
+     */
+    double getDistance();
+
+    /**
+     * @return The current rate in m/s
+     */
+    double getRate();
+
+    /**
+     * @return True if the encoder is considered stopped
+     */
+    boolean getStopped();
+
+    /**
+     * Resets the distance to zero.
+     */
+    void reset();
+
+}
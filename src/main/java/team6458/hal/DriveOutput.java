@@ -0,0 +1,41 @@
+package team6458.hal;
+
+/**
+ * The output side of a differential drivetrain. The methods mirror those of
+ * {@link edu.wpi.first.wpilibj.drive.DifferentialDrive}, which is what is used on the robot.
+ */
+public interface DriveOutput {
+
+    /**
+     * Arcade drive.
+     *
+     * @param xSpeed        The forward speed between -1.0 and 1.0, forward is positive
+     * @param zRotation     The rotation rate between -1.0 and 1.0, clockwise is positive
+     * @param squaredInputs True to square the inputs for finer control at low speeds
+     */
+    void arcadeDrive(double xSpeed, double zRotation, boolean squaredInputs);
+
+    /**
+     * Curvature drive.
+     *
+     * @param xSpeed      The forward speed between -1.0 and 1.0, forward is positive
+     * @param zRotation   The curvature between -1.0 and 1.0, clockwise is positive
+     * @param isQuickTurn True to turn in place, using {@code zRotation} as a rotation rate
+     */
+    void curvatureDrive(double xSpeed, double zRotation, boolean isQuickTurn);
+
+    /**
+     * Tank drive.
+     *
+     * @param leftSpeed     The left side speed between -1.0 and 1.0, forward is positive
+     * @param rightSpeed    The right side speed between -1.0 and 1.0, forward is positive
+     * @param squaredInputs True to square the inputs for finer control at low speeds
+     */
+    void tankDrive(double leftSpeed, double rightSpeed, boolean squaredInputs);
+
+    /**
+     * Stops all drive motors.
+     */
+    void stopMotor();
+
+}
@@ -0,0 +1,45 @@
+package team6458.hal;
+
+/**
+ * The driver's controller, read once per loop by {@link team6458.control.DriverInputSampler}. The axes are already
+ * oriented for driving, and the buttons are grouped by what they do, so implementations can be swapped without the
+ * HAL, such as a simulated or recorded controller.
+ */
+public interface DriverController {
+
+    /**
+     * @return The drive (left) stick X axis, positive is clockwise
+     */
+    double getCurve();
+
+    /**
+     * @return The drive (left) stick Y axis, positive is forward
+     */
+    double getThrottle();
+
+    /**
+     * @return The right stick Y axis, positive is forward
+     */
+    double getRightThrottle();
+
+    /**
+     * @return The left trigger axis, between 0.0 and 1.0
+     */
+    double getLeftTrigger();
+
+    /**
+     * @return The right trigger axis, between 0.0 and 1.0
+     */
+    double getRightTrigger();
+
+    /**
+     * @return True if a run button is held
+     */
+    boolean isRunHeld();
+
+    /**
+     * @return True if a heading lock button is held
+     */
+    boolean isHeadingLockHeld();
+
+}
@@ -0,0 +1,91 @@
+package team6458.hal;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link DriveOutput} that passes everything through to another one, and once armed logs how long it took until
+ * the first non-zero output was sent. Used to measure the time from the start of autonomous to the robot moving.
+ * <p>
+ * Outputs may come from the main loop or the {@link team6458.control.HeadingControlLoop}, so arming and the
+ * outputs are thread-safe. Only the first output after arming logs, so this does not allocate otherwise.
+ */
+public final class FirstOutputTimer implements DriveOutput {
+
+    private static final Logger LOGGER = Logger.getLogger(FirstOutputTimer.class.getName());
+
+    private final DriveOutput output;
+    private final Clock clock;
+
+    private volatile boolean armed = false;
+    private double armedTime;
+    private String event = "";
+
+    /**
+     * Constructor.
+     *
+     * @param output The non-null output to pass through to
+     * @param clock  The non-null clock to time with
+     */
+    public FirstOutputTimer(DriveOutput output, Clock clock) {
+        this.output = output;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts timing. The next non-zero output logs the time since this call.
+     *
+     * @param event The non-null name of what is being timed from, for the log
+     */
+    public synchronized void arm(String event) {
+        this.event = event;
+        this.armedTime = clock.getTimestamp();
+        this.armed = true;
+    }
+
+    /**
+     * Stops timing without logging.
+     */
+    public void disarm() {
+        armed = false;
+    }
+
+    @Override
+    public void arcadeDrive(double xSpeed, double zRotation, boolean squaredInputs) {
+        output.arcadeDrive(xSpeed, zRotation, squaredInputs);
+        check(xSpeed, zRotation);
+    }
+
+    @Override
+    public void curvatureDrive(double xSpeed, double zRotation, boolean isQuickTurn) {
+        output.curvatureDrive(xSpeed, zRotation, isQuickTurn);
+        check(xSpeed, zRotation);
+    }
+
+    @Override
+    public void tankDrive(double leftSpeed, double rightSpeed, boolean squaredInputs) {
+        output.tankDrive(leftSpeed, rightSpeed, squaredInputs);
+        check(leftSpeed, rightSpeed);
+    }
+
+    @Override
+    public void stopMotor() {
+        output.stopMotor();
+    }
+
+    private void check(double a, double b) {
+        // Plain volatile read in the common case, only synchronize once there is something to log
+        if (armed && (a != 0.0 || b != 0.0)) {
+            fire();
+        }
+    }
+
+    private synchronized void fire() {
+        if (!armed) {
+            return;
+        }
+        armed = false;
+        LOGGER.log(Level.INFO, String.format("First drive output %.1f ms after %s",
+                (clock.getTimestamp() - armedTime) * 1000.0, event));
+    }
+}
@@ -0,0 +1,53 @@
+package team6458.hal;
+
+/**
+ * A distance sensor that is sampled and filtered in the background, such as
+ * {@link team6458.sensor.AnalogRangefinder}. Reading it is cheap and never waits on the sampling thread.
+ */
+@FunctionalInterface
+public interface RangeSensor {
+
+    /**
+     * A filtered distance and the time it was sampled. Instances are reused, so a reader must not keep one past its
+     * next {@link #read()}.
+     */
+    final class Reading {
+
+        private double distance = Double.NaN;
+        private double timestamp = 0.0;
+
+        /**
+         * @return The filtered distance in metres, or NaN if there is no reading yet
+         */
+        public double getDistance() {
+            return distance;
+        }
+
+        /**
+         * @return The time in seconds of the last sample in the distance, on the robot clock
+         */
+        public double getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Only for implementations of {@link RangeSensor}.
+         *
+         * @param distance  The filtered distance in metres
+         * @param timestamp The time in seconds of the last sample
+         */
+        public void set(double distance, double timestamp) {
+            this.distance = distance;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Reads the newest filtered distance. This must not wait or allocate, and must only be called from a single
+     * thread, normally the main loop.
+     *
+     * @return The newest reading, which is only valid until the next call
+     */
+    Reading read();
+
+}
@@ -0,0 +1,118 @@
+package team6458.hal;
+
+import edu.wpi.first.wpilibj.ADXRS450_Gyro;
+import edu.wpi.first.wpilibj.BuiltInAccelerometer;
+import edu.wpi.first.wpilibj.DigitalSource;
+import edu.wpi.first.wpilibj.DigitalInput;
+import edu.wpi.first.wpilibj.Encoder;
+import edu.wpi.first.wpilibj.PowerDistributionPanel;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.SpeedController;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.drive.DifferentialDrive;
+import edu.wpi.first.wpilibj.interfaces.Accelerometer;
+import edu.wpi.first.wpilibj.interfaces.Gyro;
+import team6458.sensor.AnalogRangefinder;
+import team6458.sensor.EncoderPresets;
+import team6458.util.Allocator;
+import team6458.util.Ports;
+
+import java.util.function.BooleanSupplier;
+
+import static team6458.sensor.EncoderPresets.CIMCODER;
+import static team6458.util.Ports.DIO.LEFT_ENCODER_CHANNEL_A;
+import static team6458.util.Ports.DIO.LEFT_ENCODER_CHANNEL_B;
+import static team6458.util.Ports.DIO.RIGHT_ENCODER_CHANNEL_A;
+import static team6458.util.Ports.DIO.RIGHT_ENCODER_CHANNEL_B;
+
+/**
+ * The real hardware on the roboRIO. Devices are created through the {@link Allocator} where possible.
+ */
+public final class RoboRioHardware implements RobotHardware {
+
+    private final Clock clock = Timer::getFPGATimestamp;
+    private final PowerDistributionPanel pdp = new PowerDistributionPanel();
+
+    @Override
+    public DriveOutput getDrive() {
+        return new DifferentialDriveOutput(new DifferentialDrive(Allocator.spark(Ports.PWM.LEFT_MOTOR),
+                Allocator.spark(Ports.PWM.RIGHT_MOTOR)));
+    }
+
+    @Override
+    public DistanceEncoder getLeftEncoder() {
+        return new WPIEncoder(createEncoder(CIMCODER, Allocator.digitalInput(LEFT_ENCODER_CHANNEL_A),
+                Allocator.digitalInput(LEFT_ENCODER_CHANNEL_B), true));
+    }
+
+    @Override
+    public DistanceEncoder getRightEncoder() {
+        return new WPIEncoder(createEncoder(CIMCODER, Allocator.digitalInput(RIGHT_ENCODER_CHANNEL_A),
+                Allocator.digitalInput(RIGHT_ENCODER_CHANNEL_B), false));
+    }
+
+    @Override
+    public Gyro getGyro() {
+        // The constructor calibrates for around 5 seconds, blocking the thread. See CalibratingGyro
+        return new ADXRS450_Gyro();
+    }
+
+    @Override
+    public Accelerometer getAccelerometer() {
+        return new BuiltInAccelerometer();
+    }
+
+    @Override
+    public SpeedController getMotor(int pwmPort) {
+        return Allocator.spark(pwmPort);
+    }
+
+    @Override
+    public RangeSensor getRangefinder() {
+        final AnalogRangefinder rangefinder = new AnalogRangefinder(Allocator.analogInput(Ports.Analog.RANGEFINDER),
+                AnalogRangefinder.DEFAULT_SCALING_FACTOR * 2.75);
+        rangefinder.startSampling(clock);
+        return rangefinder;
+    }
+
+    @Override
+    public BooleanSupplier getCubeBeamBreak() {
+        final DigitalInput receiver = Allocator.digitalInput(Ports.DIO.CUBE_BEAM_BREAK);
+        // The receiver reads high while it sees the beam
+        return () -> !receiver.get();
+    }
+
+    @Override
+    public double getCurrent(int pdpChannel) {
+        return pdp.getCurrent(pdpChannel);
+    }
+
+    @Override
+    public Clock getClock() {
+        return clock;
+    }
+
+    @Override
+    public double getBatteryVoltage() {
+        return RobotController.getBatteryVoltage();
+    }
+
+    @Override
+    public double getTotalCurrent() {
+        // The PDP reads zero when it is not on the CAN bus, and the roboRIO alone always draws some current
+        final double current = pdp.getTotalCurrent();
+        return current > 0.0 ? current : Double.NaN;
+    }
+
+    private static Encoder createEncoder(EncoderPresets preset, DigitalSource channelA, DigitalSource channelB,
+                                         boolean reverse) {
+        final Encoder e = new Encoder(channelA, channelB, reverse, preset.encodingType);
+
+        e.setDistancePerPulse(preset.distanceMPerPulse);
+        e.setSamplesToAverage(7);
+        e.setMaxPeriod(0.1); // 0.1 seconds
+        e.setMinRate(0.01); // 1 cm/s
+
+        return e;
+    }
+}
@@ -0,0 +1,86 @@
+package team6458.hal;
+
+import edu.wpi.first.wpilibj.SpeedController;
+import edu.wpi.first.wpilibj.interfaces.Accelerometer;
+import edu.wpi.first.wpilibj.interfaces.Gyro;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Creates the hardware used by the subsystems. {@link RoboRioHardware} creates the real devices,
+ * {@code team6458.sim.SimHardware} in the desktop tools creates simulated ones backed by a physics model.
+ * <p>
+ * Motors use WPILib's {@link SpeedController} interface, and the gyroscope and accelerometer use WPILib's
+ * {@link Gyro} and {@link Accelerometer} interfaces, since none of those depend on the HAL. Each device should only be
+ * requested once, by the subsystem that owns it.
+ */
+public interface RobotHardware {
+
+    /**
+     * @return The drivetrain output
+     */
+    DriveOutput getDrive();
+
+    /**
+     * @return The left drivetrain encoder, positive is forward
+     */
+    DistanceEncoder getLeftEncoder();
+
+    /**
+     * @return The right drivetrain encoder, positive is forward
+     */
+    DistanceEncoder getRightEncoder();
+
+    /**
+     * This may block while the gyroscope calibrates, see {@link team6458.sensor.CalibratingGyro}.
+     *
+     * @return The gyroscope, positive is clockwise
+     */
+    Gyro getGyro();
+
+    /**
+     * @return The accelerometer
+     */
+    Accelerometer getAccelerometer();
+
+    /**
+     * The drive motor ports give the same controllers that {@link #getDrive()} outputs to, so their outputs can be
+     * read back.
+     *
+     * @param pwmPort The PWM port from {@link team6458.util.Ports.PWM}
+     * @return The motor controller on that port
+     */
+    SpeedController getMotor(int pwmPort);
+
+    /**
+     * @return The rangefinder at the front of the ramp, already sampling
+     */
+    RangeSensor getRangefinder();
+
+    /**
+     * @return The beam-break across the ramp, true while a cube breaks the beam
+     */
+    BooleanSupplier getCubeBeamBreak();
+
+    /**
+     * @param pdpChannel The channel from {@link team6458.util.Ports.PDP}
+     * @return The current drawn on that channel of the Power Distribution Panel in amps
+     */
+    double getCurrent(int pdpChannel);
+
+    /**
+     * @return The clock
+     */
+    Clock getClock();
+
+    /**
+     * @return The current battery voltage in volts
+     */
+    double getBatteryVoltage();
+
+    /**
+     * @return The total current drawn from the battery in amps, or NaN if it cannot be measured
+     */
+    double getTotalCurrent();
+
+}
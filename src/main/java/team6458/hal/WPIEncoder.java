@@ -0,0 +1,38 @@
+package team6458.hal;
+
+import edu.wpi.first.wpilibj.Encoder;
+
+/**
+ * A {@link DistanceEncoder} backed by a WPILib {@link Encoder}.
+ */
+public final class WPIEncoder implements DistanceEncoder {
+
+    /**
+     * The underlying encoder.
+     */
+    public final Encoder encoder;
+
+    public WPIEncoder(Encoder encoder) {
+        this.encoder = encoder;
+    }
+
+    @Override
+    public double getDistance() {
+        return encoder.getDistance();
+    }
+
+    @Override
+    public double getRate() {
+        return encoder.getRate();
+    }
+
+    @Override
+    public boolean getStopped() {
+        return encoder.getStopped();
+    }
+
+    @Override
+    public void reset() {
+        encoder.reset();
+    }
+}
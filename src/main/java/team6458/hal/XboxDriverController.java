@@ -0,0 +1,62 @@
+package team6458.hal;
+
+import edu.wpi.first.wpilibj.GenericHID.Hand;
+import edu.wpi.first.wpilibj.XboxController;
+
+/**
+ * An Xbox controller on the driver station.
+ * <ul>
+ * <li>LS - Drive</li>
+ * <li>Hold A/B - Run</li>
+ * <li>Hold X/Y - Lock heading</li>
+ * <li>RT - Intake/launch cube (towards back)</li>
+ * <li>LT - Reverse cube (towards front)</li>
+ * </ul>
+ */
+public final class XboxDriverController implements DriverController {
+
+    private final XboxController controller;
+
+    /**
+     * @param port The driver station port of the controller
+     */
+    public XboxDriverController(int port) {
+        this.controller = new XboxController(port);
+    }
+
+    @Override
+    public double getCurve() {
+        return controller.getX(Hand.kLeft);
+    }
+
+    @Override
+    public double getThrottle() {
+        // The Y axes are positive towards the driver
+        return -controller.getY(Hand.kLeft);
+    }
+
+    @Override
+    public double getRightThrottle() {
+        return -controller.getY(Hand.kRight);
+    }
+
+    @Override
+    public double getLeftTrigger() {
+        return controller.getTriggerAxis(Hand.kLeft);
+    }
+
+    @Override
+    public double getRightTrigger() {
+        return controller.getTriggerAxis(Hand.kRight);
+    }
+
+    @Override
+    public boolean isRunHeld() {
+        return controller.getBButton() || controller.getAButton();
+    }
+
+    @Override
+    public boolean isHeadingLockHeld() {
+        return controller.getXButton() || controller.getYButton();
+    }
+}
@@ -1,20 +1,64 @@
 package team6458.sensor;
 
+import edu.wpi.first.wpilibj.AccumulatorResult;
 import edu.wpi.first.wpilibj.AnalogInput;
+import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.Sendable;
 import edu.wpi.first.wpilibj.smartdashboard.SendableBuilder;
+import team6458.hal.Clock;
+import team6458.hal.RangeSensor;
+import team6458.util.TripleBuffer;
 
 /**
  * A class ported over from 2017.
  * <p>
  * Using an {@link edu.wpi.first.wpilibj.AnalogInput}, this class outputs distance based on an ultrasonic rangefinder
  * such as the <a href=https://www.maxbotix.com/Ultrasonic_Sensors/MB1010.htm>MB1010 LV-MaxSonar-EZ1</a>.
+ * <p>
+ * {@link #getDistance(Units)} reads the input directly. For a distance that is usable while moving, start the
+ * sampling mode with {@link #startSampling(Clock)}: the FPGA oversamples the input, and a {@link Notifier} takes the
+ * mean voltage over each period from the accumulator, then filters it with a {@link MedianExpFilter}. The filtered
+ * distance is published for {@link #read()} without locking.
  */
-public class AnalogRangefinder implements Sendable {
+public class AnalogRangefinder implements Sendable, RangeSensor {
 
     public static final double DEFAULT_SCALING_FACTOR = 5.0 / 512.0;
+    /**
+     * The number of bits of oversampling in sampling mode: each value is the sum of 16 raw samples.
+     */
+    public static final int OVERSAMPLE_BITS = 4;
+    /**
+     * The number of bits of averaging in sampling mode, for {@link AnalogInput#getAverageVoltage()} on inputs
+     * without an accumulator.
+     */
+    public static final int AVERAGE_BITS = 2;
+    /**
+     * The default sampling period in seconds. The MB1010 updates every 50 ms, so this is two samples per reading.
+     */
+    public static final double DEFAULT_SAMPLE_PERIOD = 0.025;
+    /**
+     * The default median window in samples, which spans 2.5 of the MB1010's readings, so a single bad reading is
+     * rejected.
+     */
+    public static final int DEFAULT_MEDIAN_WINDOW = 5;
+    /**
+     * The default weight of a new median in the moving average.
+     */
+    public static final double DEFAULT_SMOOTHING = 0.5;
+    private static final double METRES_PER_INCH = 0.0254;
     private final AnalogInput analog;
     private final double scalingFactorVoltsPerInch;
+    // Sampling mode, only used by the notifier thread once started
+    private final TripleBuffer<Reading> readings = new TripleBuffer<>(Reading::new);
+    private final AccumulatorResult accumulator = new AccumulatorResult();
+    private Notifier notifier;
+    private MedianExpFilter filter;
+    private Clock clock;
+    private boolean useAccumulator;
+    private long lastValue;
+    private long lastCount;
+    private double voltsPerLSB;
+    private double offsetVolts;
 
     /**
      * Create a rangefinder instance with the {@link #DEFAULT_SCALING_FACTOR}.
@@ -48,6 +92,94 @@ public class AnalogRangefinder implements Sendable {
         return getDistance(units) + " " + units.unitName;
     }
 
+    /**
+     * Starts the sampling mode with the defaults.
+     *
+     * @param clock The non-null clock to timestamp samples with
+     * @see #startSampling(Clock, double, MedianExpFilter)
+     */
+    public void startSampling(Clock clock) {
+        startSampling(clock, DEFAULT_SAMPLE_PERIOD, new MedianExpFilter(DEFAULT_MEDIAN_WINDOW, DEFAULT_SMOOTHING));
+    }
+
+    /**
+     * Configures oversampling and the accumulator (if this input has one), and starts filtering at a fixed rate on
+     * a {@link Notifier} thread. Inputs without an accumulator use the averaged voltage instead.
+     *
+     * @param clock  The non-null clock to timestamp samples with
+     * @param period The positive sampling period in seconds
+     * @param filter The non-null filter, which must only be used by this rangefinder
+     * @throws IllegalStateException if sampling was already started
+     */
+    public synchronized void startSampling(Clock clock, double period, MedianExpFilter filter) {
+        if (notifier != null) {
+            throw new IllegalStateException("Rangefinder sampling was already started");
+        }
+        this.clock = clock;
+        this.filter = filter;
+
+        analog.setOversampleBits(OVERSAMPLE_BITS);
+        analog.setAverageBits(AVERAGE_BITS);
+        // Calibration constants, so they are not read over JNI on every sample
+        voltsPerLSB = analog.getLSBWeight() * 1.0e-9;
+        offsetVolts = analog.getOffset() * 1.0e-9;
+        useAccumulator = analog.isAccumulatorChannel();
+        if (useAccumulator) {
+            analog.initAccumulator();
+            analog.getAccumulatorOutput(accumulator);
+            lastValue = accumulator.value;
+            lastCount = accumulator.count;
+        }
+
+        notifier = new Notifier(this::sample);
+        notifier.startPeriodic(period);
+    }
+
+    /**
+     * Stops the sampling mode. The last reading stays published.
+     */
+    public synchronized void stopSampling() {
+        if (notifier != null) {
+            notifier.stop();
+        }
+    }
+
+    /**
+     * Reads the newest filtered distance from the sampling mode. This never waits on the sampling thread and does
+     * not allocate. It must only be called from a single thread, normally the main loop.
+     *
+     * @return The newest reading, which has a NaN distance until sampling has started
+     */
+    @Override
+    public Reading read() {
+        return readings.read();
+    }
+
+    /**
+     * A single sample, called by the {@link Notifier}.
+     */
+    private synchronized void sample() {
+        final double voltage;
+        if (useAccumulator) {
+            // Each accumulated value is oversampled, so it is the sum of 2^OVERSAMPLE_BITS raw samples
+            analog.getAccumulatorOutput(accumulator);
+            final long count = accumulator.count - lastCount;
+            final long value = accumulator.value - lastValue;
+            if (count <= 0L) {
+                return;
+            }
+            lastCount = accumulator.count;
+            lastValue = accumulator.value;
+            voltage = (double) value / count / (1 << OVERSAMPLE_BITS) * voltsPerLSB - offsetVolts;
+        } else {
+            voltage = analog.getAverageVoltage();
+        }
+
+        final Reading reading = readings.getWriteBuffer();
+        reading.set(filter.update(voltage / scalingFactorVoltsPerInch * METRES_PER_INCH), clock.getTimestamp());
+        readings.publish();
+    }
+
     @Override
     public String getName() {
         return "AnalogRangefinder";
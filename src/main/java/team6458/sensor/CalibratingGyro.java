@@ -0,0 +1,159 @@
+package team6458.sensor;
+
+import edu.wpi.first.wpilibj.interfaces.Gyro;
+
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link Gyro} that is created and calibrated on a background thread, so that neither startup nor recalibration
+ * blocks the main robot loop.
+ * <p>
+ * The ADXRS450 calibrates in its constructor and in {@link Gyro#calibrate()}, sampling for around 5 seconds. While
+ * that happens this gyroscope is {@link State#CALIBRATING}: the angle is held at the last value read and the rate
+ * is zero. Commands that need a heading should wait until {@link #isReady()}. Once calibrated, the angle is zero.
+ * <p>
+ * All methods are thread-safe.
+ */
+public final class CalibratingGyro implements Gyro {
+
+    private static final Logger LOGGER = Logger.getLogger(CalibratingGyro.class.getName());
+
+    /**
+     * The calibration state.
+     */
+    public enum State {
+        /**
+         * The gyroscope is being created or calibrated, and its values should not be used.
+         */
+        CALIBRATING,
+        /**
+         * The gyroscope is calibrated and its values are valid.
+         */
+        READY,
+        /**
+         * The gyroscope could not be created. The angle and rate are always zero.
+         */
+        FAILED
+    }
+
+    /**
+     * Stands in for the gyroscope until it is created, or if it could not be.
+     */
+    private static final Gyro NO_GYRO = new Gyro() {
+        @Override
+        public void calibrate() {
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public double getAngle() {
+            return 0.0;
+        }
+
+        @Override
+        public double getRate() {
+            return 0.0;
+        }
+
+        @Override
+        public void free() {
+        }
+    };
+
+    private volatile Gyro gyro = NO_GYRO;
+    private volatile State state = State.CALIBRATING;
+    private volatile double heldAngle = 0.0;
+
+    /**
+     * Constructor. Starts creating the gyroscope in the background and returns immediately.
+     *
+     * @param factory The non-null factory, which may block while the gyroscope calibrates. It is called once on a
+     *                background thread
+     */
+    public CalibratingGyro(Supplier<Gyro> factory) {
+        startThread("Gyro creation", () -> {
+            gyro = factory.get();
+            gyro.reset();
+        });
+    }
+
+    /**
+     * @return The current calibration state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return True if the gyroscope is calibrated and its values are valid
+     */
+    public boolean isReady() {
+        return state == State.READY;
+    }
+
+    /**
+     * Starts recalibrating in the background, and returns immediately. The robot must not move until
+     * {@link #isReady()}. Has no effect if the gyroscope is already calibrating or could not be created.
+     */
+    @Override
+    public synchronized void calibrate() {
+        if (state != State.READY) {
+            LOGGER.log(Level.WARNING, "Not calibrating gyroscope, it is " + state);
+            return;
+        }
+        heldAngle = gyro.getAngle();
+        state = State.CALIBRATING;
+        startThread("Gyro calibration", () -> {
+            gyro.calibrate();
+            gyro.reset();
+        });
+    }
+
+    @Override
+    public void reset() {
+        if (state == State.READY) {
+            gyro.reset();
+        }
+        heldAngle = 0.0;
+    }
+
+    @Override
+    public double getAngle() {
+        return state == State.READY ? gyro.getAngle() : heldAngle;
+    }
+
+    @Override
+    public double getRate() {
+        return state == State.READY ? gyro.getRate() : 0.0;
+    }
+
+    @Override
+    public void free() {
+        gyro.free();
+    }
+
+    private void startThread(String name, Runnable calibration) {
+        final Thread thread = new Thread(() -> {
+            final long start = System.nanoTime();
+            LOGGER.log(Level.INFO, name + " started");
+            try {
+                calibration.run();
+                heldAngle = 0.0;
+                state = State.READY;
+                LOGGER.log(Level.INFO, String.format("%s finished in %.2f s", name,
+                        (System.nanoTime() - start) / 1.0e9));
+            } catch (RuntimeException e) {
+                gyro = NO_GYRO;
+                state = State.FAILED;
+                LOGGER.log(Level.SEVERE, name + " failed, heading will not be available", e);
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,203 @@
+package team6458.sensor;
+
+import team6458.subsystem.SensorFrame;
+
+/**
+ * Decides when a power cube has left the ramp, so a delivery can end as soon as it is done instead of running the
+ * ramp for a fixed time.
+ * <p>
+ * Each loop, the chosen {@link Method} reads the {@link SensorFrame} as the cube being present, gone, or unknown
+ * (between the thresholds, or a missing or stale reading). The cube is delivered once it was seen present and then
+ * gone for {@link #CLEAR_TIME}. If it is never seen, for example because the sensor is unplugged, it is never
+ * delivered, and the caller's timeout ends the delivery as before. Nothing is allocated after construction.
+ * <p>
+ * This class is <b>not</b> thread-safe, and should only be used from the main robot thread.
+ */
+public final class CubeDeliveryDetector {
+
+    /**
+     * The sensor that is used.
+     */
+    public enum Method {
+        /**
+         * The beam-break across the ramp, on {@link team6458.util.Ports.DIO#CUBE_BEAM_BREAK}. Present while broken.
+         */
+        BEAM_BREAK,
+        /**
+         * The rangefinder, if it is pointed across the ramp. Present when closer than {@link #PRESENT_DISTANCE}, gone
+         * when further than {@link #GONE_DISTANCE}. The robot's rangefinder faces forward from the front of the ramp
+         * (see {@link team6458.util.Ports.Analog#RANGEFINDER}), where the switch fence reads as present and never as
+         * gone, so this only works once it is remounted.
+         */
+        RANGEFINDER,
+        /**
+         * The ramp motors' current. Pushing a cube draws more than {@link #LOADED_CURRENT}, and the current drops
+         * below {@link #FREE_CURRENT} once the motors spin freely. The spike while the motors start is ignored for
+         * {@link #SPIN_UP_TIME}.
+         */
+        CURRENT
+    }
+
+    /**
+     * The method used by autonomous deliveries. The beam-break is the only sensor that sees the cube itself, and
+     * if it is missing the cube is never seen, so deliveries fall back to their timeout.
+     */
+    public static final Method DEFAULT_METHOD = Method.BEAM_BREAK;
+    /**
+     * The time in seconds the cube must be gone for before it is delivered, so a bounce is not a delivery.
+     */
+    public static final double CLEAR_TIME = 0.15;
+    /**
+     * The rangefinder distance in metres below which the cube is in the ramp.
+     */
+    public static final double PRESENT_DISTANCE = 0.3;
+    /**
+     * The rangefinder distance in metres above which the cube has left the ramp.
+     */
+    public static final double GONE_DISTANCE = 0.5;
+    /**
+     * The age in seconds after which a rangefinder reading is not used.
+     */
+    public static final double MAX_RANGE_AGE = 0.2;
+    /**
+     * The total ramp current in amps above which the motors are pushing a cube.
+     */
+    public static final double LOADED_CURRENT = 20.0;
+    /**
+     * The total ramp current in amps below which the motors spin freely.
+     */
+    public static final double FREE_CURRENT = 10.0;
+    /**
+     * The time in seconds after starting during which the current is not used, since the motors draw a spike while
+     * they spin up with or without a cube.
+     */
+    public static final double SPIN_UP_TIME = 0.25;
+
+    private enum Presence {
+        PRESENT, GONE, UNKNOWN
+    }
+
+    private final Method method;
+    private double startTime = 0.0;
+    private boolean seen = false;
+    private double goneSince = Double.NaN;
+    private double deliveryTime = Double.NaN;
+
+    /**
+     * Constructor.
+     *
+     * @param method The non-null method
+     */
+    public CubeDeliveryDetector(Method method) {
+        this.method = method;
+    }
+
+    /**
+     * Starts watching for a delivery.
+     *
+     * @param now The current time in seconds
+     */
+    public void start(double now) {
+        startTime = now;
+        seen = false;
+        goneSince = Double.NaN;
+        deliveryTime = Double.NaN;
+    }
+
+    /**
+     * Updates from this loop's sensor values.
+     *
+     * @param frame The non-null frame of this loop
+     * @return True if the cube has been delivered
+     */
+    public boolean update(SensorFrame frame) {
+        return update(frame.getTimestamp(), frame.isCubeBeamBroken(), frame.getRangeDistance(),
+                frame.getRangeTimestamp(), frame.getRampCurrent());
+    }
+
+    /**
+     * Updates from raw sensor values, such as recorded ones. A NaN distance or current reads as unknown.
+     *
+     * @param now            The time of this loop in seconds
+     * @param beamBroken     True if the beam-break was broken
+     * @param rangeDistance  The rangefinder distance in metres
+     * @param rangeTimestamp The time of the rangefinder reading in seconds
+     * @param rampCurrent    The total ramp current in amps
+     * @return True if the cube has been delivered
+     */
+    public boolean update(double now, boolean beamBroken, double rangeDistance, double rangeTimestamp,
+                          double rampCurrent) {
+        if (isDelivered()) {
+            return true;
+        }
+        switch (classify(now, beamBroken, rangeDistance, rangeTimestamp, rampCurrent)) {
+            case PRESENT:
+                seen = true;
+                goneSince = Double.NaN;
+                break;
+            case GONE:
+                if (seen && Double.isNaN(goneSince)) {
+                    goneSince = now;
+                }
+                break;
+            default:
+                break;
+        }
+        if (!Double.isNaN(goneSince) && now - goneSince >= CLEAR_TIME) {
+            deliveryTime = now - startTime;
+        }
+        return isDelivered();
+    }
+
+    private Presence classify(double now, boolean beamBroken, double rangeDistance, double rangeTimestamp,
+                              double rampCurrent) {
+        switch (method) {
+            case BEAM_BREAK:
+                return beamBroken ? Presence.PRESENT : Presence.GONE;
+            case RANGEFINDER: {
+                if (Double.isNaN(rangeDistance) || now - rangeTimestamp > MAX_RANGE_AGE) {
+                    return Presence.UNKNOWN;
+                }
+                return rangeDistance < PRESENT_DISTANCE ? Presence.PRESENT :
+                        rangeDistance > GONE_DISTANCE ? Presence.GONE : Presence.UNKNOWN;
+            }
+            case CURRENT: {
+                if (now - startTime < SPIN_UP_TIME) {
+                    return Presence.UNKNOWN;
+                }
+                return rampCurrent > LOADED_CURRENT ? Presence.PRESENT :
+                        rampCurrent < FREE_CURRENT ? Presence.GONE : Presence.UNKNOWN;
+            }
+            default:
+                return Presence.UNKNOWN;
+        }
+    }
+
+    /**
+     * @return The method used
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @return True if the cube has been delivered since the last {@link #start(double)}
+     */
+    public boolean isDelivered() {
+        return !Double.isNaN(deliveryTime);
+    }
+
+    /**
+     * @return True if the cube was seen in the ramp since the last {@link #start(double)}
+     */
+    public boolean wasSeen() {
+        return seen;
+    }
+
+    /**
+     * @return The time in seconds from the start to the delivery, or NaN if it has not been delivered
+     */
+    public double getDeliveryTime() {
+        return deliveryTime;
+    }
+}
@@ -0,0 +1,78 @@
+package team6458.sensor;
+
+import java.util.Arrays;
+
+/**
+ * A median filter followed by an exponential moving average. The median over the last few samples rejects short
+ * spikes (such as an ultrasonic echo off the side of the field), and the moving average smooths what is left.
+ * <p>
+ * Nothing is allocated after construction. This class is <b>not</b> thread-safe.
+ */
+public final class MedianExpFilter {
+
+    private final double[] window;
+    private final double[] sorted;
+    private final double smoothing;
+    private int next = 0;
+    private int count = 0;
+    private double value = Double.NaN;
+
+    /**
+     * Constructor.
+     *
+     * @param windowSize The odd, positive number of samples to take the median of
+     * @param smoothing  The weight of a new median in the moving average, greater than 0.0 and up to 1.0 (no
+     *                   smoothing)
+     */
+    public MedianExpFilter(int windowSize, double smoothing) {
+        if (windowSize <= 0 || windowSize % 2 == 0) {
+            throw new IllegalArgumentException("Window size must be odd and positive, got " + windowSize);
+        }
+        if (smoothing <= 0.0 || smoothing > 1.0) {
+            throw new IllegalArgumentException("Smoothing must be greater than 0 and at most 1, got " + smoothing);
+        }
+        this.window = new double[windowSize];
+        this.sorted = new double[windowSize];
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * Adds a sample. NaN samples are ignored.
+     *
+     * @param sample The new sample
+     * @return The filtered value, see {@link #getValue()}
+     */
+    public double update(double sample) {
+        if (Double.isNaN(sample)) {
+            return value;
+        }
+        window[next] = sample;
+        next = (next + 1) % window.length;
+        count = Math.min(count + 1, window.length);
+
+        // Until the window is full, the median is of the samples so far
+        System.arraycopy(window, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        final double median = count % 2 == 1 ? sorted[count / 2] :
+                (sorted[count / 2 - 1] + sorted[count / 2]) / 2.0;
+
+        value = Double.isNaN(value) ? median : value + smoothing * (median - value);
+        return value;
+    }
+
+    /**
+     * @return The filtered value, or NaN before the first sample
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Forgets every sample.
+     */
+    public void reset() {
+        next = 0;
+        count = 0;
+        value = Double.NaN;
+    }
+}
@@ -0,0 +1,200 @@
+package team6458.sensor;
+
+import team6458.subsystem.SensorFrame;
+
+/**
+ * Estimates the robot's pose on the field by dead reckoning from the drivetrain encoders and the gyroscope.
+ * <p>
+ * Every loop the distance each side has rolled since the last update is integrated along the heading halfway
+ * through the loop, so arcs are followed closely. The heading comes from the gyroscope while it is calibrated and
+ * from the difference between the sides otherwise, and the pose stays continuous when either source is reset:
+ * encoder resets are detected through {@link SensorFrame#getEncoderResets()}, and the gyroscope's zero after
+ * calibration is offset to match. Commands can therefore read the pose across a whole autonomous routine without
+ * caring who reset what.
+ * <p>
+ * The pose is field-relative from the last {@link #reset(double, double, double)}: X is forward, Y is to the left,
+ * and the heading is in degrees with clockwise positive to match the ADXRS450 gyroscope. Reading the pose does not
+ * allocate. This class is <b>not</b> thread-safe, and should only be used from the main robot thread.
+ */
+public final class PoseEstimator {
+
+    /**
+     * The default effective track width in metres, used for the heading while the gyroscope is not calibrated. This
+     * is wider than the real wheelbase to account for scrub while turning.
+     */
+    public static final double DEFAULT_TRACK_WIDTH = 0.75;
+
+    private final double trackWidth;
+
+    private double x = 0.0;
+    private double y = 0.0;
+    private double heading = 0.0;
+    private double velocity = 0.0;
+    private double headingRate = 0.0;
+
+    private boolean hasLast = false;
+    private double lastLeft;
+    private double lastRight;
+    private int lastEncoderResets;
+    private boolean lastGyroReady;
+    /**
+     * Added to the gyroscope angle to get the heading.
+     */
+    private double gyroOffset = 0.0;
+
+    /**
+     * Constructor with the default track width.
+     */
+    public PoseEstimator() {
+        this(DEFAULT_TRACK_WIDTH);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param trackWidth The positive effective track width in metres
+     */
+    public PoseEstimator(double trackWidth) {
+        if (trackWidth <= 0.0) {
+            throw new IllegalArgumentException("Track width must be positive, got " + trackWidth);
+        }
+        this.trackWidth = trackWidth;
+    }
+
+    /**
+     * Sets the pose, such as the starting position at the beginning of autonomous. Takes effect from the next
+     * update.
+     *
+     * @param x       The X position in metres
+     * @param y       The Y position in metres
+     * @param heading The heading in degrees, positive is clockwise
+     */
+    public void reset(double x, double y, double heading) {
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+        // Re-zero the gyroscope offset on the next update
+        this.hasLast = false;
+    }
+
+    /**
+     * Updates the pose from a sensor frame. Call once per loop, after the frame is sampled.
+     *
+     * @param frame The non-null frame for this loop
+     */
+    public void update(SensorFrame frame) {
+        update(frame.getLeftDistance(), frame.getRightDistance(), frame.getLeftRate(), frame.getRightRate(),
+                frame.getEncoderResets(), frame.getGyroAngle(), frame.getGyroRate(), frame.isGyroReady());
+    }
+
+    /**
+     * Updates the pose from raw readings. Call once per loop.
+     *
+     * @param leftDistance  The left encoder distance in metres
+     * @param rightDistance The right encoder distance in metres
+     * @param leftRate      The left encoder rate in m/s
+     * @param rightRate     The right encoder rate in m/s
+     * @param encoderResets The number of times the encoders have been reset
+     * @param gyroAngle     The gyroscope angle in degrees, positive is clockwise
+     * @param gyroRate      The gyroscope rate in degrees per second, positive is clockwise
+     * @param gyroReady     True if the gyroscope is calibrated
+     */
+    public void update(double leftDistance, double rightDistance, double leftRate, double rightRate,
+                       int encoderResets, double gyroAngle, double gyroRate, boolean gyroReady) {
+        if (!hasLast) {
+            hasLast = true;
+            rebase(leftDistance, rightDistance, encoderResets, gyroAngle, gyroReady);
+        }
+        if (encoderResets != lastEncoderResets) {
+            // The encoders were reset since the last loop, so this loop's movement is lost
+            lastLeft = leftDistance;
+            lastRight = rightDistance;
+            lastEncoderResets = encoderResets;
+        }
+        if (gyroReady != lastGyroReady) {
+            // The gyroscope started or finished calibrating and jumped, keep the heading where it was
+            gyroOffset = heading - gyroAngle;
+            lastGyroReady = gyroReady;
+        }
+
+        final double deltaLeft = leftDistance - lastLeft;
+        final double deltaRight = rightDistance - lastRight;
+        lastLeft = leftDistance;
+        lastRight = rightDistance;
+
+        final double newHeading;
+        if (gyroReady) {
+            newHeading = gyroAngle + gyroOffset;
+            headingRate = gyroRate;
+        } else {
+            // A faster left side turns clockwise
+            newHeading = heading + Math.toDegrees((deltaLeft - deltaRight) / trackWidth);
+            headingRate = Math.toDegrees((leftRate - rightRate) / trackWidth);
+        }
+
+        final double distance = (deltaLeft + deltaRight) / 2.0;
+        final double midpoint = Math.toRadians((heading + newHeading) / 2.0);
+        x += distance * Math.cos(midpoint);
+        y -= distance * Math.sin(midpoint);
+        heading = newHeading;
+        velocity = (leftRate + rightRate) / 2.0;
+    }
+
+    private void rebase(double leftDistance, double rightDistance, int encoderResets, double gyroAngle,
+                        boolean gyroReady) {
+        lastLeft = leftDistance;
+        lastRight = rightDistance;
+        lastEncoderResets = encoderResets;
+        lastGyroReady = gyroReady;
+        gyroOffset = heading - gyroAngle;
+    }
+
+    /**
+     * @return The X position in metres, forward from where the pose was reset
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * @return The Y position in metres, left of where the pose was reset
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * @return The heading in degrees, positive is clockwise
+     */
+    public double getHeading() {
+        return heading;
+    }
+
+    /**
+     * @return The forward velocity in m/s
+     */
+    public double getVelocity() {
+        return velocity;
+    }
+
+    /**
+     * @return The X component of the velocity in m/s
+     */
+    public double getVelocityX() {
+        return velocity * Math.cos(Math.toRadians(heading));
+    }
+
+    /**
+     * @return The Y component of the velocity in m/s, positive is to the left
+     */
+    public double getVelocityY() {
+        return -velocity * Math.sin(Math.toRadians(heading));
+    }
+
+    /**
+     * @return The heading rate in degrees per second, positive is clockwise
+     */
+    public double getHeadingRate() {
+        return headingRate;
+    }
+}
@@ -1,16 +1,17 @@
 package team6458.subsystem;
 
-import edu.wpi.first.wpilibj.DigitalSource;
-import edu.wpi.first.wpilibj.Encoder;
-import edu.wpi.first.wpilibj.Spark;
-import edu.wpi.first.wpilibj.drive.DifferentialDrive;
+import edu.wpi.first.wpilibj.SpeedController;
 import team6458.SemiRobot;
-import team6458.sensor.EncoderPresets;
-import team6458.util.Allocator;
-import team6458.util.Ports;
+import team6458.control.LimitedDriveOutput;
+import team6458.control.VelocityDriveOutput;
+import team6458.hal.DistanceEncoder;
+import team6458.hal.DriveOutput;
+import team6458.hal.FirstOutputTimer;
+import team6458.hal.RobotHardware;
+import team6458.telemetry.DashboardPublisher.BooleanSetting;
+import team6458.util.Ports.PWM;
 
-import static team6458.sensor.EncoderPresets.CIMCODER;
-import static team6458.util.Ports.DIO.*;
+import static team6458.util.DashboardKeys.VELOCITY_CONTROL;
 
 /**
  * The drivetrain subsystem. This subsystem controls all vehicular aspects of the robot,
@@ -18,17 +19,47 @@ import static team6458.util.Ports.DIO.*;
  */
 public final class Drivetrain extends RobotSubsystem {
 
-    public final Encoder leftEncoder = createEncoder(CIMCODER,
-            Allocator.digitalInput(LEFT_ENCODER_CHANNEL_A), Allocator.digitalInput(LEFT_ENCODER_CHANNEL_B), true);
-    public final Encoder rightEncoder = createEncoder(CIMCODER,
-            Allocator.digitalInput(RIGHT_ENCODER_CHANNEL_A), Allocator.digitalInput(RIGHT_ENCODER_CHANNEL_B), false);
+    public final DistanceEncoder leftEncoder;
+    public final DistanceEncoder rightEncoder;
+    public final DriveOutput drive;
+    /**
+     * Times the first output after autonomous starts. Both {@link #drive} and {@link #velocityDrive} output through
+     * it, unlimited.
+     */
+    public final FirstOutputTimer firstOutputTimer;
+    /**
+     * Closes the loop on wheel speed, outputting through {@link #firstOutputTimer} since it applies the output limit
+     * itself. Its measurements are set in {@link #sample(SensorFrame)}.
+     */
+    public final VelocityDriveOutput velocityDrive;
+    /**
+     * The motor controllers that {@link #drive} outputs to. Only read their outputs, use {@link #drive} to move.
+     */
+    public final SpeedController leftMotor;
+    public final SpeedController rightMotor;
 
-    private final Spark leftMotor = Allocator.spark(Ports.PWM.LEFT_MOTOR);
-    private final Spark rightMotor = Allocator.spark(Ports.PWM.RIGHT_MOTOR);
-    public final DifferentialDrive drive = new DifferentialDrive(leftMotor, rightMotor);
+    private final LimitedDriveOutput limitedDrive;
+    private final BooleanSetting velocityControl;
+    private int encoderResets = 0;
 
-    public Drivetrain(SemiRobot robot) {
+    /**
+     * The main constructor.
+     *
+     * @param robot    The robot instance
+     * @param hardware The hardware to create the motors and encoders from
+     */
+    public Drivetrain(SemiRobot robot, RobotHardware hardware) {
         super(robot, "Drivetrain");
+
+        leftEncoder = hardware.getLeftEncoder();
+        rightEncoder = hardware.getRightEncoder();
+        firstOutputTimer = new FirstOutputTimer(hardware.getDrive(), hardware.getClock());
+        limitedDrive = new LimitedDriveOutput(firstOutputTimer);
+        drive = limitedDrive;
+        velocityDrive = new VelocityDriveOutput(firstOutputTimer);
+        velocityControl = robot.getDashboard().setting(VELOCITY_CONTROL, false);
+        leftMotor = hardware.getMotor(PWM.LEFT_MOTOR);
+        rightMotor = hardware.getMotor(PWM.RIGHT_MOTOR);
     }
 
     @Override
@@ -42,6 +73,50 @@ public final class Drivetrain extends RobotSubsystem {
 //        return Stream.of(leftEncoder, rightEncoder);
 //    }
 
+    /**
+     * Commands should get this once in their {@code initialize()}, so the mode does not change while they run.
+     *
+     * @return {@link #velocityDrive} if velocity control is enabled on the dashboard, otherwise {@link #drive}
+     */
+    public DriveOutput getOutput() {
+        return velocityControl.get() ? velocityDrive : drive;
+    }
+
+    /**
+     * @return True if velocity control is enabled on the dashboard
+     */
+    public boolean isVelocityControlled() {
+        return velocityControl.get();
+    }
+
+    /**
+     * Drives each side at a speed with {@link #velocityDrive}, regardless of the dashboard setting.
+     *
+     * @param leftSpeed  The left wheel speed in m/s, positive is forward
+     * @param rightSpeed The right wheel speed in m/s, positive is forward
+     */
+    public void setWheelSpeeds(double leftSpeed, double rightSpeed) {
+        velocityDrive.setWheelSpeeds(leftSpeed, rightSpeed);
+    }
+
+    /**
+     * Limits the drive outputs, see {@link team6458.control.BrownoutGovernor}. Takes effect from the next drive call.
+     * {@link #drive} and {@link #velocityDrive} each apply the limit once, on separate paths to the motors.
+     *
+     * @param outputLimit The multiplier applied to the outputs, between 0.0 and 1.0
+     */
+    public void setOutputLimit(double outputLimit) {
+        limitedDrive.setLimit(outputLimit);
+        velocityDrive.setMaxOutput(outputLimit);
+    }
+
+    /**
+     * @return The multiplier applied to the drive outputs, between 0.0 and 1.0
+     */
+    public double getOutputLimit() {
+        return limitedDrive.getLimit();
+    }
+
     /**
      * Resets all encoders to zero.
      */
@@ -49,6 +124,7 @@ public final class Drivetrain extends RobotSubsystem {
 //        streamEncoders().forEach(Encoder::reset);
         leftEncoder.reset();
         rightEncoder.reset();
+        encoderResets++;
     }
 
     /**
@@ -67,6 +143,19 @@ public final class Drivetrain extends RobotSubsystem {
         return (leftEncoder.getDistance() + rightEncoder.getDistance()) / 2.0;
     }
 
+    /**
+     * Fills the encoder values of a frame, and gives them to {@link #velocityDrive}. Call once per loop, after
+     * {@link Sensors#sample(SensorFrame)}.
+     *
+     * @param frame The non-null frame to fill
+     */
+    public void sample(SensorFrame frame) {
+        frame.setEncoders(leftEncoder.getDistance(), rightEncoder.getDistance(),
+                leftEncoder.getRate(), rightEncoder.getRate(), encoderResets);
+        velocityDrive.setMeasurements(frame.getTimestamp(), frame.getLeftRate(), frame.getRightRate(),
+                frame.getBatteryVoltage());
+    }
+
     /**
      * @return True if any encoders are stopped, false if all are still moving
      */
@@ -74,15 +163,4 @@ public final class Drivetrain extends RobotSubsystem {
 //        return streamEncoders().anyMatch(Encoder::getStopped);
         return leftEncoder.getStopped() || rightEncoder.getStopped();
     }
-
-    private Encoder createEncoder(EncoderPresets preset, DigitalSource channelA, DigitalSource channelB, boolean reverse) {
-        final Encoder e = new Encoder(channelA, channelB, reverse, preset.encodingType);
-
-        e.setDistancePerPulse(preset.distanceMPerPulse);
-        e.setSamplesToAverage(7);
-        e.setMaxPeriod(0.1); // 0.1 seconds
-        e.setMinRate(0.01); // 1 cm/s
-
-        return e;
-    }
 }
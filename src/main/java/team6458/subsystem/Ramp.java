@@ -1,11 +1,14 @@
 package team6458.subsystem;
 
-import edu.wpi.first.wpilibj.Spark;
+import edu.wpi.first.wpilibj.SpeedController;
 import team6458.SemiRobot;
-import team6458.util.Allocator;
+import team6458.control.RampOutput;
+import team6458.hal.RobotHardware;
+import team6458.util.Ports.PDP;
 import team6458.util.Ports.PWM;
-import team6458.util.Utils;
 
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Stream;
 
 /**
@@ -13,21 +16,49 @@ import java.util.stream.Stream;
  */
 public final class Ramp extends RobotSubsystem {
 
-    public final Spark intakeLeft = Allocator.spark(PWM.LEFT_INTAKE);
-    public final Spark intakeRight = Allocator.spark(PWM.RIGHT_INTAKE);
-    public final Spark rampLeft = Allocator.spark(PWM.LEFT_RAMP);
-    public final Spark rampRight = Allocator.spark(PWM.RIGHT_RAMP);
+    public final SpeedController intakeLeft;
+    public final SpeedController intakeRight;
+    public final SpeedController rampLeft;
+    public final SpeedController rampRight;
+    /**
+     * All motors, for iterating without allocating a stream every loop.
+     */
+    private final SpeedController[] motors;
+    private final RobotHardware hardware;
+    private final BooleanSupplier cubeBeamBreak;
+    private final RampOutput output;
 
     /**
      * The main constructor.
      *
-     * @param robot The robot instance
+     * @param robot    The robot instance
+     * @param hardware The hardware to create the motors from
      */
-    public Ramp(SemiRobot robot) {
+    public Ramp(SemiRobot robot, RobotHardware hardware) {
         super(robot, "Launcher");
 
+        intakeLeft = hardware.getMotor(PWM.LEFT_INTAKE);
+        intakeRight = hardware.getMotor(PWM.RIGHT_INTAKE);
+        rampLeft = hardware.getMotor(PWM.LEFT_RAMP);
+        rampRight = hardware.getMotor(PWM.RIGHT_RAMP);
+        motors = new SpeedController[]{intakeLeft, intakeRight, rampLeft, rampRight};
+        this.hardware = hardware;
+        cubeBeamBreak = hardware.getCubeBeamBreak();
+
         intakeRight.setInverted(true);
         rampLeft.setInverted(true);
+        output = new RampOutput(motors);
+    }
+
+    /**
+     * Fills the beam-break and ramp current values of a frame. Call once per loop, after
+     * {@link Sensors#sample(SensorFrame)}.
+     *
+     * @param frame The non-null frame to fill
+     */
+    public void sample(SensorFrame frame) {
+        frame.setRamp(cubeBeamBreak.getAsBoolean(),
+                hardware.getCurrent(PDP.LEFT_RAMP) + hardware.getCurrent(PDP.RIGHT_RAMP));
     }
 
     @Override
@@ -35,25 +66,39 @@ public final class Ramp extends RobotSubsystem {
 
     }
 
-    public Stream<Spark> stream() {
-        return Stream.of(intakeLeft, intakeRight, rampLeft, rampRight);
-//        return Stream.of(rampLeft, rampRight);
+    public Stream<SpeedController> stream() {
+        return Arrays.stream(motors);
     }
 
     /**
      * Stop all ramp motors.
      */
     public void stopMotors() {
-        stream().forEach(Spark::stopMotor);
+        output.stopMotors();
     }
 
     /**
-     * Set all ramp motors to this speed.
+     * Set all ramp motors to this speed, scaled by the output limit.
      *
      * @param speed The throttle between -1.0 and 1.0 (will be clamped)
      */
     public void setSpeed(double speed) {
-        final double clamped = Utils.clamp(speed, -1.0, 1.0);
-        stream().forEach(it -> it.set(clamped));
+        output.setSpeed(speed);
+    }
+
+    /**
+     * Limits the motor outputs, see {@link team6458.control.BrownoutGovernor}. A running ramp is changed right away.
+     *
+     * @param outputLimit The multiplier applied to the speed, between 0.0 and 1.0
+     */
+    public void setOutputLimit(double outputLimit) {
+        output.setOutputLimit(outputLimit);
+    }
+
+    /**
+     * @return The multiplier applied to the speed, between 0.0 and 1.0
+     */
+    public double getOutputLimit() {
+        return output.getOutputLimit();
     }
 }
@@ -0,0 +1,228 @@
+package team6458.subsystem;
+
+/**
+ * A snapshot of the robot's sensor readings, taken once at the start of every loop.
+ * <p>
+ * The frame is filled by {@link Sensors#sample(SensorFrame)}, {@link Drivetrain#sample(SensorFrame)} and
+ * {@link Ramp#sample(SensorFrame)}, so that every consumer in the same loop (the {@link team6458.OperatorControl}
+ * and the commands) sees the same values without going out to the SPI bus or FPGA again. Outside of this package
+ * the frame is read-only.
+ * <p>
+ * The same instance is refilled in place every loop, so values should be read when needed and not cached across
+ * loops. Frames should only be read from the main robot thread.
+ */
+public final class SensorFrame {
+
+    private double timestamp;
+
+    private double gyroAngle;
+    private double gyroRate;
+    private boolean gyroReady;
+
+    private double leftDistance;
+    private double rightDistance;
+    private double leftRate;
+    private double rightRate;
+    private int encoderResets;
+
+    private double accelX;
+    private double accelY;
+    private double accelZ;
+
+    private double batteryVoltage;
+    private double totalCurrent = Double.NaN;
+
+    private double rangeDistance = Double.NaN;
+    private double rangeTimestamp;
+
+    private boolean cubeBeamBroken;
+    private double rampCurrent;
+
+    /**
+     * @return The FPGA timestamp in seconds at which this frame was sampled
+     */
+    public double getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return The gyroscope heading in degrees, positive is clockwise
+     */
+    public double getGyroAngle() {
+        return gyroAngle;
+    }
+
+    /**
+     * @return The gyroscope rate in degrees per second, positive is clockwise
+     */
+    public double getGyroRate() {
+        return gyroRate;
+    }
+
+    /**
+     * @return True if the gyroscope is calibrated. Until then the angle is held and the rate is zero
+     * @see team6458.sensor.CalibratingGyro#isReady()
+     */
+    public boolean isGyroReady() {
+        return gyroReady;
+    }
+
+    /**
+     * @return The left encoder distance in metres
+     */
+    public double getLeftDistance() {
+        return leftDistance;
+    }
+
+    /**
+     * @return The right encoder distance in metres
+     */
+    public double getRightDistance() {
+        return rightDistance;
+    }
+
+    /**
+     * @return The left encoder rate in m/s
+     */
+    public double getLeftRate() {
+        return leftRate;
+    }
+
+    /**
+     * @return The right encoder rate in m/s
+     */
+    public double getRightRate() {
+        return rightRate;
+    }
+
+    /**
+     * @return The number of times the encoders have been reset to zero, so consumers that track distance deltas
+     * can tell a reset from movement
+     */
+    public int getEncoderResets() {
+        return encoderResets;
+    }
+
+    /**
+     * @return The average distance of the encoders in metres
+     * @see Drivetrain#getAverageDistance()
+     */
+    public double getAverageDistance() {
+        return (leftDistance + rightDistance) / 2.0;
+    }
+
+    /**
+     * @return The average rate of the encoders in m/s
+     * @see Drivetrain#getAverageRate()
+     */
+    public double getAverageRate() {
+        return (leftRate + rightRate) / 2.0;
+    }
+
+    /**
+     * @return The acceleration along the X axis in g
+     */
+    public double getAccelX() {
+        return accelX;
+    }
+
+    /**
+     * @return The acceleration along the Y axis in g
+     */
+    public double getAccelY() {
+        return accelY;
+    }
+
+    /**
+     * @return The acceleration along the Z axis in g
+     */
+    public double getAccelZ() {
+        return accelZ;
+    }
+
+    /**
+     * @return The battery voltage in volts
+     */
+    public double getBatteryVoltage() {
+        return batteryVoltage;
+    }
+
+    /**
+     * @return The total current drawn from the battery in amps, or NaN if it cannot be measured
+     */
+    public double getTotalCurrent() {
+        return totalCurrent;
+    }
+
+    /**
+     * @return The filtered rangefinder distance in metres, or NaN if there is no reading yet
+     * @see team6458.sensor.AnalogRangefinder
+     */
+    public double getRangeDistance() {
+        return rangeDistance;
+    }
+
+    /**
+     * @return The FPGA timestamp in seconds of the rangefinder's last sample, which is older than
+     * {@link #getTimestamp()} by up to the sampling period
+     */
+    public double getRangeTimestamp() {
+        return rangeTimestamp;
+    }
+
+    /**
+     * @return True while a cube breaks the beam across the ramp
+     */
+    public boolean isCubeBeamBroken() {
+        return cubeBeamBroken;
+    }
+
+    /**
+     * @return The total current of the ramp motors in amps
+     */
+    public double getRampCurrent() {
+        return rampCurrent;
+    }
+
+    // Package-private setters, used by the subsystems that fill the frame
+
+    void setTimestamp(double timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    void setPower(double batteryVoltage, double totalCurrent) {
+        this.batteryVoltage = batteryVoltage;
+        this.totalCurrent = totalCurrent;
+    }
+
+    void setGyro(double angle, double rate, boolean ready) {
+        this.gyroAngle = angle;
+        this.gyroRate = rate;
+        this.gyroReady = ready;
+    }
+
+    void setEncoders(double leftDistance, double rightDistance, double leftRate, double rightRate,
+                     int encoderResets) {
+        this.leftDistance = leftDistance;
+        this.rightDistance = rightDistance;
+        this.leftRate = leftRate;
+        this.rightRate = rightRate;
+        this.encoderResets = encoderResets;
+    }
+
+    void setRange(double distance, double timestamp) {
+        this.rangeDistance = distance;
+        this.rangeTimestamp = timestamp;
+    }
+
+    void setRamp(boolean cubeBeamBroken, double rampCurrent) {
+        this.cubeBeamBroken = cubeBeamBroken;
+        this.rampCurrent = rampCurrent;
+    }
+
+    void setAcceleration(double x, double y, double z) {
+        this.accelX = x;
+        this.accelY = y;
+        this.accelZ = z;
+    }
+}
@@ -1,11 +1,11 @@
 package team6458.subsystem;
 
-import edu.wpi.first.wpilibj.ADXRS450_Gyro;
-import edu.wpi.first.wpilibj.BuiltInAccelerometer;
+import edu.wpi.first.wpilibj.interfaces.Accelerometer;
 import team6458.SemiRobot;
-
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import team6458.hal.Clock;
+import team6458.hal.RangeSensor;
+import team6458.hal.RobotHardware;
+import team6458.sensor.CalibratingGyro;
 
 /**
  * The sensors subsystem. This has all the UNCOUPLED sensors for the robot: i.e. those that do not already
@@ -13,21 +13,49 @@ import java.util.logging.Logger;
  */
 public final class Sensors extends RobotSubsystem {
 
-    private static final Logger LOGGER = Logger.getLogger(Sensors.class.getName());
-
-    public final BuiltInAccelerometer accelerometer;
-    public final ADXRS450_Gyro gyro;
-//    public final AnalogRangefinder rangefinder;
+    public final Accelerometer accelerometer;
+    /**
+     * The gyroscope, which calibrates in the background. See {@link CalibratingGyro#isReady()}.
+     */
+    public final CalibratingGyro gyro;
+    /**
+     * The rangefinder, which is sampled and filtered in the background. See
+     * {@link team6458.sensor.AnalogRangefinder#startSampling}.
+     */
+    public final RangeSensor rangefinder;
+    private final Clock clock;
+    private final RobotHardware hardware;
 
-    public Sensors(SemiRobot robot) {
+    /**
+     * The main constructor.
+     *
+     * @param robot    The robot instance
+     * @param hardware The hardware to create the sensors from
+     */
+    public Sensors(SemiRobot robot, RobotHardware hardware) {
         super(robot, "Sensors");
 
-        accelerometer = new BuiltInAccelerometer();
-//        rangefinder = new AnalogRangefinder(Allocator.analogInput(Ports.Analog.RANGEFINDER), AnalogRangefinder.DEFAULT_SCALING_FACTOR * 2.75);
-//        SmartDashboard.putData(rangefinder);
-        LOGGER.log(Level.INFO, "Calibrating ADXRS250 gyroscope, expect a block");
-        gyro = new ADXRS450_Gyro();
-        LOGGER.log(Level.INFO, "Gyroscope calibrated.");
+        this.hardware = hardware;
+        clock = hardware.getClock();
+        accelerometer = hardware.getAccelerometer();
+        rangefinder = hardware.getRangefinder();
+        // Returns immediately, the gyroscope is created and calibrated in the background
+        gyro = new CalibratingGyro(hardware::getGyro);
+    }
+
+    /**
+     * Fills the timestamp, battery voltage and current, gyroscope, accelerometer and rangefinder values of a frame.
+     * Call once per loop.
+     *
+     * @param frame The non-null frame to fill
+     */
+    public void sample(SensorFrame frame) {
+        frame.setTimestamp(clock.getTimestamp());
+        frame.setPower(hardware.getBatteryVoltage(), hardware.getTotalCurrent());
+        frame.setGyro(gyro.getAngle(), gyro.getRate(), gyro.isReady());
+        frame.setAcceleration(accelerometer.getX(), accelerometer.getY(), accelerometer.getZ());
+        final RangeSensor.Reading range = rangefinder.read();
+        frame.setRange(range.getDistance(), range.getTimestamp());
     }
 
     @Override
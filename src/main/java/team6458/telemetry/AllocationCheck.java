@@ -0,0 +1,143 @@
+package team6458.telemetry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A utility class that measures how many bytes a piece of code allocates on the current thread, using HotSpot's
+ * per-thread allocation counter. Used to check that periodic code paths stay allocation-free.
+ */
+public final class AllocationCheck {
+
+    private static final Logger LOGGER = Logger.getLogger(AllocationCheck.class.getName());
+
+    /**
+     * The default number of warm-up iterations, run before measuring so lazy initialization is not counted.
+     */
+    public static final int DEFAULT_WARMUP = 500;
+    /**
+     * The default number of measured iterations.
+     */
+    public static final int DEFAULT_ITERATIONS = 5000;
+    /**
+     * The number of bytes a measured run may allocate in total and still pass. This absorbs noise from the counter
+     * itself; anything allocating per iteration exceeds it by orders of magnitude.
+     */
+    public static final long TOLERANCE_BYTES = 1024;
+
+    /**
+     * The HotSpot bean, or null if the JVM does not support allocation counting.
+     */
+    private static final com.sun.management.ThreadMXBean BEAN = findBean();
+
+    /**
+     * No instantiation.
+     */
+    private AllocationCheck() {
+    }
+
+    /**
+     * @return True if this JVM can count per-thread allocations
+     */
+    public static boolean isSupported() {
+        return BEAN != null;
+    }
+
+    /**
+     * Runs a body for {@code warmup} iterations, then measures the bytes allocated over {@code iterations} more.
+     *
+     * @param name       The non-null name of the path, for logging
+     * @param body       The non-null body to run, which should not allocate
+     * @param warmup     The number of iterations to run before measuring
+     * @param iterations The positive number of iterations to measure
+     * @return The result
+     * @throws IllegalStateException if allocation counting is not supported, see {@link #isSupported()}
+     */
+    public static Result measure(String name, Runnable body, int warmup, int iterations) {
+        if (!isSupported()) {
+            throw new IllegalStateException("Allocation counting is not supported on this JVM");
+        }
+
+        for (int i = 0; i < warmup; i++) {
+            body.run();
+        }
+
+        // The counter may allocate itself, so measure that overhead and subtract it
+        final long id = Thread.currentThread().getId();
+        final long overheadStart = BEAN.getThreadAllocatedBytes(id);
+        final long overhead = BEAN.getThreadAllocatedBytes(id) - overheadStart;
+
+        final long start = BEAN.getThreadAllocatedBytes(id);
+        for (int i = 0; i < iterations; i++) {
+            body.run();
+        }
+        final long allocated = Math.max(0L, BEAN.getThreadAllocatedBytes(id) - start - overhead);
+
+        final Result result = new Result(name, allocated, iterations);
+        LOGGER.log(result.passed ? Level.INFO : Level.SEVERE, result.toString());
+        return result;
+    }
+
+    /**
+     * {@link #measure(String, Runnable, int, int)} with {@link #DEFAULT_WARMUP} and {@link #DEFAULT_ITERATIONS}.
+     */
+    public static Result measure(String name, Runnable body) {
+        return measure(name, body, DEFAULT_WARMUP, DEFAULT_ITERATIONS);
+    }
+
+    private static com.sun.management.ThreadMXBean findBean() {
+        try {
+            final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                final com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+                if (hotspot.isThreadAllocatedMemorySupported()) {
+                    hotspot.setThreadAllocatedMemoryEnabled(true);
+                    return hotspot;
+                }
+            }
+        } catch (Throwable t) {
+            LOGGER.log(Level.WARNING, "Could not get the thread allocation counter", t);
+        }
+        return null;
+    }
+
+    /**
+     * The result of a measured run.
+     */
+    public static final class Result {
+
+        /**
+         * The name of the path that was measured.
+         */
+        public final String name;
+        /**
+         * The total bytes allocated over all measured iterations.
+         */
+        public final long allocatedBytes;
+        /**
+         * The number of measured iterations.
+         */
+        public final int iterations;
+        /**
+         * True if the allocated bytes were within {@link #TOLERANCE_BYTES}.
+         */
+        public final boolean passed;
+
+        private Result(String name, long allocatedBytes, int iterations) {
+            this.name = name;
+            this.allocatedBytes = allocatedBytes;
+            this.iterations = iterations;
+            this.passed = allocatedBytes <= TOLERANCE_BYTES;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s: %d bytes over %d iterations (%.1f bytes/iteration)",
+                    passed ? "PASS" : "FAIL", name, allocatedBytes, iterations,
+                    allocatedBytes / (double) iterations);
+        }
+    }
+
+}
@@ -0,0 +1,243 @@
+package team6458.telemetry;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.WriterConfig;
+import team6458.hal.Clock;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records when commands start and end into a preallocated ring buffer, and exports them in the Chrome trace-event
+ * JSON format, so an autonomous run can be opened in a trace viewer (such as {@code chrome://tracing} or Perfetto)
+ * and seen as a timeline.
+ * <p>
+ * Each command is drawn on a track, which shows up as a thread in the viewer. Commands on the same track must nest,
+ * so tracks are usually per command class. Recording an event only writes primitives and references to existing
+ * names into the buffer, so it allocates nothing and can be called from the loop. Once the buffer is full, the
+ * oldest events are overwritten. Exporting allocates, so only export outside the loop (e.g.: when disabled).
+ * <p>
+ * This class is <b>not</b> thread-safe, and should only be used from the main robot thread.
+ */
+public final class CommandTracer {
+
+    private static final Logger LOGGER = Logger.getLogger(CommandTracer.class.getName());
+
+    /**
+     * The default number of events kept, enough for many autonomous runs.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+    /**
+     * The maximum number of tracks. Registrations past this are ignored.
+     */
+    public static final int MAX_TRACKS = 64;
+    /**
+     * The track ID returned when a track could not be registered. Recording to it does nothing.
+     */
+    public static final int NO_TRACK = -1;
+
+    private static final double MICROS_PER_SECOND = 1.0e6;
+    private static final int PROCESS_ID = 1;
+    private static final byte BEGIN = -1;
+
+    /**
+     * Why a command ended.
+     */
+    public enum EndReason {
+        /**
+         * The command finished by itself.
+         */
+        FINISHED,
+        /**
+         * The command was interrupted or cancelled, for example by another command requiring the same subsystem.
+         */
+        INTERRUPTED,
+        /**
+         * The command ran out of time, either its own timeout or the one it was given in a group.
+         */
+        TIMED_OUT
+    }
+
+    private static final EndReason[] END_REASONS = EndReason.values();
+
+    private final Clock clock;
+    private final int capacity;
+    private final double[] times;
+    private final int[] tracks;
+    private final byte[] types;
+    private final String[] names;
+    private final String[] trackNames = new String[MAX_TRACKS];
+
+    private int trackCount = 0;
+    private long count = 0;
+    private long exportedCount = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param clock    The non-null clock events are timestamped with
+     * @param capacity The positive number of events to keep
+     */
+    public CommandTracer(Clock clock, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+        }
+        this.clock = clock;
+        this.capacity = capacity;
+        this.times = new double[capacity];
+        this.tracks = new int[capacity];
+        this.types = new byte[capacity];
+        this.names = new String[capacity];
+    }
+
+    /**
+     * Gets or registers a track with the given name. This may allocate, so only call this outside the loop
+     * (e.g.: in constructors).
+     *
+     * @param name The non-null display name of the track
+     * @return The track ID, or {@link #NO_TRACK} if there is no more room
+     */
+    public int register(String name) {
+        for (int i = 0; i < trackCount; i++) {
+            if (trackNames[i].equals(name)) {
+                return i;
+            }
+        }
+        if (trackCount >= MAX_TRACKS) {
+            LOGGER.log(Level.WARNING, "Out of trace tracks, not tracing " + name);
+            return NO_TRACK;
+        }
+
+        final int track = trackCount++;
+        trackNames[track] = name;
+        return track;
+    }
+
+    /**
+     * Records that a command started.
+     *
+     * @param track The track ID from {@link #register(String)}
+     * @param name  The non-null name of the command, which should not be created in the loop
+     */
+    public void begin(int track, String name) {
+        record(track, name, BEGIN);
+    }
+
+    /**
+     * Records that a command ended.
+     *
+     * @param track  The track ID from {@link #register(String)}
+     * @param name   The non-null name of the command, the same as the one it began with
+     * @param reason The non-null reason it ended
+     */
+    public void end(int track, String name, EndReason reason) {
+        record(track, name, (byte) reason.ordinal());
+    }
+
+    /**
+     * @return The total number of events recorded, including overwritten ones
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return True if events were recorded since the last export
+     */
+    public boolean hasNewEvents() {
+        return count != exportedCount;
+    }
+
+    /**
+     * Exports the buffered events to a file, replacing it. Errors are logged.
+     *
+     * @param path The non-null path of the JSON file
+     * @return True if the file was written
+     */
+    public boolean export(Path path) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                export(writer);
+            }
+            LOGGER.log(Level.INFO, "Exported " + Math.min(count, capacity) + " trace events to " + path);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not export the command trace to " + path, e);
+            return false;
+        }
+    }
+
+    /**
+     * Exports the buffered events in the Chrome trace-event JSON format, oldest first. Commands that ended early
+     * have an instant event with the reason where they ended, and every end event has the reason in its arguments.
+     *
+     * @param writer The non-null writer, which is not closed
+     * @throws IOException if writing fails
+     */
+    public void export(Writer writer) throws IOException {
+        final JsonArray events = Json.array();
+        for (int track = 0; track < trackCount; track++) {
+            events.add(Json.object()
+                    .add("name", "thread_name")
+                    .add("ph", "M")
+                    .add("pid", PROCESS_ID)
+                    .add("tid", track)
+                    .add("args", Json.object().add("name", trackNames[track])));
+        }
+
+        final long first = Math.max(0L, count - capacity);
+        for (long i = first; i < count; i++) {
+            final int index = (int) (i % capacity);
+            final double timestamp = times[index] * MICROS_PER_SECOND;
+            if (types[index] == BEGIN) {
+                events.add(createEvent(index, names[index], "B", timestamp));
+                continue;
+            }
+            final EndReason reason = END_REASONS[types[index]];
+            if (reason != EndReason.FINISHED) {
+                events.add(createEvent(index, names[index] + " " + reason, "i", timestamp).add("s", "t"));
+            }
+            events.add(createEvent(index, names[index], "E", timestamp)
+                    .add("args", Json.object().add("reason", reason.toString())));
+        }
+
+        Json.object()
+                .add("traceEvents", events)
+                .add("displayTimeUnit", "ms")
+                .writeTo(writer, WriterConfig.MINIMAL);
+        writer.flush();
+        exportedCount = count;
+    }
+
+    private JsonObject createEvent(int index, String name, String phase, double timestamp) {
+        return Json.object()
+                .add("name", name)
+                .add("cat", "command")
+                .add("ph", phase)
+                .add("ts", timestamp)
+                .add("pid", PROCESS_ID)
+                .add("tid", tracks[index]);
+    }
+
+    private void record(int track, String name, byte type) {
+        if (track < 0 || track >= trackCount) {
+            return;
+        }
+        final int index = (int) (count % capacity);
+        times[index] = clock.getTimestamp();
+        tracks[index] = track;
+        types[index] = type;
+        names[index] = name;
+        count++;
+    }
+}
@@ -0,0 +1,331 @@
+package team6458.telemetry;
+
+import edu.wpi.first.networktables.EntryListenerFlags;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A change-driven, rate-tiered publisher for SmartDashboard values.
+ * <p>
+ * Values are written to a topic at any time (usually every loop) but are only sent to NetworkTables in
+ * {@link #flush()}, when the topic's {@link Tier} is due and (for all tiers but {@link Tier#EVERY_LOOP}) the value
+ * differs from the last one sent.
+ * <p>
+ * Operator settings are read through {@link BooleanSetting}s and {@link ChoiceSetting}s, which are updated by a
+ * NetworkTables listener instead of a lookup on every read.
+ * <p>
+ * Topics and settings should be created outside of the loop, since creating them allocates. Writing to topics and
+ * flushing does not allocate, and should only be done from the main robot thread.
+ */
+public final class DashboardPublisher {
+
+    /**
+     * How often a topic may be sent.
+     */
+    public enum Tier {
+        /**
+         * Every loop (50 Hz), even if the value did not change.
+         */
+        EVERY_LOOP(1, false),
+        /**
+         * At most every 5 loops (10 Hz), only when the value changed.
+         */
+        TEN_HZ(5, true),
+        /**
+         * At most every 50 loops (1 Hz), only when the value changed.
+         */
+        ONE_HZ(50, true),
+        /**
+         * Any loop, but only when the value changed.
+         */
+        ON_CHANGE(1, true);
+
+        /**
+         * The number of loops between each possible send.
+         */
+        public final int interval;
+        /**
+         * True if unchanged values are skipped.
+         */
+        public final boolean deduplicate;
+
+        Tier(int interval, boolean deduplicate) {
+            this.interval = interval;
+            this.deduplicate = deduplicate;
+        }
+    }
+
+    private final List<Topic> topics = new ArrayList<>();
+    private long loopCount = 0;
+
+    /**
+     * Creates a number topic.
+     *
+     * @param key  The non-null SmartDashboard key, from {@link team6458.util.DashboardKeys}
+     * @param tier The non-null tier
+     * @return A new topic
+     */
+    public NumberTopic number(String key, Tier tier) {
+        return add(new NumberTopic(SmartDashboard.getEntry(key), tier));
+    }
+
+    /**
+     * Creates a boolean topic.
+     *
+     * @param key  The non-null SmartDashboard key, from {@link team6458.util.DashboardKeys}
+     * @param tier The non-null tier
+     * @return A new topic
+     */
+    public BooleanTopic bool(String key, Tier tier) {
+        return add(new BooleanTopic(SmartDashboard.getEntry(key), tier));
+    }
+
+    /**
+     * Creates a string topic.
+     *
+     * @param key  The non-null SmartDashboard key, from {@link team6458.util.DashboardKeys}
+     * @param tier The non-null tier
+     * @return A new topic
+     */
+    public StringTopic string(String key, Tier tier) {
+        return add(new StringTopic(SmartDashboard.getEntry(key), tier));
+    }
+
+    /**
+     * Creates a cached operator setting. If the key does not exist yet, it is created with the default value so
+     * that it shows up on the dashboard.
+     *
+     * @param key          The non-null SmartDashboard key, from {@link team6458.util.DashboardKeys}
+     * @param defaultValue The value to use until the dashboard sets one
+     * @return A new setting
+     */
+    public BooleanSetting setting(String key, boolean defaultValue) {
+        return new BooleanSetting(SmartDashboard.getEntry(key), defaultValue);
+    }
+
+    /**
+     * Creates a cached choice between options, shown on the dashboard as a {@link SendableChooser}. Each option is
+     * named by its {@code toString()}.
+     *
+     * @param key          The non-null SmartDashboard key, from {@link team6458.util.DashboardKeys}
+     * @param defaultValue The non-null option to use until the dashboard selects one
+     * @param options      The non-null options in the order they are shown, which may include the default
+     * @param <T>          The type of the options
+     * @return A new setting
+     */
+    public <T> ChoiceSetting<T> choice(String key, T defaultValue, List<T> options) {
+        final SendableChooser<T> chooser = new SendableChooser<>();
+        chooser.addDefault(defaultValue.toString(), defaultValue);
+        for (T option : options) {
+            if (option != defaultValue) {
+                chooser.addObject(option.toString(), option);
+            }
+        }
+        SmartDashboard.putData(key, chooser);
+        // The chooser keeps the selected name in its own table
+        return new ChoiceSetting<>(SmartDashboard.getEntry(key + "/selected"), defaultValue, options);
+    }
+
+    /**
+     * Sends every topic that is due and has changed. Call once per loop.
+     */
+    public void flush() {
+        loopCount++;
+        // Indexed loop to avoid an iterator allocation
+        for (int i = 0, size = topics.size(); i < size; i++) {
+            final Topic topic = topics.get(i);
+            if (loopCount % topic.tier.interval == 0) {
+                topic.flush();
+            }
+        }
+    }
+
+    private <T extends Topic> T add(T topic) {
+        topics.add(topic);
+        return topic;
+    }
+
+    /**
+     * A single published value.
+     */
+    public abstract static class Topic {
+
+        protected final NetworkTableEntry entry;
+        protected final Tier tier;
+        /**
+         * True if the current value differs from the last value sent, or nothing was sent yet.
+         */
+        protected boolean dirty = true;
+
+        private Topic(NetworkTableEntry entry, Tier tier) {
+            this.entry = entry;
+            this.tier = tier;
+        }
+
+        private void flush() {
+            if (dirty || !tier.deduplicate) {
+                send();
+                dirty = false;
+            }
+        }
+
+        /**
+         * Sends the current value to NetworkTables.
+         */
+        protected abstract void send();
+    }
+
+    /**
+     * A number topic.
+     */
+    public static final class NumberTopic extends Topic {
+
+        private double value;
+
+        private NumberTopic(NetworkTableEntry entry, Tier tier) {
+            super(entry, tier);
+        }
+
+        /**
+         * @param value The new value, sent on the next due flush if it changed
+         */
+        public void set(double value) {
+            // Compare bits so that NaN equals NaN
+            if (Double.doubleToLongBits(value) != Double.doubleToLongBits(this.value)) {
+                this.value = value;
+                dirty = true;
+            }
+        }
+
+        @Override
+        protected void send() {
+            entry.setDouble(value);
+        }
+    }
+
+    /**
+     * A boolean topic.
+     */
+    public static final class BooleanTopic extends Topic {
+
+        private boolean value;
+
+        private BooleanTopic(NetworkTableEntry entry, Tier tier) {
+            super(entry, tier);
+        }
+
+        /**
+         * @param value The new value, sent on the next due flush if it changed
+         */
+        public void set(boolean value) {
+            if (value != this.value) {
+                this.value = value;
+                dirty = true;
+            }
+        }
+
+        @Override
+        protected void send() {
+            entry.setBoolean(value);
+        }
+    }
+
+    /**
+     * A string topic. Values are compared by reference first, so cached strings (like
+     * {@link team6458.util.PlateAssignment#toString()}) are cheap to set every loop.
+     */
+    public static final class StringTopic extends Topic {
+
+        private String value = "";
+
+        private StringTopic(NetworkTableEntry entry, Tier tier) {
+            super(entry, tier);
+        }
+
+        /**
+         * @param value The new non-null value, sent on the next due flush if it changed
+         */
+        public void set(String value) {
+            if (value != this.value && !value.equals(this.value)) {
+                this.value = value;
+                dirty = true;
+            }
+        }
+
+        @Override
+        protected void send() {
+            entry.setString(value);
+        }
+    }
+
+    /**
+     * An operator setting that is read often but rarely changes. The value is cached and kept up to date by a
+     * NetworkTables listener, so {@link #get()} is a plain field read. Safe to read from any thread.
+     */
+    public static final class BooleanSetting {
+
+        private volatile boolean value;
+
+        private BooleanSetting(NetworkTableEntry entry, boolean defaultValue) {
+            entry.setDefaultBoolean(defaultValue);
+            value = entry.getBoolean(defaultValue);
+            entry.addListener(notification -> {
+                if (notification.value.isBoolean()) {
+                    value = notification.value.getBoolean();
+                }
+            }, EntryListenerFlags.kImmediate | EntryListenerFlags.kNew | EntryListenerFlags.kUpdate |
+                    EntryListenerFlags.kLocal);
+        }
+
+        /**
+         * @return The latest value of the setting
+         */
+        public boolean get() {
+            return value;
+        }
+    }
+
+    /**
+     * An operator choice that is read often but rarely changes. The selected option is cached and kept up to date by
+     * a NetworkTables listener, so {@link #get()} is a plain field read instead of
+     * {@link SendableChooser#getSelected()}, which creates a new string every call. Safe to read from any thread.
+     *
+     * @param <T> The type of the options
+     */
+    public static final class ChoiceSetting<T> {
+
+        private final Map<String, T> options = new HashMap<>();
+        private volatile T value;
+
+        private ChoiceSetting(NetworkTableEntry entry, T defaultValue, List<T> options) {
+            this.options.put(defaultValue.toString(), defaultValue);
+            for (T option : options) {
+                this.options.put(option.toString(), option);
+            }
+            value = defaultValue;
+            entry.addListener(notification -> {
+                if (notification.value.isString()) {
+                    final T selected = this.options.get(notification.value.getString());
+                    if (selected != null) {
+                        value = selected;
+                    }
+                }
+            }, EntryListenerFlags.kImmediate | EntryListenerFlags.kNew | EntryListenerFlags.kUpdate |
+                    EntryListenerFlags.kLocal);
+        }
+
+        /**
+         * @return The non-null latest selected option
+         */
+        public T get() {
+            return value;
+        }
+    }
+
+}
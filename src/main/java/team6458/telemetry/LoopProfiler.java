@@ -0,0 +1,294 @@
+package team6458.telemetry;
+
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import team6458.util.DashboardKeys;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A lightweight profiler for the main robot loop.
+ * <p>
+ * Each named slot (a loop phase, or a command's {@code execute()}/{@code isFinished()}) keeps a rolling window
+ * of the last {@link #WINDOW_SIZE} durations in a preallocated primitive buffer. Recording a sample allocates nothing;
+ * statistics (min/mean/p99/max) are only computed when the summary is published, once every
+ * {@link #PUBLISH_INTERVAL} loops.
+ * <p>
+ * An overrun is counted whenever the time between two consecutive loop starts exceeds the loop budget by more than
+ * {@link #OVERRUN_TOLERANCE}. When that happens, the slowest slot of the previous loop is logged.
+ * <p>
+ * This class is <b>not</b> thread-safe, and should only be used from the main robot thread.
+ */
+public final class LoopProfiler {
+
+    private static final Logger LOGGER = Logger.getLogger(LoopProfiler.class.getName());
+
+    /**
+     * The number of samples kept per slot. Kept below the threshold at which {@link Arrays#sort(long[])} allocates.
+     */
+    public static final int WINDOW_SIZE = 256;
+    /**
+     * The maximum number of slots. Registrations past this are ignored.
+     */
+    public static final int MAX_SLOTS = 48;
+    /**
+     * The number of loops between each publish of the summary to the SmartDashboard (around one second).
+     */
+    public static final int PUBLISH_INTERVAL = 50;
+    /**
+     * The fraction of the loop budget a loop period may exceed it by before it counts as an overrun.
+     */
+    public static final double OVERRUN_TOLERANCE = 0.1;
+    /**
+     * The minimum time in seconds between two overrun log messages.
+     */
+    public static final double OVERRUN_LOG_INTERVAL = 1.0;
+
+    /**
+     * The slot ID returned when a slot could not be registered. Recording to it does nothing.
+     */
+    public static final int NO_SLOT = -1;
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final String[] SUMMARY_NAMES = {"min", "mean", "p99", "max"};
+
+    private final long budgetNanos;
+    private final long overrunNanos;
+
+    private final String[] names = new String[MAX_SLOTS];
+    /**
+     * The dashboard entries for each slot's summary, created on the first publish.
+     */
+    private final NetworkTableEntry[][] entries = new NetworkTableEntry[MAX_SLOTS][];
+    private NetworkTableEntry overrunsEntry;
+    private final long[][] samples = new long[MAX_SLOTS][WINDOW_SIZE];
+    private final long[] sampleCounts = new long[MAX_SLOTS];
+    /**
+     * The duration of the latest sample per slot, and the loop it was recorded in.
+     */
+    private final long[] lastNanos = new long[MAX_SLOTS];
+    private final long[] lastLoop = new long[MAX_SLOTS];
+    /**
+     * Scratch space for sorting a window. Shared between slots since publishing is sequential.
+     */
+    private final long[] scratch = new long[WINDOW_SIZE];
+    /**
+     * Preallocated {@code [min, mean, p99, max]} arrays in milliseconds, one per slot.
+     */
+    private final double[][] summaries = new double[MAX_SLOTS][4];
+    private int slotCount = 0;
+
+    /**
+     * The slot for the whole {@code robotPeriodic()} call.
+     */
+    public final int totalSlot;
+    /**
+     * The slot for the time between consecutive loop starts.
+     */
+    public final int periodSlot;
+
+    private long loopCount = 0;
+    private long loopStart = 0;
+    private long overruns = 0;
+    private long lastOverrunLog = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param budgetSeconds The positive loop period in seconds, usually {@code TimedRobot.DEFAULT_PERIOD}
+     */
+    public LoopProfiler(double budgetSeconds) {
+        if (budgetSeconds <= 0.0) {
+            throw new IllegalArgumentException("Loop budget must be positive, got " + budgetSeconds);
+        }
+        this.budgetNanos = (long) (budgetSeconds * 1_000_000_000L);
+        this.overrunNanos = (long) (budgetNanos * (1.0 + OVERRUN_TOLERANCE));
+
+        totalSlot = register("Total");
+        periodSlot = register("Period");
+    }
+
+    /**
+     * Gets or registers a slot with the given name. This may allocate, so only call this outside the loop
+     * (e.g.: in constructors).
+     *
+     * @param name The non-null display name of the slot
+     * @return The slot ID, or {@link #NO_SLOT} if there is no more room
+     */
+    public int register(String name) {
+        for (int i = 0; i < slotCount; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        if (slotCount >= MAX_SLOTS) {
+            LOGGER.log(Level.WARNING, "Out of profiler slots, not profiling " + name);
+            return NO_SLOT;
+        }
+
+        final int slot = slotCount++;
+        names[slot] = name;
+        return slot;
+    }
+
+    /**
+     * @return The current timestamp in nanoseconds, to be passed to {@link #lap(int, long)}
+     */
+    public long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Marks the start of a loop. Records the loop period and checks it for an overrun.
+     *
+     * @return The current timestamp in nanoseconds
+     */
+    public long beginLoop() {
+        final long now = System.nanoTime();
+        if (loopCount > 0) {
+            final long period = now - loopStart;
+            record(periodSlot, period);
+            if (period > overrunNanos) {
+                overruns++;
+                logOverrun(now, period);
+            }
+        }
+        loopCount++;
+        loopStart = now;
+        return now;
+    }
+
+    /**
+     * Marks the end of a loop, and publishes the summary if it is time to.
+     */
+    public void endLoop() {
+        lap(totalSlot, loopStart);
+        if (loopCount % PUBLISH_INTERVAL == 0) {
+            publish();
+        }
+    }
+
+    /**
+     * Records the time elapsed since {@code start} into a slot.
+     *
+     * @param slot  The slot ID, may be {@link #NO_SLOT}
+     * @param start The timestamp from {@link #now()} or a previous lap
+     * @return The current timestamp in nanoseconds, for chaining laps
+     */
+    public long lap(int slot, long start) {
+        final long now = System.nanoTime();
+        record(slot, now - start);
+        return now;
+    }
+
+    /**
+     * Records a duration into a slot.
+     *
+     * @param slot  The slot ID, may be {@link #NO_SLOT}
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(int slot, long nanos) {
+        if (slot < 0) {
+            return;
+        }
+        samples[slot][(int) (sampleCounts[slot] % WINDOW_SIZE)] = nanos;
+        sampleCounts[slot]++;
+        lastNanos[slot] = nanos;
+        lastLoop[slot] = loopCount;
+    }
+
+    /**
+     * @return The number of overruns since construction
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * Computes the {@code [min, mean, p99, max]} summary in milliseconds for a slot over its window.
+     *
+     * @param slot The slot ID
+     * @return A shared array that is overwritten on the next call for this slot, or all zeroes if there are no samples
+     */
+    public double[] summarize(int slot) {
+        final double[] summary = summaries[slot];
+        final int n = (int) Math.min(sampleCounts[slot], WINDOW_SIZE);
+        if (n == 0) {
+            Arrays.fill(summary, 0.0);
+            return summary;
+        }
+
+        System.arraycopy(samples[slot], 0, scratch, 0, n);
+        Arrays.sort(scratch, 0, n);
+        long sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += scratch[i];
+        }
+
+        summary[0] = scratch[0] / NANOS_PER_MILLI;
+        summary[1] = (sum / (double) n) / NANOS_PER_MILLI;
+        summary[2] = scratch[Math.max(0, (int) Math.ceil(n * 0.99) - 1)] / NANOS_PER_MILLI;
+        summary[3] = scratch[n - 1] / NANOS_PER_MILLI;
+        return summary;
+    }
+
+    /**
+     * Publishes the summary of every slot to the SmartDashboard, under {@link DashboardKeys#LOOP_PROFILER}.
+     * Each slot is published as {@code min}, {@code mean}, {@code p99} and {@code max} sub-keys in milliseconds.
+     * <p>
+     * Entries are created on the first publish of each slot, after which publishing does not allocate.
+     */
+    public void publish() {
+        for (int i = 0; i < slotCount; i++) {
+            if (entries[i] == null) {
+                entries[i] = new NetworkTableEntry[SUMMARY_NAMES.length];
+                for (int j = 0; j < SUMMARY_NAMES.length; j++) {
+                    entries[i][j] = SmartDashboard.getEntry(DashboardKeys.LOOP_PROFILER + "/" + names[i] + "/" +
+                            SUMMARY_NAMES[j]);
+                }
+            }
+
+            final double[] summary = summarize(i);
+            for (int j = 0; j < SUMMARY_NAMES.length; j++) {
+                entries[i][j].setDouble(summary[j]);
+            }
+        }
+
+        if (overrunsEntry == null) {
+            overrunsEntry = SmartDashboard.getEntry(DashboardKeys.LOOP_OVERRUNS);
+        }
+        overrunsEntry.setDouble(overruns);
+    }
+
+    /**
+     * Logs the slowest slot of the previous loop, rate limited by {@link #OVERRUN_LOG_INTERVAL}.
+     */
+    private void logOverrun(long now, long period) {
+        if (lastOverrunLog != 0 && now - lastOverrunLog < (long) (OVERRUN_LOG_INTERVAL * 1_000_000_000L)) {
+            return;
+        }
+        lastOverrunLog = now;
+
+        // The period that just ended belongs to the previous loop's samples
+        int slowest = NO_SLOT;
+        for (int i = 0; i < slotCount; i++) {
+            if (i == totalSlot || i == periodSlot || lastLoop[i] != loopCount) {
+                continue;
+            }
+            if (slowest == NO_SLOT || lastNanos[i] > lastNanos[slowest]) {
+                slowest = i;
+            }
+        }
+
+        final long outside = period - (lastLoop[totalSlot] == loopCount ? lastNanos[totalSlot] : 0L);
+        LOGGER.log(Level.WARNING, String.format(
+                "Loop overrun #%d: %.2f ms (budget %.2f ms), robotPeriodic %.2f ms, outside robotPeriodic %.2f ms, slowest: %s %.2f ms",
+                overruns, period / NANOS_PER_MILLI, budgetNanos / NANOS_PER_MILLI,
+                lastNanos[totalSlot] / NANOS_PER_MILLI, outside / NANOS_PER_MILLI,
+                slowest == NO_SLOT ? "none" : names[slowest],
+                slowest == NO_SLOT ? 0.0 : lastNanos[slowest] / NANOS_PER_MILLI));
+    }
+
+}
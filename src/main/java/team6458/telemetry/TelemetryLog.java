@@ -0,0 +1,352 @@
+package team6458.telemetry;
+
+import team6458.auto.AutoRoutes;
+import team6458.cmd.AutoDeliverCommand.AllianceSide;
+import team6458.control.DriverInputs;
+import team6458.control.DriverProfile;
+import team6458.telemetry.TelemetryRecorder.Mode;
+import team6458.util.PlateAssignment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static team6458.telemetry.TelemetryRecorder.*;
+
+/**
+ * Reads a {@link TelemetryRecorder} log. Runs on a desktop JVM.
+ * <p>
+ * Records are read one at a time: {@link #select(long)} a sequence number between {@link #getFirst()} and
+ * {@link #getCount()}, then use the getters. The ring buffer only holds the last records, and records that were not
+ * flushed before the log was copied are missing, so select returns false for those.
+ */
+public final class TelemetryLog {
+
+    private final ByteBuffer log;
+    private final int capacity;
+    private final long count;
+    private final String[] names;
+
+    private int offset = -1;
+
+    /**
+     * Constructor.
+     *
+     * @param log The non-null log contents
+     * @throws IllegalArgumentException if the log is not a telemetry log, or is of a different version
+     */
+    public TelemetryLog(ByteBuffer log) {
+        this.log = log.order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (log.limit() <= i || log.get(i) != MAGIC[i]) {
+                throw new IllegalArgumentException("Not a telemetry log");
+            }
+        }
+        if (log.getInt(VERSION_OFFSET) != VERSION || log.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+            throw new IllegalArgumentException("Unsupported telemetry log version " + log.getInt(VERSION_OFFSET) +
+                    ", expected " + VERSION);
+        }
+
+        this.capacity = log.getInt(CAPACITY_OFFSET);
+        this.count = log.getLong(COUNT_OFFSET);
+        this.names = readNames(log);
+    }
+
+    /**
+     * Reads a whole log file into memory.
+     *
+     * @param path The non-null path of the log file
+     * @return The log
+     * @throws IOException              if the file could not be read
+     * @throws IllegalArgumentException if the file is not a telemetry log, or is of a different version
+     */
+    public static TelemetryLog read(Path path) throws IOException {
+        return new TelemetryLog(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+    /**
+     * @return The sequence number of the oldest record still in the ring buffer
+     */
+    public long getFirst() {
+        // The ring holds the last (capacity) records, the oldest is in the slot after the newest
+        return Math.max(0L, count - capacity);
+    }
+
+    /**
+     * @return The number of records ever committed, one more than the sequence number of the newest record
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Selects a record for the getters.
+     *
+     * @param sequence The sequence number of the record
+     * @return True if the record is in the log, false if it was overwritten or not flushed
+     */
+    public boolean select(long sequence) {
+        if (sequence < getFirst() || sequence >= count) {
+            return false;
+        }
+        final int candidate = HEADER_SIZE + (int) (sequence % capacity) * RECORD_SIZE;
+        if (candidate + RECORD_SIZE > log.limit() || log.getLong(candidate + SEQUENCE) != sequence ||
+                log.get(candidate + MODE) < 0 || log.get(candidate + MODE) >= Mode.values().length) {
+            return false;
+        }
+        offset = candidate;
+        return true;
+    }
+
+    /**
+     * @param id The command ID
+     * @return The non-null name of the command, or {@code #id} if it was never named
+     */
+    public String getCommandName(int id) {
+        return id >= 0 && id < names.length ? names[id] : "#" + id;
+    }
+
+    /**
+     * @return The sequence number of the selected record
+     */
+    public long getSequence() {
+        return log.getLong(offset + SEQUENCE);
+    }
+
+    /**
+     * @return The FPGA timestamp of the selected record in seconds
+     */
+    public double getTimestamp() {
+        return log.getDouble(offset + TIMESTAMP);
+    }
+
+    /**
+     * @return The non-null robot mode of the selected record
+     */
+    public Mode getMode() {
+        return Mode.values()[log.get(offset + MODE)];
+    }
+
+    /**
+     * @return The non-null plate assignment of the selected record, {@link PlateAssignment#ALL_INVALID} if unknown
+     */
+    public PlateAssignment getPlates() {
+        final int plates = log.get(offset + PLATES);
+        return plates >= 0 && plates < PlateAssignment.VALID_STATES.size() ?
+                PlateAssignment.VALID_STATES.get(plates) : PlateAssignment.ALL_INVALID;
+    }
+
+    /**
+     * @return The mask of command IDs that ran during the selected record
+     */
+    public long getActiveCommands() {
+        return log.getLong(offset + ACTIVE_COMMANDS);
+    }
+
+    /**
+     * @return True if the gyroscope was calibrated in the selected record
+     */
+    public boolean isGyroReady() {
+        return (log.get(offset + FLAGS) & FLAG_GYRO_READY) != 0;
+    }
+
+    /**
+     * @return True if the drivetrain was velocity controlled in the selected record
+     */
+    public boolean isVelocityControlled() {
+        return (log.get(offset + FLAGS) & FLAG_VELOCITY_CONTROL) != 0;
+    }
+
+    /**
+     * @return True if the cube beam-break was broken in the selected record
+     */
+    public boolean isCubeBeamBroken() {
+        return (log.get(offset + FLAGS) & FLAG_CUBE_BEAM_BROKEN) != 0;
+    }
+
+    /**
+     * @return The gyroscope angle of the selected record in degrees
+     */
+    public double getGyroAngle() {
+        return getField(GYRO_ANGLE);
+    }
+
+    /**
+     * @return The gyroscope rate of the selected record in degrees per second
+     */
+    public double getGyroRate() {
+        return getField(GYRO_RATE);
+    }
+
+    /**
+     * @return The left encoder distance of the selected record in metres
+     */
+    public double getLeftDistance() {
+        return getField(LEFT_DISTANCE);
+    }
+
+    /**
+     * @return The right encoder distance of the selected record in metres
+     */
+    public double getRightDistance() {
+        return getField(RIGHT_DISTANCE);
+    }
+
+    /**
+     * @return The left encoder rate of the selected record in metres per second
+     */
+    public double getLeftRate() {
+        return getField(LEFT_RATE);
+    }
+
+    /**
+     * @return The right encoder rate of the selected record in metres per second
+     */
+    public double getRightRate() {
+        return getField(RIGHT_RATE);
+    }
+
+    /**
+     * @return The left drive motor output of the selected record
+     */
+    public double getLeftMotor() {
+        return getField(LEFT_MOTOR);
+    }
+
+    /**
+     * @return The right drive motor output of the selected record, as set on the motor (inverted from forward)
+     */
+    public double getRightMotor() {
+        return getField(RIGHT_MOTOR);
+    }
+
+    /**
+     * @return The ramp motor output of the selected record
+     */
+    public double getRampMotor() {
+        return getField(RAMP_MOTOR);
+    }
+
+    /**
+     * @return The drivetrain output limit of the selected record, between 0.0 and 1.0
+     * @see team6458.control.BrownoutGovernor
+     */
+    public double getDriveLimit() {
+        return getField(DRIVE_LIMIT);
+    }
+
+    /**
+     * @return The ramp output limit of the selected record, between 0.0 and 1.0
+     * @see team6458.control.BrownoutGovernor
+     */
+    public double getRampLimit() {
+        return getField(RAMP_LIMIT);
+    }
+
+    /**
+     * Copies the driver inputs of the selected record.
+     *
+     * @param inputs The non-null inputs to fill
+     */
+    public void getInputs(DriverInputs inputs) {
+        final int buttons = log.get(offset + BUTTONS);
+        final int flags = log.get(offset + FLAGS);
+        inputs.setController(getField(AXIS_DRIVE_X), getField(AXIS_DRIVE_Y), getField(AXIS_RIGHT_Y),
+                getField(AXIS_LEFT_TRIGGER), getField(AXIS_RIGHT_TRIGGER),
+                (buttons & BUTTON_RUN) != 0, (buttons & BUTTON_HEADING_LOCK) != 0);
+        inputs.setPreferences((flags & FLAG_TANK_CONTROLS) != 0, (flags & FLAG_SQUARE_INPUTS) != 0);
+    }
+
+    /**
+     * @return The drive (left) stick X axis of the selected record before shaping, positive is clockwise
+     */
+    public double getRawCurve() {
+        return getField(RAW_DRIVE_X);
+    }
+
+    /**
+     * @return The drive (left) stick Y axis of the selected record before shaping, positive is forward
+     */
+    public double getRawThrottle() {
+        return getField(RAW_DRIVE_Y);
+    }
+
+    /**
+     * @return The right stick Y axis of the selected record before shaping, positive is forward
+     */
+    public double getRawRightThrottle() {
+        return getField(RAW_RIGHT_Y);
+    }
+
+    /**
+     * @return The driver profile the sticks of the selected record were shaped with, or null if it was not one of
+     * {@link DriverProfile#ALL}
+     */
+    public DriverProfile getDriverProfile() {
+        final int profile = log.get(offset + DRIVER_PROFILE);
+        return profile >= 0 && profile < DriverProfile.ALL.size() ? DriverProfile.ALL.get(profile) : null;
+    }
+
+    /**
+     * @return The non-null FMS game message of the selected record, empty if there was none. This allocates
+     */
+    public String getGameData() {
+        final StringBuilder builder = new StringBuilder(GAME_DATA_LENGTH);
+        for (int i = 0; i < GAME_DATA_LENGTH && log.get(offset + GAME_DATA + i) != 0; i++) {
+            builder.append((char) log.get(offset + GAME_DATA + i));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return The alliance side of the switch delivery route that the last autonomous started, or null if it started
+     * something else
+     * @see #getRouteStyle()
+     */
+    public AllianceSide getRouteSide() {
+        final int side = log.get(offset + ROUTE_SIDE);
+        return side >= 0 && side < AllianceSide.values().length ? AllianceSide.values()[side] : null;
+    }
+
+    /**
+     * @return The style of the switch delivery route that the last autonomous started, or null if unknown
+     * @see #getRouteSide()
+     */
+    public AutoRoutes.Style getRouteStyle() {
+        final int style = log.get(offset + ROUTE_STYLE);
+        return style >= 0 && style < AutoRoutes.Style.values().length ? AutoRoutes.Style.values()[style] : null;
+    }
+
+    /**
+     * @param field The offset of a float field in the record layout
+     * @return The value of the field in the selected record
+     */
+    float getField(int field) {
+        return log.getFloat(offset + field);
+    }
+
+    /**
+     * @param field The offset of a byte field in the record layout
+     * @return The value of the field in the selected record
+     */
+    byte getByte(int field) {
+        return log.get(offset + field);
+    }
+
+    private static String[] readNames(ByteBuffer log) {
+        final int nameCount = Math.max(0, Math.min(log.getInt(NAME_COUNT_OFFSET), MAX_COMMANDS));
+        final String[] names = new String[nameCount];
+        for (int id = 0; id < nameCount; id++) {
+            final int start = NAMES_OFFSET + id * NAME_SIZE;
+            final byte[] bytes = new byte[log.get(start) & 0xFF];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = log.get(start + 1 + i);
+            }
+            names[id] = bytes.length == 0 ? "#" + id : new String(bytes, StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,398 @@
+package team6458.telemetry;
+
+import team6458.control.DriverInputs;
+import team6458.subsystem.SensorFrame;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records a fixed-layout binary record every loop into a preallocated, memory-mapped ring buffer file, so a match
+ * can be reconstructed afterwards with {@code TelemetryDecoder} in the desktop tools.
+ * <p>
+ * A record is written in steps: {@link #begin(SensorFrame)} copies the sensor frame, the {@code set} methods fill in
+ * the rest, and {@link #commit()} publishes it. Commands mark themselves with {@link #markActive(int)} while they
+ * run. Writes are absolute puts into the mapped buffer, so recording does not allocate and does not make system
+ * calls; the operating system writes the pages back, and a background thread forces them out every
+ * {@link #FLUSH_INTERVAL_MS} ms so that little is lost if the robot loses power.
+ * <p>
+ * If the file cannot be mapped, records go into a small heap buffer and are discarded, so callers never need to
+ * check.
+ * <p>
+ * The file starts with a {@link #HEADER_SIZE}-byte header:
+ * <pre>
+ * 0   8 bytes  magic "T6458TLM"
+ * 8   int      format version
+ * 12  int      record size
+ * 16  int      capacity in records
+ * 20  int      number of command names
+ * 24  long     number of records committed, the next record goes in slot (count % capacity)
+ * 64  names    {@link #MAX_COMMANDS} slots of {@link #NAME_SIZE} bytes: an unsigned byte length and UTF-8
+ * </pre>
+ * This class is <b>not</b> thread-safe, and should only be used from the main robot thread.
+ */
+public final class TelemetryRecorder {
+
+    private static final Logger LOGGER = Logger.getLogger(TelemetryRecorder.class.getName());
+
+    /**
+     * The default capacity, around 11 minutes at 50 Hz (4.2 MB).
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 15;
+    /**
+     * The time between each background flush in milliseconds.
+     */
+    public static final long FLUSH_INTERVAL_MS = 1000;
+    /**
+     * The maximum number of distinct command IDs, which is the width of the active command mask.
+     */
+    public static final int MAX_COMMANDS = 64;
+
+    // Header layout
+    static final byte[] MAGIC = "T6458TLM".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 4;
+    static final int HEADER_SIZE = 4096;
+    static final int NAME_SIZE = 63;
+    static final int VERSION_OFFSET = 8;
+    static final int RECORD_SIZE_OFFSET = 12;
+    static final int CAPACITY_OFFSET = 16;
+    static final int NAME_COUNT_OFFSET = 20;
+    static final int COUNT_OFFSET = 24;
+    static final int NAMES_OFFSET = 64;
+
+    // Record layout
+    static final int RECORD_SIZE = 128;
+    static final int SEQUENCE = 0;
+    static final int TIMESTAMP = 8;
+    static final int ACTIVE_COMMANDS = 16;
+    static final int GYRO_ANGLE = 24;
+    static final int GYRO_RATE = 28;
+    static final int LEFT_DISTANCE = 32;
+    static final int RIGHT_DISTANCE = 36;
+    static final int LEFT_RATE = 40;
+    static final int RIGHT_RATE = 44;
+    static final int ACCEL_X = 48;
+    static final int ACCEL_Y = 52;
+    static final int ACCEL_Z = 56;
+    static final int LEFT_MOTOR = 60;
+    static final int RIGHT_MOTOR = 64;
+    static final int RAMP_MOTOR = 68;
+    static final int AXIS_DRIVE_X = 72;
+    static final int AXIS_DRIVE_Y = 76;
+    static final int AXIS_LEFT_TRIGGER = 80;
+    static final int AXIS_RIGHT_TRIGGER = 84;
+    static final int MODE = 88;
+    static final int PLATES = 89;
+    static final int FLAGS = 90;
+    static final int BUTTONS = 91;
+    static final int AXIS_RIGHT_Y = 92;
+    static final int DRIVE_LIMIT = 96;
+    static final int RAMP_LIMIT = 100;
+    static final int RAW_DRIVE_X = 104;
+    static final int RAW_DRIVE_Y = 108;
+    static final int RAW_RIGHT_Y = 112;
+    static final int DRIVER_PROFILE = 116;
+    static final int ROUTE_SIDE = 117;
+    static final int ROUTE_STYLE = 118;
+    static final int GAME_DATA = 119;
+    /**
+     * The number of characters of the FMS game message that are kept, which is all of them in 2018.
+     */
+    static final int GAME_DATA_LENGTH = 3;
+
+    /**
+     * Flag bit set when the gyroscope was calibrated.
+     */
+    static final int FLAG_GYRO_READY = 1;
+    /**
+     * Flag bit set when the driver had tank controls selected.
+     */
+    static final int FLAG_TANK_CONTROLS = 1 << 1;
+    /**
+     * Flag bit set when the driver had squared inputs selected.
+     */
+    static final int FLAG_SQUARE_INPUTS = 1 << 2;
+    /**
+     * Flag bit set when the drivetrain was velocity controlled.
+     */
+    static final int FLAG_VELOCITY_CONTROL = 1 << 3;
+    /**
+     * Flag bit set when the cube beam-break was broken.
+     */
+    static final int FLAG_CUBE_BEAM_BROKEN = 1 << 4;
+    /**
+     * Button bit set when a run button was held.
+     */
+    static final int BUTTON_RUN = 1;
+    /**
+     * Button bit set when a heading lock button was held.
+     */
+    static final int BUTTON_HEADING_LOCK = 1 << 1;
+
+    /**
+     * The robot mode of a record.
+     */
+    public enum Mode {
+        DISABLED, AUTONOMOUS, TELEOP, TEST
+    }
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final ScheduledExecutorService flusher;
+
+    private long count = 0;
+    private int offset = HEADER_SIZE;
+    private long activeCommands = 0;
+    private int nameCount = 0;
+
+    /**
+     * Opens a recorder. An existing file at the path is kept by renaming it with a {@code .prev} suffix, so the
+     * previous boot's log survives a restart.
+     *
+     * @param path     The non-null path of the log file
+     * @param capacity The positive number of records to keep
+     */
+    public TelemetryRecorder(Path path, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+        }
+        final ByteBuffer mapped = map(path, HEADER_SIZE + (long) RECORD_SIZE * capacity);
+        if (mapped == null) {
+            this.buffer = ByteBuffer.allocate(HEADER_SIZE + RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            this.capacity = 1;
+            this.flusher = null;
+        } else {
+            this.buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+            this.capacity = capacity;
+            this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "Telemetry flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(((MappedByteBuffer) mapped)::force, FLUSH_INTERVAL_MS,
+                    FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            LOGGER.log(Level.INFO, "Recording telemetry to " + path + " (" + capacity + " records)");
+        }
+
+        for (int i = 0; i < MAGIC.length; i++) {
+            buffer.put(i, MAGIC[i]);
+        }
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+        buffer.putInt(CAPACITY_OFFSET, this.capacity);
+        buffer.putInt(NAME_COUNT_OFFSET, 0);
+        buffer.putLong(COUNT_OFFSET, 0L);
+    }
+
+    /**
+     * Sets the name of a command ID, written to the header for the decoder. This allocates, so only call this
+     * outside the loop (e.g.: in constructors).
+     *
+     * @param id   The command ID between 0 and {@link #MAX_COMMANDS} (exclusive), such as its profiler slot
+     * @param name The non-null name
+     */
+    public void nameCommand(int id, String name) {
+        if (id < 0 || id >= MAX_COMMANDS) {
+            return;
+        }
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        final int length = Math.min(bytes.length, NAME_SIZE - 1);
+        final int start = NAMES_OFFSET + id * NAME_SIZE;
+        buffer.put(start, (byte) length);
+        for (int i = 0; i < length; i++) {
+            buffer.put(start + 1 + i, bytes[i]);
+        }
+        nameCount = Math.max(nameCount, id + 1);
+        buffer.putInt(NAME_COUNT_OFFSET, nameCount);
+    }
+
+    /**
+     * Marks a command as having run in the current record.
+     *
+     * @param id The command ID given to {@link #nameCommand(int, String)}. Out of range IDs are ignored
+     */
+    public void markActive(int id) {
+        if (id >= 0 && id < MAX_COMMANDS) {
+            activeCommands |= 1L << id;
+        }
+    }
+
+    /**
+     * Starts a new record with the values of a sensor frame.
+     *
+     * @param frame The non-null frame for this loop
+     */
+    public void begin(SensorFrame frame) {
+        offset = HEADER_SIZE + (int) (count % capacity) * RECORD_SIZE;
+        buffer.putLong(offset + SEQUENCE, count);
+        buffer.putDouble(offset + TIMESTAMP, frame.getTimestamp());
+        buffer.putFloat(offset + GYRO_ANGLE, (float) frame.getGyroAngle());
+        buffer.putFloat(offset + GYRO_RATE, (float) frame.getGyroRate());
+        buffer.putFloat(offset + LEFT_DISTANCE, (float) frame.getLeftDistance());
+        buffer.putFloat(offset + RIGHT_DISTANCE, (float) frame.getRightDistance());
+        buffer.putFloat(offset + LEFT_RATE, (float) frame.getLeftRate());
+        buffer.putFloat(offset + RIGHT_RATE, (float) frame.getRightRate());
+        buffer.putFloat(offset + ACCEL_X, (float) frame.getAccelX());
+        buffer.putFloat(offset + ACCEL_Y, (float) frame.getAccelY());
+        buffer.putFloat(offset + ACCEL_Z, (float) frame.getAccelZ());
+        buffer.put(offset + FLAGS, (byte) ((frame.isGyroReady() ? FLAG_GYRO_READY : 0) |
+                (frame.isCubeBeamBroken() ? FLAG_CUBE_BEAM_BROKEN : 0)));
+    }
+
+    /**
+     * @param left  The left drive motor output
+     * @param right The right drive motor output
+     * @param ramp  The ramp motor output
+     */
+    public void setMotors(double left, double right, double ramp) {
+        buffer.putFloat(offset + LEFT_MOTOR, (float) left);
+        buffer.putFloat(offset + RIGHT_MOTOR, (float) right);
+        buffer.putFloat(offset + RAMP_MOTOR, (float) ramp);
+    }
+
+    /**
+     * Records everything the driver controlled, so it can be replayed. Call after {@link #begin(SensorFrame)}.
+     *
+     * @param inputs The non-null driver inputs for this loop
+     */
+    public void setInputs(DriverInputs inputs) {
+        buffer.putFloat(offset + AXIS_DRIVE_X, (float) inputs.getDriveX());
+        buffer.putFloat(offset + AXIS_DRIVE_Y, (float) inputs.getDriveY());
+        buffer.putFloat(offset + AXIS_RIGHT_Y, (float) inputs.getRightY());
+        buffer.putFloat(offset + AXIS_LEFT_TRIGGER, (float) inputs.getLeftTrigger());
+        buffer.putFloat(offset + AXIS_RIGHT_TRIGGER, (float) inputs.getRightTrigger());
+        buffer.put(offset + BUTTONS, (byte) ((inputs.isRunHeld() ? BUTTON_RUN : 0) |
+                (inputs.isHeadingLockHeld() ? BUTTON_HEADING_LOCK : 0)));
+
+        final int flags = buffer.get(offset + FLAGS) & ~(FLAG_TANK_CONTROLS | FLAG_SQUARE_INPUTS);
+        buffer.put(offset + FLAGS, (byte) (flags | (inputs.isTankControls() ? FLAG_TANK_CONTROLS : 0) |
+                (inputs.isSquareInputs() ? FLAG_SQUARE_INPUTS : 0)));
+    }
+
+    /**
+     * Records the drive sticks before they were shaped, so a replay can shape them again. Call after
+     * {@link #begin(SensorFrame)}.
+     *
+     * @param curve         The drive (left) stick X axis, positive is clockwise
+     * @param throttle      The drive (left) stick Y axis, positive is forward
+     * @param rightThrottle The right stick Y axis, positive is forward
+     * @param profile       The index of the driver profile in {@link team6458.control.DriverProfile#ALL}, or -1 if
+     *                      it is not one of them
+     */
+    public void setRawSticks(double curve, double throttle, double rightThrottle, int profile) {
+        buffer.putFloat(offset + RAW_DRIVE_X, (float) curve);
+        buffer.putFloat(offset + RAW_DRIVE_Y, (float) throttle);
+        buffer.putFloat(offset + RAW_RIGHT_Y, (float) rightThrottle);
+        buffer.put(offset + DRIVER_PROFILE, (byte) profile);
+    }
+
+    /**
+     * Records what autonomous was started with, so a replay can build the same route. Call after
+     * {@link #begin(SensorFrame)}.
+     *
+     * @param gameData   The FMS game message, may be null. Only the first {@link #GAME_DATA_LENGTH} characters are
+     *                   kept
+     * @param routeSide  The alliance side of the switch delivery route that autonomous started, or -1 if it started
+     *                   something else
+     * @param routeStyle The {@link team6458.auto.AutoRoutes.Style} of that route
+     */
+    public void setAutonomous(String gameData, int routeSide, int routeStyle) {
+        for (int i = 0; i < GAME_DATA_LENGTH; i++) {
+            final char c = gameData != null && i < gameData.length() ? gameData.charAt(i) : 0;
+            // Only ASCII is expected, anything else is dropped
+            buffer.put(offset + GAME_DATA + i, (byte) (c < 128 ? c : 0));
+        }
+        buffer.put(offset + ROUTE_SIDE, (byte) routeSide);
+        buffer.put(offset + ROUTE_STYLE, (byte) routeStyle);
+    }
+
+    /**
+     * Records the output limits of the brownout governor, which scale the recorded motor outputs. Call after
+     * {@link #begin(SensorFrame)}.
+     *
+     * @param drive The drivetrain output limit, between 0.0 and 1.0
+     * @param ramp  The ramp output limit, between 0.0 and 1.0
+     */
+    public void setLimits(double drive, double ramp) {
+        buffer.putFloat(offset + DRIVE_LIMIT, (float) drive);
+        buffer.putFloat(offset + RAMP_LIMIT, (float) ramp);
+    }
+
+    /**
+     * Call after {@link #begin(SensorFrame)}.
+     *
+     * @param mode            The non-null robot mode
+     * @param plates          The index of the plate assignment in
+     *                        {@link team6458.util.PlateAssignment#VALID_STATES}, or -1 if unknown
+     * @param velocityControl True if the drivetrain is velocity controlled
+     */
+    public void setState(Mode mode, int plates, boolean velocityControl) {
+        buffer.put(offset + MODE, (byte) mode.ordinal());
+        buffer.put(offset + PLATES, (byte) plates);
+        final int flags = buffer.get(offset + FLAGS) & ~FLAG_VELOCITY_CONTROL;
+        buffer.put(offset + FLAGS, (byte) (flags | (velocityControl ? FLAG_VELOCITY_CONTROL : 0)));
+    }
+
+    /**
+     * Finishes the current record with the commands marked active since the last one, and publishes it.
+     */
+    public void commit() {
+        buffer.putLong(offset + ACTIVE_COMMANDS, activeCommands);
+        activeCommands = 0;
+        count++;
+        buffer.putLong(COUNT_OFFSET, count);
+    }
+
+    /**
+     * @return The number of records committed so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Stops the background flush and forces everything out. The recorder should not be used afterwards.
+     */
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    /**
+     * @return The mapped buffer, or null if the file could not be mapped
+     */
+    private static MappedByteBuffer map(Path path, long size) {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            if (Files.exists(path)) {
+                Files.move(path, path.resolveSibling(path.getFileName() + ".prev"),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+            // The mapping stays valid after the file is closed
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+                file.setLength(size);
+                return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Could not map telemetry file " + path + ", telemetry will not be recorded", e);
+            return null;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package team6458.util;
 
+import edu.wpi.cscore.UsbCamera;
 import edu.wpi.first.wpilibj.CameraServer;
 
 import java.util.logging.Level;
@@ -13,6 +14,13 @@ public final class CameraSetup {
     private static final Logger logger = Logger.getLogger(CameraSetup.class.getName());
     public static final String DEFAULT_CAMERA_NAME = "cam0";
     public static final int DEFAULT_CAMERA_ID = 0;
+    /**
+     * The resolution and frame rate for the vision pipeline, which are also what the driver sees. A low resolution
+     * keeps processing fast and the stream small.
+     */
+    public static final int VISION_WIDTH = 320;
+    public static final int VISION_HEIGHT = 240;
+    public static final int VISION_FPS = 30;
 
     /**
      * No instantiation.
@@ -51,4 +59,25 @@ public final class CameraSetup {
         return false;
     }
 
+    /**
+     * Sets up the default camera for both the driver's view and the vision pipeline, at {@link #VISION_WIDTH} by
+     * {@link #VISION_HEIGHT} and {@link #VISION_FPS}. Its frames can then be read from
+     * {@link CameraServer#getVideo()}, which also loads the OpenCV native library.
+     *
+     * @return True if successful, false otherwise
+     */
+    public static synchronized boolean setupVisionCamera() {
+        try {
+            final UsbCamera camera = CameraServer.getInstance().startAutomaticCapture(DEFAULT_CAMERA_NAME,
+                    DEFAULT_CAMERA_ID);
+            camera.setResolution(VISION_WIDTH, VISION_HEIGHT);
+            camera.setFPS(VISION_FPS);
+            return true;
+        } catch (Throwable t) {
+            logger.log(Level.WARNING, "Failed to start vision camera capture (" + DEFAULT_CAMERA_NAME + ", " +
+                    DEFAULT_CAMERA_ID + ")", t);
+            return false;
+        }
+    }
+
 }
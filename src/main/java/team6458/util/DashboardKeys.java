@@ -7,16 +7,32 @@ public final class DashboardKeys {
 
     public static final String FMS_GAME_DATA = "Switch/Scale Positions";
     public static final String GYROSCOPE = "Gyroscope";
+    public static final String GYROSCOPE_READY = "Gyroscope Ready";
     public static final String LEFT_ENCODER = "Left Encoder";
     public static final String RIGHT_ENCODER = "Right Encoder";
+    public static final String POSE = "Pose";
+    public static final String RANGEFINDER = "Rangefinder";
     public static final String INTAKE_THROTTLE = "Intake Throttle";
     public static final String TANK_CONTROLS = "Tank Controls";
     public static final String SQUARE_INPUTS = "Square Inputs";
+    public static final String HIGH_RATE_HEADING_CONTROL = "High-Rate Heading Control";
+    public static final String USE_MOTION_PROFILES = "Use Motion Profiles";
+    public static final String FOLLOW_PATHS = "Follow Paths";
+    public static final String VELOCITY_CONTROL = "Velocity Control";
+    public static final String LOOP_PROFILER = "Loop Profiler";
+    public static final String LOOP_OVERRUNS = "Loop Profiler/Overruns";
+    public static final String ALLOCATION_CHECK = "Allocation Check";
+    public static final String ROUTE_ERRORS = "Route Script Errors";
+    public static final String VISION = "Vision";
+    public static final String RUN_VISION = "Run Vision";
+    public static final String BROWNOUT_GOVERNOR = "Brownout Governor";
 
     public static final String CHOOSER_AUTONOMOUS = "Autonomous Command";
+    public static final String CHOOSER_DRIVER_PROFILE = "Driver Profile";
 
     public static final String CMD_RESET_ENCODERS = "Reset Encoders to Zero";
     public static final String CMD_GYRO_CALIBRATE = "Calibrate Gyroscope";
+    public static final String CMD_ALLOCATION_CHECK = "Run Allocation Check";
 
     /**
      * No instantiation.
@@ -63,11 +63,15 @@ public final class PlateAssignment {
         if (id == null || id.length() < 3) {
             return ALL_INVALID;
         } else {
-            String upper = id.toUpperCase(Locale.ROOT);
-            return VALID_STATES.stream().filter(it -> it.toString().equals(upper)).findFirst().orElseGet(() -> {
-                LOGGER.log(Level.WARNING, "Non-compliant FMS data: " + id);
-                return new PlateAssignment(upper);
-            });
+            // Plain loop instead of a stream, since this is called from the robot loop
+            for (int i = 0; i < VALID_STATES.size(); i++) {
+                final PlateAssignment state = VALID_STATES.get(i);
+                if (state.toString().equalsIgnoreCase(id)) {
+                    return state;
+                }
+            }
+            LOGGER.log(Level.WARNING, "Non-compliant FMS data: " + id);
+            return new PlateAssignment(id.toUpperCase(Locale.ROOT));
         }
     }
 
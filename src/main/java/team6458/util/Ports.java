@@ -26,13 +26,32 @@ public final class Ports {
         public static final int LEFT_ENCODER_CHANNEL_B = 1;
         public static final int RIGHT_ENCODER_CHANNEL_A = 2;
         public static final int RIGHT_ENCODER_CHANNEL_B = 3;
+        /**
+         * The beam-break receiver across the ramp, which reads high while it sees the beam.
+         */
+        public static final int CUBE_BEAM_BREAK = 4;
 
         private DIO() {
         }
     }
 
+    /**
+     * Power Distribution Panel channels, for reading motor currents.
+     */
+    public static final class PDP {
+        public static final int LEFT_RAMP = 10;
+        public static final int RIGHT_RAMP = 11;
+
+        private PDP() {
+        }
+    }
+
     public static final class Analog {
 
+        /**
+         * The ultrasonic rangefinder, mounted at the front of the ramp and facing forward, so it measures the
+         * distance to whatever the robot is driving towards (such as the switch fence), not the cube in the ramp.
+         */
         public static final int RANGEFINDER = 0;
 
         private Analog() {
@@ -0,0 +1,91 @@
+package team6458.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A lock-free single-slot handoff from one writer thread to one reader thread. The reader always gets the newest
+ * value that was published, and values it never read are overwritten (dropped) instead of queued.
+ * <p>
+ * There are three buffers, created once: the writer fills one, the reader holds another, and the third is the
+ * latest published value. Publishing and reading only swap indices with a single atomic operation, so neither side
+ * ever waits on the other, and nothing is allocated after construction.
+ * <p>
+ * A buffer must only be used by the side that holds it: the writer until {@link #publish()}, and the reader until
+ * the next {@link #read()}.
+ *
+ * @param <T> The type of buffer, which is mutable
+ */
+public final class TripleBuffer<T> {
+
+    /**
+     * The bits of {@link #state} that hold the index of the latest published buffer.
+     */
+    private static final int INDEX_MASK = 0b11;
+    /**
+     * The bit of {@link #state} that is set if the latest published buffer was not read yet.
+     */
+    private static final int FRESH = 0b100;
+
+    private final Object[] buffers = new Object[3];
+    private final AtomicInteger state = new AtomicInteger(1);
+    // Only used by the writer thread
+    private int writeIndex = 0;
+    // Only used by the reader thread
+    private int readIndex = 2;
+
+    /**
+     * Constructor.
+     *
+     * @param factory The non-null factory, called three times for the buffers
+     */
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = factory.get();
+        }
+    }
+
+    /**
+     * Writer only.
+     *
+     * @return The buffer to fill before the next {@link #publish()}
+     */
+    @SuppressWarnings("unchecked")
+    public T getWriteBuffer() {
+        return (T) buffers[writeIndex];
+    }
+
+    /**
+     * Writer only. Publishes the write buffer as the latest value, and takes a new write buffer.
+     *
+     * @return True if the previous value was never read, and was dropped
+     */
+    public boolean publish() {
+        final int previous = state.getAndSet(writeIndex | FRESH);
+        writeIndex = previous & INDEX_MASK;
+        return (previous & FRESH) != 0;
+    }
+
+    /**
+     * Reader only.
+     *
+     * @return True if a value was published since the last {@link #read()}
+     */
+    public boolean hasNew() {
+        return (state.get() & FRESH) != 0;
+    }
+
+    /**
+     * Reader only. Takes the latest published value, if there is a new one.
+     *
+     * @return The latest value, which is the same as the last call's if nothing new was published. Before anything is
+     * published, this is the third buffer from the factory
+     */
+    @SuppressWarnings("unchecked")
+    public T read() {
+        if (hasNew()) {
+            readIndex = state.getAndSet(readIndex) & INDEX_MASK;
+        }
+        return (T) buffers[readIndex];
+    }
+}
@@ -0,0 +1,30 @@
+package team6458.util.exception;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when an autonomous route script is not valid. It has every error found, not just the first one, so they
+ * can all be fixed at once.
+ */
+public class RouteScriptException extends Exception {
+
+    private final List<String> errors;
+
+    /**
+     * @param name   The name of the script
+     * @param errors The non-empty errors, each with where in the script it is
+     */
+    public RouteScriptException(String name, List<String> errors) {
+        super(name + ": " + String.join("; ", errors));
+        this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+    }
+
+    /**
+     * @return The unmodifiable errors
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,176 @@
+package team6458.vision;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the best power cube in a BGR camera frame by colour segmentation and contour scoring:
+ * <ol>
+ * <li>The frame is converted to HSV and thresholded to the cube's yellow.</li>
+ * <li>A morphological opening removes specks, such as reflections and yellow on bumpers far away.</li>
+ * <li>Each outer contour is scored on how much of its bounding box it fills, how close its aspect ratio is to a
+ * cube's and how large it is, see {@link #score(double, double, double, double)}.</li>
+ * <li>The best contour above {@link #MIN_SCORE} gives the bearing from its centre and the distance from its width,
+ * with a pinhole camera model.</li>
+ * </ol>
+ * The working images are reused between frames. This class is <b>not</b> thread-safe, and needs the OpenCV native
+ * library to be loaded (the {@link edu.wpi.first.wpilibj.CameraServer} does this on the robot).
+ */
+public final class CubeDetector {
+
+    /**
+     * The horizontal field of view in degrees of the Microsoft LifeCam HD-3000.
+     */
+    public static final double DEFAULT_HORIZONTAL_FOV = 61.0;
+    /**
+     * The width in metres of a power cube's face (13 inches).
+     */
+    public static final double CUBE_WIDTH = 0.33;
+    /**
+     * The width over height of a power cube seen from the front, 13 by 11 inches.
+     */
+    public static final double CUBE_ASPECT = 13.0 / 11.0;
+    /**
+     * The lowest score a contour needs to be a cube.
+     */
+    public static final double MIN_SCORE = 0.5;
+    /**
+     * The smallest contour area, as a fraction of the frame, that is scored. Smaller contours are noise, or cubes too
+     * far away to matter.
+     */
+    public static final double MIN_AREA_FRACTION = 0.002;
+
+    /**
+     * The lower bound of the cube's yellow in OpenCV's HSV (hue 0 to 180, saturation and value 0 to 255).
+     */
+    private static final Scalar LOWER_HSV = new Scalar(20.0, 100.0, 80.0);
+    /**
+     * The upper bound of the cube's yellow in OpenCV's HSV.
+     */
+    private static final Scalar UPPER_HSV = new Scalar(35.0, 255.0, 255.0);
+    /**
+     * The size in pixels of the opening kernel.
+     */
+    private static final double KERNEL_SIZE = 5.0;
+
+    private final double tanHalfFov;
+    private final Mat hsv = new Mat();
+    private final Mat mask = new Mat();
+    private final Mat hierarchy = new Mat();
+    private final Mat kernel = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(KERNEL_SIZE, KERNEL_SIZE));
+    private final List<MatOfPoint> contours = new ArrayList<>();
+
+    /**
+     * Constructor, with the {@link #DEFAULT_HORIZONTAL_FOV}.
+     */
+    public CubeDetector() {
+        this(DEFAULT_HORIZONTAL_FOV);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param horizontalFov The camera's horizontal field of view in degrees, between 0 and 180
+     */
+    public CubeDetector(double horizontalFov) {
+        if (horizontalFov <= 0.0 || horizontalFov >= 180.0) {
+            throw new IllegalArgumentException("Horizontal field of view must be between 0 and 180, got " +
+                    horizontalFov);
+        }
+        this.tanHalfFov = Math.tan(Math.toRadians(horizontalFov / 2.0));
+    }
+
+    /**
+     * Looks for the best cube in a frame.
+     *
+     * @param frame  The non-null BGR frame, which is not modified
+     * @param target The non-null target to set if a cube is found, which should have been reset for this frame
+     * @return True if a cube was found
+     */
+    public boolean detect(Mat frame, CubeTarget target) {
+        final int width = frame.width();
+        final int height = frame.height();
+        if (frame.empty() || width == 0 || height == 0) {
+            return false;
+        }
+
+        Imgproc.cvtColor(frame, hsv, Imgproc.COLOR_BGR2HSV);
+        Core.inRange(hsv, LOWER_HSV, UPPER_HSV, mask);
+        Imgproc.morphologyEx(mask, mask, Imgproc.MORPH_OPEN, kernel);
+
+        releaseContours();
+        Imgproc.findContours(mask, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+
+        final double frameArea = (double) width * height;
+        double bestScore = MIN_SCORE;
+        double bestCentreX = 0.0;
+        double bestWidth = 0.0;
+        for (MatOfPoint contour : contours) {
+            final double area = Imgproc.contourArea(contour);
+            if (area < MIN_AREA_FRACTION * frameArea) {
+                continue;
+            }
+            final Rect box = Imgproc.boundingRect(contour);
+            final double score = score(area, box.width, box.height, frameArea);
+            if (score >= bestScore) {
+                bestScore = score;
+                bestCentreX = box.x + box.width / 2.0;
+                bestWidth = box.width;
+            }
+        }
+        releaseContours();
+
+        if (bestWidth <= 0.0) {
+            return false;
+        }
+        // Pinhole model: the focal length in pixels is the half width over the tangent of the half field of view
+        final double focalLength = width / 2.0 / tanHalfFov;
+        final double bearing = Math.toDegrees(Math.atan((bestCentreX - width / 2.0) / focalLength));
+        final double distance = CUBE_WIDTH * focalLength / bestWidth;
+        target.setFound(bearing, distance, bestScore);
+        return true;
+    }
+
+    /**
+     * Scores a contour on how much like a cube it is. A cube is convex and nearly square, so it fills most of its
+     * bounding box and has an aspect ratio near {@link #CUBE_ASPECT}; seen from a corner it is up to about twice as
+     * wide. Larger contours are preferred, since they are closer and less likely to be noise.
+     *
+     * @param area      The contour's area in pixels
+     * @param width     The width of its bounding box in pixels
+     * @param height    The height of its bounding box in pixels
+     * @param frameArea The area of the frame in pixels
+     * @return The score between 0.0 and 1.0
+     */
+    public static double score(double area, double width, double height, double frameArea) {
+        if (width <= 0.0 || height <= 0.0 || frameArea <= 0.0) {
+            return 0.0;
+        }
+        // Full marks from 90 % filled, none below 50 %
+        final double fill = clamp((area / (width * height) - 0.5) / 0.4);
+        // Full marks at the cube's aspect ratio, none at twice or half of it
+        final double aspect = clamp(1.0 - Math.abs(Math.log(width / height / CUBE_ASPECT)) / Math.log(2.0));
+        // Full marks from a third of the frame's width and height
+        final double size = clamp(Math.sqrt(area / frameArea) * 3.0);
+        return 0.4 * fill + 0.4 * aspect + 0.2 * size;
+    }
+
+    private static double clamp(double value) {
+        return Math.max(0.0, Math.min(1.0, value));
+    }
+
+    private void releaseContours() {
+        for (MatOfPoint contour : contours) {
+            contour.release();
+        }
+        contours.clear();
+    }
+}
@@ -0,0 +1,108 @@
+package team6458.vision;
+
+import team6458.util.TripleBuffer;
+
+/**
+ * The result of looking for a power cube in one camera frame. Instances are reused through a {@link TripleBuffer},
+ * so a reader must not keep one past its next read.
+ */
+public final class CubeTarget {
+
+    private boolean found = false;
+    private double bearing = 0.0;
+    private double distance = 0.0;
+    private double score = 0.0;
+    private double captureTime = 0.0;
+    private double processingTime = 0.0;
+    private long frameNumber = 0L;
+
+    /**
+     * Starts a new result for a frame, with no cube found.
+     *
+     * @param captureTime The time in seconds the frame was captured, on the robot clock
+     * @param frameNumber The number of the frame, counting from 1
+     */
+    void reset(double captureTime, long frameNumber) {
+        this.found = false;
+        this.bearing = 0.0;
+        this.distance = 0.0;
+        this.score = 0.0;
+        this.captureTime = captureTime;
+        this.processingTime = 0.0;
+        this.frameNumber = frameNumber;
+    }
+
+    /**
+     * Sets the cube that was found.
+     *
+     * @param bearing  The bearing in degrees, positive is clockwise (right)
+     * @param distance The estimated distance in metres from the camera
+     * @param score    The score of the contour, between 0.0 and 1.0
+     */
+    void setFound(double bearing, double distance, double score) {
+        this.found = true;
+        this.bearing = bearing;
+        this.distance = distance;
+        this.score = score;
+    }
+
+    void setProcessingTime(double processingTime) {
+        this.processingTime = processingTime;
+    }
+
+    /**
+     * @return True if a cube was found in the frame
+     */
+    public boolean isFound() {
+        return found;
+    }
+
+    /**
+     * @return The bearing to the cube in degrees relative to the camera's heading, positive is clockwise (right).
+     * Zero if none was found
+     */
+    public double getBearing() {
+        return bearing;
+    }
+
+    /**
+     * @return The estimated distance to the cube in metres from the camera. Zero if none was found
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * @return The score of the cube's contour, between 0.0 and 1.0. Zero if none was found
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * @return The time in seconds the frame was captured, on the robot clock, or 0.0 if no frame was processed yet
+     */
+    public double getCaptureTime() {
+        return captureTime;
+    }
+
+    /**
+     * @return The time in seconds it took to process the frame
+     */
+    public double getProcessingTime() {
+        return processingTime;
+    }
+
+    /**
+     * @return The number of the frame, counting from 1, or 0 if no frame was processed yet
+     */
+    public long getFrameNumber() {
+        return frameNumber;
+    }
+
+    @Override
+    public String toString() {
+        return found ? String.format("Cube(frame %d, %.1f deg, %.2f m, score %.2f)", frameNumber, bearing, distance,
+                score) : "NoCube(frame " + frameNumber + ")";
+    }
+}
@@ -0,0 +1,45 @@
+package team6458.vision;
+
+import edu.wpi.cscore.CvSink;
+import org.opencv.core.Mat;
+import team6458.hal.Clock;
+
+/**
+ * Grabs frames from a camera through a cscore {@link CvSink}.
+ * <p>
+ * {@link CvSink#grabFrame(Mat, double)} waits for a frame newer than the last one grabbed, and the sink only keeps
+ * the newest, so a frame is timestamped with the robot clock when the grab returns. This is later than the exposure
+ * by the camera's USB transfer time.
+ */
+public final class CvSinkFrameSource implements FrameSource {
+
+    /**
+     * The time in seconds to wait for a frame, so the pipeline can be stopped even if the camera is unplugged.
+     */
+    public static final double GRAB_TIMEOUT = 0.5;
+
+    private final CvSink sink;
+    private final Clock clock;
+
+    /**
+     * Constructor.
+     *
+     * @param sink  The non-null sink, such as {@link edu.wpi.first.wpilibj.CameraServer#getVideo()}
+     * @param clock The non-null robot clock
+     */
+    public CvSinkFrameSource(CvSink sink, Clock clock) {
+        this.sink = sink;
+        this.clock = clock;
+    }
+
+    @Override
+    public double grab(Mat frame) {
+        // The frame time is in microseconds, or zero on an error or timeout
+        return sink.grabFrame(frame, GRAB_TIMEOUT) == 0L ? NO_FRAME : clock.getTimestamp();
+    }
+
+    @Override
+    public String getError() {
+        return sink.getError();
+    }
+}
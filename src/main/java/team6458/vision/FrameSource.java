@@ -0,0 +1,36 @@
+package team6458.vision;
+
+import org.opencv.core.Mat;
+
+/**
+ * Where a {@link VisionPipeline} gets its frames from: the camera on the robot ({@link CvSinkFrameSource}), or a
+ * directory of recorded images off the robot ({@link ImageDirectorySource}).
+ */
+public interface FrameSource {
+
+    /**
+     * Returned by {@link #grab(Mat)} if no frame was grabbed.
+     */
+    double NO_FRAME = -1.0;
+
+    /**
+     * Grabs the next frame, blocking until it is available or a short timeout.
+     *
+     * @param frame The non-null image to write the BGR frame to
+     * @return The time in seconds the frame was captured on the robot clock, or {@link #NO_FRAME} if there was an
+     * error (see {@link #getError()}) or a timeout
+     */
+    double grab(Mat frame);
+
+    /**
+     * @return The non-null description of the last error, or an empty string
+     */
+    String getError();
+
+    /**
+     * @return True if the source has no more frames, and the pipeline should stop
+     */
+    default boolean isFinished() {
+        return false;
+    }
+}
@@ -0,0 +1,117 @@
+package team6458.vision;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+import team6458.hal.Clock;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays back a directory of recorded images in file name order, so the pipeline can be run off the robot. Images
+ * can be given as fast as they are grabbed, or paced to a camera's frame rate to see how many frames the pipeline
+ * drops.
+ */
+public final class ImageDirectorySource implements FrameSource {
+
+    /**
+     * The image file extensions that are played back, in lower case.
+     */
+    public static final List<String> EXTENSIONS = Collections.unmodifiableList(
+            Arrays.asList(".png", ".jpg", ".jpeg", ".bmp"));
+
+    private final List<Path> files;
+    private final Clock clock;
+    private final double period;
+    private int next = 0;
+    private double nextTime = Double.NaN;
+    private String error = "";
+
+    /**
+     * Constructor.
+     *
+     * @param directory The non-null directory of images
+     * @param clock     The non-null clock to timestamp frames with
+     * @param frameRate The frame rate to pace playback to, or 0.0 to give images as fast as they are grabbed
+     * @throws IOException if the directory cannot be listed
+     */
+    public ImageDirectorySource(Path directory, Clock clock, double frameRate) throws IOException {
+        this.files = listImages(directory);
+        this.clock = clock;
+        this.period = frameRate > 0.0 ? 1.0 / frameRate : 0.0;
+    }
+
+    /**
+     * @param directory The non-null directory
+     * @return The image files in the directory, sorted by name
+     * @throws IOException if the directory cannot be listed
+     */
+    public static List<Path> listImages(Path directory) throws IOException {
+        final List<Path> images = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                final String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                for (String extension : EXTENSIONS) {
+                    if (name.endsWith(extension)) {
+                        images.add(file);
+                        break;
+                    }
+                }
+            }
+        }
+        Collections.sort(images);
+        return images;
+    }
+
+    /**
+     * @return The unmodifiable image files, in playback order
+     */
+    public List<Path> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    @Override
+    public double grab(Mat frame) {
+        if (isFinished()) {
+            error = "No more images";
+            return NO_FRAME;
+        }
+        if (period > 0.0) {
+            final double now = clock.getTimestamp();
+            if (Double.isNaN(nextTime)) {
+                nextTime = now;
+            } else if (nextTime > now) {
+                LockSupport.parkNanos((long) ((nextTime - now) * 1.0e9));
+            }
+            nextTime += period;
+        }
+
+        final Path file = files.get(next++);
+        final Mat image = Imgcodecs.imread(file.toString());
+        if (image.empty()) {
+            error = "Could not read " + file;
+            return NO_FRAME;
+        }
+        image.copyTo(frame);
+        image.release();
+        return clock.getTimestamp();
+    }
+
+    @Override
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return next >= files.size();
+    }
+}
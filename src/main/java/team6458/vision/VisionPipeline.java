@@ -0,0 +1,247 @@
+package team6458.vision;
+
+import org.opencv.core.Mat;
+import team6458.hal.Clock;
+import team6458.util.TripleBuffer;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Looks for power cubes on its own threads, so the main loop never waits on the camera or on image processing.
+ * <p>
+ * A grab thread takes frames from the {@link FrameSource} as fast as they come, and hands each to the processing
+ * thread through a {@link TripleBuffer}. The processing thread always takes the newest frame: frames that arrived
+ * while it was busy are dropped, and so are frames older than the maximum age (for example after a long garbage
+ * collection pause). Each result is handed to the main loop through a second {@link TripleBuffer}, which
+ * {@link #getLatest()} reads without locking or allocating.
+ * <p>
+ * Frames and results are reused, so nothing is allocated per frame outside of OpenCV.
+ */
+public final class VisionPipeline {
+
+    private static final Logger LOGGER = Logger.getLogger(VisionPipeline.class.getName());
+
+    /**
+     * The default maximum age in seconds of a frame when processing starts, three frames at 30 FPS.
+     */
+    public static final double DEFAULT_MAX_FRAME_AGE = 0.1;
+    /**
+     * The longest time in nanoseconds the processing thread sleeps before checking for a new frame, if it is not
+     * woken up by the grab thread.
+     */
+    private static final long IDLE_WAIT = 20_000_000L;
+
+    /**
+     * A frame handed from the grab thread to the processing thread.
+     */
+    private static final class Frame {
+        private final Mat image = new Mat();
+        private double captureTime = 0.0;
+        private long number = 0L;
+    }
+
+    private final Clock clock;
+    private final double maxFrameAge;
+    private final TripleBuffer<CubeTarget> targets = new TripleBuffer<>(CubeTarget::new);
+
+    private volatile boolean running = false;
+    private volatile boolean sourceFinished = false;
+    // Set once by start(), and never cleared
+    private Thread grabThread;
+    private Thread processThread;
+
+    // Each is only written by one thread
+    private volatile long grabbed = 0L;
+    private volatile long processed = 0L;
+    private volatile long dropped = 0L;
+    private volatile long stale = 0L;
+
+    /**
+     * Constructor. Nothing runs until {@link #start(FrameSource, CubeDetector)}, and until then
+     * {@link #getLatest()} gives a result with no cube. This does not need the OpenCV native library.
+     *
+     * @param clock       The non-null clock, in the same time base as the frame source's capture times
+     * @param maxFrameAge The maximum age in seconds of a frame when processing starts, such as
+     *                    {@link #DEFAULT_MAX_FRAME_AGE}
+     */
+    public VisionPipeline(Clock clock, double maxFrameAge) {
+        this.clock = clock;
+        this.maxFrameAge = maxFrameAge;
+    }
+
+    /**
+     * Starts the grab and processing threads. The OpenCV native library must be loaded.
+     *
+     * @param source   The non-null source of frames, which must only be used by this pipeline
+     * @param detector The non-null detector, which must only be used by this pipeline
+     * @throws IllegalStateException if the pipeline was already started
+     */
+    public synchronized void start(FrameSource source, CubeDetector detector) {
+        if (grabThread != null) {
+            throw new IllegalStateException("The vision pipeline was already started");
+        }
+        running = true;
+        final TripleBuffer<Frame> frames = new TripleBuffer<>(Frame::new);
+        processThread = new Thread(() -> process(frames, detector), "Vision processing");
+        final Thread process = processThread;
+        grabThread = new Thread(() -> grab(source, frames, process), "Vision grab");
+        // Vision is less important than the main loop and the control loops
+        processThread.setPriority(Thread.NORM_PRIORITY - 1);
+        processThread.setDaemon(true);
+        grabThread.setDaemon(true);
+        processThread.start();
+        grabThread.start();
+        LOGGER.log(Level.INFO, "Vision pipeline started");
+    }
+
+    /**
+     * Stops the threads after their current frame. This returns immediately.
+     */
+    public synchronized void stop() {
+        running = false;
+        final Thread thread = processThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Waits until the threads have ended, after {@link #stop()} or once the source has no more frames.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void join() throws InterruptedException {
+        final Thread grab;
+        final Thread process;
+        synchronized (this) {
+            grab = grabThread;
+            process = processThread;
+        }
+        if (grab != null) {
+            grab.join();
+            process.join();
+        }
+    }
+
+    /**
+     * Reads the newest result. This never waits on the vision threads and does not allocate. It must only be called
+     * from a single thread, normally the main loop.
+     *
+     * @return The newest result, which is only valid until the next call. Check its capture time before using it
+     */
+    public CubeTarget getLatest() {
+        return targets.read();
+    }
+
+    /**
+     * @return True if the threads were started and have not stopped
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return The number of frames grabbed from the source
+     */
+    public long getGrabbedCount() {
+        return grabbed;
+    }
+
+    /**
+     * @return The number of frames processed
+     */
+    public long getProcessedCount() {
+        return processed;
+    }
+
+    /**
+     * @return The number of frames replaced by a newer one before they were processed
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * @return The number of frames that were too old when processing started
+     */
+    public long getStaleCount() {
+        return stale;
+    }
+
+    /**
+     * The grab thread.
+     */
+    private void grab(FrameSource source, TripleBuffer<Frame> frames, Thread process) {
+        String lastError = "";
+        while (running) {
+            if (source.isFinished()) {
+                LOGGER.log(Level.INFO, "Vision frame source has no more frames");
+                break;
+            }
+            final Frame frame = frames.getWriteBuffer();
+            final double captureTime = source.grab(frame.image);
+            if (captureTime == FrameSource.NO_FRAME) {
+                // Only log an error once, a missing camera would otherwise log twice a second
+                final String error = source.getError();
+                if (!error.equals(lastError)) {
+                    LOGGER.log(Level.WARNING, "Could not grab a vision frame: " + error);
+                    lastError = error;
+                }
+                continue;
+            }
+            lastError = "";
+            frame.captureTime = captureTime;
+            frame.number = ++grabbed;
+            if (frames.publish()) {
+                dropped++;
+            }
+            LockSupport.unpark(process);
+        }
+        sourceFinished = true;
+        LockSupport.unpark(process);
+    }
+
+    /**
+     * The processing thread.
+     */
+    private void process(TripleBuffer<Frame> frames, CubeDetector detector) {
+        boolean failed = false;
+        while (running) {
+            if (!frames.hasNew()) {
+                if (sourceFinished) {
+                    break;
+                }
+                LockSupport.parkNanos(this, IDLE_WAIT);
+                continue;
+            }
+
+            final Frame frame = frames.read();
+            final double start = clock.getTimestamp();
+            if (start - frame.captureTime > maxFrameAge) {
+                stale++;
+                continue;
+            }
+
+            final CubeTarget target = targets.getWriteBuffer();
+            target.reset(frame.captureTime, frame.number);
+            try {
+                detector.detect(frame.image, target);
+                failed = false;
+            } catch (RuntimeException e) {
+                // Keep running with no cube found, but only log the first of a run of failures
+                if (!failed) {
+                    LOGGER.log(Level.SEVERE, "Vision processing failed on frame " + frame.number, e);
+                    failed = true;
+                }
+            }
+            target.setProcessingTime(clock.getTimestamp() - start);
+            targets.publish();
+            processed++;
+        }
+        running = false;
+        LOGGER.log(Level.INFO, String.format("Vision pipeline stopped: %d frames grabbed, %d processed, %d dropped, " +
+                "%d stale", grabbed, processed, dropped, stale));
+    }
+}
@@ -0,0 +1,206 @@
+package team6458.sim;
+
+/**
+ * A simple physics model of a differential drivetrain. Each side's velocity follows its motor output with a
+ * first-order lag, after a static friction deadband; the heading comes from the difference between the sides.
+ * <p>
+ * The pose is field-relative from where the model was last reset: X is forward, Y is to the left, and the heading
+ * is in degrees with clockwise positive to match the ADXRS450 gyroscope.
+ * <p>
+ * The defaults are estimated from the drivetrain hardware: CIM motors through a 10.71:1 gearbox on 6" wheels
+ * (see {@link team6458.sensor.EncoderPresets#CIMCODER}), and should be tuned against logged runs.
+ */
+public final class DifferentialDrivePhysics {
+
+    /**
+     * The default speed at full output in m/s. The CIM free speed gives ~4.0 m/s, less losses under load.
+     */
+    public static final double DEFAULT_MAX_SPEED = 3.4;
+    /**
+     * The default time constant of each side's velocity response in seconds.
+     */
+    public static final double DEFAULT_TIME_CONSTANT = 0.15;
+    /**
+     * The default effective track width in metres. This is wider than the real wheelbase to account for scrub
+     * while turning.
+     */
+    public static final double DEFAULT_TRACK_WIDTH = 0.75;
+    /**
+     * The default output magnitude below which static friction holds a side still.
+     */
+    public static final double DEFAULT_STATIC_OUTPUT = 0.06;
+
+    private static final double GRAVITY = 9.80665;
+
+    public final double maxSpeed;
+    public final double timeConstant;
+    public final double trackWidth;
+    public final double staticOutput;
+
+    private double leftScale = 1.0;
+    private double rightScale = 1.0;
+
+    private double leftVelocity;
+    private double rightVelocity;
+    private double leftPosition;
+    private double rightPosition;
+    private double heading;
+    private double headingRate;
+    private double x;
+    private double y;
+    private double acceleration;
+
+    /**
+     * Constructor with the default parameters.
+     */
+    public DifferentialDrivePhysics() {
+        this(DEFAULT_MAX_SPEED, DEFAULT_TIME_CONSTANT, DEFAULT_TRACK_WIDTH, DEFAULT_STATIC_OUTPUT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxSpeed     The positive speed at full output in m/s
+     * @param timeConstant The positive time constant of the velocity response in seconds
+     * @param trackWidth   The positive effective track width in metres
+     * @param staticOutput The output magnitude below which a side does not move, between 0.0 and 1.0
+     */
+    public DifferentialDrivePhysics(double maxSpeed, double timeConstant, double trackWidth, double staticOutput) {
+        if (maxSpeed <= 0.0 || timeConstant <= 0.0 || trackWidth <= 0.0 || staticOutput < 0.0 || staticOutput >= 1.0) {
+            throw new IllegalArgumentException("Invalid parameters passed for drivetrain physics");
+        }
+
+        this.maxSpeed = maxSpeed;
+        this.timeConstant = timeConstant;
+        this.trackWidth = trackWidth;
+        this.staticOutput = staticOutput;
+    }
+
+    /**
+     * Advances the model.
+     *
+     * @param leftOutput  The left motor output between -1.0 and 1.0, positive is forward
+     * @param rightOutput The right motor output between -1.0 and 1.0, positive is forward
+     * @param dt          The positive time step in seconds
+     */
+    public void update(double leftOutput, double rightOutput, double dt) {
+        final double response = 1.0 - Math.exp(-dt / timeConstant);
+        final double oldVelocity = (leftVelocity + rightVelocity) / 2.0;
+
+        leftVelocity += (getTargetVelocity(leftOutput) * leftScale - leftVelocity) * response;
+        rightVelocity += (getTargetVelocity(rightOutput) * rightScale - rightVelocity) * response;
+        leftPosition += leftVelocity * dt;
+        rightPosition += rightVelocity * dt;
+
+        final double velocity = (leftVelocity + rightVelocity) / 2.0;
+        acceleration = (velocity - oldVelocity) / dt;
+
+        // Clockwise is positive, so a faster left side turns clockwise
+        headingRate = Math.toDegrees((leftVelocity - rightVelocity) / trackWidth);
+        heading += headingRate * dt;
+
+        final double radians = Math.toRadians(heading);
+        x += velocity * Math.cos(radians) * dt;
+        y -= velocity * Math.sin(radians) * dt;
+    }
+
+    /**
+     * Scales the speed of each side, to model a drivetrain where one side is weaker than the other.
+     *
+     * @param leftScale  The positive left side speed multiplier, 1.0 for none
+     * @param rightScale The positive right side speed multiplier, 1.0 for none
+     */
+    public void setSideScale(double leftScale, double rightScale) {
+        if (leftScale <= 0.0 || rightScale <= 0.0) {
+            throw new IllegalArgumentException("Side scales must be positive");
+        }
+        this.leftScale = leftScale;
+        this.rightScale = rightScale;
+    }
+
+    /**
+     * Stops the robot and moves it back to the origin.
+     */
+    public void reset() {
+        leftVelocity = 0.0;
+        rightVelocity = 0.0;
+        leftPosition = 0.0;
+        rightPosition = 0.0;
+        heading = 0.0;
+        headingRate = 0.0;
+        x = 0.0;
+        y = 0.0;
+        acceleration = 0.0;
+    }
+
+    private double getTargetVelocity(double output) {
+        final double magnitude = Math.min(1.0, Math.abs(output));
+        if (magnitude <= staticOutput) {
+            return 0.0;
+        }
+        return Math.copySign((magnitude - staticOutput) / (1.0 - staticOutput) * maxSpeed, output);
+    }
+
+    /**
+     * @return The left side velocity in m/s
+     */
+    public double getLeftVelocity() {
+        return leftVelocity;
+    }
+
+    /**
+     * @return The right side velocity in m/s
+     */
+    public double getRightVelocity() {
+        return rightVelocity;
+    }
+
+    /**
+     * @return The distance the left wheels have rolled in metres
+     */
+    public double getLeftPosition() {
+        return leftPosition;
+    }
+
+    /**
+     * @return The distance the right wheels have rolled in metres
+     */
+    public double getRightPosition() {
+        return rightPosition;
+    }
+
+    /**
+     * @return The heading in degrees, positive is clockwise
+     */
+    public double getHeading() {
+        return heading;
+    }
+
+    /**
+     * @return The heading rate in degrees per second, positive is clockwise
+     */
+    public double getHeadingRate() {
+        return headingRate;
+    }
+
+    /**
+     * @return The X position in metres, forward from the start
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * @return The Y position in metres, left of the start
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * @return The forward acceleration in g from the last update
+     */
+    public double getAcceleration() {
+        return acceleration / GRAVITY;
+    }
+}
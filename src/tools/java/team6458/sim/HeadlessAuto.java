@@ -0,0 +1,150 @@
+package team6458.sim;
+
+import team6458.auto.AutoRoutes;
+import team6458.auto.RouteStep;
+import team6458.cmd.AutoDeliverCommand.AllianceSide;
+import team6458.control.ProfiledDriveController;
+import team6458.control.ProfiledRotateController;
+import team6458.control.RotateController;
+import team6458.control.VelocityController;
+import team6458.sim.RouteRunner.Result;
+import team6458.sim.RouteRunner.StepResult;
+import team6458.util.PlateAssignment.PlateSide;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs the autonomous routes headless on the simulator and prints how each step went. Run with
+ * {@code ./gradlew simulate}, optionally with {@code -Pargs="..."}:
+ * <ul>
+ * <li>no arguments: every alliance side against every plate side</li>
+ * <li>{@code <LEFT|CENTRE|RIGHT> <LEFT|RIGHT>}: a single delivery route</li>
+ * <li>{@code rotate <degrees>}: a single PID rotation</li>
+ * <li>{@code allocation-check}: checks that the command and teleop loops do not allocate, see
+ * {@link SimAllocationCheck}</li>
+ * </ul>
+ * {@code --speed <factor>} paces the run to that many times real time instead of running as fast as possible,
+ * {@code --path} follows a single smooth path per route (including the far cases), {@code --profiled} follows motion
+ * profiles instead of the throttle gradients and PID rotations, {@code --gradient}
+ * rotates with the speed gradient instead of PID, {@code --velocity} runs the drive and rotate steps with velocity
+ * control, and {@code --battery <volts>} sets the battery voltage.
+ */
+public final class HeadlessAuto {
+
+    /**
+     * No instantiation.
+     */
+    private HeadlessAuto() {
+    }
+
+    /**
+     * The options given on the command line.
+     */
+    private static final class Options {
+        private double speed = 0.0;
+        private boolean profiled = false;
+        private boolean gradient = false;
+        private boolean path = false;
+        private boolean velocity = false;
+        private double battery = VelocityController.NOMINAL_VOLTAGE;
+    }
+
+    public static void main(String[] args) {
+        final Options options = new Options();
+        String[] positional = new String[0];
+        for (int i = 0; i < args.length; i++) {
+            if ("--speed".equals(args[i]) && i + 1 < args.length) {
+                options.speed = Double.parseDouble(args[++i]);
+            } else if ("--profiled".equals(args[i])) {
+                options.profiled = true;
+            } else if ("--gradient".equals(args[i])) {
+                options.gradient = true;
+            } else if ("--path".equals(args[i])) {
+                options.path = true;
+            } else if ("--velocity".equals(args[i])) {
+                options.velocity = true;
+            } else if ("--battery".equals(args[i]) && i + 1 < args.length) {
+                options.battery = Double.parseDouble(args[++i]);
+            } else {
+                final String[] grown = new String[positional.length + 1];
+                System.arraycopy(positional, 0, grown, 0, positional.length);
+                grown[positional.length] = args[i];
+                positional = grown;
+            }
+        }
+
+        boolean allCompleted = true;
+        if (positional.length == 0) {
+            for (AllianceSide alliance : AllianceSide.values()) {
+                for (PlateSide plate : new PlateSide[]{PlateSide.LEFT, PlateSide.RIGHT}) {
+                    allCompleted &= runDelivery(alliance, plate, options);
+                }
+            }
+        } else if ("rotate".equalsIgnoreCase(positional[0]) && positional.length == 2) {
+            final double angle = Double.parseDouble(positional[1]);
+            final RouteStep rotate;
+            if (options.profiled) {
+                rotate = RouteStep.profiledRotate(angle, ProfiledRotateController.DEFAULT_CONSTRAINTS);
+            } else if (options.gradient) {
+                rotate = RouteStep.rotate(angle, RotateController.DEFAULT_GRADIENT);
+            } else {
+                rotate = RouteStep.pidRotate(angle);
+            }
+            allCompleted = run("Rotate " + positional[1], Collections.singletonList(rotate), options);
+        } else if ("allocation-check".equalsIgnoreCase(positional[0])) {
+            allCompleted = SimAllocationCheck.run();
+        } else if (positional.length == 2) {
+            allCompleted = runDelivery(AllianceSide.valueOf(positional[0].toUpperCase(Locale.ROOT)),
+                    PlateSide.valueOf(positional[1].toUpperCase(Locale.ROOT)), options);
+        } else {
+            System.err.println("Usage: HeadlessAuto [--speed <factor>] [--path] [--profiled] [--gradient] [--velocity] " +
+                    "[--battery <volts>] " +
+                    "[<LEFT|CENTRE|RIGHT> <LEFT|RIGHT> | rotate <degrees> | allocation-check]");
+            System.exit(2);
+        }
+
+        System.exit(allCompleted ? 0 : 1);
+    }
+
+    private static boolean runDelivery(AllianceSide alliance, PlateSide plate, Options options) {
+        final List<RouteStep> steps;
+        if (options.path) {
+            steps = AutoRoutes.deliverPath(alliance, plate, true, AutoRoutes.DEFAULT_PATH_CONSTRAINTS);
+        } else if (options.profiled) {
+            steps = AutoRoutes.deliverProfiled(alliance, plate, true, ProfiledDriveController.DEFAULT_CONSTRAINTS,
+                    ProfiledRotateController.DEFAULT_CONSTRAINTS);
+        } else if (options.gradient) {
+            steps = AutoRoutes.deliver(alliance, plate, true, AutoRoutes.DEFAULT_THROTTLE,
+                    AutoRoutes.DEFAULT_LAST_STRETCH_THROTTLE, RotateController.DEFAULT_GRADIENT);
+        } else {
+            steps = AutoRoutes.deliver(alliance, plate, true, AutoRoutes.DEFAULT_THROTTLE,
+                    AutoRoutes.DEFAULT_LAST_STRETCH_THROTTLE);
+        }
+        return run(alliance + " station, " + plate + " plate" + (options.path ? ", path" : "") +
+                (options.profiled ? ", profiled" : "") +
+                (options.gradient ? ", gradient" : "") + (options.velocity ? ", velocity control" : ""), steps,
+                options);
+    }
+
+    private static boolean run(String name, List<RouteStep> steps, Options options) {
+        final SimHardware hardware = new SimHardware();
+        hardware.setBatteryVoltage(options.battery);
+        final Result result = new RouteRunner(hardware).setRealTimeFactor(options.speed)
+                .setVelocityControl(options.velocity).run(steps);
+
+        System.out.println("== " + name);
+        for (StepResult step : result.steps) {
+            System.out.println("  " + step);
+        }
+        System.out.printf("  %s in %.2f s (%d timed out), ended at x %.3f m, y %.3f m, heading %.2f deg%n",
+                result.completed ? "Completed" : "DID NOT COMPLETE", result.time, result.getTimeouts(),
+                result.x, result.y, result.heading);
+        System.out.printf("  Estimated x %.3f m, y %.3f m, heading %.2f deg (%.1f mm off)%n", result.estimatedX,
+                result.estimatedY, result.estimatedHeading, result.getPositionError() * 1000.0);
+        System.out.printf("  Ran %.0fx faster than real time%n%n", result.getSpeedup());
+
+        return result.completed;
+    }
+}
@@ -0,0 +1,563 @@
+package team6458.sim;
+
+import team6458.auto.AutoRoutes;
+import team6458.auto.RouteSequencer;
+import team6458.cmd.AutoDeliverCommand.AllianceSide;
+import team6458.control.DriverInputSampler;
+import team6458.control.DriverInputs;
+import team6458.control.DriverProfile;
+import team6458.control.LimitedDriveOutput;
+import team6458.control.TeleopDriveController;
+import team6458.control.VelocityDriveOutput;
+import team6458.hal.DriveOutput;
+import team6458.hal.DriverController;
+import team6458.sensor.CubeDeliveryDetector;
+import team6458.sensor.PoseEstimator;
+import team6458.telemetry.TelemetryLog;
+import team6458.telemetry.TelemetryRecorder;
+import team6458.telemetry.TelemetryRecorder.Mode;
+import team6458.util.PlateAssignment;
+import team6458.util.Utils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Replays a {@link TelemetryRecorder} log through the driver's and the autonomous control code, and diffs the outputs
+ * it produces against the recorded motor outputs, so a driver's report can be reproduced off the field. Runs on a
+ * desktop JVM, as fast as possible: a full match replays in well under a second.
+ * <p>
+ * The recorded raw sticks of every record are sampled by a {@link DriverInputSampler} with the recorded
+ * {@link DriverProfile}, like {@link team6458.OperatorControl} does, and the shaped sticks are compared with the
+ * recorded {@link DriverInputs}. In teleop, the shaped inputs and the gyroscope angle are then fed through a
+ * {@link TeleopDriveController} into a {@link SimDriveOutput}, so a shaping regression shows up in the outputs too.
+ * <p>
+ * In autonomous, the switch delivery route that was started is built again with {@link AutoRoutes} from the recorded
+ * route and FMS game message, and run by a {@link RouteSequencer}, the same one that {@link HeadlessAuto} and the
+ * robot run, on the recorded sensor frames: the heading, the encoders through a {@link PoseEstimator}, and the
+ * beam-break through a {@link CubeDeliveryDetector}. The recorded {@link team6458.control.BrownoutGovernor} limits are
+ * applied first, like on the robot. Disabled records are checked for non-zero outputs. What is not covered is listed
+ * in the usage, printed with {@code --help}.
+ * <p>
+ * Usage: {@code ReplayEngine <log file> [--tolerance <output>] [--verbose]}. Exits with status 1 if any output or
+ * shaped stick differs by more than the tolerance.
+ */
+public final class ReplayEngine {
+
+    /**
+     * The default largest allowed difference between a replayed and recorded output. Outputs are recorded as
+     * floats, so this is well above their rounding error.
+     */
+    public static final double DEFAULT_TOLERANCE = 1.0e-4;
+    /**
+     * The most mismatches printed when not verbose.
+     */
+    public static final int MAX_PRINTED_MISMATCHES = 20;
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: ReplayEngine <log file> [--tolerance <output>] [--verbose]",
+            "",
+            "Replays the recorded raw sticks through the DriverInputSampler and, in teleop, the",
+            "TeleopDriveController, and the SWITCH DELIVERY routes through the RouteSequencer in autonomous, then",
+            "compares the shaped sticks and the drive and ramp outputs with the recorded ones. Exits with status 1 on",
+            "any mismatch.",
+            "",
+            "Not covered (these records are counted, not compared):",
+            "  - teleop records where a command ran, since the scheduler needs the robot runtime",
+            "  - velocity control, since the battery voltage is not recorded",
+            "  - autonomous programs other than SWITCH DELIVERY: AVOID SWITCH, DO NOT MOVE and route files",
+            "  - test mode",
+            "  - sticks shaped with a profile that is not one of DriverProfile.ALL",
+            "Not replayed exactly:",
+            "  - the high rate heading control loop, which routes do not use",
+            "  - a gyroscope that failed calibrating: the route keeps waiting for it, the robot did not",
+            "  - deliveries confirmed by anything but the beam-break, which is the only delivery sensor recorded",
+            "  - the first records of a log that does not start at boot, before the shaper and controllers settle");
+
+    /**
+     * The outcome of a replay.
+     */
+    public static final class Result {
+        private long replayed = 0;
+        private long autonomousReplayed = 0;
+        private long shaped = 0;
+        private long commandDriven = 0;
+        private long velocityControlled = 0;
+        private long notReplayed = 0;
+        private long missing = 0;
+        private long mismatches = 0;
+        private long shapingMismatches = 0;
+        private long disabledOutputs = 0;
+        private double maxError = 0.0;
+
+        /**
+         * @return The number of teleoperated records replayed and compared
+         */
+        public long getReplayed() {
+            return replayed;
+        }
+
+        /**
+         * @return The number of autonomous records replayed and compared
+         */
+        public long getAutonomousReplayed() {
+            return autonomousReplayed;
+        }
+
+        /**
+         * @return The number of records whose raw sticks were shaped and compared
+         */
+        public long getShaped() {
+            return shaped;
+        }
+
+        /**
+         * @return The number of teleoperated records not compared because a command ran
+         */
+        public long getCommandDriven() {
+            return commandDriven;
+        }
+
+        /**
+         * @return The number of teleoperated and autonomous records not compared because the drivetrain was velocity
+         * controlled
+         */
+        public long getVelocityControlled() {
+            return velocityControlled;
+        }
+
+        /**
+         * @return The number of autonomous records of other programs than the switch deliveries, and test records,
+         * which are not replayed
+         */
+        public long getNotReplayed() {
+            return notReplayed;
+        }
+
+        /**
+         * @return The number of records that were overwritten or not flushed
+         */
+        public long getMissing() {
+            return missing;
+        }
+
+        /**
+         * @return The number of replayed records with an output differing by more than the tolerance
+         */
+        public long getMismatches() {
+            return mismatches;
+        }
+
+        /**
+         * @return The number of records with a shaped stick differing by more than the tolerance
+         */
+        public long getShapingMismatches() {
+            return shapingMismatches;
+        }
+
+        /**
+         * @return The number of disabled records with a non-zero output
+         */
+        public long getDisabledOutputs() {
+            return disabledOutputs;
+        }
+
+        /**
+         * @return The largest difference between a replayed and recorded output
+         */
+        public double getMaxError() {
+            return maxError;
+        }
+
+        private long getPrinted() {
+            return mismatches + shapingMismatches;
+        }
+    }
+
+    /**
+     * No instantiation.
+     */
+    private ReplayEngine() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        double tolerance = DEFAULT_TOLERANCE;
+        boolean verbose = false;
+        String file = "";
+        for (int i = 0; i < args.length; i++) {
+            if ("--tolerance".equals(args[i]) && i + 1 < args.length) {
+                tolerance = Double.parseDouble(args[++i]);
+            } else if ("--verbose".equals(args[i])) {
+                verbose = true;
+            } else if ("--help".equals(args[i])) {
+                System.out.println(USAGE);
+                System.exit(0);
+            } else {
+                file = args[i];
+            }
+        }
+        if (file.isEmpty()) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        final TelemetryLog log = TelemetryLog.read(Paths.get(file));
+        final long start = System.nanoTime();
+        final Result result = replay(log, tolerance, verbose, System.out);
+        final double elapsed = (System.nanoTime() - start) / 1.0e6;
+
+        System.out.println(String.format(Locale.ROOT,
+                "Replayed %d teleop and %d autonomous records in %.1f ms, max error %.6f, %d mismatched",
+                result.replayed, result.autonomousReplayed, elapsed, result.maxError, result.mismatches));
+        System.out.println(String.format(Locale.ROOT, "Shaped the sticks of %d records, %d mismatched",
+                result.shaped, result.shapingMismatches));
+        System.out.println(String.format(Locale.ROOT,
+                "Skipped %d command-driven, %d velocity-controlled, %d other autonomous/test, %d missing; " +
+                        "%d disabled records had output (see --help for what is not covered)", result.commandDriven,
+                result.velocityControlled, result.notReplayed, result.missing, result.disabledOutputs));
+        System.exit(result.mismatches == 0 && result.shapingMismatches == 0 ? 0 : 1);
+    }
+
+    /**
+     * Replays a whole log.
+     *
+     * @param log       The non-null log
+     * @param tolerance The largest allowed difference between a replayed and recorded output
+     * @param verbose   True to print every mismatch, false to stop after {@link #MAX_PRINTED_MISMATCHES}
+     * @param out       The non-null stream to print transitions and mismatches to
+     * @return The non-null result
+     */
+    public static Result replay(TelemetryLog log, double tolerance, boolean verbose, PrintStream out) {
+        final Result result = new Result();
+        final DriverInputs recorded = new DriverInputs();
+        final DriverInputSampler sampler = new DriverInputSampler(new RecordedController(log, recorded));
+        final TeleopDriveController controller = new TeleopDriveController();
+        final SimDriveOutput drive = new SimDriveOutput(new SimMotor(), new SimMotor());
+        final LimitedDriveOutput limitedDrive = new LimitedDriveOutput(drive);
+        final RecordContext context = new RecordContext(log, limitedDrive);
+        RouteSequencer route = null;
+        boolean routeStarted = false;
+
+        boolean first = true;
+        Mode lastMode = Mode.DISABLED;
+        PlateAssignment lastPlates = PlateAssignment.ALL_INVALID;
+        for (long sequence = log.getFirst(); sequence < log.getCount(); sequence++) {
+            if (!log.select(sequence)) {
+                result.missing++;
+                continue;
+            }
+
+            final Mode mode = log.getMode();
+            final PlateAssignment plates = log.getPlates();
+            if (first || mode != lastMode || plates != lastPlates) {
+                out.println(String.format(Locale.ROOT, "[%d] t=%.3f %s %s", sequence, log.getTimestamp(), mode,
+                        plates));
+            }
+            if (lastMode == Mode.TELEOP && mode != Mode.TELEOP) {
+                // The driver lost control of the robot
+                controller.reset();
+                drive.stopMotor();
+            }
+            if (lastMode == Mode.AUTONOMOUS && mode != Mode.AUTONOMOUS) {
+                if (route != null && routeStarted) {
+                    route.stop();
+                }
+                route = null;
+                drive.stopMotor();
+                context.rampSpeed = 0.0;
+            }
+            if (mode == Mode.AUTONOMOUS && lastMode != Mode.AUTONOMOUS) {
+                // Like SemiRobot#autonomousInit, before this loop's pose update
+                context.pose.reset(0.0, 0.0, 0.0);
+                route = createRoute(log, context, out);
+                routeStarted = false;
+            }
+            first = false;
+            lastMode = mode;
+            lastPlates = plates;
+
+            // Like the robot, the pose and the shaped sticks are updated every loop in every mode
+            context.pose.update(log.getLeftDistance(), log.getRightDistance(), log.getLeftRate(), log.getRightRate(),
+                    0, log.getGyroAngle(), log.getGyroRate(), log.isGyroReady());
+            log.getInputs(recorded);
+            final DriverInputs inputs = sample(log, sampler, recorded, mode == Mode.TELEOP, tolerance, verbose,
+                    out, result);
+
+            switch (mode) {
+                case DISABLED:
+                    if (Math.abs(log.getLeftMotor()) > tolerance || Math.abs(log.getRightMotor()) > tolerance ||
+                            Math.abs(log.getRampMotor()) > tolerance) {
+                        result.disabledOutputs++;
+                    }
+                    break;
+                case TELEOP: {
+                    limitedDrive.setLimit(log.getDriveLimit());
+                    final double intake = controller.update(inputs, log.getGyroAngle(), limitedDrive) *
+                            log.getRampLimit();
+                    if (log.getActiveCommands() != 0) {
+                        result.commandDriven++;
+                        break;
+                    }
+                    if (log.isVelocityControlled()) {
+                        result.velocityControlled++;
+                        break;
+                    }
+                    result.replayed++;
+                    compare(log, drive.leftMotor.get(), -drive.rightMotor.get(), intake, tolerance, verbose,
+                            out, result);
+                    break;
+                }
+                case AUTONOMOUS:
+                    if (route == null) {
+                        result.notReplayed++;
+                        break;
+                    }
+                    if (log.isVelocityControlled()) {
+                        result.velocityControlled++;
+                        break;
+                    }
+                    limitedDrive.setLimit(log.getDriveLimit());
+                    // Like RouteCommand, the route waits for the gyroscope with the drivetrain stopped
+                    if (!routeStarted && log.isGyroReady()) {
+                        routeStarted = true;
+                        route.start();
+                    }
+                    if (routeStarted) {
+                        route.update();
+                    } else {
+                        limitedDrive.stopMotor();
+                    }
+                    result.autonomousReplayed++;
+                    compare(log, drive.leftMotor.get(), -drive.rightMotor.get(),
+                            context.rampSpeed * log.getRampLimit(), tolerance, verbose, out, result);
+                    break;
+                default:
+                    result.notReplayed++;
+                    break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds the route that the selected record's autonomous started.
+     *
+     * @return A new sequencer, or null if it cannot be replayed
+     */
+    private static RouteSequencer createRoute(TelemetryLog log, RecordContext context, PrintStream out) {
+        final AllianceSide side = log.getRouteSide();
+        final AutoRoutes.Style style = log.getRouteStyle();
+        if (side == null || style == null) {
+            out.println("  not a switch delivery, not replayed");
+            return null;
+        }
+        if (log.isVelocityControlled()) {
+            out.println("  velocity controlled, not replayed");
+            return null;
+        }
+        final String gameData = log.getGameData();
+        final PlateAssignment plates = gameData.isEmpty() ? PlateAssignment.ALL_INVALID :
+                PlateAssignment.fromString(gameData);
+        out.println(String.format(Locale.ROOT, "  replaying %s %s delivery to %s (game data \"%s\")", side, style,
+                plates.getNearest(), gameData));
+        return new RouteSequencer(AutoRoutes.deliver(side, plates.getNearest(), true, style), context,
+                RouteSequencer.Listener.NONE);
+    }
+
+    /**
+     * Samples the raw sticks of the selected record, and compares the shaped sticks with the recorded ones.
+     *
+     * @param recorded The selected record's inputs
+     * @return The non-null inputs to drive with: the sampled ones, or the recorded ones if they were shaped with an
+     * unknown profile
+     */
+    private static DriverInputs sample(TelemetryLog log, DriverInputSampler sampler, DriverInputs recorded,
+                                       boolean inControl, double tolerance, boolean verbose, PrintStream out,
+                                       Result result) {
+        final DriverProfile profile = log.getDriverProfile();
+        if (profile == null) {
+            return recorded;
+        }
+        sampler.sample(log.getTimestamp(), inControl, profile, recorded.isTankControls(), recorded.isSquareInputs());
+        result.shaped++;
+
+        final DriverInputs inputs = sampler.getInputs();
+        final double error = Math.max(Math.abs(inputs.getDriveX() - recorded.getDriveX()),
+                Math.max(Math.abs(inputs.getDriveY() - recorded.getDriveY()),
+                        Math.abs(inputs.getRightY() - recorded.getRightY())));
+        if (error > tolerance) {
+            result.shapingMismatches++;
+            print(verbose, out, result, String.format(Locale.ROOT,
+                    "[%d] t=%.3f shaping mismatch (%s): curve %.4f/%.4f, throttle %.4f/%.4f, right %.4f/%.4f " +
+                            "(replayed/recorded)", log.getSequence(), log.getTimestamp(), profile,
+                    inputs.getDriveX(), recorded.getDriveX(), inputs.getDriveY(), recorded.getDriveY(),
+                    inputs.getRightY(), recorded.getRightY()));
+        }
+        return inputs;
+    }
+
+    /**
+     * Compares the replayed outputs of the selected record with the recorded ones.
+     *
+     * @param right The replayed right output as set on the motor, which the robot's drive inverts
+     */
+    private static void compare(TelemetryLog log, double left, double right, double intake, double tolerance,
+                                boolean verbose, PrintStream out, Result result) {
+        final double error = Math.max(Math.abs(left - log.getLeftMotor()),
+                Math.max(Math.abs(right - log.getRightMotor()), Math.abs(intake - log.getRampMotor())));
+        result.maxError = Math.max(result.maxError, error);
+        if (error <= tolerance) {
+            return;
+        }
+
+        result.mismatches++;
+        print(verbose, out, result, String.format(Locale.ROOT,
+                "[%d] t=%.3f mismatch: left %.4f/%.4f, right %.4f/%.4f, intake %.4f/%.4f (replayed/recorded)",
+                log.getSequence(), log.getTimestamp(), left, log.getLeftMotor(), right, log.getRightMotor(),
+                intake, log.getRampMotor()));
+    }
+
+    /**
+     * Prints a mismatch, which was already counted, unless too many were printed.
+     */
+    private static void print(boolean verbose, PrintStream out, Result result, String message) {
+        if (verbose || result.getPrinted() <= MAX_PRINTED_MISMATCHES) {
+            out.println(message);
+        } else if (result.getPrinted() == MAX_PRINTED_MISMATCHES + 1) {
+            out.println("More mismatches, use --verbose to print all of them");
+        }
+    }
+
+    /**
+     * The selected record's raw sticks, and the triggers and buttons of its inputs.
+     */
+    private static final class RecordedController implements DriverController {
+
+        private final TelemetryLog log;
+        private final DriverInputs recorded;
+
+        private RecordedController(TelemetryLog log, DriverInputs recorded) {
+            this.log = log;
+            this.recorded = recorded;
+        }
+
+        @Override
+        public double getCurve() {
+            return log.getRawCurve();
+        }
+
+        @Override
+        public double getThrottle() {
+            return log.getRawThrottle();
+        }
+
+        @Override
+        public double getRightThrottle() {
+            return log.getRawRightThrottle();
+        }
+
+        @Override
+        public double getLeftTrigger() {
+            return recorded.getLeftTrigger();
+        }
+
+        @Override
+        public double getRightTrigger() {
+            return recorded.getRightTrigger();
+        }
+
+        @Override
+        public boolean isRunHeld() {
+            return recorded.isRunHeld();
+        }
+
+        @Override
+        public boolean isHeadingLockHeld() {
+            return recorded.isHeadingLockHeld();
+        }
+    }
+
+    /**
+     * Feeds a route the selected record's sensor values, and keeps the ramp speed it sets.
+     */
+    private static final class RecordContext implements RouteSequencer.Context {
+
+        private final TelemetryLog log;
+        private final LimitedDriveOutput drive;
+        private final VelocityDriveOutput velocityDrive;
+        private final PoseEstimator pose = new PoseEstimator();
+        private final CubeDeliveryDetector detector = new CubeDeliveryDetector(CubeDeliveryDetector.DEFAULT_METHOD);
+        private double rampSpeed = 0.0;
+
+        private RecordContext(TelemetryLog log, LimitedDriveOutput drive) {
+            this.log = log;
+            this.drive = drive;
+            // Never used, velocity controlled routes are not replayed
+            this.velocityDrive = new VelocityDriveOutput(drive);
+        }
+
+        @Override
+        public double getTimestamp() {
+            return log.getTimestamp();
+        }
+
+        @Override
+        public double getHeading() {
+            return log.getGyroAngle();
+        }
+
+        @Override
+        public double getHeadingRate() {
+            return log.getGyroRate();
+        }
+
+        @Override
+        public double getAverageDistance() {
+            return (log.getLeftDistance() + log.getRightDistance()) / 2.0;
+        }
+
+        @Override
+        public PoseEstimator getPoseEstimator() {
+            return pose;
+        }
+
+        @Override
+        public DriveOutput getDrive() {
+            return drive;
+        }
+
+        @Override
+        public VelocityDriveOutput getVelocityDrive() {
+            return velocityDrive;
+        }
+
+        @Override
+        public boolean isVelocityControlled() {
+            return false;
+        }
+
+        @Override
+        public void setRampSpeed(double speed) {
+            // Like Ramp#setSpeed, the output limit is applied when compared
+            rampSpeed = Utils.clamp(speed, -1.0, 1.0);
+        }
+
+        @Override
+        public void stopRamp() {
+            rampSpeed = 0.0;
+        }
+
+        @Override
+        public void startDelivery() {
+            detector.start(log.getTimestamp());
+        }
+
+        @Override
+        public boolean isDelivered() {
+            // Only the beam-break is recorded
+            return detector.update(log.getTimestamp(), log.isCubeBeamBroken(), Double.NaN, Double.NaN, Double.NaN);
+        }
+    }
+}
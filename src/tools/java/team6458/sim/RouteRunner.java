@@ -0,0 +1,360 @@
+package team6458.sim;
+
+import team6458.auto.RouteSequencer;
+import team6458.auto.RouteStep;
+import team6458.control.DriveStraightController;
+import team6458.control.RotateController;
+import team6458.control.VelocityDriveOutput;
+import team6458.hal.DriveOutput;
+import team6458.sensor.CubeDeliveryDetector;
+import team6458.sensor.PoseEstimator;
+import team6458.telemetry.CommandTracer.EndReason;
+import team6458.util.Ports.PWM;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs a list of {@link RouteStep}s headless on {@link SimHardware}, with the same {@link RouteSequencer} as the
+ * robot's {@link team6458.cmd.RouteCommand}, so the controllers, overlaps and timeouts are the robot's.
+ * <p>
+ * This only keeps the clock: every period the sensors are read, the sequencer runs one loop, and then the physics
+ * advance by one period. Timeouts are measured on the {@link VirtualClock}. A {@link PoseEstimator} is updated from
+ * the simulated sensors every loop, so its estimate can be compared with the true pose. There is no cube, so a
+ * delivery is confirmed {@link #DELIVERY_TIME} after it starts.
+ */
+public final class RouteRunner {
+
+    /**
+     * The loop period in seconds, the same as the robot's.
+     */
+    public static final double PERIOD = 0.02;
+    /**
+     * The length of the autonomous period in seconds.
+     */
+    public static final double AUTO_LENGTH = 15.0;
+    /**
+     * The time in seconds a delivery step takes to confirm the cube has left. There is no cube in the simulator, so
+     * this is how long the cube takes to roll out of the ramp, plus {@link CubeDeliveryDetector#CLEAR_TIME}.
+     */
+    public static final double DELIVERY_TIME = 0.8 + CubeDeliveryDetector.CLEAR_TIME;
+
+    private final SimHardware hardware;
+    private final PoseEstimator poseEstimator = new PoseEstimator();
+    private final VelocityDriveOutput velocityDrive;
+    private final SimContext context = new SimContext();
+    private boolean velocityControl = false;
+    private double driveKP = DriveStraightController.GYRO_CORRECTION;
+    private double rotateTolerance = RotateController.ANGLE_TOLERANCE;
+    private double realTimeFactor = 0.0;
+    private double deliveryTime = Double.POSITIVE_INFINITY;
+
+    /**
+     * @param hardware The non-null hardware to run on
+     */
+    public RouteRunner(SimHardware hardware) {
+        this.hardware = hardware;
+        this.velocityDrive = new VelocityDriveOutput(hardware.drive);
+    }
+
+    /**
+     * @param velocityControl True to run the drive, rotate and path steps with velocity control, like the robot with
+     *                        {@link team6458.util.DashboardKeys#VELOCITY_CONTROL} enabled
+     * @return This runner, for chaining
+     */
+    public RouteRunner setVelocityControl(boolean velocityControl) {
+        this.velocityControl = velocityControl;
+        return this;
+    }
+
+    /**
+     * @param driveKP The proportional constant for heading correction while driving
+     * @return This runner, for chaining
+     */
+    public RouteRunner setDriveKP(double driveKP) {
+        this.driveKP = driveKP;
+        return this;
+    }
+
+    /**
+     * @param rotateTolerance The angle tolerance in degrees for rotations
+     * @return This runner, for chaining
+     */
+    public RouteRunner setRotateTolerance(double rotateTolerance) {
+        this.rotateTolerance = rotateTolerance;
+        return this;
+    }
+
+    /**
+     * @param realTimeFactor How many times faster than real time to run, or zero to run as fast as possible
+     * @return This runner, for chaining
+     */
+    public RouteRunner setRealTimeFactor(double realTimeFactor) {
+        this.realTimeFactor = realTimeFactor;
+        return this;
+    }
+
+    /**
+     * Runs a route to completion, or until the autonomous period is over.
+     *
+     * @param steps The non-null steps to run in order
+     * @return The result
+     */
+    public Result run(List<RouteStep> steps) {
+        final List<StepResult> results = new ArrayList<>(steps.size());
+        final double[] startTimes = new double[steps.size()];
+        final RouteSequencer sequencer = new RouteSequencer(steps, context, new RouteSequencer.Listener() {
+            @Override
+            public void stepStarted(int index, RouteStep step) {
+                startTimes[index] = hardware.clock.getTimestamp();
+            }
+
+            @Override
+            public void stepEnded(int index, RouteStep step, EndReason reason) {
+                // Steps still running when the autonomous period ends are left out
+                if (reason != EndReason.INTERRUPTED) {
+                    results.add(new StepResult(step, startTimes[index], hardware.clock.getTimestamp(),
+                            reason == EndReason.TIMED_OUT, hardware.physics.getHeading(),
+                            hardware.getAverageDistance()));
+                }
+            }
+        }, driveKP, rotateTolerance);
+
+        final long wallStart = System.nanoTime();
+        final double simStart = hardware.clock.getTimestamp();
+        sequencer.start();
+        while (!isAutoOver(simStart)) {
+            sense(hardware.clock.getTimestamp());
+            if (sequencer.update()) {
+                break;
+            }
+            hardware.step(PERIOD);
+            pace(wallStart, hardware.clock.getTimestamp() - simStart);
+        }
+        final boolean completed = sequencer.isFinished();
+        sequencer.stop();
+
+        hardware.drive.stopMotor();
+        updatePose();
+        return new Result(results, hardware.clock.getTimestamp() - simStart, completed, System.nanoTime() - wallStart,
+                hardware.physics, poseEstimator);
+    }
+
+    /**
+     * Updates the pose and the velocity controller's measurements from the sensors, at the start of a loop.
+     */
+    private void sense(double now) {
+        updatePose();
+        velocityDrive.setMeasurements(now, hardware.leftEncoder.getRate(), hardware.rightEncoder.getRate(),
+                hardware.getBatteryVoltage());
+    }
+
+    private void updatePose() {
+        poseEstimator.update(hardware.leftEncoder.getDistance(), hardware.rightEncoder.getDistance(),
+                hardware.leftEncoder.getRate(), hardware.rightEncoder.getRate(), 0, hardware.gyro.getAngle(),
+                hardware.gyro.getRate(), true);
+    }
+
+    private boolean isAutoOver(double simStart) {
+        return hardware.clock.getTimestamp() - simStart >= AUTO_LENGTH;
+    }
+
+    private void pace(long wallStart, double simElapsed) {
+        if (realTimeFactor <= 0.0) {
+            return;
+        }
+        final long target = wallStart + (long) (simElapsed / realTimeFactor * 1e9);
+        final long sleep = target - System.nanoTime();
+        if (sleep > 0) {
+            try {
+                Thread.sleep(sleep / 1_000_000L, (int) (sleep % 1_000_000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The simulated sensors and motors.
+     */
+    private final class SimContext implements RouteSequencer.Context {
+
+        @Override
+        public double getTimestamp() {
+            return hardware.clock.getTimestamp();
+        }
+
+        @Override
+        public double getHeading() {
+            return hardware.gyro.getAngle();
+        }
+
+        @Override
+        public double getHeadingRate() {
+            return hardware.gyro.getRate();
+        }
+
+        @Override
+        public double getAverageDistance() {
+            return hardware.getAverageDistance();
+        }
+
+        @Override
+        public PoseEstimator getPoseEstimator() {
+            return poseEstimator;
+        }
+
+        @Override
+        public DriveOutput getDrive() {
+            return hardware.drive;
+        }
+
+        @Override
+        public VelocityDriveOutput getVelocityDrive() {
+            return velocityDrive;
+        }
+
+        @Override
+        public boolean isVelocityControlled() {
+            return velocityControl;
+        }
+
+        @Override
+        public void setRampSpeed(double speed) {
+            hardware.getMotor(PWM.LEFT_INTAKE).set(speed);
+            hardware.getMotor(PWM.RIGHT_INTAKE).set(speed);
+            hardware.getMotor(PWM.LEFT_RAMP).set(speed);
+            hardware.getMotor(PWM.RIGHT_RAMP).set(speed);
+        }
+
+        @Override
+        public void stopRamp() {
+            setRampSpeed(0.0);
+        }
+
+        @Override
+        public void startDelivery() {
+            deliveryTime = hardware.clock.getTimestamp() + DELIVERY_TIME;
+        }
+
+        @Override
+        public boolean isDelivered() {
+            return hardware.clock.getTimestamp() >= deliveryTime;
+        }
+    }
+
+    /**
+     * The result of a single step.
+     */
+    public static final class StepResult {
+
+        public final RouteStep step;
+        /**
+         * The simulated time the step started and ended at in seconds.
+         */
+        public final double startTime;
+        public final double endTime;
+        /**
+         * True if the step was given up on its timeout before finishing.
+         */
+        public final boolean timedOut;
+        /**
+         * The true heading in degrees and the average encoder distance in metres when the step ended.
+         */
+        public final double heading;
+        public final double distance;
+
+        private StepResult(RouteStep step, double startTime, double endTime, boolean timedOut, double heading,
+                           double distance) {
+            this.step = step;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.timedOut = timedOut;
+            this.heading = heading;
+            this.distance = distance;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%6.2f - %6.2f s  %-32s heading %7.2f deg, distance %6.3f m%s", startTime, endTime,
+                    step, heading, distance, timedOut ? "  TIMED OUT" : "");
+        }
+    }
+
+    /**
+     * The result of a whole route.
+     */
+    public static final class Result {
+
+        /**
+         * The results of the steps that ended, in order.
+         */
+        public final List<StepResult> steps;
+        /**
+         * The simulated time taken in seconds.
+         */
+        public final double time;
+        /**
+         * True if every step ended within the autonomous period.
+         */
+        public final boolean completed;
+        /**
+         * The wall-clock time taken in nanoseconds.
+         */
+        public final long wallNanos;
+        /**
+         * The true pose at the end: X and Y in metres, heading in degrees.
+         */
+        public final double x;
+        public final double y;
+        public final double heading;
+        /**
+         * The pose estimated from the sensors at the end: X and Y in metres, heading in degrees.
+         */
+        public final double estimatedX;
+        public final double estimatedY;
+        public final double estimatedHeading;
+
+        private Result(List<StepResult> steps, double time, boolean completed, long wallNanos,
+                       DifferentialDrivePhysics physics, PoseEstimator estimator) {
+            this.steps = Collections.unmodifiableList(steps);
+            this.time = time;
+            this.completed = completed;
+            this.wallNanos = wallNanos;
+            this.x = physics.getX();
+            this.y = physics.getY();
+            this.heading = physics.getHeading();
+            this.estimatedX = estimator.getX();
+            this.estimatedY = estimator.getY();
+            this.estimatedHeading = estimator.getHeading();
+        }
+
+        /**
+         * @return The distance between the estimated and true positions at the end in metres
+         */
+        public double getPositionError() {
+            return Math.hypot(estimatedX - x, estimatedY - y);
+        }
+
+        /**
+         * @return The number of steps that timed out
+         */
+        public int getTimeouts() {
+            int timeouts = 0;
+            for (StepResult step : steps) {
+                if (step.timedOut) {
+                    timeouts++;
+                }
+            }
+            return timeouts;
+        }
+
+        /**
+         * @return How many times faster than real time the route ran
+         */
+        public double getSpeedup() {
+            return wallNanos == 0 ? Double.POSITIVE_INFINITY : time / (wallNanos / 1e9);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package team6458.sim;
+
+import edu.wpi.first.wpilibj.interfaces.Accelerometer;
+
+/**
+ * A simulated accelerometer, lying flat with Y pointing forward.
+ */
+public final class SimAccelerometer implements Accelerometer {
+
+    private double y = 0.0;
+
+    /**
+     * Updates the forward acceleration, called by the simulator after each physics step.
+     *
+     * @param forward The forward acceleration in g
+     */
+    void update(double forward) {
+        this.y = forward;
+    }
+
+    @Override
+    public void setRange(Range range) {
+    }
+
+    @Override
+    public double getX() {
+        return 0.0;
+    }
+
+    @Override
+    public double getY() {
+        return y;
+    }
+
+    @Override
+    public double getZ() {
+        return 1.0;
+    }
+}
@@ -0,0 +1,365 @@
+package team6458.sim;
+
+import team6458.auto.AutoRoutes;
+import team6458.cmd.AutoDeliverCommand.AllianceSide;
+import team6458.control.BrownoutGovernor;
+import team6458.control.DriveStraightController;
+import team6458.control.DriverInputSampler;
+import team6458.control.DriverProfile;
+import team6458.control.LimitedDriveOutput;
+import team6458.control.PidRotateController;
+import team6458.control.ProfiledDriveController;
+import team6458.control.ProfiledRotateController;
+import team6458.control.PurePursuitController;
+import team6458.control.RampOutput;
+import team6458.control.RotateController;
+import team6458.control.TeleopDriveController;
+import team6458.control.VelocityDriveOutput;
+import team6458.sensor.PoseEstimator;
+import team6458.telemetry.AllocationCheck;
+import team6458.util.PlateAssignment.PlateSide;
+import team6458.util.Ports;
+
+/**
+ * Checks that the periodic code paths do not allocate, by running each of them headless against {@link SimHardware}
+ * for a whole simulated run of {@link #RUN_TIME} seconds. Run with {@code ./gradlew simulate -Pargs=allocation-check}.
+ * <p>
+ * Every command controller drives to real setpoints, finishes, and is restarted the other way, so the starts,
+ * ramps, profiles, integrators and tolerance checks are all reached many times. The teleop loop does what
+ * {@link team6458.OperatorControl#periodicUpdate()} does with sticks that sweep through the driver profiles, the slew
+ * limits, the run button, the heading lock, tank controls and disabling, into both the limited and the velocity
+ * drive, with the battery sagging far enough for the {@link BrownoutGovernor} to limit the drive and ramp.
+ * <p>
+ * A path passes if it allocated no more than {@link AllocationCheck#TOLERANCE_BYTES} over the whole run, and it
+ * reached its steady state: each command finished at least {@link #MIN_CYCLES} times, taking at least
+ * {@link #MIN_LOOPS_PER_CYCLE} loops on average, and the teleop loop went through every phase. The on-robot
+ * {@link team6458.cmd.AllocationCheckCommand} is only a smoke test of the real devices.
+ */
+final class SimAllocationCheck {
+
+    /**
+     * The simulated time in seconds each path is measured over.
+     */
+    static final double RUN_TIME = 300.0;
+    /**
+     * The fewest times each command must finish in a run.
+     */
+    static final int MIN_CYCLES = 10;
+    /**
+     * The fewest loops each command must take on average, so one that finishes right away fails.
+     */
+    static final int MIN_LOOPS_PER_CYCLE = 10;
+    /**
+     * The simulated time in seconds each path runs before measuring, long enough for every teleop phase to have
+     * happened once, so code reached for the first time is not counted.
+     */
+    static final double WARMUP_TIME = 100.0;
+    private static final int WARMUP = (int) (WARMUP_TIME / RouteRunner.PERIOD);
+    private static final int LOOPS = (int) (RUN_TIME / RouteRunner.PERIOD);
+    private static final double DISTANCE = 2.0;
+    private static final double ANGLE = 90.0;
+
+    /**
+     * No instantiation.
+     */
+    private SimAllocationCheck() {
+    }
+
+    /**
+     * Runs every path and prints the results.
+     *
+     * @return True if every path passed
+     */
+    static boolean run() {
+        if (!AllocationCheck.isSupported()) {
+            System.err.println("Allocation counting is not supported on this JVM");
+            return false;
+        }
+
+        boolean passed = check("Drive straight loop", new CommandLoop() {
+            private final DriveStraightController forward = driveStraight(DISTANCE);
+            private final DriveStraightController back = driveStraight(-DISTANCE);
+            private DriveStraightController controller;
+
+            @Override
+            void start() {
+                controller = reverse ? back : forward;
+                controller.start(hardware.gyro.getAngle(), hardware.getAverageDistance());
+            }
+
+            @Override
+            boolean update() {
+                controller.update(hardware.gyro.getAngle(), hardware.getAverageDistance(), hardware.drive);
+                return controller.isFinished(hardware.getAverageDistance());
+            }
+        });
+
+        passed &= check("Drive straight loop, velocity control", new CommandLoop() {
+            private final VelocityDriveOutput velocity = new VelocityDriveOutput(hardware.drive);
+            private final DriveStraightController forward = driveStraight(DISTANCE);
+            private final DriveStraightController back = driveStraight(-DISTANCE);
+            private DriveStraightController controller;
+
+            @Override
+            void start() {
+                controller = reverse ? back : forward;
+                controller.start(hardware.gyro.getAngle(), hardware.getAverageDistance());
+            }
+
+            @Override
+            boolean update() {
+                velocity.setMeasurements(hardware.clock.getTimestamp(), hardware.leftEncoder.getRate(),
+                        hardware.rightEncoder.getRate(), hardware.getBatteryVoltage());
+                controller.update(hardware.gyro.getAngle(), hardware.getAverageDistance(), velocity);
+                return controller.isFinished(hardware.getAverageDistance());
+            }
+        });
+
+        passed &= check("Rotate loop", new CommandLoop() {
+            private final RotateController clockwise = new RotateController(ANGLE, RotateController.DEFAULT_GRADIENT,
+                    RotateController.ANGLE_TOLERANCE);
+            private final RotateController anticlockwise = new RotateController(-ANGLE,
+                    RotateController.DEFAULT_GRADIENT, RotateController.ANGLE_TOLERANCE);
+            private RotateController controller;
+
+            @Override
+            void start() {
+                controller = reverse ? anticlockwise : clockwise;
+                controller.start(hardware.gyro.getAngle());
+            }
+
+            @Override
+            boolean update() {
+                controller.update(hardware.gyro.getAngle(), hardware.drive);
+                return controller.isFinished(hardware.gyro.getAngle());
+            }
+        });
+
+        passed &= check("PID rotate loop", new CommandLoop() {
+            private final PidRotateController clockwise = new PidRotateController(ANGLE);
+            private final PidRotateController anticlockwise = new PidRotateController(-ANGLE);
+            private PidRotateController controller;
+
+            @Override
+            void start() {
+                controller = reverse ? anticlockwise : clockwise;
+                controller.start(hardware.gyro.getAngle());
+            }
+
+            @Override
+            boolean update() {
+                final double now = hardware.clock.getTimestamp();
+                controller.update(now, hardware.gyro.getAngle(), hardware.gyro.getRate(), hardware.drive);
+                return controller.isFinished(now, hardware.gyro.getAngle(), hardware.gyro.getRate());
+            }
+        });
+
+        passed &= check("Profiled drive loop", new CommandLoop() {
+            private final ProfiledDriveController forward = new ProfiledDriveController(DISTANCE,
+                    ProfiledDriveController.DEFAULT_CONSTRAINTS, DriveStraightController.GYRO_CORRECTION);
+            private final ProfiledDriveController back = new ProfiledDriveController(-DISTANCE,
+                    ProfiledDriveController.DEFAULT_CONSTRAINTS, DriveStraightController.GYRO_CORRECTION);
+            private ProfiledDriveController controller;
+
+            @Override
+            void start() {
+                controller = reverse ? back : forward;
+                controller.start(hardware.clock.getTimestamp(), hardware.gyro.getAngle(),
+                        hardware.getAverageDistance());
+            }
+
+            @Override
+            boolean update() {
+                final double now = hardware.clock.getTimestamp();
+                controller.update(now, hardware.gyro.getAngle(), hardware.getAverageDistance(), hardware.drive);
+                return controller.isFinished(now, hardware.getAverageDistance());
+            }
+        });
+
+        passed &= check("Profiled rotate loop", new CommandLoop() {
+            private final ProfiledRotateController clockwise = new ProfiledRotateController(ANGLE,
+                    ProfiledRotateController.DEFAULT_CONSTRAINTS);
+            private final ProfiledRotateController anticlockwise = new ProfiledRotateController(-ANGLE,
+                    ProfiledRotateController.DEFAULT_CONSTRAINTS);
+            private ProfiledRotateController controller;
+
+            @Override
+            void start() {
+                controller = reverse ? anticlockwise : clockwise;
+                controller.start(hardware.clock.getTimestamp(), hardware.gyro.getAngle());
+            }
+
+            @Override
+            boolean update() {
+                final double now = hardware.clock.getTimestamp();
+                controller.update(now, hardware.gyro.getAngle(), hardware.gyro.getRate(), hardware.drive);
+                return controller.isFinished(now, hardware.gyro.getAngle());
+            }
+        });
+
+        passed &= check("Path loop", new CommandLoop() {
+            private final PoseEstimator pose = new PoseEstimator();
+            private final PurePursuitController controller = new PurePursuitController(AutoRoutes.getDeliveryPath(
+                    AllianceSide.LEFT, PlateSide.RIGHT, AutoRoutes.DEFAULT_PATH_CONSTRAINTS));
+
+            @Override
+            void start() {
+                // The path is relative to where it starts, so it is driven again from wherever the last one ended
+                updatePose();
+                controller.start(pose.getX(), pose.getY(), pose.getHeading());
+            }
+
+            @Override
+            boolean update() {
+                updatePose();
+                controller.update(pose.getX(), pose.getY(), pose.getHeading(), hardware.drive);
+                return controller.isFinished();
+            }
+
+            private void updatePose() {
+                pose.update(hardware.leftEncoder.getDistance(), hardware.rightEncoder.getDistance(),
+                        hardware.leftEncoder.getRate(), hardware.rightEncoder.getRate(), 0, hardware.gyro.getAngle(),
+                        hardware.gyro.getRate(), true);
+            }
+        });
+
+        final TeleopLoop teleop = new TeleopLoop();
+        final AllocationCheck.Result teleopResult = AllocationCheck.measure("Teleop loop", teleop, WARMUP, LOOPS);
+        final boolean teleopRan = teleop.profileChanges >= DriverProfile.ALL.size() && teleop.disables > 0 &&
+                teleop.velocityLoops > 0 && teleop.governor.getInterventions() > 0;
+        System.out.printf("  Teleop loop: %d profile changes, %d disables, %d of %d loops with velocity control, " +
+                        "%d brownout interventions%s%n", teleop.profileChanges, teleop.disables, teleop.velocityLoops,
+                teleop.loops, teleop.governor.getInterventions(), teleopRan ? "" : " - DID NOT REACH EVERY PHASE");
+        passed &= teleopResult.passed && teleopRan;
+
+        System.out.println(passed ? "Allocation check passed" : "Allocation check FAILED");
+        return passed;
+    }
+
+    private static DriveStraightController driveStraight(double distance) {
+        return new DriveStraightController(distance, DriveStraightController.createThrottleGradient(
+                AutoRoutes.DEFAULT_THROTTLE, Math.abs(distance)), DriveStraightController.GYRO_CORRECTION);
+    }
+
+    private static boolean check(String name, CommandLoop loop) {
+        loop.start();
+        final AllocationCheck.Result result = AllocationCheck.measure(name, loop, WARMUP, LOOPS);
+        final double loopsPerCycle = loop.cycles == 0 ? 0.0 : loop.loops / (double) loop.cycles;
+        final boolean ran = loop.cycles >= MIN_CYCLES && loopsPerCycle >= MIN_LOOPS_PER_CYCLE;
+        System.out.printf("  %s: finished %d times, %.0f loops each%s%n", name, loop.cycles, loopsPerCycle,
+                ran ? "" : " - DID NOT REACH THE STEADY STATE");
+        return result.passed && ran;
+    }
+
+    /**
+     * One loop of a command's {@code execute()} and {@code isFinished()}, then a physics step. A finished command is
+     * restarted the other way, as the next command in a route would be.
+     */
+    private abstract static class CommandLoop implements Runnable {
+
+        final SimHardware hardware = new SimHardware();
+        /**
+         * True to drive back or rotate anticlockwise on the next start.
+         */
+        boolean reverse = false;
+        int cycles = 0;
+        int loops = 0;
+
+        /**
+         * Starts the command from the current state, like {@code initialize()}.
+         */
+        abstract void start();
+
+        /**
+         * @return True if the command finished in this loop
+         */
+        abstract boolean update();
+
+        @Override
+        public void run() {
+            loops++;
+            final boolean finished = update();
+            hardware.step(RouteRunner.PERIOD);
+            if (finished) {
+                cycles++;
+                reverse = !reverse;
+                start();
+            }
+        }
+    }
+
+    /**
+     * One loop of {@link team6458.OperatorControl#periodicUpdate()} and the brownout governor, then a physics step.
+     * The sticks follow {@link SimDriverController#setPattern(double)}, and every other input is a function of the
+     * simulated time too, so the phases repeat over the run.
+     */
+    private static final class TeleopLoop implements Runnable {
+
+        private final SimHardware hardware = new SimHardware();
+        private final LimitedDriveOutput limitedDrive = new LimitedDriveOutput(hardware.drive);
+        private final VelocityDriveOutput velocityDrive = new VelocityDriveOutput(hardware.drive);
+        private final RampOutput ramp = new RampOutput(hardware.getMotor(Ports.PWM.LEFT_INTAKE),
+                hardware.getMotor(Ports.PWM.RIGHT_INTAKE), hardware.getMotor(Ports.PWM.LEFT_RAMP),
+                hardware.getMotor(Ports.PWM.RIGHT_RAMP));
+        private final BrownoutGovernor governor = new BrownoutGovernor(BrownoutGovernor.DEFAULT_FLOOR);
+        private final PoseEstimator pose = new PoseEstimator();
+        private final SimDriverController driver = new SimDriverController();
+        private final DriverInputSampler sampler = new DriverInputSampler(driver);
+        private final TeleopDriveController controller = new TeleopDriveController();
+        private boolean lastEnabled = false;
+        private int loops = 0;
+        private int profileChanges = 0;
+        private int disables = 0;
+        private int velocityLoops = 0;
+
+        @Override
+        public void run() {
+            loops++;
+            final double now = hardware.clock.getTimestamp();
+
+            // The battery sags under load now and then, far enough below the governor's margin for it to limit
+            hardware.setBatteryVoltage(12.5 - 5.5 * Math.max(0.0, Math.sin(now * 0.3)));
+            governor.update(now, hardware.getBatteryVoltage(), hardware.getTotalCurrent());
+            limitedDrive.setLimit(governor.getDriveLimit());
+            velocityDrive.setMaxOutput(governor.getDriveLimit());
+            ramp.setOutputLimit(governor.getRampLimit());
+            velocityDrive.setMeasurements(now, hardware.leftEncoder.getRate(), hardware.rightEncoder.getRate(),
+                    hardware.getBatteryVoltage());
+            pose.update(hardware.leftEncoder.getDistance(), hardware.rightEncoder.getDistance(),
+                    hardware.leftEncoder.getRate(), hardware.rightEncoder.getRate(), 0, hardware.gyro.getAngle(),
+                    hardware.gyro.getRate(), true);
+
+            // A different profile every ten seconds, and disabled for two seconds in every twenty
+            final DriverProfile profile = DriverProfile.ALL.get((int) (now / 10.0) % DriverProfile.ALL.size());
+            if (profile != sampler.getProfile()) {
+                profileChanges++;
+            }
+            final boolean enabled = now % 20.0 >= 2.0;
+            driver.setPattern(now);
+            sampler.sample(now, enabled, profile, Math.sin(now * 0.13) > 0.3, Math.sin(now * 0.17) > -0.3);
+
+            if (!enabled) {
+                if (lastEnabled) {
+                    limitedDrive.stopMotor();
+                    ramp.stopMotors();
+                    controller.reset();
+                    disables++;
+                }
+                lastEnabled = false;
+                hardware.step(RouteRunner.PERIOD);
+                return;
+            }
+
+            final boolean velocity = Math.sin(now * 0.07) > 0.0;
+            final double intake = controller.update(sampler.getInputs(), hardware.gyro.getAngle(),
+                    velocity ? velocityDrive : limitedDrive);
+            if (velocity) {
+                velocityLoops++;
+            }
+            ramp.setSpeed(intake);
+
+            lastEnabled = true;
+            hardware.step(RouteRunner.PERIOD);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package team6458.sim;
+
+import team6458.control.DriveMixer;
+import team6458.hal.DriveOutput;
+
+/**
+ * A simulated {@link DriveOutput}, which mixes the inputs with a {@link DriveMixer} and sets two {@link SimMotor}s.
+ * Motor safety is not simulated.
+ */
+public final class SimDriveOutput implements DriveOutput {
+
+    public final SimMotor leftMotor;
+    public final SimMotor rightMotor;
+    private final DriveMixer mixer = new DriveMixer();
+
+    public SimDriveOutput(SimMotor leftMotor, SimMotor rightMotor) {
+        this.leftMotor = leftMotor;
+        this.rightMotor = rightMotor;
+    }
+
+    @Override
+    public void arcadeDrive(double xSpeed, double zRotation, boolean squaredInputs) {
+        mixer.arcade(xSpeed, zRotation, squaredInputs);
+        apply();
+    }
+
+    @Override
+    public void curvatureDrive(double xSpeed, double zRotation, boolean isQuickTurn) {
+        mixer.curvature(xSpeed, zRotation, isQuickTurn);
+        apply();
+    }
+
+    @Override
+    public void tankDrive(double leftSpeed, double rightSpeed, boolean squaredInputs) {
+        mixer.tank(leftSpeed, rightSpeed, squaredInputs);
+        apply();
+    }
+
+    @Override
+    public void stopMotor() {
+        mixer.stop();
+        apply();
+    }
+
+    private void apply() {
+        leftMotor.set(mixer.getLeft());
+        rightMotor.set(mixer.getRight());
+    }
+}
@@ -0,0 +1,88 @@
+package team6458.sim;
+
+import team6458.hal.DriverController;
+
+/**
+ * A simulated {@link DriverController}, whose sticks, triggers and buttons are set directly or follow a repeating
+ * driving pattern.
+ */
+public final class SimDriverController implements DriverController {
+
+    private double curve = 0.0;
+    private double throttle = 0.0;
+    private double rightThrottle = 0.0;
+    private double leftTrigger = 0.0;
+    private double rightTrigger = 0.0;
+    private boolean runHeld = false;
+    private boolean headingLockHeld = false;
+
+    /**
+     * Sets everything at once.
+     *
+     * @param curve           The drive (left) stick X axis, positive is clockwise
+     * @param throttle        The drive (left) stick Y axis, positive is forward
+     * @param rightThrottle   The right stick Y axis, positive is forward
+     * @param leftTrigger     The left trigger axis, between 0.0 and 1.0
+     * @param rightTrigger    The right trigger axis, between 0.0 and 1.0
+     * @param runHeld         True if a run button is held
+     * @param headingLockHeld True if a heading lock button is held
+     */
+    public void set(double curve, double throttle, double rightThrottle, double leftTrigger, double rightTrigger,
+                    boolean runHeld, boolean headingLockHeld) {
+        this.curve = curve;
+        this.throttle = throttle;
+        this.rightThrottle = rightThrottle;
+        this.leftTrigger = leftTrigger;
+        this.rightTrigger = rightTrigger;
+        this.runHeld = runHeld;
+        this.headingLockHeld = headingLockHeld;
+    }
+
+    /**
+     * Sets everything to a driving pattern that repeats over time: full stick reversals, so the slew limits of the
+     * driver profiles act, the intake and reverse triggers in turn, and the run and heading lock buttons held now and
+     * then.
+     *
+     * @param now The time in seconds
+     */
+    public void setPattern(double now) {
+        set(0.8 * Math.sin(now * 1.7), 0.9 * Math.signum(Math.sin(now * 0.9)), Math.sin(now * 1.1),
+                Math.max(0.0, -Math.sin(now * 0.5)), Math.max(0.0, Math.sin(now * 0.5)), Math.sin(now * 0.6) > 0.0,
+                Math.sin(now * 0.23) > 0.5);
+    }
+
+    @Override
+    public double getCurve() {
+        return curve;
+    }
+
+    @Override
+    public double getThrottle() {
+        return throttle;
+    }
+
+    @Override
+    public double getRightThrottle() {
+        return rightThrottle;
+    }
+
+    @Override
+    public double getLeftTrigger() {
+        return leftTrigger;
+    }
+
+    @Override
+    public double getRightTrigger() {
+        return rightTrigger;
+    }
+
+    @Override
+    public boolean isRunHeld() {
+        return runHeld;
+    }
+
+    @Override
+    public boolean isHeadingLockHeld() {
+        return headingLockHeld;
+    }
+}
@@ -0,0 +1,61 @@
+package team6458.sim;
+
+import team6458.hal.DistanceEncoder;
+
+/**
+ * A simulated drivetrain encoder. The distance is quantized to the encoder's resolution, like a real encoder.
+ */
+public final class SimEncoder implements DistanceEncoder {
+
+    /**
+     * The rate in m/s below which the encoder is considered stopped, the same as on the robot.
+     */
+    public static final double MIN_RATE = 0.01;
+
+    /**
+     * The distance in metres of one count.
+     */
+    public final double resolution;
+
+    private double position = 0.0;
+    private double offset = 0.0;
+    private double rate = 0.0;
+
+    /**
+     * @param resolution The positive distance in metres of one count
+     */
+    public SimEncoder(double resolution) {
+        this.resolution = resolution;
+    }
+
+    /**
+     * Updates the wheel state, called by the simulator after each physics step.
+     *
+     * @param position The distance the wheels have rolled in metres
+     * @param rate     The wheel velocity in m/s
+     */
+    void update(double position, double rate) {
+        this.position = position;
+        this.rate = rate;
+    }
+
+    @Override
+    public double getDistance() {
+        return Math.floor((position - offset) / resolution) * resolution;
+    }
+
+    @Override
+    public double getRate() {
+        return rate;
+    }
+
+    @Override
+    public boolean getStopped() {
+        return Math.abs(rate) < MIN_RATE;
+    }
+
+    @Override
+    public void reset() {
+        offset = position;
+    }
+}
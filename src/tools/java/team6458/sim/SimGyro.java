@@ -0,0 +1,61 @@
+package team6458.sim;
+
+import edu.wpi.first.wpilibj.interfaces.Gyro;
+
+/**
+ * A simulated gyroscope. It can have a bias, which drifts the angle over time until {@link #calibrate()} is called.
+ */
+public final class SimGyro implements Gyro {
+
+    private double heading = 0.0;
+    private double rate = 0.0;
+    private double bias = 0.0;
+    private double compensation = 0.0;
+    private double drift = 0.0;
+    private double offset = 0.0;
+
+    /**
+     * Updates the true heading, called by the simulator after each physics step.
+     *
+     * @param heading The true heading in degrees, positive is clockwise
+     * @param rate    The true heading rate in degrees per second
+     * @param dt      The time step in seconds
+     */
+    void update(double heading, double rate, double dt) {
+        this.heading = heading;
+        this.rate = rate + bias - compensation;
+        drift += (bias - compensation) * dt;
+    }
+
+    /**
+     * @param bias The uncompensated rate bias in degrees per second
+     */
+    public void setBias(double bias) {
+        this.bias = bias;
+    }
+
+    @Override
+    public void calibrate() {
+        compensation = bias;
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        offset = heading + drift;
+    }
+
+    @Override
+    public double getAngle() {
+        return heading + drift - offset;
+    }
+
+    @Override
+    public double getRate() {
+        return rate;
+    }
+
+    @Override
+    public void free() {
+    }
+}
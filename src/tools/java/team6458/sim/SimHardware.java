@@ -0,0 +1,187 @@
+package team6458.sim;
+
+import edu.wpi.first.wpilibj.interfaces.Accelerometer;
+import edu.wpi.first.wpilibj.interfaces.Gyro;
+import team6458.control.VelocityController;
+import team6458.hal.Clock;
+import team6458.hal.DistanceEncoder;
+import team6458.hal.DriveOutput;
+import team6458.hal.RobotHardware;
+import team6458.sensor.EncoderPresets;
+import team6458.util.Ports;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Simulated {@link RobotHardware}, backed by a {@link DifferentialDrivePhysics} model and a {@link VirtualClock}.
+ * Nothing here touches the HAL, so it runs on any JVM.
+ * <p>
+ * Call {@link #step(double)} once per loop, after the control code has set the outputs for that loop.
+ */
+public final class SimHardware implements RobotHardware {
+
+    /**
+     * The default number of physics steps per {@link #step(double)}.
+     */
+    public static final int DEFAULT_SUBSTEPS = 4;
+
+    public final VirtualClock clock = new VirtualClock();
+    public final DifferentialDrivePhysics physics;
+    public final SimDriveOutput drive = new SimDriveOutput(new SimMotor(), new SimMotor());
+    public final SimEncoder leftEncoder = new SimEncoder(EncoderPresets.CIMCODER.distanceMPerPulse);
+    public final SimEncoder rightEncoder = new SimEncoder(EncoderPresets.CIMCODER.distanceMPerPulse);
+    public final SimGyro gyro = new SimGyro();
+    public final SimAccelerometer accelerometer = new SimAccelerometer();
+    public final SimRangefinder rangefinder = new SimRangefinder();
+    private final Map<Integer, SimMotor> motors = new HashMap<>();
+    private final int substeps;
+    private double batteryVoltage = VelocityController.NOMINAL_VOLTAGE;
+    private double totalCurrent = Double.NaN;
+    private boolean cubeBeamBroken = false;
+    private final Map<Integer, Double> currents = new HashMap<>();
+
+    /**
+     * Constructor with the default physics and {@link #DEFAULT_SUBSTEPS}.
+     */
+    public SimHardware() {
+        this(new DifferentialDrivePhysics(), DEFAULT_SUBSTEPS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param physics  The non-null physics model
+     * @param substeps The positive number of physics steps per {@link #step(double)}
+     */
+    public SimHardware(DifferentialDrivePhysics physics, int substeps) {
+        if (substeps <= 0) {
+            throw new IllegalArgumentException("Substeps must be positive, got " + substeps);
+        }
+        this.physics = physics;
+        this.substeps = substeps;
+        motors.put(Ports.PWM.LEFT_MOTOR, drive.leftMotor);
+        motors.put(Ports.PWM.RIGHT_MOTOR, drive.rightMotor);
+    }
+
+    /**
+     * Advances the physics and the clock, then updates the sensors.
+     *
+     * @param dt The positive time to advance by in seconds
+     */
+    public void step(double dt) {
+        final double subDt = dt / substeps;
+        // The physics model is at nominal voltage, a lower battery gives proportionally less
+        final double voltageScale = batteryVoltage / VelocityController.NOMINAL_VOLTAGE;
+        for (int i = 0; i < substeps; i++) {
+            physics.update(drive.leftMotor.getOutput() * voltageScale, drive.rightMotor.getOutput() * voltageScale,
+                    subDt);
+            gyro.update(physics.getHeading(), physics.getHeadingRate(), subDt);
+        }
+        clock.advance(dt);
+
+        leftEncoder.update(physics.getLeftPosition(), physics.getLeftVelocity());
+        rightEncoder.update(physics.getRightPosition(), physics.getRightVelocity());
+        accelerometer.update(physics.getAcceleration());
+    }
+
+    /**
+     * @return The average encoder distance in metres
+     */
+    public double getAverageDistance() {
+        return (leftEncoder.getDistance() + rightEncoder.getDistance()) / 2.0;
+    }
+
+    @Override
+    public DriveOutput getDrive() {
+        return drive;
+    }
+
+    @Override
+    public DistanceEncoder getLeftEncoder() {
+        return leftEncoder;
+    }
+
+    @Override
+    public DistanceEncoder getRightEncoder() {
+        return rightEncoder;
+    }
+
+    @Override
+    public Gyro getGyro() {
+        return gyro;
+    }
+
+    @Override
+    public Accelerometer getAccelerometer() {
+        return accelerometer;
+    }
+
+    @Override
+    public SimMotor getMotor(int pwmPort) {
+        return motors.computeIfAbsent(pwmPort, port -> new SimMotor());
+    }
+
+    @Override
+    public SimRangefinder getRangefinder() {
+        return rangefinder;
+    }
+
+    @Override
+    public BooleanSupplier getCubeBeamBreak() {
+        return () -> cubeBeamBroken;
+    }
+
+    /**
+     * @param cubeBeamBroken True if a cube breaks the beam across the ramp
+     */
+    public void setCubeBeamBroken(boolean cubeBeamBroken) {
+        this.cubeBeamBroken = cubeBeamBroken;
+    }
+
+    @Override
+    public double getCurrent(int pdpChannel) {
+        return currents.getOrDefault(pdpChannel, 0.0);
+    }
+
+    /**
+     * @param pdpChannel The channel from {@link Ports.PDP}
+     * @param current    The current drawn on that channel in amps
+     */
+    public void setCurrent(int pdpChannel, double current) {
+        currents.put(pdpChannel, current);
+    }
+
+    @Override
+    public Clock getClock() {
+        return clock;
+    }
+
+    @Override
+    public double getBatteryVoltage() {
+        return batteryVoltage;
+    }
+
+    /**
+     * @param batteryVoltage The positive battery voltage, which scales the motor outputs
+     */
+    public void setBatteryVoltage(double batteryVoltage) {
+        if (batteryVoltage <= 0.0) {
+            throw new IllegalArgumentException("Battery voltage must be positive, got " + batteryVoltage);
+        }
+        this.batteryVoltage = batteryVoltage;
+    }
+
+    @Override
+    public double getTotalCurrent() {
+        return totalCurrent;
+    }
+
+    /**
+     * @param totalCurrent The total current in amps, or NaN (the default) if it cannot be measured
+     */
+    public void setTotalCurrent(double totalCurrent) {
+        this.totalCurrent = totalCurrent;
+    }
+}
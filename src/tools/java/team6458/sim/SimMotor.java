@@ -0,0 +1,55 @@
+package team6458.sim;
+
+import edu.wpi.first.wpilibj.SpeedController;
+import team6458.util.Utils;
+
+/**
+ * A simulated motor controller that records what it was set to.
+ */
+public final class SimMotor implements SpeedController {
+
+    private double speed = 0.0;
+    private boolean inverted = false;
+
+    @Override
+    public void set(double speed) {
+        this.speed = Utils.clamp(speed, -1.0, 1.0);
+    }
+
+    @Override
+    public double get() {
+        return speed;
+    }
+
+    /**
+     * @return The output actually applied to the motor, after inversion
+     */
+    public double getOutput() {
+        return inverted ? -speed : speed;
+    }
+
+    @Override
+    public void setInverted(boolean isInverted) {
+        this.inverted = isInverted;
+    }
+
+    @Override
+    public boolean getInverted() {
+        return inverted;
+    }
+
+    @Override
+    public void disable() {
+        speed = 0.0;
+    }
+
+    @Override
+    public void stopMotor() {
+        speed = 0.0;
+    }
+
+    @Override
+    public void pidWrite(double output) {
+        set(output);
+    }
+}
@@ -0,0 +1,24 @@
+package team6458.sim;
+
+import team6458.hal.RangeSensor;
+
+/**
+ * A simulated {@link RangeSensor}, whose distance is set directly. It has no reading until one is set.
+ */
+public final class SimRangefinder implements RangeSensor {
+
+    private final Reading reading = new Reading();
+
+    /**
+     * @param distance  The filtered distance in metres, or NaN for no reading
+     * @param timestamp The time in seconds of the sample
+     */
+    public void set(double distance, double timestamp) {
+        reading.set(distance, timestamp);
+    }
+
+    @Override
+    public Reading read() {
+        return reading;
+    }
+}
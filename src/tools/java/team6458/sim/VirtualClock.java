@@ -0,0 +1,33 @@
+package team6458.sim;
+
+import team6458.hal.Clock;
+
+/**
+ * A {@link Clock} that only moves when it is advanced, so simulated time is independent of wall-clock time.
+ */
+public final class VirtualClock implements Clock {
+
+    private double timestamp = 0.0;
+
+    @Override
+    public double getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @param seconds The non-negative time to advance by in seconds
+     */
+    public void advance(double seconds) {
+        if (seconds < 0.0) {
+            throw new IllegalArgumentException("Cannot advance the clock backwards: " + seconds);
+        }
+        timestamp += seconds;
+    }
+
+    /**
+     * Sets the time back to zero.
+     */
+    public void reset() {
+        timestamp = 0.0;
+    }
+}
@@ -0,0 +1,157 @@
+package team6458.sim.tune;
+
+import team6458.util.ValueGradient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An offline tuner for the autonomous constants. It runs every delivery route on the simulator for each combination
+ * in a parameter grid, in parallel on a {@link ForkJoinPool}, and writes the Pareto-best combinations (by mean
+ * completion time and worst final error) to a CSV file.
+ * <p>
+ * Run with {@code ./gradlew tune}, optionally with {@code -Pargs="..."}:
+ * <ul>
+ * <li>{@code --out <file>}: where to write the CSV, {@code build/tuning/pareto.csv} by default</li>
+ * <li>{@code --threads <n>}: the pool parallelism, the number of processors by default</li>
+ * <li>{@code --quick}: a coarser grid, for checking changes to the simulator</li>
+ * </ul>
+ * The results are only as good as the simulator's physics constants, so the front should be used to pick
+ * candidates to confirm on the field, not as final values.
+ */
+public final class AutoTuner {
+
+    // The full grid
+    private static final double[] DRIVE_KP = {0.01, 0.0175, 0.0275, 0.04, 0.055, 0.075};
+    private static final double[] THROTTLE_FLOOR = {0.2, 0.25, 0.3, 0.35, 0.45};
+    private static final double[] THROTTLE = {0.5, 0.6, 0.7, 0.8};
+    private static final double[] LAST_STRETCH_THROTTLE = {0.6, 0.8, 1.0};
+    private static final double[] ROTATE_MAX = {0.35, 0.45, 0.55, 0.65};
+    private static final double[] ROTATE_MIN = {0.25, 0.3, 0.325, 0.4};
+    private static final double[] ROTATE_RANGE = {10.0, 20.0, 30.0};
+    private static final double[] ROTATE_RANGE_START = {5.0, 10.0};
+    private static final double[] ROTATE_TOLERANCE = {2.0, 3.0, 4.0, 6.0};
+
+    // The quick grid
+    private static final double[] QUICK_DRIVE_KP = {0.0175, 0.0275, 0.04};
+    private static final double[] QUICK_THROTTLE_FLOOR = {0.25, 0.35};
+    private static final double[] QUICK_THROTTLE = {0.6, 0.8};
+    private static final double[] QUICK_LAST_STRETCH_THROTTLE = {0.8};
+    private static final double[] QUICK_ROTATE_MAX = {0.45, 0.55};
+    private static final double[] QUICK_ROTATE_MIN = {0.3, 0.325};
+    private static final double[] QUICK_ROTATE_RANGE = {20.0};
+    private static final double[] QUICK_ROTATE_RANGE_START = {10.0};
+    private static final double[] QUICK_ROTATE_TOLERANCE = {3.0, 4.0};
+
+    /**
+     * No instantiation.
+     */
+    private AutoTuner() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path out = Paths.get("build", "tuning", "pareto.csv");
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean quick = false;
+        for (int i = 0; i < args.length; i++) {
+            if ("--out".equals(args[i]) && i + 1 < args.length) {
+                out = Paths.get(args[++i]);
+            } else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("--quick".equals(args[i])) {
+                quick = true;
+            } else {
+                System.err.println("Usage: AutoTuner [--out <file>] [--threads <n>] [--quick]");
+                System.exit(2);
+            }
+        }
+
+        final List<TuningParameters> parameters = quick ?
+                createGrid(QUICK_DRIVE_KP, QUICK_THROTTLE_FLOOR, QUICK_THROTTLE, QUICK_LAST_STRETCH_THROTTLE,
+                        QUICK_ROTATE_MAX, QUICK_ROTATE_MIN, QUICK_ROTATE_RANGE, QUICK_ROTATE_RANGE_START,
+                        QUICK_ROTATE_TOLERANCE) :
+                createGrid(DRIVE_KP, THROTTLE_FLOOR, THROTTLE, LAST_STRETCH_THROTTLE, ROTATE_MAX, ROTATE_MIN,
+                        ROTATE_RANGE, ROTATE_RANGE_START, ROTATE_TOLERANCE);
+        final TuningScore current = TuningEvaluator.evaluate(TuningParameters.CURRENT);
+        System.out.println("Current: " + TuningParameters.CURRENT);
+        System.out.println("         " + current);
+        System.out.printf(Locale.ROOT, "Evaluating %d combinations on %d threads...%n", parameters.size(), threads);
+
+        final TuningScore[] scores = new TuningScore[parameters.size()];
+        final long start = System.nanoTime();
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new ParameterSweep(parameters, scores));
+        } finally {
+            pool.shutdown();
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+
+        final int[] front = ParetoFront.find(parameters, scores);
+        System.out.printf(Locale.ROOT, "Done in %.1f s (%.0f combinations/s), %d on the Pareto front:%n", seconds,
+                parameters.size() / seconds, front.length);
+        for (int index : front) {
+            System.out.println("  " + scores[index] + "  <-  " + parameters.get(index));
+        }
+
+        write(out, parameters, scores, front);
+        System.out.println("Wrote " + out.toAbsolutePath());
+    }
+
+    private static List<TuningParameters> createGrid(double[] driveKP, double[] throttleFloor, double[] throttle,
+                                                     double[] lastStretchThrottle, double[] rotateMax,
+                                                     double[] rotateMin, double[] rotateRange,
+                                                     double[] rotateRangeStart, double[] rotateTolerance) {
+        final List<ValueGradient> gradients = new ArrayList<>();
+        for (double max : rotateMax) {
+            for (double min : rotateMin) {
+                if (min > max) {
+                    continue;
+                }
+                for (double range : rotateRange) {
+                    for (double rangeStart : rotateRangeStart) {
+                        gradients.add(new ValueGradient(max, min, range, rangeStart));
+                    }
+                }
+            }
+        }
+
+        final List<TuningParameters> grid = new ArrayList<>();
+        for (double kP : driveKP) {
+            for (double floor : throttleFloor) {
+                for (double t : throttle) {
+                    for (double lastStretch : lastStretchThrottle) {
+                        for (ValueGradient gradient : gradients) {
+                            for (double tolerance : rotateTolerance) {
+                                grid.add(new TuningParameters(kP, floor, t, lastStretch, gradient, tolerance));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return grid;
+    }
+
+    private static void write(Path out, List<TuningParameters> parameters, TuningScore[] scores, int[] front)
+            throws IOException {
+        final List<String> lines = new ArrayList<>(front.length + 1);
+        lines.add(TuningParameters.getCsvHeader() + "," + TuningScore.getCsvHeader());
+        for (int index : front) {
+            lines.add(parameters.get(index).toCsv() + "," + scores[index].toCsv());
+        }
+
+        final Path parent = out.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(out, lines, StandardCharsets.UTF_8);
+    }
+}
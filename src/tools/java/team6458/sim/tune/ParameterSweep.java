@@ -0,0 +1,55 @@
+package team6458.sim.tune;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A fork-join task that evaluates a range of {@link TuningParameters}, splitting the range in half until it is
+ * small enough to run directly. Results are written into a shared array at the same index as their parameters, so
+ * no locking is needed.
+ */
+public final class ParameterSweep extends RecursiveAction {
+
+    /**
+     * The number of combinations at or below which a task runs them directly. Each combination runs a dozen
+     * simulated routes, so this is already well above the fork-join overhead.
+     */
+    public static final int THRESHOLD = 8;
+
+    private final List<TuningParameters> parameters;
+    private final TuningScore[] scores;
+    private final int from;
+    private final int to;
+
+    /**
+     * @param parameters The non-null combinations to evaluate
+     * @param scores     The non-null array to write scores into, the same length as {@code parameters}
+     */
+    public ParameterSweep(List<TuningParameters> parameters, TuningScore[] scores) {
+        this(parameters, scores, 0, parameters.size());
+    }
+
+    private ParameterSweep(List<TuningParameters> parameters, TuningScore[] scores, int from, int to) {
+        if (scores.length != parameters.size()) {
+            throw new IllegalArgumentException("Expected " + parameters.size() + " scores, got " + scores.length);
+        }
+        this.parameters = parameters;
+        this.scores = scores;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= THRESHOLD) {
+            for (int i = from; i < to; i++) {
+                scores[i] = TuningEvaluator.evaluate(parameters.get(i));
+            }
+            return;
+        }
+
+        final int middle = (from + to) >>> 1;
+        invokeAll(new ParameterSweep(parameters, scores, from, middle),
+                new ParameterSweep(parameters, scores, middle, to));
+    }
+}
@@ -0,0 +1,49 @@
+package team6458.sim.tune;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds the Pareto-best {@link TuningParameters}: those that no other feasible combination beats on both
+ * completion time and final error.
+ */
+public final class ParetoFront {
+
+    /**
+     * No instantiation.
+     */
+    private ParetoFront() {
+    }
+
+    /**
+     * @param parameters The non-null combinations
+     * @param scores     The non-null scores, at the same indices as {@code parameters}
+     * @return The indices of the feasible, non-dominated combinations, sorted by time
+     */
+    public static int[] find(List<TuningParameters> parameters, TuningScore[] scores) {
+        final List<Integer> feasible = new ArrayList<>();
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i].feasible) {
+                feasible.add(i);
+            }
+        }
+
+        // Sorted by time then error, a combination is on the front if its error is lower than every faster one's
+        feasible.sort(Comparator.<Integer>comparingDouble(i -> scores[i].time)
+                .thenComparingDouble(i -> scores[i].getError()));
+
+        final int[] front = new int[feasible.size()];
+        int size = 0;
+        double bestError = Double.POSITIVE_INFINITY;
+        for (int index : feasible) {
+            final double error = scores[index].getError();
+            if (error < bestError) {
+                bestError = error;
+                front[size++] = index;
+            }
+        }
+        return Arrays.copyOf(front, size);
+    }
+}
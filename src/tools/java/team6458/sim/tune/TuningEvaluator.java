@@ -0,0 +1,137 @@
+package team6458.sim.tune;
+
+import team6458.auto.AutoRoutes;
+import team6458.auto.RouteStep;
+import team6458.cmd.AutoDeliverCommand.AllianceSide;
+import team6458.control.DriveStraightController;
+import team6458.sim.RouteRunner;
+import team6458.sim.RouteRunner.Result;
+import team6458.sim.SimHardware;
+import team6458.util.PlateAssignment.PlateSide;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scores {@link TuningParameters} by running every delivery route on the simulator, under each {@link Condition}.
+ * Each run gets its own {@link SimHardware}, so evaluations can run in parallel.
+ */
+public final class TuningEvaluator {
+
+    /**
+     * A drivetrain condition the parameters should cope with.
+     */
+    public enum Condition {
+        /**
+         * Both sides are equally strong.
+         */
+        NOMINAL(1.0, 1.0),
+        /**
+         * The right side is 5% weaker, so the robot pulls to one side and needs heading correction.
+         */
+        WEAK_RIGHT(1.0, 0.95);
+
+        public final double leftScale;
+        public final double rightScale;
+
+        Condition(double leftScale, double rightScale) {
+            this.leftScale = leftScale;
+            this.rightScale = rightScale;
+        }
+    }
+
+    private static final PlateSide[] PLATE_SIDES = {PlateSide.LEFT, PlateSide.RIGHT};
+
+    /**
+     * No instantiation.
+     */
+    private TuningEvaluator() {
+    }
+
+    /**
+     * @param parameters The non-null parameters
+     * @return The score over every alliance side, plate side and condition
+     */
+    public static TuningScore evaluate(TuningParameters parameters) {
+        double totalTime = 0.0;
+        double worstPosition = 0.0;
+        double worstHeading = 0.0;
+        boolean feasible = true;
+        int runs = 0;
+
+        for (AllianceSide alliance : AllianceSide.values()) {
+            for (PlateSide plate : PLATE_SIDES) {
+                // The cube is not delivered: the ramp step only adds a constant time
+                final List<RouteStep> steps = withThrottleFloor(AutoRoutes.deliver(alliance, plate, false,
+                        parameters.throttle, parameters.lastStretchThrottle, parameters.rotateGradient),
+                        parameters.throttleFloor);
+                final double[] intended = getIntendedPose(steps);
+
+                for (Condition condition : Condition.values()) {
+                    final SimHardware hardware = new SimHardware();
+                    hardware.physics.setSideScale(condition.leftScale, condition.rightScale);
+                    final Result result = new RouteRunner(hardware).setDriveKP(parameters.driveKP)
+                            .setRotateTolerance(parameters.rotateTolerance).run(steps);
+
+                    totalTime += result.time;
+                    worstPosition = Math.max(worstPosition, Math.hypot(result.x - intended[0], result.y - intended[1]));
+                    worstHeading = Math.max(worstHeading, Math.abs(result.heading - intended[2]));
+                    feasible &= result.completed && result.getTimeouts() == 0;
+                    runs++;
+                }
+            }
+        }
+
+        return new TuningScore(totalTime / runs, worstPosition, worstHeading, feasible);
+    }
+
+    /**
+     * @param steps The non-null route
+     * @return The pose the route would end at if every step were exact: X and Y in metres, heading in degrees
+     */
+    public static double[] getIntendedPose(List<RouteStep> steps) {
+        double x = 0.0;
+        double y = 0.0;
+        double heading = 0.0;
+        for (RouteStep step : steps) {
+            switch (step.type) {
+                case DRIVE:
+                case PROFILED_DRIVE:
+                    // Same frame as the physics model: clockwise heading, Y to the left
+                    x += step.value * Math.cos(Math.toRadians(heading));
+                    y -= step.value * Math.sin(Math.toRadians(heading));
+                    break;
+                case ROTATE:
+                case PROFILED_ROTATE:
+                case PID_ROTATE:
+                    heading += step.value;
+                    break;
+                case PATH:
+                    // The path's end is relative to the pose it starts from
+                    final int last = step.path.size() - 1;
+                    final double cos = Math.cos(Math.toRadians(heading));
+                    final double sin = Math.sin(Math.toRadians(heading));
+                    x += step.path.getX(last) * cos + step.path.getY(last) * sin;
+                    y += -step.path.getX(last) * sin + step.path.getY(last) * cos;
+                    heading += step.path.getEndHeading();
+                    break;
+                default:
+                    break;
+            }
+        }
+        return new double[]{x, y, heading};
+    }
+
+    private static List<RouteStep> withThrottleFloor(List<RouteStep> steps, double floor) {
+        final List<RouteStep> result = new ArrayList<>(steps.size());
+        for (RouteStep step : steps) {
+            if (step.type == RouteStep.Type.DRIVE) {
+                result.add(RouteStep.drive(step.value, DriveStraightController.createThrottleGradient(
+                        step.gradient.maximum, step.value, floor), step.timeout));
+            } else {
+                result.add(step);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package team6458.sim.tune;
+
+import team6458.auto.AutoRoutes;
+import team6458.control.DriveStraightController;
+import team6458.control.RotateController;
+import team6458.util.ValueGradient;
+
+import java.util.Locale;
+
+/**
+ * One combination of the autonomous tuning constants. Immutable.
+ */
+public final class TuningParameters {
+
+    /**
+     * The constants currently used on the robot.
+     */
+    public static final TuningParameters CURRENT = new TuningParameters(DriveStraightController.GYRO_CORRECTION,
+            DriveStraightController.THROTTLE_FLOOR, AutoRoutes.DEFAULT_THROTTLE,
+            AutoRoutes.DEFAULT_LAST_STRETCH_THROTTLE, RotateController.DEFAULT_GRADIENT,
+            RotateController.ANGLE_TOLERANCE);
+
+    /**
+     * The proportional constant for heading correction while driving.
+     */
+    public final double driveKP;
+    /**
+     * The lowest throttle of the drive throttle gradient.
+     */
+    public final double throttleFloor;
+    /**
+     * The throttle to drive at.
+     */
+    public final double throttle;
+    /**
+     * The throttle to drive the last stretch into the switch at.
+     */
+    public final double lastStretchThrottle;
+    /**
+     * The speed gradient to rotate with.
+     */
+    public final ValueGradient rotateGradient;
+    /**
+     * The angle tolerance in degrees for rotations.
+     */
+    public final double rotateTolerance;
+
+    public TuningParameters(double driveKP, double throttleFloor, double throttle, double lastStretchThrottle,
+                            ValueGradient rotateGradient, double rotateTolerance) {
+        this.driveKP = driveKP;
+        this.throttleFloor = throttleFloor;
+        this.throttle = throttle;
+        this.lastStretchThrottle = lastStretchThrottle;
+        this.rotateGradient = rotateGradient;
+        this.rotateTolerance = rotateTolerance;
+    }
+
+    /**
+     * @return The CSV header matching {@link #toCsv()}
+     */
+    public static String getCsvHeader() {
+        return "driveKP,throttleFloor,throttle,lastStretchThrottle,rotateMax,rotateMin,rotateRange,rotateRangeStart," +
+                "rotateTolerance";
+    }
+
+    /**
+     * @return The parameters as a CSV row, without a line ending
+     */
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%.4f,%.3f,%.3f,%.3f,%.3f,%.3f,%.1f,%.1f,%.1f", driveKP, throttleFloor,
+                throttle, lastStretchThrottle, rotateGradient.maximum, rotateGradient.minimum, rotateGradient.range,
+                rotateGradient.rangeStart, rotateTolerance);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "kP %.4f, floor %.2f, throttle %.2f/%.2f, rotate %.3f-%.3f over %.0f+%.0f " +
+                        "deg, tolerance %.1f deg", driveKP, throttleFloor, throttle, lastStretchThrottle,
+                rotateGradient.minimum, rotateGradient.maximum, rotateGradient.range, rotateGradient.rangeStart,
+                rotateTolerance);
+    }
+}
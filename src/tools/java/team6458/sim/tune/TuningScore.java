@@ -0,0 +1,67 @@
+package team6458.sim.tune;
+
+import java.util.Locale;
+
+/**
+ * The score of one {@link TuningParameters} combination over every route and condition. Lower is better for both
+ * objectives: {@link #time} and {@link #getError()}.
+ */
+public final class TuningScore {
+
+    /**
+     * How many metres of error one degree of heading error counts as in {@link #getError()}. One degree over the
+     * ~3 m of a route is ~5 cm.
+     */
+    public static final double METRES_PER_DEGREE = 0.05;
+
+    /**
+     * The mean time in seconds to complete a route.
+     */
+    public final double time;
+    /**
+     * The worst distance in metres between the final position and the intended one.
+     */
+    public final double positionError;
+    /**
+     * The worst difference in degrees between the final heading and the intended one.
+     */
+    public final double headingError;
+    /**
+     * True if every route completed within the autonomous period without any step timing out.
+     */
+    public final boolean feasible;
+
+    public TuningScore(double time, double positionError, double headingError, boolean feasible) {
+        this.time = time;
+        this.positionError = positionError;
+        this.headingError = headingError;
+        this.feasible = feasible;
+    }
+
+    /**
+     * @return The combined final error in metres
+     */
+    public double getError() {
+        return positionError + headingError * METRES_PER_DEGREE;
+    }
+
+    /**
+     * @return The CSV header matching {@link #toCsv()}
+     */
+    public static String getCsvHeader() {
+        return "time,error,positionError,headingError";
+    }
+
+    /**
+     * @return The score as a CSV row, without a line ending
+     */
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%.3f,%.4f,%.4f,%.3f", time, getError(), positionError, headingError);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s: %.2f s, error %.3f m (position %.3f m, heading %.2f deg)",
+                feasible ? "feasible" : "INFEASIBLE", time, getError(), positionError, headingError);
+    }
+}
@@ -0,0 +1,133 @@
+package team6458.telemetry;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+import static team6458.telemetry.TelemetryRecorder.*;
+
+/**
+ * Decodes a {@link TelemetryRecorder} log into CSV, oldest record first. Runs on a desktop JVM.
+ * <p>
+ * Usage: {@code TelemetryDecoder <log file> [<csv file>]}, writing to standard output if no CSV file is given.
+ * Active commands are written as their names, separated by {@code |}.
+ */
+public final class TelemetryDecoder {
+
+    private static final String HEADER = "sequence,timestamp,mode,plates,gyro_ready,gyro_angle,gyro_rate," +
+            "left_distance,right_distance,left_rate,right_rate,accel_x,accel_y,accel_z," +
+            "left_motor,right_motor,ramp_motor,drive_limit,ramp_limit,drive_x,drive_y,right_y,left_trigger,right_trigger," +
+            "raw_drive_x,raw_drive_y,raw_right_y,run_held,heading_lock_held,tank_controls,square_inputs," +
+            "velocity_control,cube_beam_broken,driver_profile,game_data,route_side,route_style,active_commands";
+
+    /**
+     * No instantiation.
+     */
+    private TelemetryDecoder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: TelemetryDecoder <log file> [<csv file>]");
+            System.exit(2);
+        }
+
+        final TelemetryLog log = TelemetryLog.read(Paths.get(args[0]));
+        if (args.length == 2) {
+            final Path out = Paths.get(args[1]);
+            try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+                final long records = decode(log, writer);
+                System.out.println("Wrote " + records + " records to " + out);
+            }
+        } else {
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            decode(log, writer);
+            writer.flush();
+        }
+    }
+
+    /**
+     * Decodes a whole log.
+     *
+     * @param log The non-null log
+     * @param out The non-null writer for the CSV
+     * @return The number of records written
+     */
+    public static long decode(TelemetryLog log, Writer out) {
+        final PrintWriter writer = new PrintWriter(out);
+        writer.println(HEADER);
+
+        long written = 0;
+        for (long sequence = log.getFirst(); sequence < log.getCount(); sequence++) {
+            if (!log.select(sequence)) {
+                // Not flushed before the log was copied, or overwritten while it was
+                continue;
+            }
+            writeRecord(log, writer);
+            written++;
+        }
+        writer.flush();
+        return written;
+    }
+
+    private static void writeRecord(TelemetryLog log, PrintWriter writer) {
+        writer.print(log.getSequence());
+        writer.print(String.format(Locale.ROOT, ",%.6f,", log.getTimestamp()));
+        writer.print(log.getMode());
+        writer.print(',');
+        writer.print(log.getPlates());
+        writer.print(',');
+        writer.print(log.isGyroReady());
+
+        final int[] floats = {GYRO_ANGLE, GYRO_RATE, LEFT_DISTANCE, RIGHT_DISTANCE, LEFT_RATE, RIGHT_RATE,
+                ACCEL_X, ACCEL_Y, ACCEL_Z, LEFT_MOTOR, RIGHT_MOTOR, RAMP_MOTOR, DRIVE_LIMIT, RAMP_LIMIT,
+                AXIS_DRIVE_X, AXIS_DRIVE_Y, AXIS_RIGHT_Y, AXIS_LEFT_TRIGGER, AXIS_RIGHT_TRIGGER,
+                RAW_DRIVE_X, RAW_DRIVE_Y, RAW_RIGHT_Y};
+        for (int field : floats) {
+            writer.print(',');
+            writer.print(log.getField(field));
+        }
+
+        final int buttons = log.getByte(BUTTONS);
+        final int flags = log.getByte(FLAGS);
+        writer.print(',');
+        writer.print((buttons & BUTTON_RUN) != 0);
+        writer.print(',');
+        writer.print((buttons & BUTTON_HEADING_LOCK) != 0);
+        writer.print(',');
+        writer.print((flags & FLAG_TANK_CONTROLS) != 0);
+        writer.print(',');
+        writer.print((flags & FLAG_SQUARE_INPUTS) != 0);
+        writer.print(',');
+        writer.print(log.isVelocityControlled());
+        writer.print(',');
+        writer.print(log.isCubeBeamBroken());
+        writer.print(',');
+        writer.print(log.getDriverProfile() == null ? "" : log.getDriverProfile().getName());
+        writer.print(',');
+        writer.print(log.getGameData());
+        writer.print(',');
+        writer.print(log.getRouteSide() == null ? "" : log.getRouteSide());
+        writer.print(',');
+        writer.print(log.getRouteSide() == null ? "" : log.getRouteStyle());
+
+        writer.print(',');
+        final long active = log.getActiveCommands();
+        boolean first = true;
+        for (int id = 0; id < MAX_COMMANDS; id++) {
+            if ((active & (1L << id)) != 0) {
+                writer.print(first ? "" : "|");
+                writer.print(log.getCommandName(id));
+                first = false;
+            }
+        }
+        writer.println();
+    }
+}
@@ -0,0 +1,122 @@
+package team6458.vision;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import team6458.hal.Clock;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs the cube detection on a directory of recorded images off the robot, such as on a Linux laptop. The OpenCV
+ * Java native library must be on the {@code java.library.path}, see the {@code detectCubes} Gradle task.
+ * <p>
+ * Usage: {@code OfflineVision <image directory> [--fps <rate>] [--fov <degrees>]}
+ * <ul>
+ * <li>Without {@code --fps}, every image is processed in order and the results are written to standard output as
+ * CSV.</li>
+ * <li>With {@code --fps}, the images are played back at that frame rate through a {@link VisionPipeline}, read at
+ * the main loop's rate, and the frames processed, dropped and stale are counted.</li>
+ * </ul>
+ */
+public final class OfflineVision {
+
+    /**
+     * The period in seconds at which results are read in a pipeline run, the main loop's.
+     */
+    private static final double LOOP_PERIOD = 0.02;
+
+    /**
+     * No instantiation.
+     */
+    private OfflineVision() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: OfflineVision <image directory> [--fps <rate>] [--fov <degrees>]");
+            System.exit(2);
+        }
+        final Path directory = Paths.get(args[0]);
+        double frameRate = 0.0;
+        double fov = CubeDetector.DEFAULT_HORIZONTAL_FOV;
+        for (int i = 1; i < args.length; i++) {
+            if ("--fps".equals(args[i]) && i + 1 < args.length) {
+                frameRate = Double.parseDouble(args[++i]);
+            } else if ("--fov".equals(args[i]) && i + 1 < args.length) {
+                fov = Double.parseDouble(args[++i]);
+            } else {
+                System.err.println("Unknown argument " + args[i]);
+                System.exit(2);
+            }
+        }
+
+        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+        final Clock clock = () -> System.nanoTime() / 1.0e9;
+        if (frameRate > 0.0) {
+            runPipeline(new ImageDirectorySource(directory, clock, frameRate), new CubeDetector(fov), clock);
+        } else {
+            runSequential(new ImageDirectorySource(directory, clock, 0.0), new CubeDetector(fov), clock);
+        }
+    }
+
+    /**
+     * Processes every image in order on this thread.
+     */
+    private static void runSequential(ImageDirectorySource source, CubeDetector detector, Clock clock) {
+        final List<Path> files = source.getFiles();
+        final Mat frame = new Mat();
+        final CubeTarget target = new CubeTarget();
+        int found = 0;
+        double totalTime = 0.0;
+        System.out.println("file,found,bearing_deg,distance_m,score,processing_ms");
+        for (int i = 0; i < files.size(); i++) {
+            final double captureTime = source.grab(frame);
+            if (captureTime == FrameSource.NO_FRAME) {
+                System.err.println(source.getError());
+                continue;
+            }
+            target.reset(captureTime, i + 1);
+            final double start = clock.getTimestamp();
+            if (detector.detect(frame, target)) {
+                found++;
+            }
+            final double time = clock.getTimestamp() - start;
+            totalTime += time;
+            System.out.println(String.format(Locale.ROOT, "%s,%b,%.2f,%.3f,%.3f,%.2f", files.get(i).getFileName(),
+                    target.isFound(), target.getBearing(), target.getDistance(), target.getScore(), time * 1.0e3));
+        }
+        System.err.println(String.format(Locale.ROOT, "%d images, %d with a cube, %.2f ms average", files.size(),
+                found, files.isEmpty() ? 0.0 : totalTime * 1.0e3 / files.size()));
+    }
+
+    /**
+     * Plays the images back through the pipeline, reading results like the main loop does.
+     */
+    private static void runPipeline(ImageDirectorySource source, CubeDetector detector, Clock clock)
+            throws InterruptedException {
+        final VisionPipeline pipeline = new VisionPipeline(clock, VisionPipeline.DEFAULT_MAX_FRAME_AGE);
+        pipeline.start(source, detector);
+        long lastFrame = 0L;
+        double worstRead = 0.0;
+        while (pipeline.isRunning()) {
+            final double start = clock.getTimestamp();
+            final CubeTarget target = pipeline.getLatest();
+            worstRead = Math.max(worstRead, clock.getTimestamp() - start);
+            if (target.getFrameNumber() != lastFrame) {
+                lastFrame = target.getFrameNumber();
+                System.out.println(String.format(Locale.ROOT, "%s, latency %.1f ms, processing %.1f ms", target,
+                        (clock.getTimestamp() - target.getCaptureTime()) * 1.0e3,
+                        target.getProcessingTime() * 1.0e3));
+            }
+            Thread.sleep((long) (LOOP_PERIOD * 1.0e3));
+        }
+        pipeline.join();
+        System.err.println(String.format(Locale.ROOT, "%d grabbed, %d processed, %d dropped, %d stale, " +
+                        "slowest read %.3f ms", pipeline.getGrabbedCount(), pipeline.getProcessedCount(),
+                pipeline.getDroppedCount(), pipeline.getStaleCount(), worstRead * 1.0e3));
+    }
+}